@@ -1,7 +1,13 @@
 package com.salapp.api.composite.product;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+
 import java.util.List;
 
+/**
+ * The product with the first page of its recommendations and reviews. When a product has more of them, the cursor of
+ * the list gives where the next page starts, see {@code /recommendation/page} and {@code /review/page}.
+ */
 public class ProductAggregate {
 
     private final int productId;
@@ -10,14 +16,47 @@ public class ProductAggregate {
     private final List<RecommendationSummary> recommendations;
     private final List<ReviewSummary> reviews;
     private final ServiceAddress serviceAddress;
+    private final Integer recommendationsCursor;
+    private final Integer reviewsCursor;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private final Integer version;
+
+    public ProductAggregate() {
+        this.productId = 0;
+        this.name = null;
+        this.weight = 0;
+        this.recommendations = null;
+        this.recommendationsCursor = null;
+        this.reviews = null;
+        this.reviewsCursor = null;
+        this.serviceAddress = null;
+        this.version = null;
+    }
 
     public ProductAggregate(int productId, String name, int weight, List<RecommendationSummary> recommendations, List<ReviewSummary> reviews, ServiceAddress serviceAddress) {
+        this(productId, name, weight, recommendations, null, reviews, null, serviceAddress);
+    }
+
+    public ProductAggregate(int productId, String name, int weight,
+                            List<RecommendationSummary> recommendations, Integer recommendationsCursor,
+                            List<ReviewSummary> reviews, Integer reviewsCursor,
+                            ServiceAddress serviceAddress) {
+        this(productId, name, weight, recommendations, recommendationsCursor, reviews, reviewsCursor, serviceAddress, null);
+    }
+
+    public ProductAggregate(int productId, String name, int weight,
+                            List<RecommendationSummary> recommendations, Integer recommendationsCursor,
+                            List<ReviewSummary> reviews, Integer reviewsCursor,
+                            ServiceAddress serviceAddress, Integer version) {
         this.productId = productId;
         this.name = name;
         this.weight = weight;
         this.recommendations = recommendations;
+        this.recommendationsCursor = recommendationsCursor;
         this.reviews = reviews;
+        this.reviewsCursor = reviewsCursor;
         this.serviceAddress = serviceAddress;
+        this.version = version;
     }
 
     public int getProductId() {
@@ -43,4 +82,25 @@ public class ProductAggregate {
     public ServiceAddress getServiceAddress() {
         return serviceAddress;
     }
+
+    /**
+     * @return where the next page of recommendations starts, null when all of them are in the aggregate
+     */
+    public Integer getRecommendationsCursor() {
+        return recommendationsCursor;
+    }
+
+    /**
+     * @return where the next page of reviews starts, null when all of them are in the aggregate
+     */
+    public Integer getReviewsCursor() {
+        return reviewsCursor;
+    }
+
+    /**
+     * @return the version of the product, null when it is not known
+     */
+    public Integer getVersion() {
+        return version;
+    }
 }
@@ -0,0 +1,105 @@
+package com.salapp.api.composite.product;
+
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+import io.swagger.annotations.ApiResponse;
+import io.swagger.annotations.ApiResponses;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * Non-blocking variant of {@link ProductCompositeService}, same endpoint and same payload.
+ */
+@Api(value = "REST API for composite product information")
+public interface ReactiveProductCompositeService {
+
+    /**
+     * curl $HOST:$PORT/product-composite/1
+     * <p>
+     * The response carries a strong ETag derived from the versions of the product, its recommendations and its reviews.
+     * A request whose If-None-Match still matches it is answered with 304 Not Modified and no body.
+     *
+     * @param productId productId
+     * @return the composite product info with its ETag, if found, else an empty Mono
+     */
+    @ApiOperation(
+            value = "${api.product-composite.get-composite-product.description}",
+            notes = "${api.product-composite.get-composite-product-notes}"
+    )
+    @ApiResponses(value = {
+            @ApiResponse(code = 400, message = "Bad request, invalid format of the request. See response message for more information."),
+            @ApiResponse(code = 404, message = "Not found, the specified id does not exist."),
+            @ApiResponse(code = 422, message = "Unprocessable entity, input parameters caused the processing to fails. See response message for more information.")
+    })
+    @GetMapping(value = "/product-composite/{productId}", produces = MediaType.APPLICATION_JSON_VALUE)
+    Mono<ResponseEntity<ProductAggregate>> getProduct(@PathVariable int productId);
+
+    /**
+     * curl $HOST:$PORT/product-composite?ids=1,2,3
+     * <p>
+     * Every core service is called once for the whole batch, aggregates are written as newline delimited JSON in the
+     * order the ids were given. Ids without a product are left out.
+     *
+     * @param productIds ids of the products
+     * @return the composite product info of the products that were found
+     */
+    @ApiOperation(
+            value = "${api.product-composite.get-composite-products.description}",
+            notes = "${api.product-composite.get-composite-products.notes}"
+    )
+    @ApiResponses(value = {
+            @ApiResponse(code = 400, message = "Bad request, invalid format of the request. See response message for more information."),
+            @ApiResponse(code = 422, message = "Unprocessable entity, input parameters caused the processing to fails. See response message for more information.")
+    })
+    @GetMapping(value = "/product-composite", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    Flux<ProductAggregate> getProducts(@RequestParam(value = "ids") List<Integer> productIds);
+
+    /**
+     * curl -X POST $HOST:$PORT/product-composite -H "Content-Type: application/json" \
+     *   --data '{"productId":123,"name":"product 123","weight":123,"recommendations":[...],"reviews":[...]}'
+     * <p>
+     * The product is created first, its recommendations and reviews are then written concurrently in bulk batches.
+     * When one of them fails, whatever was written for the product is deleted again.
+     *
+     * @param body the product with its recommendations and reviews, the service address is ignored
+     */
+    @ApiOperation(
+            value = "${api.product-composite.create-composite-product.description}",
+            notes = "${api.product-composite.create-composite-product.notes}"
+    )
+    @ApiResponses(value = {
+            @ApiResponse(code = 400, message = "Bad request, invalid format of the request. See response message for more information."),
+            @ApiResponse(code = 422, message = "Unprocessable entity, input parameters caused the processing to fails. See response message for more information.")
+    })
+    @PostMapping(value = "/product-composite", consumes = MediaType.APPLICATION_JSON_VALUE)
+    Mono<Void> createCompositeProduct(@RequestBody ProductAggregate body);
+
+    /**
+     * curl -X DELETE $HOST:$PORT/product-composite/1
+     * <p>
+     * Deletes the product, its recommendations and its reviews concurrently. Deleting a product that does not exist
+     * is not an error, so a failed delete can simply be repeated.
+     *
+     * @param productId productId
+     */
+    @ApiOperation(
+            value = "${api.product-composite.delete-composite-product.description}",
+            notes = "${api.product-composite.delete-composite-product.notes}"
+    )
+    @ApiResponses(value = {
+            @ApiResponse(code = 400, message = "Bad request, invalid format of the request. See response message for more information."),
+            @ApiResponse(code = 422, message = "Unprocessable entity, input parameters caused the processing to fails. See response message for more information.")
+    })
+    @DeleteMapping(value = "/product-composite/{productId}")
+    Mono<Void> deleteCompositeProduct(@PathVariable int productId);
+}
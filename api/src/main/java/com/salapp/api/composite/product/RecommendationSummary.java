@@ -1,14 +1,38 @@
 package com.salapp.api.composite.product;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+
 public class RecommendationSummary {
     private final int recommendationId;
     private final String author;
     private final int rate;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private final String content;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private final Integer version;
+
+    public RecommendationSummary() {
+        this.recommendationId = 0;
+        this.author = null;
+        this.rate = 0;
+        this.content = null;
+        this.version = null;
+    }
 
     public RecommendationSummary(int recommendationId, String author, int rate) {
+        this(recommendationId, author, rate, null);
+    }
+
+    public RecommendationSummary(int recommendationId, String author, int rate, String content) {
+        this(recommendationId, author, rate, content, null);
+    }
+
+    public RecommendationSummary(int recommendationId, String author, int rate, String content, Integer version) {
         this.recommendationId = recommendationId;
         this.author = author;
         this.rate = rate;
+        this.content = content;
+        this.version = version;
     }
 
     public int getRecommendationId() {
@@ -22,4 +46,15 @@ public class RecommendationSummary {
     public int getRate() {
         return rate;
     }
+
+    public String getContent() {
+        return content;
+    }
+
+    /**
+     * @return the version of the recommendation, null when it is not known
+     */
+    public Integer getVersion() {
+        return version;
+    }
 }
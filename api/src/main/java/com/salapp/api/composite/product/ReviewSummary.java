@@ -1,15 +1,39 @@
 package com.salapp.api.composite.product;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+
 public class ReviewSummary {
 
     private final int reviewId;
     private final String author;
     private final String subject;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private final String content;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private final Integer version;
+
+    public ReviewSummary() {
+        this.reviewId = 0;
+        this.author = null;
+        this.subject = null;
+        this.content = null;
+        this.version = null;
+    }
 
     public ReviewSummary(int reviewId, String author, String subject) {
+        this(reviewId, author, subject, null);
+    }
+
+    public ReviewSummary(int reviewId, String author, String subject, String content) {
+        this(reviewId, author, subject, content, null);
+    }
+
+    public ReviewSummary(int reviewId, String author, String subject, String content, Integer version) {
         this.reviewId = reviewId;
         this.author = author;
         this.subject = subject;
+        this.content = content;
+        this.version = version;
     }
 
     public int getReviewId() {
@@ -23,4 +47,15 @@ public class ReviewSummary {
     public String getSubject() {
         return subject;
     }
+
+    public String getContent() {
+        return content;
+    }
+
+    /**
+     * @return the version of the review, null when it is not known
+     */
+    public Integer getVersion() {
+        return version;
+    }
 }
@@ -0,0 +1,20 @@
+package com.salapp.api.core;
+
+import org.springframework.http.MediaType;
+
+/**
+ * Media types the core services offer next to JSON.
+ */
+public final class CoreMediaTypes {
+
+    /**
+     * Smile, the binary encoding of the Jackson data model. The same documents as the JSON ones, smaller and quicker to
+     * parse, for the traffic between the composite and the core services.
+     */
+    public static final String APPLICATION_SMILE_VALUE = "application/x-jackson-smile";
+
+    public static final MediaType APPLICATION_SMILE = MediaType.valueOf(APPLICATION_SMILE_VALUE);
+
+    private CoreMediaTypes() {
+    }
+}
@@ -0,0 +1,12 @@
+package com.salapp.api.core;
+
+/**
+ * Elements returned by a core service, they carry the address of the service instance that returned them unless the
+ * service only sends it once, in the X-Service-Address response header.
+ */
+public interface HasServiceAddress {
+
+    String getServiceAddress();
+
+    void setServiceAddress(String serviceAddress);
+}
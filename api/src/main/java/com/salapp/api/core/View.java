@@ -0,0 +1,18 @@
+package com.salapp.api.core;
+
+/**
+ * How much of each review or recommendation a core service reads and returns, see the view request parameter.
+ */
+public enum View {
+
+    /**
+     * Every field.
+     */
+    FULL,
+
+    /**
+     * Everything but the content. The content is not read from the database either, this is what the composite needs
+     * for its aggregates.
+     */
+    SUMMARY
+}
@@ -0,0 +1,63 @@
+package com.salapp.api.core.bulk;
+
+/**
+ * An item of a bulk request that was not written.
+ */
+public class BulkFailure {
+    private int index;
+    private int productId;
+    private int id;
+    private String message;
+
+    public BulkFailure() {
+        this.index = 0;
+        this.productId = 0;
+        this.id = 0;
+        this.message = null;
+    }
+
+    /**
+     * @param index     position of the item in the request, starting at 0
+     * @param productId
+     * @param id        the reviewId or recommendationId of the item
+     * @param message
+     */
+    public BulkFailure(int index, int productId, int id, String message) {
+        this.index = index;
+        this.productId = productId;
+        this.id = id;
+        this.message = message;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public int getProductId() {
+        return productId;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setIndex(int index) {
+        this.index = index;
+    }
+
+    public void setProductId(int productId) {
+        this.productId = productId;
+    }
+
+    public void setId(int id) {
+        this.id = id;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+}
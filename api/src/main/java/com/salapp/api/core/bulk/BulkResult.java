@@ -0,0 +1,57 @@
+package com.salapp.api.core.bulk;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Outcome of a bulk request. Items that could not be written, e.g. duplicates, are listed in failures, the other
+ * items of the request are written regardless.
+ */
+public class BulkResult {
+    private int received;
+    private int created;
+    private List<BulkFailure> failures;
+
+    public BulkResult() {
+        this.received = 0;
+        this.created = 0;
+        this.failures = Collections.emptyList();
+    }
+
+    public BulkResult(int received, int created, List<BulkFailure> failures) {
+        this.received = received;
+        this.created = created;
+        this.failures = failures;
+    }
+
+    public static BulkResult combine(BulkResult first, BulkResult second) {
+        List<BulkFailure> failures = new ArrayList<>(first.getFailures());
+        failures.addAll(second.getFailures());
+        return new BulkResult(first.getReceived() + second.getReceived(), first.getCreated() + second.getCreated(), failures);
+    }
+
+    public int getReceived() {
+        return received;
+    }
+
+    public int getCreated() {
+        return created;
+    }
+
+    public List<BulkFailure> getFailures() {
+        return failures;
+    }
+
+    public void setReceived(int received) {
+        this.received = received;
+    }
+
+    public void setCreated(int created) {
+        this.created = created;
+    }
+
+    public void setFailures(List<BulkFailure> failures) {
+        this.failures = failures;
+    }
+}
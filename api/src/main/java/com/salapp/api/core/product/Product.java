@@ -1,11 +1,17 @@
 package com.salapp.api.core.product;
 
-public class Product {
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.salapp.api.core.HasServiceAddress;
+
+public class Product implements HasServiceAddress {
 
     private int productId;
     private String name;
     private int weight;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
     private String serviceAddress;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Integer version;
 
     public Product() {
         this.productId = 0;
@@ -33,10 +39,12 @@ public class Product {
         return weight;
     }
 
+    @Override
     public String getServiceAddress() {
         return serviceAddress;
     }
 
+    @Override
     public void setServiceAddress(String serviceAddress) {
         this.serviceAddress = serviceAddress;
     }
@@ -52,5 +60,15 @@ public class Product {
     public void setWeight(int weight) {
         this.weight = weight;
     }
-}
 
+    /**
+     * @return the optimistic locking version of the stored entity, null when it does not come from a core service
+     */
+    public Integer getVersion() {
+        return version;
+    }
+
+    public void setVersion(Integer version) {
+        this.version = version;
+    }
+}
@@ -1,8 +1,11 @@
 package com.salapp.api.core.product;
 
+import com.salapp.api.core.CoreMediaTypes;
 import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
+
 public interface ProductService {
 
     @PostMapping(value = "/product", consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
@@ -13,9 +16,18 @@ public interface ProductService {
      * @param productId id
      * @return the product, if found, else null
      */
-    @GetMapping(value = "/product/{productId}", produces = MediaType.APPLICATION_JSON_VALUE)
+    @GetMapping(value = "/product/{productId}", produces = {MediaType.APPLICATION_JSON_VALUE, CoreMediaTypes.APPLICATION_SMILE_VALUE})
     Product getProduct(@PathVariable int productId);
 
+    /**
+     * curl $HOST:$PORT/product?productIds=1,2,3
+     *
+     * @param productIds ids of the products to look up in a single query
+     * @return the products that were found, products that do not exist are left out
+     */
+    @GetMapping(value = "/product", produces = {MediaType.APPLICATION_JSON_VALUE, CoreMediaTypes.APPLICATION_SMILE_VALUE})
+    List<Product> getProducts(@RequestParam(value = "productIds") List<Integer> productIds);
+
     /**
      * curl -X DELETE $HOST:$PORT/product/1
      *
@@ -0,0 +1,43 @@
+package com.salapp.api.core.product;
+
+import com.salapp.api.core.CoreMediaTypes;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * Non-blocking variant of {@link ProductService}, same endpoints and same payloads.
+ */
+public interface ReactiveProductService {
+
+    @PostMapping(value = "/product", consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+    Mono<Product> createProduct(@RequestBody Product body);
+
+    /***
+     * curl: $HOST:$PORT/product/1
+     * @param productId id
+     * @return the product, if found, else a NotFoundException error
+     */
+    @GetMapping(value = "/product/{productId}", produces = {MediaType.APPLICATION_JSON_VALUE, CoreMediaTypes.APPLICATION_SMILE_VALUE})
+    Mono<Product> getProduct(@PathVariable int productId);
+
+    /**
+     * curl $HOST:$PORT/product?productIds=1,2,3
+     *
+     * @param productIds ids of the products to look up in a single query
+     * @return the products that were found, products that do not exist are left out
+     */
+    @GetMapping(value = "/product", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE, CoreMediaTypes.APPLICATION_SMILE_VALUE})
+    Flux<Product> getProducts(@RequestParam(value = "productIds") List<Integer> productIds);
+
+    /**
+     * curl -X DELETE $HOST:$PORT/product/1
+     *
+     * @param productId product id
+     */
+    @DeleteMapping(value = "/product/{productId}")
+    Mono<Void> deleteProduct(@PathVariable int productId);
+}
@@ -1,12 +1,19 @@
 package com.salapp.api.core.recommendation;
 
-public class Recommendation {
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.salapp.api.core.HasServiceAddress;
+
+public class Recommendation implements HasServiceAddress {
     private int productId;
     private int recommendationId;
     private String author;
     private int rate;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
     private String content;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
     private String serviceAddress;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Integer version;
 
     public Recommendation() {
         this.productId = 0;
@@ -46,6 +53,7 @@ public class Recommendation {
         return content;
     }
 
+    @Override
     public String getServiceAddress() {
         return serviceAddress;
     }
@@ -70,7 +78,19 @@ public class Recommendation {
         this.content = content;
     }
 
+    @Override
     public void setServiceAddress(String serviceAddress) {
         this.serviceAddress = serviceAddress;
     }
+
+    /**
+     * @return the optimistic locking version of the stored entity, null when it does not come from a core service
+     */
+    public Integer getVersion() {
+        return version;
+    }
+
+    public void setVersion(Integer version) {
+        this.version = version;
+    }
 }
@@ -0,0 +1,50 @@
+package com.salapp.api.core.recommendation;
+
+import java.util.List;
+
+/**
+ * One page of the recommendations of a product, ordered by recommendationId.
+ * <p>
+ * {@code nextCursor} is the recommendationId to pass as cursor to get the following page, null on the last page.
+ */
+public class RecommendationPage {
+    private int productId;
+    private List<Recommendation> recommendations;
+    private Integer nextCursor;
+
+    public RecommendationPage() {
+        this.productId = 0;
+        this.recommendations = null;
+        this.nextCursor = null;
+    }
+
+    public RecommendationPage(int productId, List<Recommendation> recommendations, Integer nextCursor) {
+        this.productId = productId;
+        this.recommendations = recommendations;
+        this.nextCursor = nextCursor;
+    }
+
+    public int getProductId() {
+        return productId;
+    }
+
+    public List<Recommendation> getRecommendations() {
+        return recommendations;
+    }
+
+    public Integer getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setProductId(int productId) {
+        this.productId = productId;
+    }
+
+    public void setRecommendations(List<Recommendation> recommendations) {
+        this.recommendations = recommendations;
+    }
+
+    public void setNextCursor(Integer nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+}
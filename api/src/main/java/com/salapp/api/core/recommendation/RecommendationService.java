@@ -1,7 +1,12 @@
 package com.salapp.api.core.recommendation;
 
+import com.salapp.api.core.CoreMediaTypes;
+import com.salapp.api.core.View;
+import com.salapp.api.core.bulk.BulkResult;
 import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 import java.util.List;
 
@@ -11,14 +16,75 @@ public interface RecommendationService {
     @PostMapping(value = "/recommendation", consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
     Recommendation createRecommendation(@RequestBody Recommendation body);
 
+    /**
+     * curl -X POST $HOST:$PORT/recommendation/bulk -H "Content-Type: application/x-ndjson" --data-binary @recommendations.ndjson
+     *
+     * @param body the recommendations as a JSON array or as newline delimited JSON
+     * @return how many recommendations were created, and why the others were not
+     */
+    @PostMapping(value = "/recommendation/bulk",
+            consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE},
+            produces = MediaType.APPLICATION_JSON_VALUE)
+    Mono<BulkResult> createRecommendations(@RequestBody Flux<Recommendation> body);
+
     /**
      * curl $HOST:$PORT/recommendation?productId=1
      *
      * @param productId
      * @return
      */
-    @GetMapping(value = "/recommendation", produces = MediaType.APPLICATION_JSON_VALUE)
-    List<Recommendation> getRecommendations(@RequestParam(value = "productId") int productId);
+    @GetMapping(value = "/recommendation", produces = {MediaType.APPLICATION_JSON_VALUE, CoreMediaTypes.APPLICATION_SMILE_VALUE})
+    List<Recommendation> getRecommendations(@RequestParam(value = "productId") int productId, @RequestParam(value = "view", defaultValue = "FULL") View view);
+
+    /**
+     * curl $HOST:$PORT/recommendation?productIds=1,2,3
+     *
+     * @param productIds
+     * @param view summary leaves out the content
+     * @return the recommendations of all the given products, read with a single query
+     */
+    @GetMapping(value = "/recommendation", params = "productIds", produces = {MediaType.APPLICATION_JSON_VALUE, CoreMediaTypes.APPLICATION_SMILE_VALUE})
+    List<Recommendation> getRecommendationsForProducts(@RequestParam(value = "productIds") List<Integer> productIds, @RequestParam(value = "view", defaultValue = "FULL") View view);
+
+    /**
+     * curl "$HOST:$PORT/recommendation/page?productId=1&cursor=20&size=20"
+     *
+     * @param productId
+     * @param cursor    the nextCursor of the previous page, leave out to get the first page
+     * @param size      the maximum number of recommendations in the page
+     * @param view      summary leaves out the content
+     * @return the recommendations following the cursor, found through the (productId, recommendationId) index
+     */
+    @GetMapping(value = "/recommendation/page", produces = {MediaType.APPLICATION_JSON_VALUE, CoreMediaTypes.APPLICATION_SMILE_VALUE})
+    RecommendationPage getRecommendationPage(
+            @RequestParam(value = "productId") int productId,
+            @RequestParam(value = "cursor", required = false) Integer cursor,
+            @RequestParam(value = "size", defaultValue = "20") int size,
+            @RequestParam(value = "view", defaultValue = "FULL") View view);
+
+    /**
+     * curl "$HOST:$PORT/recommendation/page?productIds=1,2,3&size=20"
+     *
+     * @param productIds
+     * @param size       the maximum number of recommendations in each page
+     * @param view       summary leaves out the content
+     * @return the first page of the recommendations of every given product, in the order of the productIds. Only the recommendations
+     * of those pages are read from the database
+     */
+    @GetMapping(value = "/recommendation/page", params = "productIds", produces = {MediaType.APPLICATION_JSON_VALUE, CoreMediaTypes.APPLICATION_SMILE_VALUE})
+    List<RecommendationPage> getFirstRecommendationPages(
+            @RequestParam(value = "productIds") List<Integer> productIds,
+            @RequestParam(value = "size", defaultValue = "20") int size,
+            @RequestParam(value = "view", defaultValue = "FULL") View view);
+
+    /**
+     * curl $HOST:$PORT/recommendation/stream?productId=1
+     *
+     * @param productId
+     * @return all the recommendations of the product as newline delimited JSON, without holding them all in memory
+     */
+    @GetMapping(value = "/recommendation/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    Flux<Recommendation> streamRecommendations(@RequestParam(value = "productId") int productId);
 
     /**
      * curl -X DELETE $HOST:$PORT/recommendation?productId=1
@@ -0,0 +1,93 @@
+package com.salapp.api.core.review;
+
+import com.salapp.api.core.CoreMediaTypes;
+import com.salapp.api.core.View;
+import com.salapp.api.core.bulk.BulkResult;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * Non-blocking variant of {@link ReviewService}, same endpoints and same payloads.
+ */
+public interface ReactiveReviewService {
+
+    /**
+     * curl -X POST $HOST:$PORT/review -H "Content-Type: application/json --data '{productId:123, reviewId:456}'
+     *
+     * @param body
+     * @return
+     */
+    @PostMapping(value = "/review", consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+    Mono<Review> createReview(@RequestBody Review body);
+
+    /**
+     * curl -X POST $HOST:$PORT/review/bulk -H "Content-Type: application/x-ndjson" --data-binary @reviews.ndjson
+     *
+     * @param body the reviews as a JSON array or as newline delimited JSON
+     * @return how many reviews were created, and why the others were not
+     */
+    @PostMapping(value = "/review/bulk",
+            consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE},
+            produces = MediaType.APPLICATION_JSON_VALUE)
+    Mono<BulkResult> createReviews(@RequestBody Flux<Review> body);
+
+    @GetMapping(value = "/review", produces = {MediaType.APPLICATION_JSON_VALUE, CoreMediaTypes.APPLICATION_SMILE_VALUE})
+    Flux<Review> getReviews(@RequestParam(value = "productId") int productId, @RequestParam(value = "view", defaultValue = "FULL") View view);
+
+    /**
+     * curl $HOST:$PORT/review?productIds=1,2,3
+     *
+     * @param productIds
+     * @param view summary leaves out the content
+     * @return the reviews of all the given products, read with a single query
+     */
+    @GetMapping(value = "/review", params = "productIds", produces = {MediaType.APPLICATION_JSON_VALUE, CoreMediaTypes.APPLICATION_SMILE_VALUE})
+    Flux<Review> getReviewsForProducts(@RequestParam(value = "productIds") List<Integer> productIds, @RequestParam(value = "view", defaultValue = "FULL") View view);
+
+    /**
+     * curl "$HOST:$PORT/review/page?productId=1&cursor=20&size=20"
+     *
+     * @param productId
+     * @param cursor    the nextCursor of the previous page, leave out to get the first page
+     * @param size      the maximum number of reviews in the page
+     * @param view      summary leaves out the content
+     * @return the reviews following the cursor, found through the (productId, reviewId) index
+     */
+    @GetMapping(value = "/review/page", produces = {MediaType.APPLICATION_JSON_VALUE, CoreMediaTypes.APPLICATION_SMILE_VALUE})
+    Mono<ReviewPage> getReviewPage(
+            @RequestParam(value = "productId") int productId,
+            @RequestParam(value = "cursor", required = false) Integer cursor,
+            @RequestParam(value = "size", defaultValue = "20") int size,
+            @RequestParam(value = "view", defaultValue = "FULL") View view);
+
+    /**
+     * curl "$HOST:$PORT/review/page?productIds=1,2,3&size=20"
+     *
+     * @param productIds
+     * @param size       the maximum number of reviews in each page
+     * @param view       summary leaves out the content
+     * @return the first page of the reviews of every given product, in the order of the productIds. Only the reviews
+     * of those pages are read from the database
+     */
+    @GetMapping(value = "/review/page", params = "productIds", produces = {MediaType.APPLICATION_JSON_VALUE, CoreMediaTypes.APPLICATION_SMILE_VALUE})
+    Flux<ReviewPage> getFirstReviewPages(
+            @RequestParam(value = "productIds") List<Integer> productIds,
+            @RequestParam(value = "size", defaultValue = "20") int size,
+            @RequestParam(value = "view", defaultValue = "FULL") View view);
+
+    /**
+     * curl $HOST:$PORT/review/stream?productId=1
+     *
+     * @param productId
+     * @return all the reviews of the product as newline delimited JSON, without holding them all in memory
+     */
+    @GetMapping(value = "/review/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    Flux<Review> streamReviews(@RequestParam(value = "productId") int productId);
+
+    @DeleteMapping("/review")
+    Mono<Void> deleteReviews(@RequestParam(value = "productId", required = true) int productId);
+}
@@ -1,12 +1,19 @@
 package com.salapp.api.core.review;
 
-public class Review {
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.salapp.api.core.HasServiceAddress;
+
+public class Review implements HasServiceAddress {
     private int productId;
     private int reviewId;
     private String author;
     private String subject;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
     private String content;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
     private String serviceAddress;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Integer version;
 
 
     public Review() {
@@ -47,6 +54,7 @@ public class Review {
         return content;
     }
 
+    @Override
     public String getServiceAddress() {
         return serviceAddress;
     }
@@ -71,7 +79,19 @@ public class Review {
         this.content = content;
     }
 
+    @Override
     public void setServiceAddress(String serviceAddress) {
         this.serviceAddress = serviceAddress;
     }
+
+    /**
+     * @return the optimistic locking version of the stored entity, null when it does not come from a core service
+     */
+    public Integer getVersion() {
+        return version;
+    }
+
+    public void setVersion(Integer version) {
+        this.version = version;
+    }
 }
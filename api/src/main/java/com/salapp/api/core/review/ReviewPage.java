@@ -0,0 +1,50 @@
+package com.salapp.api.core.review;
+
+import java.util.List;
+
+/**
+ * One page of the reviews of a product, ordered by reviewId.
+ * <p>
+ * {@code nextCursor} is the reviewId to pass as cursor to get the following page, null on the last page.
+ */
+public class ReviewPage {
+    private int productId;
+    private List<Review> reviews;
+    private Integer nextCursor;
+
+    public ReviewPage() {
+        this.productId = 0;
+        this.reviews = null;
+        this.nextCursor = null;
+    }
+
+    public ReviewPage(int productId, List<Review> reviews, Integer nextCursor) {
+        this.productId = productId;
+        this.reviews = reviews;
+        this.nextCursor = nextCursor;
+    }
+
+    public int getProductId() {
+        return productId;
+    }
+
+    public List<Review> getReviews() {
+        return reviews;
+    }
+
+    public Integer getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setProductId(int productId) {
+        this.productId = productId;
+    }
+
+    public void setReviews(List<Review> reviews) {
+        this.reviews = reviews;
+    }
+
+    public void setNextCursor(Integer nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+}
@@ -0,0 +1,57 @@
+package com.salapp.api.event;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.time.Instant;
+
+/**
+ * A change to a product, a recommendation or a review, published by the core service that owns it.
+ * <p>
+ * The key is always the productId. A CREATE carries the written product, recommendation or review as data. A DELETE
+ * has no data, it stands for the product itself or for all of its recommendations or reviews, as the deletes of the
+ * core services do.
+ */
+public class Event<K, T> {
+
+    public enum Type {CREATE, DELETE}
+
+    private final Type eventType;
+    private final K key;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private final T data;
+    private final Instant eventCreatedAt;
+
+    public Event() {
+        this.eventType = null;
+        this.key = null;
+        this.data = null;
+        this.eventCreatedAt = null;
+    }
+
+    public Event(Type eventType, K key, T data) {
+        this(eventType, key, data, Instant.now());
+    }
+
+    public Event(Type eventType, K key, T data, Instant eventCreatedAt) {
+        this.eventType = eventType;
+        this.key = key;
+        this.data = data;
+        this.eventCreatedAt = eventCreatedAt;
+    }
+
+    public Type getEventType() {
+        return eventType;
+    }
+
+    public K getKey() {
+        return key;
+    }
+
+    public T getData() {
+        return data;
+    }
+
+    public Instant getEventCreatedAt() {
+        return eventCreatedAt;
+    }
+}
@@ -0,0 +1,102 @@
+package com.salapp.benchmarks;
+
+import com.salapp.api.core.product.Product;
+import com.salapp.api.core.recommendation.Recommendation;
+import com.salapp.api.core.review.Review;
+import com.salapp.product.model.ProductEntity;
+import com.salapp.product.services.ProductMapper;
+import com.salapp.recommendation.model.RecommendationEntity;
+import com.salapp.recommendation.services.RecommendationMapper;
+import com.salapp.review.model.ReviewEntity;
+import com.salapp.review.services.ReviewMapper;
+import org.mapstruct.factory.Mappers;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Entity to API mapping and back for the three core services, the lists in the sizes a product page returns.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class MapperBenchmark {
+
+    private final ProductMapper productMapper = Mappers.getMapper(ProductMapper.class);
+    private final RecommendationMapper recommendationMapper = Mappers.getMapper(RecommendationMapper.class);
+    private final ReviewMapper reviewMapper = Mappers.getMapper(ReviewMapper.class);
+
+    @Param({"1", "100", "1000"})
+    public int size;
+
+    private ProductEntity productEntity;
+    private Product product;
+    private List<ProductEntity> productEntities;
+    private List<RecommendationEntity> recommendationEntities;
+    private List<Recommendation> recommendations;
+    private List<ReviewEntity> reviewEntities;
+    private List<Review> reviews;
+
+    @Setup
+    public void setUp() {
+        productEntity = new ProductEntity(1, "name", 1);
+        product = new Product(1, "name", 1, "address");
+
+        productEntities = new ArrayList<>(size);
+        recommendationEntities = new ArrayList<>(size);
+        recommendations = new ArrayList<>(size);
+        reviewEntities = new ArrayList<>(size);
+        reviews = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            productEntities.add(new ProductEntity(i, "name-" + i, i));
+            recommendationEntities.add(new RecommendationEntity(1, i, "author-" + i, i % 5, "content-" + i));
+            recommendations.add(new Recommendation(1, i, "author-" + i, i % 5, "content-" + i, "address"));
+            reviewEntities.add(new ReviewEntity(1, i, "author-" + i, "subject-" + i, "content-" + i));
+            reviews.add(new Review(1, i, "author-" + i, "subject-" + i, "content-" + i, "address"));
+        }
+    }
+
+    @Benchmark
+    public Product productEntityToApi() {
+        return productMapper.entityToApi(productEntity);
+    }
+
+    @Benchmark
+    public ProductEntity productApiToEntity() {
+        return productMapper.apiToEntity(product);
+    }
+
+    @Benchmark
+    public List<Product> productEntityListToApiList() {
+        return productMapper.entityListToApiList(productEntities);
+    }
+
+    @Benchmark
+    public List<Recommendation> recommendationEntityListToApiList() {
+        return recommendationMapper.entityListToApiList(recommendationEntities);
+    }
+
+    @Benchmark
+    public List<RecommendationEntity> recommendationApiListToEntityList() {
+        return recommendationMapper.apiListToEntityList(recommendations);
+    }
+
+    @Benchmark
+    public List<Review> reviewEntityListToApiList() {
+        return reviewMapper.entityListToApiList(reviewEntities);
+    }
+
+    @Benchmark
+    public List<ReviewEntity> reviewApiListToEntityList() {
+        return reviewMapper.apiListToEntityList(reviews);
+    }
+}
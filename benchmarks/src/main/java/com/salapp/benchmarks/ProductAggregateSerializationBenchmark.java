@@ -0,0 +1,63 @@
+package com.salapp.benchmarks;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.salapp.api.composite.product.ProductAggregate;
+import com.salapp.api.composite.product.RecommendationSummary;
+import com.salapp.api.composite.product.ReviewSummary;
+import com.salapp.api.composite.product.ServiceAddress;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson serialization of the aggregate as the composite service writes it to the response.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ProductAggregateSerializationBenchmark {
+
+    /**
+     * Number of recommendations and of reviews in the aggregate.
+     */
+    @Param({"0", "10", "100", "1000"})
+    public int children;
+
+    private ObjectWriter writer;
+    private ProductAggregate aggregate;
+
+    @Setup
+    public void setUp() {
+        writer = new ObjectMapper().writerFor(ProductAggregate.class);
+
+        List<RecommendationSummary> recommendations = new ArrayList<>(children);
+        List<ReviewSummary> reviews = new ArrayList<>(children);
+        for (int i = 0; i < children; i++) {
+            recommendations.add(new RecommendationSummary(i, "author-" + i, i % 5));
+            reviews.add(new ReviewSummary(i, "author-" + i, "subject-" + i));
+        }
+        ServiceAddress addresses = new ServiceAddress("composite-address", "product-address", "review-address", "recommendation-address");
+        aggregate = new ProductAggregate(1, "name", 1, recommendations, reviews, addresses);
+    }
+
+    @Benchmark
+    public byte[] writeValueAsBytes() throws JsonProcessingException {
+        return writer.writeValueAsBytes(aggregate);
+    }
+
+    @Benchmark
+    public String writeValueAsString() throws JsonProcessingException {
+        return writer.writeValueAsString(aggregate);
+    }
+}
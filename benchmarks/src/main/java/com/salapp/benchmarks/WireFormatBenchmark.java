@@ -0,0 +1,83 @@
+package com.salapp.benchmarks;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.salapp.api.core.review.Review;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reviews of a product as a core service writes them and the composite reads them, in JSON and in Smile, see
+ * app.core-services.media-type of the composite. The encoded size of every combination is reported next to the encode
+ * score, as the bytes secondary result.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class WireFormatBenchmark {
+
+    @Param({"json", "smile"})
+    public String format;
+
+    /**
+     * Number of reviews in the response.
+     */
+    @Param({"1", "20", "100"})
+    public int children;
+
+    private ObjectWriter writer;
+    private ObjectReader reader;
+    private List<Review> reviews;
+    private byte[] encoded;
+
+    @Setup
+    public void setUp() throws IOException {
+        ObjectMapper mapper = "smile".equals(format) ? new ObjectMapper(new SmileFactory()) : new ObjectMapper();
+        TypeReference<List<Review>> type = new TypeReference<>() {
+        };
+        writer = mapper.writerFor(type);
+        reader = mapper.readerFor(type);
+
+        reviews = new ArrayList<>(children);
+        for (int i = 0; i < children; i++) {
+            reviews.add(new Review(1, i, "author-" + i, "subject-" + i, "content of review " + i, "review-address"));
+        }
+        encoded = writer.writeValueAsBytes(reviews);
+    }
+
+    /**
+     * Size of the response, the counter is reported as it is at the end of an iteration.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class EncodedSize {
+        public long bytes;
+    }
+
+    @Benchmark
+    public byte[] encode(EncodedSize size) throws IOException {
+        byte[] body = writer.writeValueAsBytes(reviews);
+        size.bytes = body.length;
+        return body;
+    }
+
+    @Benchmark
+    public List<Review> decode() throws IOException {
+        return reader.readValue(encoded);
+    }
+}
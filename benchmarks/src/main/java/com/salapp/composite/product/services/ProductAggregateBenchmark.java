@@ -0,0 +1,103 @@
+package com.salapp.composite.product.services;
+
+import com.salapp.api.composite.product.ProductAggregate;
+import com.salapp.api.core.product.Product;
+import com.salapp.api.core.recommendation.Recommendation;
+import com.salapp.api.core.recommendation.RecommendationPage;
+import com.salapp.api.core.review.Review;
+import com.salapp.api.core.review.ReviewPage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToIntFunction;
+
+/**
+ * Building the aggregate from the core service answers. Lives in the services package because
+ * {@link ProductCompositeServiceImpl#createProductAggregate} is package-private.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ProductAggregateBenchmark {
+
+    private static final int PRODUCTS = 10;
+    private static final int PAGE_SIZE = 20;
+
+    /**
+     * Number of recommendations and of reviews on each product.
+     */
+    @Param({"0", "10", "100", "1000"})
+    public int children;
+
+    private Product product;
+    private List<Recommendation> recommendations;
+    private List<Review> reviews;
+
+    private List<Product> batchProducts;
+    private List<RecommendationPage> batchRecommendations;
+    private List<ReviewPage> batchReviews;
+
+    @Setup
+    public void setUp() {
+        product = new Product(1, "name", 1, "product-address");
+        recommendations = recommendations(1);
+        reviews = reviews(1);
+
+        batchProducts = new ArrayList<>(PRODUCTS);
+        batchRecommendations = new ArrayList<>(PRODUCTS);
+        batchReviews = new ArrayList<>(PRODUCTS);
+        for (int productId = 1; productId <= PRODUCTS; productId++) {
+            batchProducts.add(new Product(productId, "name-" + productId, productId, "product-address"));
+            List<Recommendation> firstRecommendations = firstPage(recommendations(productId));
+            batchRecommendations.add(new RecommendationPage(productId, firstRecommendations, nextCursor(firstRecommendations, Recommendation::getRecommendationId)));
+            List<Review> firstReviews = firstPage(reviews(productId));
+            batchReviews.add(new ReviewPage(productId, firstReviews, nextCursor(firstReviews, Review::getReviewId)));
+        }
+    }
+
+    @Benchmark
+    public ProductAggregate createProductAggregate() {
+        return ProductCompositeServiceImpl.createProductAggregate(product, recommendations, reviews, "composite-address");
+    }
+
+    @Benchmark
+    public List<ProductAggregate> createProductAggregates() {
+        return ProductCompositeServiceImpl.createProductAggregates(batchProducts, batchRecommendations, batchReviews, "composite-address");
+    }
+
+    /**
+     * The core services answer the batch calls with the first page of every product only.
+     */
+    private <T> List<T> firstPage(List<T> children) {
+        return new ArrayList<>(children.subList(0, Math.min(PAGE_SIZE, children.size())));
+    }
+
+    private <T> Integer nextCursor(List<T> page, ToIntFunction<T> id) {
+        return (children > PAGE_SIZE) ? id.applyAsInt(page.get(page.size() - 1)) : null;
+    }
+
+    private List<Recommendation> recommendations(int productId) {
+        List<Recommendation> list = new ArrayList<>(children);
+        for (int i = 0; i < children; i++) {
+            list.add(new Recommendation(productId, i, "author-" + i, i % 5, "content-" + i, "recommendation-address"));
+        }
+        return list;
+    }
+
+    private List<Review> reviews(int productId) {
+        List<Review> list = new ArrayList<>(children);
+        for (int i = 0; i < children; i++) {
+            list.add(new Review(productId, i, "author-" + i, "subject-" + i, "content-" + i, "review-address"));
+        }
+        return list;
+    }
+}
@@ -1,20 +1,44 @@
 package com.salapp.composite.product;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.web.client.RestTemplate;
 import springfox.documentation.swagger2.annotations.EnableSwagger2;
 
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
 @EnableSwagger2
 @SpringBootApplication
 @ComponentScan(basePackages = "com.salapp")
 public class ProductCompositeApplication {
 
     @Bean
-    RestTemplate restTemplate() {
-        return new RestTemplate();
+    RestTemplate restTemplate(ClientHttpRequestFactory coreServicesRequestFactory) {
+        return new RestTemplate(coreServicesRequestFactory);
+    }
+
+    /**
+     * Runs the calls to the core services when {@code app.fan-out.mode} is parallel.
+     * Every composite request can hold up to three threads, size it accordingly.
+     */
+    @Bean
+    ExecutorService fanOutExecutor(@Value("${app.fan-out.threads:48}") int threads) {
+        return Executors.newFixedThreadPool(threads, new CustomizableThreadFactory("fan-out-"));
+    }
+
+    /**
+     * Fires the time limits of the blocking calls to the core services, see CoreServiceResilience.
+     */
+    @Bean
+    ScheduledExecutorService timeLimiterScheduler() {
+        return Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("time-limiter-"));
     }
 
     public static void main(String[] args) {
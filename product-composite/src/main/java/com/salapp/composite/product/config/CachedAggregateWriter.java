@@ -0,0 +1,171 @@
+package com.salapp.composite.product.config;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.salapp.api.composite.product.ProductAggregate;
+import com.salapp.composite.product.services.EncodedAggregateCache;
+import com.salapp.composite.product.services.EncodedAggregateCache.EncodedAggregate;
+import org.reactivestreams.Publisher;
+import org.springframework.boot.web.server.Compression;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.codec.EncodingException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ReactiveHttpOutputMessage;
+import org.springframework.http.codec.EncoderHttpMessageWriter;
+import org.springframework.http.codec.HttpMessageWriter;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.util.MimeType;
+import reactor.core.publisher.Mono;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+import static org.springframework.http.MediaType.APPLICATION_JSON;
+
+/**
+ * Writes a single {@link ProductAggregate} as JSON from the {@link EncodedAggregateCache}, the ETag the service set on
+ * the response is the content version. A cached body is wrapped in a response buffer as it is, without serializing or
+ * copying it, and sent already compressed when the request accepts gzip and the server would have compressed it;
+ * Reactor Netty leaves a response that has a Content-Encoding alone.
+ * <p>
+ * The gzipped body is another representation, it is sent under the ETag with a -gzip suffix and every response
+ * varies on Accept-Encoding. {@link GzipEntityTagFilter} takes the suffixed ETag back in If-None-Match.
+ * <p>
+ * Streams of aggregates and responses without an ETag are written by the Jackson encoder.
+ */
+public class CachedAggregateWriter implements HttpMessageWriter<ProductAggregate> {
+
+    private static final String GZIP = "gzip";
+    private static final String GZIP_TAG_SUFFIX = "-" + GZIP;
+
+    private final EncodedAggregateCache cache;
+    private final ObjectMapper mapper;
+    private final HttpMessageWriter<Object> jsonWriter;
+    private final boolean compress;
+    private final long minCompressedSize;
+
+    public CachedAggregateWriter(EncodedAggregateCache cache, ObjectMapper mapper, Compression compression) {
+        this.cache = cache;
+        this.mapper = mapper;
+        this.jsonWriter = new EncoderHttpMessageWriter<>(new Jackson2JsonEncoder(mapper));
+        this.compress = compression.getEnabled() && Arrays.stream(compression.getMimeTypes())
+                .map(MimeType::valueOf)
+                .anyMatch(mimeType -> mimeType.isCompatibleWith(APPLICATION_JSON));
+        this.minCompressedSize = compression.getMinResponseSize().toBytes();
+    }
+
+    @Override
+    public List<MediaType> getWritableMediaTypes() {
+        return Collections.singletonList(APPLICATION_JSON);
+    }
+
+    @Override
+    public boolean canWrite(ResolvableType elementType, MediaType mediaType) {
+        return ProductAggregate.class.isAssignableFrom(elementType.toClass())
+                && (mediaType == null || APPLICATION_JSON.isCompatibleWith(mediaType));
+    }
+
+    @Override
+    public Mono<Void> write(Publisher<? extends ProductAggregate> inputStream, ResolvableType elementType, MediaType mediaType,
+                            ReactiveHttpOutputMessage message, Map<String, Object> hints) {
+
+        return jsonWriter.write(inputStream, elementType, mediaType, message, hints);
+    }
+
+    @Override
+    public Mono<Void> write(Publisher<? extends ProductAggregate> inputStream, ResolvableType actualType, ResolvableType elementType,
+                            MediaType mediaType, ServerHttpRequest request, ServerHttpResponse response, Map<String, Object> hints) {
+
+        String version = response.getHeaders().getETag();
+        if (!(inputStream instanceof Mono) || version == null) {
+            return jsonWriter.write(inputStream, actualType, elementType, mediaType, request, response, hints);
+        }
+
+        boolean gzipAccepted = acceptsGzip(request.getHeaders());
+        return Mono.from(inputStream).flatMap(aggregate -> {
+            EncodedAggregate encoded = cache.get(aggregate.getProductId(), version, () -> encode(aggregate, version));
+
+            HttpHeaders headers = response.getHeaders();
+            headers.setContentType(APPLICATION_JSON);
+            varyOnAcceptEncoding(headers);
+            byte[] body = encoded.getJson();
+            if (gzipAccepted && encoded.getGzip() != null) {
+                body = encoded.getGzip();
+                headers.set(HttpHeaders.CONTENT_ENCODING, GZIP);
+                headers.setETag(gzipTag(version));
+            }
+            headers.setContentLength(body.length);
+            return response.writeWith(Mono.just(response.bufferFactory().wrap(body)));
+        });
+    }
+
+    private EncodedAggregate encode(ProductAggregate aggregate, String version) {
+        byte[] json;
+        try {
+            json = mapper.writeValueAsBytes(aggregate);
+        } catch (JsonProcessingException e) {
+            throw new EncodingException("Could not encode the aggregate of productId " + aggregate.getProductId(), e);
+        }
+        byte[] gzip = (compress && json.length >= minCompressedSize) ? gzip(json) : null;
+        return new EncodedAggregate(version, json, gzip);
+    }
+
+    private static byte[] gzip(byte[] json) {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(json.length / 4);
+        try (GZIPOutputStream out = new GZIPOutputStream(compressed)) {
+            out.write(json);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return compressed.toByteArray();
+    }
+
+    static void varyOnAcceptEncoding(HttpHeaders headers) {
+        if (!headers.getVary().contains(HttpHeaders.ACCEPT_ENCODING)) headers.add(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+    }
+
+    /**
+     * The ETag of the gzipped representation, {@code "1-abc"} becomes {@code "1-abc-gzip"}.
+     */
+    static String gzipTag(String eTag) {
+        int end = eTag.lastIndexOf('"');
+        return (end < 1) ? eTag : eTag.substring(0, end) + GZIP_TAG_SUFFIX + eTag.substring(end);
+    }
+
+    /**
+     * @return the ETag without the gzip suffix, null when it has none
+     */
+    static String identityTag(String eTag) {
+        int end = eTag.lastIndexOf('"');
+        if (end < 1 || !eTag.startsWith(GZIP_TAG_SUFFIX, end - GZIP_TAG_SUFFIX.length())) return null;
+        return eTag.substring(0, end - GZIP_TAG_SUFFIX.length()) + eTag.substring(end);
+    }
+
+    /**
+     * True when the Accept-Encoding lists gzip, or *, without q=0.
+     */
+    static boolean acceptsGzip(HttpHeaders headers) {
+        for (String value : headers.getOrEmpty(HttpHeaders.ACCEPT_ENCODING)) {
+            for (String coding : value.split(",")) {
+                String[] parts = coding.split(";");
+                String name = parts[0].trim();
+                if (!name.equalsIgnoreCase(GZIP) && !name.equals("*")) continue;
+
+                boolean refused = Arrays.stream(parts).skip(1)
+                        .map(String::trim)
+                        .anyMatch(parameter -> parameter.matches("q=0(\\.0*)?"));
+                if (!refused) return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,53 @@
+package com.salapp.composite.product.config;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Lets a client revalidate the gzipped body written by {@link CachedAggregateWriter} with the ETag it was sent. The
+ * -gzip suffix is taken off the tags in If-None-Match before the conditional GET is checked against the content
+ * version, and a 304 answers with the tag the client sent and varies on Accept-Encoding like the full response.
+ */
+public class GzipEntityTagFilter implements WebFilter {
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        List<String> ifNoneMatch = exchange.getRequest().getHeaders().getOrEmpty(HttpHeaders.IF_NONE_MATCH);
+        if (ifNoneMatch.isEmpty()) return chain.filter(exchange);
+
+        List<String> tags = new ArrayList<>();
+        Set<String> gzipped = new HashSet<>();
+        for (String value : ifNoneMatch) {
+            for (String tag : value.split(",")) {
+                String identity = CachedAggregateWriter.identityTag(tag.trim());
+                if (identity != null) gzipped.add(identity);
+                tags.add((identity != null) ? identity : tag.trim());
+            }
+        }
+
+        ServerWebExchange revalidated = exchange.mutate()
+                .request(request -> request.headers(headers -> headers.put(HttpHeaders.IF_NONE_MATCH, tags)))
+                .build();
+        ServerHttpResponse response = revalidated.getResponse();
+        response.beforeCommit(() -> {
+            HttpHeaders headers = response.getHeaders();
+            String eTag = headers.getETag();
+            if (response.getStatusCode() == HttpStatus.NOT_MODIFIED && eTag != null) {
+                if (gzipped.contains(eTag)) headers.setETag(CachedAggregateWriter.gzipTag(eTag));
+                CachedAggregateWriter.varyOnAcceptEncoding(headers);
+            }
+            return Mono.empty();
+        });
+        return chain.filter(revalidated);
+    }
+}
@@ -0,0 +1,144 @@
+package com.salapp.composite.product.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.httpcomponents.PoolingHttpClientConnectionManagerMetricsBinder;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+
+import java.io.IOException;
+import java.net.URI;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One pooled, keep-alive Apache HttpClient per core service, so a slow service can not take the connections of the
+ * others. Everything is configured next to the address of the service:
+ * <pre>
+ * app:
+ *   review-service:
+ *     host: localhost
+ *     port: 7003
+ *     pool:
+ *       max-connections: 50
+ *       keep-alive: 30s
+ *       idle-eviction: 60s
+ *     connect-timeout: 1s
+ *     read-timeout: 5s
+ * </pre>
+ * Requests to any other address get a client of their own, with the longest timeouts configured for a core service.
+ * The clients, and the threads that evict their idle connections, are closed with the application context.
+ * <p>
+ * Pool usage is exported as httpcomponents.httpclient.pool.* metrics tagged with httpclient=&lt;service&gt;.
+ */
+@Configuration
+public class HttpClientConfig {
+
+    private static final Logger LOG = LoggerFactory.getLogger(HttpClientConfig.class);
+
+    static final List<String> CORE_SERVICES = List.of("product-service", "recommendation-service", "review-service");
+
+    @Bean
+    public ClientHttpRequestFactory coreServicesRequestFactory(Environment env, MeterRegistry registry) {
+        Map<String, HttpComponentsClientHttpRequestFactory> factories = new HashMap<>();
+        Duration longestConnectTimeout = Duration.ZERO;
+        Duration longestReadTimeout = Duration.ZERO;
+
+        for (String service : CORE_SERVICES) {
+            String prefix = "app." + service + ".";
+            String authority = env.getRequiredProperty(prefix + "host") + ":" + env.getRequiredProperty(prefix + "port");
+
+            int maxConnections = env.getProperty(prefix + "pool.max-connections", Integer.class, 50);
+            Duration keepAlive = env.getProperty(prefix + "pool.keep-alive", Duration.class, Duration.ofSeconds(30));
+            Duration idleEviction = env.getProperty(prefix + "pool.idle-eviction", Duration.class, Duration.ofSeconds(60));
+            Duration connectTimeout = env.getProperty(prefix + "connect-timeout", Duration.class, Duration.ofSeconds(1));
+            Duration readTimeout = env.getProperty(prefix + "read-timeout", Duration.class, Duration.ofSeconds(5));
+
+            longestConnectTimeout = max(longestConnectTimeout, connectTimeout);
+            longestReadTimeout = max(longestReadTimeout, readTimeout);
+
+            LOG.info("HTTP client for {} ({}): {} connections, keep-alive {}, idle eviction {}, connect timeout {}, read timeout {}",
+                    service, authority, maxConnections, keepAlive, idleEviction, connectTimeout, readTimeout);
+
+            PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+            connectionManager.setMaxTotal(maxConnections);
+            connectionManager.setDefaultMaxPerRoute(maxConnections);
+            new PoolingHttpClientConnectionManagerMetricsBinder(connectionManager, service, Tags.empty()).bindTo(registry);
+
+            CloseableHttpClient httpClient = HttpClients.custom()
+                    .setConnectionManager(connectionManager)
+                    .setKeepAliveStrategy((response, context) -> {
+                        long announced = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+                        return announced > 0 ? Math.min(announced, keepAlive.toMillis()) : keepAlive.toMillis();
+                    })
+                    .evictExpiredConnections()
+                    .evictIdleConnections(idleEviction.toMillis(), TimeUnit.MILLISECONDS)
+                    .setDefaultRequestConfig(RequestConfig.custom()
+                            .setConnectTimeout((int) connectTimeout.toMillis())
+                            .setConnectionRequestTimeout((int) connectTimeout.toMillis())
+                            .setSocketTimeout((int) readTimeout.toMillis())
+                            .build())
+                    .build();
+
+            factories.put(authority, new HttpComponentsClientHttpRequestFactory(httpClient));
+        }
+
+        HttpComponentsClientHttpRequestFactory fallback = new HttpComponentsClientHttpRequestFactory();
+        fallback.setConnectTimeout((int) longestConnectTimeout.toMillis());
+        fallback.setConnectionRequestTimeout((int) longestConnectTimeout.toMillis());
+        fallback.setReadTimeout((int) longestReadTimeout.toMillis());
+
+        return new RoutingClientHttpRequestFactory(factories, fallback);
+    }
+
+    private static Duration max(Duration a, Duration b) {
+        return (a.compareTo(b) >= 0) ? a : b;
+    }
+
+    /**
+     * Hands every request to the factory of the service it is sent to, unknown targets get a pool of their own.
+     */
+    static class RoutingClientHttpRequestFactory implements ClientHttpRequestFactory, DisposableBean {
+
+        private final Map<String, HttpComponentsClientHttpRequestFactory> factories;
+        private final HttpComponentsClientHttpRequestFactory fallback;
+
+        RoutingClientHttpRequestFactory(Map<String, HttpComponentsClientHttpRequestFactory> factories, HttpComponentsClientHttpRequestFactory fallback) {
+            this.factories = factories;
+            this.fallback = fallback;
+        }
+
+        @Override
+        public ClientHttpRequest createRequest(URI uri, HttpMethod httpMethod) throws IOException {
+            return factoryFor(uri).createRequest(uri, httpMethod);
+        }
+
+        ClientHttpRequestFactory factoryFor(URI uri) {
+            return factories.getOrDefault(uri.getHost() + ":" + uri.getPort(), fallback);
+        }
+
+        @Override
+        public void destroy() throws Exception {
+            for (HttpComponentsClientHttpRequestFactory factory : factories.values()) {
+                factory.destroy();
+            }
+            fallback.destroy();
+        }
+    }
+}
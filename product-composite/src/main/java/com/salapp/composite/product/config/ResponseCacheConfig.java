@@ -0,0 +1,42 @@
+package com.salapp.composite.product.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.salapp.composite.product.services.EncodedAggregateCache;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.web.ServerProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.codec.ServerCodecConfigurer;
+import org.springframework.web.reactive.config.WebFluxConfigurer;
+
+/**
+ * Registers the {@link CachedAggregateWriter} ahead of the Jackson encoder unless {@code app.response-cache.enabled}
+ * is false. It compresses as configured under server.compression, {@link GzipEntityTagFilter} revalidates what it
+ * compressed.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.response-cache.enabled", havingValue = "true", matchIfMissing = true)
+public class ResponseCacheConfig implements WebFluxConfigurer {
+
+    private final EncodedAggregateCache cache;
+    private final ObjectMapper mapper;
+    private final ServerProperties serverProperties;
+
+    @Autowired
+    public ResponseCacheConfig(EncodedAggregateCache cache, ObjectMapper mapper, ServerProperties serverProperties) {
+        this.cache = cache;
+        this.mapper = mapper;
+        this.serverProperties = serverProperties;
+    }
+
+    @Override
+    public void configureHttpMessageCodecs(ServerCodecConfigurer configurer) {
+        configurer.customCodecs().register(new CachedAggregateWriter(cache, mapper, serverProperties.getCompression()));
+    }
+
+    @Bean
+    public GzipEntityTagFilter gzipEntityTagFilter() {
+        return new GzipEntityTagFilter();
+    }
+}
@@ -0,0 +1,133 @@
+package com.salapp.composite.product.services;
+
+import com.salapp.util.exceptions.InvalidInputException;
+import com.salapp.util.exceptions.NotFoundException;
+import com.salapp.util.exceptions.ServiceUnavailableException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Latency timers of the composite, published with percentile histograms so that the percentiles of every hop can be
+ * aggregated from the Prometheus buckets:
+ * <ul>
+ *     <li>composite.phase, tagged with phase: the steps of building one aggregate, product, recommendations, reviews
+ *     and aggregate</li>
+ *     <li>composite.integration, tagged with service, method and outcome: every call to a core service, including the
+ *     time spent in the circuit breaker, bulkhead and time limiter</li>
+ * </ul>
+ */
+@Component
+public class CompositeMetrics {
+
+    static final String PHASE = "composite.phase";
+    static final String INTEGRATION = "composite.integration";
+
+    static final String SUCCESS = "SUCCESS";
+    static final String CLIENT_ERROR = "CLIENT_ERROR";
+    static final String SERVER_ERROR = "SERVER_ERROR";
+    static final String UNAVAILABLE = "UNAVAILABLE";
+    static final String UNKNOWN = "UNKNOWN";
+
+    private final MeterRegistry registry;
+
+    @Autowired
+    public CompositeMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    public <T> T recordPhase(String phase, Supplier<T> call) {
+        return phaseTimer(phase).record(call);
+    }
+
+    public <T> Mono<T> recordPhase(String phase, Mono<T> call) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return call.doOnTerminate(() -> phaseTimer(phase).record(System.nanoTime() - start, TimeUnit.NANOSECONDS));
+        });
+    }
+
+    public <T> T recordCall(String service, String method, Supplier<T> call) {
+        long start = System.nanoTime();
+        String outcome = UNKNOWN;
+        try {
+            T result = call.get();
+            outcome = SUCCESS;
+            return result;
+        } catch (RuntimeException e) {
+            outcome = outcome(e);
+            throw e;
+        } finally {
+            record(service, method, outcome, start);
+        }
+    }
+
+    public void recordRun(String service, String method, Runnable call) {
+        recordCall(service, method, () -> {
+            call.run();
+            return null;
+        });
+    }
+
+    public <T> Mono<T> recordCall(String service, String method, Mono<T> call) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return call
+                    .doOnSuccess(result -> record(service, method, SUCCESS, start))
+                    .doOnError(e -> record(service, method, outcome(e), start));
+        });
+    }
+
+    public <T> Flux<T> recordCall(String service, String method, Flux<T> call) {
+        return Flux.defer(() -> {
+            long start = System.nanoTime();
+            return call
+                    .doOnComplete(() -> record(service, method, SUCCESS, start))
+                    .doOnError(e -> record(service, method, outcome(e), start));
+        });
+    }
+
+    static String outcome(Throwable e) {
+        if (e instanceof NotFoundException || e instanceof InvalidInputException || e instanceof HttpClientErrorException) {
+            return CLIENT_ERROR;
+        }
+        if (e instanceof HttpServerErrorException) {
+            return SERVER_ERROR;
+        }
+        if (e instanceof WebClientResponseException) {
+            return ((WebClientResponseException) e).getStatusCode().is4xxClientError() ? CLIENT_ERROR : SERVER_ERROR;
+        }
+        if (e instanceof ServiceUnavailableException) {
+            return UNAVAILABLE;
+        }
+        return UNKNOWN;
+    }
+
+    private void record(String service, String method, String outcome, long start) {
+        Timer.builder(INTEGRATION)
+                .description("Calls from the composite to the core services")
+                .tag("service", service)
+                .tag("method", method)
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(registry)
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    private Timer phaseTimer(String phase) {
+        return Timer.builder(PHASE)
+                .description("Steps of building a product aggregate")
+                .tag("phase", phase)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+}
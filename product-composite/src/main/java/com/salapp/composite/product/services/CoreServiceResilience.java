@@ -0,0 +1,137 @@
+package com.salapp.composite.product.services;
+
+import brave.propagation.CurrentTraceContext;
+import com.salapp.util.exceptions.ServiceUnavailableException;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.bulkhead.ThreadPoolBulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.reactor.bulkhead.operator.BulkheadOperator;
+import io.github.resilience4j.reactor.circuitbreaker.operator.CircuitBreakerOperator;
+import io.github.resilience4j.reactor.timelimiter.TimeLimiterOperator;
+import io.github.resilience4j.timelimiter.TimeLimiter;
+import io.github.resilience4j.timelimiter.TimeLimiterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Guards every call to a core service with the circuit breaker, bulkhead and time limiter registered under the
+ * service's name, product-service, recommendation-service or review-service, see resilience4j.* in application.yaml.
+ * <p>
+ * A call that is not permitted, finds the bulkhead full or runs out of time fails with a
+ * {@link ServiceUnavailableException}. Errors returned by the service itself are passed on unchanged.
+ */
+@Component
+public class CoreServiceResilience {
+
+    private static final Logger LOG = LoggerFactory.getLogger(CoreServiceResilience.class);
+
+    static final String PRODUCT_SERVICE = "product-service";
+    static final String RECOMMENDATION_SERVICE = "recommendation-service";
+    static final String REVIEW_SERVICE = "review-service";
+
+    private final CircuitBreakerRegistry circuitBreakers;
+    private final BulkheadRegistry bulkheads;
+    private final ThreadPoolBulkheadRegistry threadPoolBulkheads;
+    private final TimeLimiterRegistry timeLimiters;
+    private final ScheduledExecutorService timeLimiterScheduler;
+    private final CurrentTraceContext currentTraceContext;
+
+    @Autowired
+    public CoreServiceResilience(
+            CircuitBreakerRegistry circuitBreakers,
+            BulkheadRegistry bulkheads,
+            ThreadPoolBulkheadRegistry threadPoolBulkheads,
+            TimeLimiterRegistry timeLimiters,
+            @Qualifier("timeLimiterScheduler") ScheduledExecutorService timeLimiterScheduler,
+            CurrentTraceContext currentTraceContext) {
+        this.circuitBreakers = circuitBreakers;
+        this.bulkheads = bulkheads;
+        this.threadPoolBulkheads = threadPoolBulkheads;
+        this.timeLimiters = timeLimiters;
+        this.timeLimiterScheduler = timeLimiterScheduler;
+        this.currentTraceContext = currentTraceContext;
+    }
+
+    /**
+     * Runs a blocking call in the service's thread pool bulkhead, so the caller can stop waiting when the time limit
+     * is reached even though the socket read itself cannot be interrupted. The trace context of the caller is carried
+     * over to the bulkhead thread, so the HTTP call is traced as part of the composite request.
+     */
+    public <T> T call(String service, Supplier<T> call) {
+        Supplier<CompletionStage<T>> bulkheaded = threadPoolBulkheads.bulkhead(service)
+                .decorateCallable(currentTraceContext.wrap(call::get));
+        Supplier<CompletionStage<T>> timeLimited = TimeLimiter.decorateCompletionStage(
+                timeLimiters.timeLimiter(service), timeLimiterScheduler, bulkheaded);
+        Supplier<CompletionStage<T>> guarded = CircuitBreaker.decorateCompletionStage(
+                circuitBreakers.circuitBreaker(service), timeLimited);
+
+        try {
+            return guarded.get().toCompletableFuture().join();
+        } catch (CompletionException e) {
+            throw translate(service, e.getCause());
+        } catch (RuntimeException e) {
+            throw translate(service, e);
+        }
+    }
+
+    public void run(String service, Runnable call) {
+        call(service, () -> {
+            call.run();
+            return null;
+        });
+    }
+
+    public <T> Mono<T> call(String service, Mono<T> call) {
+        return call
+                .transformDeferred(TimeLimiterOperator.of(timeLimiters.timeLimiter(service)))
+                .transformDeferred(BulkheadOperator.of(bulkheads.bulkhead(service)))
+                .transformDeferred(CircuitBreakerOperator.of(circuitBreakers.circuitBreaker(service)))
+                .onErrorMap(CoreServiceResilience::isRejection, e -> unavailable(service, e));
+    }
+
+    public <T> Flux<T> call(String service, Flux<T> call) {
+        return call
+                .transformDeferred(TimeLimiterOperator.of(timeLimiters.timeLimiter(service)))
+                .transformDeferred(BulkheadOperator.of(bulkheads.bulkhead(service)))
+                .transformDeferred(CircuitBreakerOperator.of(circuitBreakers.circuitBreaker(service)))
+                .onErrorMap(CoreServiceResilience::isRejection, e -> unavailable(service, e));
+    }
+
+    private static RuntimeException translate(String service, Throwable e) {
+        while (e instanceof CompletionException && e.getCause() != null) {
+            e = e.getCause();
+        }
+        if (isRejection(e)) {
+            return unavailable(service, e);
+        }
+        if (e instanceof RuntimeException) {
+            return (RuntimeException) e;
+        }
+        return new CompletionException(e);
+    }
+
+    private static boolean isRejection(Throwable e) {
+        return e instanceof CallNotPermittedException
+                || e instanceof BulkheadFullException
+                || e instanceof TimeoutException;
+    }
+
+    private static ServiceUnavailableException unavailable(String service, Throwable e) {
+        LOG.warn("Call to {} was cut short: {}", service, e.toString());
+        return new ServiceUnavailableException(service + " is unavailable: " + e.getMessage());
+    }
+}
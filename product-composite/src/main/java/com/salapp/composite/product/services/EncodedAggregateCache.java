@@ -0,0 +1,122 @@
+package com.salapp.composite.product.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+/**
+ * The encoded response bodies of GET /product-composite/{productId}, so that an aggregate that did not change is not
+ * serialized again for every request. Entries are keyed by the productId and a content version, the ETag of the
+ * aggregate, a changed aggregate is encoded again under its new version.
+ * <p>
+ * Bounded by the size of the bodies, popular products are kept the longest. Versions that are no longer asked for are
+ * dropped after idle-ttl. Hits, misses and evictions are exported as cache.* metrics tagged with
+ * cache=encoded-aggregates.
+ */
+@Component
+public class EncodedAggregateCache {
+
+    private static final Logger LOG = LoggerFactory.getLogger(EncodedAggregateCache.class);
+
+    static final String NAME = "encoded-aggregates";
+
+    private final Cache<Key, EncodedAggregate> cache;
+
+    @Autowired
+    public EncodedAggregateCache(
+            MeterRegistry registry,
+            @Value("${app.response-cache.max-size:32MB}") DataSize maxSize,
+            @Value("${app.response-cache.idle-ttl:10m}") Duration idleTtl) {
+
+        LOG.info("Caches up to {} of encoded aggregates, each for {} after it was last used", maxSize, idleTtl);
+
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxSize.toBytes())
+                .weigher((Key key, EncodedAggregate encoded) -> encoded.size())
+                .expireAfterAccess(idleTtl)
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(registry, cache, NAME);
+    }
+
+    /**
+     * @param version the ETag of the aggregate
+     * @param encoder encodes the aggregate when there is no entry for the version, once for concurrent requests
+     */
+    public EncodedAggregate get(int productId, String version, Supplier<EncodedAggregate> encoder) {
+        return cache.get(new Key(productId, version), key -> encoder.get());
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    /**
+     * The JSON body of an aggregate, and the body gzip-compressed when it is large enough to be sent compressed. The
+     * arrays are written to responses as they are and never changed.
+     */
+    public static final class EncodedAggregate {
+        private final String version;
+        private final byte[] json;
+        private final byte[] gzip;
+
+        public EncodedAggregate(String version, byte[] json, byte[] gzip) {
+            this.version = version;
+            this.json = json;
+            this.gzip = gzip;
+        }
+
+        public String getVersion() {
+            return version;
+        }
+
+        public byte[] getJson() {
+            return json;
+        }
+
+        /**
+         * @return null when the body is sent uncompressed
+         */
+        public byte[] getGzip() {
+            return gzip;
+        }
+
+        int size() {
+            return 64 + 2 * version.length() + json.length + ((gzip == null) ? 0 : gzip.length);
+        }
+    }
+
+    private static final class Key {
+        private final int productId;
+        private final String version;
+
+        Key(int productId, String version) {
+            this.productId = productId;
+            this.version = version;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key other = (Key) o;
+            return productId == other.productId && version.equals(other.version);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * productId + version.hashCode();
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.salapp.composite.product.services;
+
+/**
+ * How {@link ProductCompositeServiceImpl} calls the core services while building an aggregate.
+ */
+public enum FanOutMode {
+
+    /**
+     * product, then recommendations, then reviews, one after another
+     */
+    SEQUENTIAL,
+
+    /**
+     * all three calls are started together, recommendations and reviews speculatively alongside the product call
+     */
+    PARALLEL
+}
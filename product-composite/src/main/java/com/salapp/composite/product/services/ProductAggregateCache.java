@@ -0,0 +1,93 @@
+package com.salapp.composite.product.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.salapp.api.composite.product.ProductAggregate;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * In-process cache of built aggregates, traffic is concentrated on a few products and those are then served without
+ * calling the core services. Entries are bounded by count and age, and dropped by {@link ProductCompositeIntegration}
+ * as soon as a write for the product goes through it.
+ * <p>
+ * An aggregate is only stored if its product was not invalidated while it was being built, it could otherwise predate
+ * the write behind the invalidation. The invalidations are counted per stripe of productIds, so the counts stay bounded
+ * and an unrelated product in the same stripe only costs a skipped put.
+ * <p>
+ * Hits, misses and evictions are exported as cache.* metrics tagged with cache=product-aggregates.
+ */
+@Component
+public class ProductAggregateCache {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ProductAggregateCache.class);
+
+    static final String NAME = "product-aggregates";
+
+    private static final int GENERATION_STRIPES = 256;
+
+    private final Cache<Integer, ProductAggregate> cache;
+
+    private final AtomicLongArray generations = new AtomicLongArray(GENERATION_STRIPES);
+
+    @Autowired
+    public ProductAggregateCache(
+            MeterRegistry registry,
+            @Value("${app.aggregate-cache.max-size:10000}") long maxSize,
+            @Value("${app.aggregate-cache.ttl:30s}") Duration ttl) {
+
+        LOG.info("Caches up to {} product aggregates for {}", maxSize, ttl);
+
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(registry, cache, NAME);
+    }
+
+    /**
+     * @return a copy of the cached aggregate that the caller may change, null if it is not cached
+     */
+    public ProductAggregate get(int productId) {
+        ProductAggregate cached = cache.getIfPresent(productId);
+        return (cached == null) ? null : ProductRequestCoalescer.copyOf(cached);
+    }
+
+    /**
+     * To be taken before the aggregate is built and handed back to {@link #put}.
+     */
+    public long generation(int productId) {
+        return generations.get(stripe(productId));
+    }
+
+    /**
+     * Stores the aggregate unless the product was invalidated since the generation was taken.
+     */
+    public void put(int productId, ProductAggregate aggregate, long generation) {
+        cache.asMap().compute(productId, (id, existing) -> {
+            if (generations.get(stripe(id)) == generation) return aggregate;
+            LOG.debug("Does not cache the aggregate for productId: {}, it was invalidated while being built", id);
+            return existing;
+        });
+    }
+
+    public void invalidate(int productId) {
+        LOG.debug("Drops the cached aggregate for productId: {}", productId);
+        generations.incrementAndGet(stripe(productId));
+        cache.invalidate(productId);
+    }
+
+    private static int stripe(int productId) {
+        return Math.floorMod(productId, GENERATION_STRIPES);
+    }
+}
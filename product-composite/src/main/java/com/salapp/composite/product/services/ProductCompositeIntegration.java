@@ -1,11 +1,16 @@
 package com.salapp.composite.product.services;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.salapp.api.core.CoreMediaTypes;
+import com.salapp.api.core.View;
+import com.salapp.api.core.bulk.BulkResult;
 import com.salapp.api.core.product.Product;
 import com.salapp.api.core.product.ProductService;
 import com.salapp.api.core.recommendation.Recommendation;
+import com.salapp.api.core.recommendation.RecommendationPage;
 import com.salapp.api.core.recommendation.RecommendationService;
 import com.salapp.api.core.review.Review;
+import com.salapp.api.core.review.ReviewPage;
 import com.salapp.api.core.review.ReviewService;
 import com.salapp.util.exceptions.InvalidInputException;
 import com.salapp.util.exceptions.NotFoundException;
@@ -15,32 +20,79 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
 import org.springframework.stereotype.Component;
 import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestTemplate;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import static com.salapp.composite.product.services.CoreServiceResilience.PRODUCT_SERVICE;
+import static com.salapp.composite.product.services.CoreServiceResilience.RECOMMENDATION_SERVICE;
+import static com.salapp.composite.product.services.CoreServiceResilience.REVIEW_SERVICE;
+import static com.salapp.composite.product.services.ServiceAddresses.body;
+import static com.salapp.composite.product.services.ServiceAddresses.listBody;
+import static com.salapp.composite.product.services.ServiceAddresses.pageBody;
+import static com.salapp.composite.product.services.ServiceAddresses.pagesBody;
 
 @Component
 public class ProductCompositeIntegration implements ProductService, RecommendationService, ReviewService {
 
     private static final String HTTP = "http://";
+
+    /**
+     * Page size used to stream through the recommendations or reviews of a product, the largest the core services
+     * accept by default.
+     */
+    private static final int STREAM_PAGE_SIZE = 100;
     private static final Logger LOG = LoggerFactory.getLogger(ProductCompositeIntegration.class);
 
+    private static final ObjectMapper SMILE_MAPPER = Jackson2ObjectMapperBuilder.smile().build();
+
     private final RestTemplate restTemplate;
     private final ObjectMapper mapper;
+    private final ProductAggregateCache aggregateCache;
+    private final CoreServiceResilience resilience;
+    private final CompositeMetrics metrics;
 
     private final String productServiceUrl;
     private final String recommendationServiceUrl;
     private final String reviewServiceUrl;
 
+    private final String productBatchUrl;
+    private final String recommendationBatchUrl;
+    private final String reviewBatchUrl;
+
+    private final String recommendationPageUrl;
+    private final String reviewPageUrl;
+
+    private final String recommendationBulkUrl;
+    private final String reviewBulkUrl;
+
+    /**
+     * Carries the Accept header of every read from a core service, JSON or the Smile encoding.
+     */
+    private final HttpEntity<Void> readRequest;
+
     @Autowired
     public ProductCompositeIntegration(
             RestTemplate restTemplate,
             ObjectMapper mapper,
+            ProductAggregateCache aggregateCache,
+            CoreServiceResilience resilience,
+            CompositeMetrics metrics,
             @Value("${app.product-service.host}") String productServiceUrl,
             @Value("${app.product-service.port}") int productServicePort,
 
@@ -48,14 +100,33 @@ public class ProductCompositeIntegration implements ProductService, Recommendati
             @Value("${app.recommendation-service.port}") int recommendationServicePort,
 
             @Value("${app.review-service.host}") String reviewServiceUrl,
-            @Value("${app.review-service.port}") int reviewServicePort
+            @Value("${app.review-service.port}") int reviewServicePort,
+
+            @Value("${app.core-services.media-type:application/json}") String mediaType
     ) {
         this.restTemplate = restTemplate;
         this.mapper = mapper;
+        this.aggregateCache = aggregateCache;
+        this.resilience = resilience;
+        this.metrics = metrics;
 
         this.productServiceUrl = HTTP + productServiceUrl + ":" + productServicePort + "/product/";
         this.recommendationServiceUrl = HTTP + recommendationServiceUrl + ":" + recommendationServicePort + "/recommendation?productId=";
         this.reviewServiceUrl = HTTP + reviewServiceUrl + ":" + reviewServicePort + "/review?productId=";
+
+        this.productBatchUrl = HTTP + productServiceUrl + ":" + productServicePort + "/product?productIds=";
+        this.recommendationBatchUrl = HTTP + recommendationServiceUrl + ":" + recommendationServicePort + "/recommendation?productIds=";
+        this.reviewBatchUrl = HTTP + reviewServiceUrl + ":" + reviewServicePort + "/review?productIds=";
+
+        this.recommendationPageUrl = HTTP + recommendationServiceUrl + ":" + recommendationServicePort + "/recommendation/page";
+        this.reviewPageUrl = HTTP + reviewServiceUrl + ":" + reviewServicePort + "/review/page";
+
+        this.recommendationBulkUrl = HTTP + recommendationServiceUrl + ":" + recommendationServicePort + "/recommendation/bulk";
+        this.reviewBulkUrl = HTTP + reviewServiceUrl + ":" + reviewServicePort + "/review/bulk";
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setAccept(List.of(MediaType.valueOf(mediaType)));
+        this.readRequest = new HttpEntity<>(headers);
     }
 
     @Override
@@ -65,7 +136,7 @@ public class ProductCompositeIntegration implements ProductService, Recommendati
             String url = productServiceUrl;
             LOG.debug("Will post a new product to URL: {}", url);
 
-            Product product = restTemplate.postForObject(url, body, Product.class);
+            Product product = call(PRODUCT_SERVICE, "createProduct", () -> restTemplate.postForObject(url, body, Product.class));
             LOG.debug("Created a product with id: {}", product != null ? product.getProductId() : "");
 
             return product;
@@ -82,7 +153,7 @@ public class ProductCompositeIntegration implements ProductService, Recommendati
             String url = productServiceUrl + productId;
             LOG.debug("Will call getProduct API on URL: {}", url);
 
-            product = restTemplate.getForObject(url, Product.class);
+            product = call(PRODUCT_SERVICE, "getProduct", () -> body(restTemplate.exchange(url, HttpMethod.GET, readRequest, Product.class)));
 
             assert product != null;
             LOG.debug("Found a product with id: {}", Optional.of(product.getProductId()).get());
@@ -102,13 +173,30 @@ public class ProductCompositeIntegration implements ProductService, Recommendati
         }
     }
 
+    @Override
+    public List<Product> getProducts(List<Integer> productIds) {
+        try {
+            String url = productBatchUrl + joinIds(productIds);
+            LOG.debug("Will call getProducts API on URL: {}", url);
+
+            List<Product> products = call(PRODUCT_SERVICE, "getProducts", () -> listBody(restTemplate.exchange(url, HttpMethod.GET, readRequest, new ParameterizedTypeReference<List<Product>>() {
+            })));
+
+            LOG.debug("Found {} of {} products", products != null ? products.size() : 0, productIds.size());
+            return products != null ? products : new ArrayList<>();
+        } catch (HttpClientErrorException exception) {
+            throw handleHttpClientException(exception);
+        }
+    }
+
     @Override
     public void deleteProduct(int productId) {
         try {
-            String url = productServiceUrl + "/" + productId;
+            String url = productServiceUrl + productId;
             LOG.debug("Will call the deleteProduct API on URL: {}", url);
 
-            restTemplate.delete(url);
+            run(PRODUCT_SERVICE, "deleteProduct", () -> restTemplate.delete(url));
+            aggregateCache.invalidate(productId);
         } catch (HttpClientErrorException exception) {
             throw handleHttpClientException(exception);
         }
@@ -121,8 +209,9 @@ public class ProductCompositeIntegration implements ProductService, Recommendati
             String url = recommendationServiceUrl;
             LOG.debug("Will post a new recommendation to URL: {}", url);
 
-            Recommendation recommendation = restTemplate.postForObject(url, body, Recommendation.class);
+            Recommendation recommendation = call(RECOMMENDATION_SERVICE, "createRecommendation", () -> restTemplate.postForObject(url, body, Recommendation.class));
             LOG.debug("Created a recommendation with id: {}", recommendation != null ? recommendation.getProductId() : "");
+            aggregateCache.invalidate(body.getProductId());
 
             return recommendation;
         } catch (HttpClientErrorException exception) {
@@ -130,15 +219,36 @@ public class ProductCompositeIntegration implements ProductService, Recommendati
         }
     }
 
+    /**
+     * RestTemplate cannot stream a request body, the recommendations are collected and posted as one JSON array.
+     */
     @Override
-    public List<Recommendation> getRecommendations(int productId) {
+    public Mono<BulkResult> createRecommendations(Flux<Recommendation> body) {
+        return body.collectList()
+                .publishOn(Schedulers.boundedElastic())
+                .map(recommendations -> {
+                    try {
+                        LOG.debug("Will post {} recommendations to URL: {}", recommendations.size(), recommendationBulkUrl);
+
+                        BulkResult result = call(RECOMMENDATION_SERVICE, "createRecommendations", () -> restTemplate.postForObject(recommendationBulkUrl, recommendations, BulkResult.class));
+                        recommendations.stream().map(Recommendation::getProductId).distinct().forEach(aggregateCache::invalidate);
+
+                        return result != null ? result : new BulkResult();
+                    } catch (HttpClientErrorException exception) {
+                        throw handleHttpClientException(exception);
+                    }
+                });
+    }
+
+    @Override
+    public List<Recommendation> getRecommendations(int productId, View view) {
         try {
-            String url = recommendationServiceUrl + productId;
+            String url = recommendationServiceUrl + productId + viewQuery(view);
 
             LOG.debug("Will call getRecommendations API on URL: {}", url);
             List<Recommendation> recommendations;
-            recommendations = restTemplate.exchange(url, HttpMethod.GET, null, new ParameterizedTypeReference<List<Recommendation>>() {
-            }).getBody();
+            recommendations = call(RECOMMENDATION_SERVICE, "getRecommendations", () -> listBody(restTemplate.exchange(url, HttpMethod.GET, readRequest, new ParameterizedTypeReference<List<Recommendation>>() {
+            })));
 
             LOG.debug("Found {} recommendations for a product with id: {}", recommendations != null ? recommendations.size() : 0, productId);
             return recommendations;
@@ -148,13 +258,91 @@ public class ProductCompositeIntegration implements ProductService, Recommendati
         }
     }
 
+    @Override
+    public List<Recommendation> getRecommendationsForProducts(List<Integer> productIds, View view) {
+        try {
+            String url = recommendationBatchUrl + joinIds(productIds) + viewQuery(view);
+            LOG.debug("Will call getRecommendationsForProducts API on URL: {}", url);
+
+            List<Recommendation> recommendations = call(RECOMMENDATION_SERVICE, "getRecommendationsForProducts", () -> listBody(restTemplate.exchange(url, HttpMethod.GET, readRequest, new ParameterizedTypeReference<List<Recommendation>>() {
+            })));
+
+            LOG.debug("Found {} recommendations for {} products", recommendations != null ? recommendations.size() : 0, productIds.size());
+            return recommendations != null ? recommendations : new ArrayList<>();
+        } catch (Exception ex) {
+            LOG.warn("Got an exception while requesting recommendations, return zero recommendations: {}", ex.getMessage());
+            return new ArrayList<>();
+        }
+    }
+
+    @Override
+    public RecommendationPage getRecommendationPage(int productId, Integer cursor, int size, View view) {
+        try {
+            return requireRecommendationPage(productId, cursor, size, view);
+        } catch (Exception ex) {
+            LOG.warn("Got an exception while requesting recommendations, return zero recommendations: {}", ex.getMessage());
+            return new RecommendationPage(productId, new ArrayList<>(), null);
+        }
+    }
+
+    /**
+     * Same as {@link #getRecommendationPage} but a failed call ends in an exception instead of an empty page, for callers
+     * that must not take an unavailable service for a product without recommendations.
+     */
+    public RecommendationPage requireRecommendationPage(int productId, Integer cursor, int size, View view) {
+        String url = recommendationPageUrl + pageQuery(productId, cursor, size) + viewQuery(view);
+        LOG.debug("Will call getRecommendationPage API on URL: {}", url);
+
+        RecommendationPage page = call(RECOMMENDATION_SERVICE, "getRecommendationPage", () -> pageBody(restTemplate.exchange(url, HttpMethod.GET, readRequest, RecommendationPage.class), RecommendationPage::getRecommendations));
+
+        LOG.debug("Found {} recommendations for a product with id: {}", page != null ? page.getRecommendations().size() : 0, productId);
+        return page != null ? page : new RecommendationPage(productId, new ArrayList<>(), null);
+    }
+
+    @Override
+    public List<RecommendationPage> getFirstRecommendationPages(List<Integer> productIds, int size, View view) {
+        try {
+            return requireFirstRecommendationPages(productIds, size, view);
+        } catch (Exception ex) {
+            LOG.warn("Got an exception while requesting recommendations, return zero recommendations: {}", ex.getMessage());
+            return new ArrayList<>();
+        }
+    }
+
+    /**
+     * Same as {@link #getFirstRecommendationPages} but a failed call ends in an exception instead of no pages.
+     */
+    public List<RecommendationPage> requireFirstRecommendationPages(List<Integer> productIds, int size, View view) {
+        String url = recommendationPageUrl + firstPagesQuery(productIds, size) + viewQuery(view);
+        LOG.debug("Will call getFirstRecommendationPages API on URL: {}", url);
+
+        List<RecommendationPage> pages = call(RECOMMENDATION_SERVICE, "getFirstRecommendationPages", () -> pagesBody(restTemplate.exchange(url, HttpMethod.GET, readRequest, new ParameterizedTypeReference<List<RecommendationPage>>() {
+        }), RecommendationPage::getRecommendations));
+
+        LOG.debug("Found the first recommendations of {} products", pages != null ? pages.size() : 0);
+        return pages != null ? pages : new ArrayList<>();
+    }
+
+    /**
+     * RestTemplate cannot read a streamed response, the recommendations are fetched page by page instead.
+     */
+    @Override
+    public Flux<Recommendation> streamRecommendations(int productId) {
+        return Mono.fromCallable(() -> getRecommendationPage(productId, null, STREAM_PAGE_SIZE, View.FULL))
+                .expand(page -> page.getNextCursor() == null ? Mono.empty()
+                        : Mono.fromCallable(() -> getRecommendationPage(productId, page.getNextCursor(), STREAM_PAGE_SIZE, View.FULL)))
+                .flatMapIterable(RecommendationPage::getRecommendations, 1)
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
     @Override
     public void deleteRecommendations(int productId) {
         try {
             String url = recommendationServiceUrl + productId;
             LOG.debug("Will call the deleteRecommendation API on URL: {}", url);
 
-            restTemplate.delete(url);
+            run(RECOMMENDATION_SERVICE, "deleteRecommendations", () -> restTemplate.delete(url));
+            aggregateCache.invalidate(productId);
         } catch (HttpClientErrorException exception) {
             throw handleHttpClientException(exception);
         }
@@ -166,8 +354,9 @@ public class ProductCompositeIntegration implements ProductService, Recommendati
             String url = reviewServiceUrl;
             LOG.debug("Will post a new review to URL: {}", url);
 
-            Review review = restTemplate.postForObject(url, body, Review.class);
+            Review review = call(REVIEW_SERVICE, "createReview", () -> restTemplate.postForObject(url, body, Review.class));
             LOG.debug("Created a review with id: {}", review != null ? review.getProductId() : "");
+            aggregateCache.invalidate(body.getProductId());
 
             return review;
         } catch (HttpClientErrorException e) {
@@ -175,15 +364,36 @@ public class ProductCompositeIntegration implements ProductService, Recommendati
         }
     }
 
+    /**
+     * RestTemplate cannot stream a request body, the reviews are collected and posted as one JSON array.
+     */
+    @Override
+    public Mono<BulkResult> createReviews(Flux<Review> body) {
+        return body.collectList()
+                .publishOn(Schedulers.boundedElastic())
+                .map(reviews -> {
+                    try {
+                        LOG.debug("Will post {} reviews to URL: {}", reviews.size(), reviewBulkUrl);
+
+                        BulkResult result = call(REVIEW_SERVICE, "createReviews", () -> restTemplate.postForObject(reviewBulkUrl, reviews, BulkResult.class));
+                        reviews.stream().map(Review::getProductId).distinct().forEach(aggregateCache::invalidate);
+
+                        return result != null ? result : new BulkResult();
+                    } catch (HttpClientErrorException exception) {
+                        throw handleHttpClientException(exception);
+                    }
+                });
+    }
+
     @Override
-    public List<Review> getReviews(int productId) {
+    public List<Review> getReviews(int productId, View view) {
 
         try {
-            String url = reviewServiceUrl + productId;
+            String url = reviewServiceUrl + productId + viewQuery(view);
 
             LOG.debug("Will call getReviews API on URL: {}", url);
-            List<Review> reviews = restTemplate.exchange(url, HttpMethod.GET, null, new ParameterizedTypeReference<List<Review>>() {
-            }).getBody();
+            List<Review> reviews = call(REVIEW_SERVICE, "getReviews", () -> listBody(restTemplate.exchange(url, HttpMethod.GET, readRequest, new ParameterizedTypeReference<List<Review>>() {
+            })));
 
             LOG.debug("Found {} reviews for a product with id: {}", reviews != null ? reviews.size() : 0, productId);
             return reviews;
@@ -194,19 +404,126 @@ public class ProductCompositeIntegration implements ProductService, Recommendati
         }
     }
 
+    @Override
+    public List<Review> getReviewsForProducts(List<Integer> productIds, View view) {
+        try {
+            String url = reviewBatchUrl + joinIds(productIds) + viewQuery(view);
+            LOG.debug("Will call getReviewsForProducts API on URL: {}", url);
+
+            List<Review> reviews = call(REVIEW_SERVICE, "getReviewsForProducts", () -> listBody(restTemplate.exchange(url, HttpMethod.GET, readRequest, new ParameterizedTypeReference<List<Review>>() {
+            })));
+
+            LOG.debug("Found {} reviews for {} products", reviews != null ? reviews.size() : 0, productIds.size());
+            return reviews != null ? reviews : new ArrayList<>();
+        } catch (Exception ex) {
+            LOG.warn("Got an exception while requesting reviews, return zero reviews: {}", ex.getMessage());
+            return new ArrayList<>();
+        }
+    }
+
+    @Override
+    public ReviewPage getReviewPage(int productId, Integer cursor, int size, View view) {
+        try {
+            return requireReviewPage(productId, cursor, size, view);
+        } catch (Exception ex) {
+            LOG.warn("Got an exception while requesting reviews, return zero reviews: {}", ex.getMessage());
+            return new ReviewPage(productId, new ArrayList<>(), null);
+        }
+    }
+
+    /**
+     * Same as {@link #getReviewPage} but a failed call ends in an exception instead of an empty page.
+     */
+    public ReviewPage requireReviewPage(int productId, Integer cursor, int size, View view) {
+        String url = reviewPageUrl + pageQuery(productId, cursor, size) + viewQuery(view);
+        LOG.debug("Will call getReviewPage API on URL: {}", url);
+
+        ReviewPage page = call(REVIEW_SERVICE, "getReviewPage", () -> pageBody(restTemplate.exchange(url, HttpMethod.GET, readRequest, ReviewPage.class), ReviewPage::getReviews));
+
+        LOG.debug("Found {} reviews for a product with id: {}", page != null ? page.getReviews().size() : 0, productId);
+        return page != null ? page : new ReviewPage(productId, new ArrayList<>(), null);
+    }
+
+    @Override
+    public List<ReviewPage> getFirstReviewPages(List<Integer> productIds, int size, View view) {
+        try {
+            return requireFirstReviewPages(productIds, size, view);
+        } catch (Exception ex) {
+            LOG.warn("Got an exception while requesting reviews, return zero reviews: {}", ex.getMessage());
+            return new ArrayList<>();
+        }
+    }
+
+    /**
+     * Same as {@link #getFirstReviewPages} but a failed call ends in an exception instead of no pages.
+     */
+    public List<ReviewPage> requireFirstReviewPages(List<Integer> productIds, int size, View view) {
+        String url = reviewPageUrl + firstPagesQuery(productIds, size) + viewQuery(view);
+        LOG.debug("Will call getFirstReviewPages API on URL: {}", url);
+
+        List<ReviewPage> pages = call(REVIEW_SERVICE, "getFirstReviewPages", () -> pagesBody(restTemplate.exchange(url, HttpMethod.GET, readRequest, new ParameterizedTypeReference<List<ReviewPage>>() {
+        }), ReviewPage::getReviews));
+
+        LOG.debug("Found the first reviews of {} products", pages != null ? pages.size() : 0);
+        return pages != null ? pages : new ArrayList<>();
+    }
+
+    /**
+     * RestTemplate cannot read a streamed response, the reviews are fetched page by page instead.
+     */
+    @Override
+    public Flux<Review> streamReviews(int productId) {
+        return Mono.fromCallable(() -> getReviewPage(productId, null, STREAM_PAGE_SIZE, View.FULL))
+                .expand(page -> page.getNextCursor() == null ? Mono.empty()
+                        : Mono.fromCallable(() -> getReviewPage(productId, page.getNextCursor(), STREAM_PAGE_SIZE, View.FULL)))
+                .flatMapIterable(ReviewPage::getReviews, 1)
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
     @Override
     public void deleteReviews(int productId) {
         try {
             String url = reviewServiceUrl + productId;
             LOG.debug("Will call the deleteReviews API on URL: {}", url);
 
-            restTemplate.delete(url);
+            run(REVIEW_SERVICE, "deleteReviews", () -> restTemplate.delete(url));
+            aggregateCache.invalidate(productId);
 
         } catch (HttpClientErrorException exception) {
             throw handleHttpClientException(exception);
         }
     }
 
+    /**
+     * Guards the call, see {@link CoreServiceResilience}, and times it as composite.integration, see {@link CompositeMetrics}.
+     */
+    private <T> T call(String service, String method, Supplier<T> call) {
+        return metrics.recordCall(service, method, () -> resilience.call(service, call));
+    }
+
+    private void run(String service, String method, Runnable call) {
+        metrics.recordRun(service, method, () -> resilience.run(service, call));
+    }
+
+    static String pageQuery(int productId, Integer cursor, int size) {
+        return "?productId=" + productId + "&size=" + size + (cursor != null ? "&cursor=" + cursor : "");
+    }
+
+    static String firstPagesQuery(List<Integer> productIds, int size) {
+        return "?productIds=" + joinIds(productIds) + "&size=" + size;
+    }
+
+    /**
+     * The full view is the default of the core services, only the summary is asked for explicitly.
+     */
+    static String viewQuery(View view) {
+        return (view == View.SUMMARY) ? "&view=" + view.name() : "";
+    }
+
+    static String joinIds(List<Integer> productIds) {
+        return productIds.stream().map(String::valueOf).collect(Collectors.joining(","));
+    }
+
     private RuntimeException handleHttpClientException(HttpClientErrorException exception) {
 
         switch (exception.getStatusCode()) {
@@ -223,9 +540,18 @@ public class ProductCompositeIntegration implements ProductService, Recommendati
 
     private String getErrorMessage(HttpClientErrorException ex) {
         try {
-            return mapper.readValue(ex.getResponseBodyAsString(), HttpErrorInfo.class).getMessage();
+            return readErrorInfo(mapper, ex.getResponseHeaders(), ex.getResponseBodyAsByteArray()).getMessage();
         } catch (Exception iex) {
             return iex.getMessage();
         }
     }
+
+    /**
+     * Error bodies are negotiated like any other response, a core service asked for Smile answers its errors in Smile.
+     */
+    static HttpErrorInfo readErrorInfo(ObjectMapper mapper, HttpHeaders headers, byte[] body) throws IOException {
+        MediaType contentType = headers != null ? headers.getContentType() : null;
+        ObjectMapper reader = CoreMediaTypes.APPLICATION_SMILE.isCompatibleWith(contentType) ? SMILE_MAPPER : mapper;
+        return reader.readValue(body, HttpErrorInfo.class);
+    }
 }
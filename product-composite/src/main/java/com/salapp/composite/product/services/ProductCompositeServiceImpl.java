@@ -1,54 +1,559 @@
 package com.salapp.composite.product.services;
 
+import brave.SpanCustomizer;
 import com.salapp.api.composite.product.*;
+import com.salapp.api.core.View;
+import com.salapp.api.core.bulk.BulkFailure;
+import com.salapp.api.core.bulk.BulkResult;
 import com.salapp.api.core.product.Product;
 import com.salapp.api.core.recommendation.Recommendation;
+import com.salapp.api.core.recommendation.RecommendationPage;
 import com.salapp.api.core.review.Review;
+import com.salapp.api.core.review.ReviewPage;
+import com.salapp.util.exceptions.InvalidInputException;
 import com.salapp.util.exceptions.NotFoundException;
 import com.salapp.util.http.ServiceUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.DigestUtils;
 import org.springframework.web.bind.annotation.RestController;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
+import static java.util.concurrent.CompletableFuture.runAsync;
+import static java.util.concurrent.CompletableFuture.supplyAsync;
+
 @RestController
+@ConditionalOnProperty(name = "app.client", havingValue = "blocking", matchIfMissing = true)
 public class ProductCompositeServiceImpl implements ProductCompositeService {
 
+    private static final Logger LOG = LoggerFactory.getLogger(ProductCompositeServiceImpl.class);
+
+    static final String PRODUCT_ID_TAG = "productId";
+    static final String RECOMMENDATIONS_SIZE_TAG = "recommendations.size";
+    static final String REVIEWS_SIZE_TAG = "reviews.size";
+
+    private static final char TAG_SEPARATOR = '\u001f';
+
     private final ServiceUtil serviceUtil;
     private final ProductCompositeIntegration integration;
+    private final ProductAggregateCache aggregateCache;
+    private final ProductReadModel readModel;
+    private final ProductRequestCoalescer coalescer;
+    private final CompositeMetrics metrics;
+    private final SpanCustomizer currentSpan;
+    private final Executor fanOutExecutor;
+    private final FanOutMode fanOutMode;
+    private final int maxBatchSize;
+    private final int pageSize;
+    private final int writeBatchSize;
+    private final int writeConcurrency;
 
     @Autowired
-    public ProductCompositeServiceImpl(ServiceUtil serviceUtil, ProductCompositeIntegration integration) {
+    public ProductCompositeServiceImpl(
+            ServiceUtil serviceUtil,
+            ProductCompositeIntegration integration,
+            ProductAggregateCache aggregateCache,
+            ProductReadModel readModel,
+            ProductRequestCoalescer coalescer,
+            CompositeMetrics metrics,
+            SpanCustomizer currentSpan,
+            @Qualifier("fanOutExecutor") Executor fanOutExecutor,
+            @Value("${app.fan-out.mode:parallel}") FanOutMode fanOutMode,
+            @Value("${app.batch.max-size:100}") int maxBatchSize,
+            @Value("${app.aggregate.page-size:20}") int pageSize,
+            @Value("${app.composite-write.batch-size:100}") int writeBatchSize,
+            @Value("${app.composite-write.concurrency:4}") int writeConcurrency) {
         this.serviceUtil = serviceUtil;
         this.integration = integration;
+        this.aggregateCache = aggregateCache;
+        this.readModel = readModel;
+        this.coalescer = coalescer;
+        this.metrics = metrics;
+        this.currentSpan = currentSpan;
+        this.fanOutExecutor = fanOutExecutor;
+        this.fanOutMode = fanOutMode;
+        this.maxBatchSize = maxBatchSize;
+        this.pageSize = pageSize;
+        this.writeBatchSize = writeBatchSize;
+        this.writeConcurrency = writeConcurrency;
+
+        LOG.info("Calls to the core services will be made in {} mode", fanOutMode);
+    }
+
+    /**
+     * When the ETag still matches the If-None-Match of the request, WebFlux answers with 304 Not Modified and the
+     * aggregate is not serialized. A cached aggregate is not even rebuilt for that.
+     */
+    @Override
+    public ResponseEntity<ProductAggregate> getProduct(int productId) {
+        currentSpan.tag(PRODUCT_ID_TAG, String.valueOf(productId));
+
+        ProductAggregate aggregate = lookup(productId);
+        if (aggregate == null) {
+            aggregate = fetchProduct(productId);
+        }
+        tagSizes(currentSpan, aggregate);
+        return ResponseEntity.ok().eTag(entityTag(aggregate)).body(aggregate);
+    }
+
+    /**
+     * The read model first, when it is enabled, then the cache. Null when the core services have to be asked.
+     */
+    private ProductAggregate lookup(int productId) {
+        ProductAggregate aggregate = readModel.get(productId);
+        return (aggregate != null) ? aggregate : aggregateCache.get(productId);
+    }
+
+    /**
+     * An aggregate built with an empty page in place of recommendations or reviews that could not be read is answered
+     * but not cached, the next request tries the core service again.
+     */
+    private ProductAggregate fetchProduct(int productId) {
+        return coalescer.get(productId, () -> {
+            long generation = aggregateCache.generation(productId);
+            AtomicBoolean degraded = new AtomicBoolean();
+            ProductAggregate fetched = (fanOutMode == FanOutMode.SEQUENTIAL)
+                    ? getProductSequentially(productId, degraded)
+                    : getProductInParallel(productId, degraded);
+
+            if (!degraded.get()) aggregateCache.put(productId, fetched, generation);
+            return fetched;
+        });
+    }
+
+    /**
+     * Aggregates already in the cache are reused, the remaining ones are built from one batch call per core service.
+     */
+    @Override
+    public Flux<ProductAggregate> getProducts(List<Integer> productIds) {
+        List<Integer> ids = validateProductIds(productIds, maxBatchSize);
+
+        Map<Integer, ProductAggregate> aggregates = new HashMap<>();
+        List<Integer> missing = new ArrayList<>();
+        for (int productId : ids) {
+            ProductAggregate cached = lookup(productId);
+            if (cached != null) {
+                aggregates.put(productId, cached);
+            } else {
+                missing.add(productId);
+            }
+        }
+
+        if (!missing.isEmpty()) {
+            Map<Integer, Long> generations = generations(aggregateCache, missing);
+            AtomicBoolean degraded = new AtomicBoolean();
+            for (ProductAggregate aggregate : fetchProducts(missing, degraded)) {
+                if (!degraded.get()) aggregateCache.put(aggregate.getProductId(), aggregate, generations.get(aggregate.getProductId()));
+                aggregates.put(aggregate.getProductId(), aggregate);
+            }
+        }
+
+        return Flux.fromIterable(inRequestedOrder(ids, aggregates));
+    }
+
+    /**
+     * A failed child write is compensated by deleting the product with all of its recommendations and reviews, so a
+     * product with children is only created when none exist for its productId yet, see {@link #requireNoChildren}.
+     */
+    @Override
+    public void createCompositeProduct(ProductAggregate body) {
+        validateCompositeProduct(body);
+        int productId = body.getProductId();
+
+        if (hasChildren(body)) {
+            CompletableFuture<RecommendationPage> recommendations = supplyAsync(() -> integration.requireRecommendationPage(productId, null, 1, View.SUMMARY), fanOutExecutor);
+            CompletableFuture<ReviewPage> reviews = supplyAsync(() -> integration.requireReviewPage(productId, null, 1, View.SUMMARY), fanOutExecutor);
+            try {
+                requireNoChildren(productId, recommendations.join(), reviews.join());
+            } catch (CompletionException e) {
+                throw unwrap(e);
+            }
+        }
+
+        integration.createProduct(toProduct(body));
+
+        try {
+            writeChildren(childWrites(body, writeBatchSize, integration::createRecommendations, integration::createReviews), writeConcurrency)
+                    .toFuture()
+                    .join();
+        } catch (RuntimeException e) {
+            RuntimeException cause = unwrap(e);
+            LOG.warn("createCompositeProduct: writing product {} failed, deleting what was written: {}", productId, cause.getMessage());
+            try {
+                deleteCompositeProduct(productId);
+            } catch (RuntimeException compensationError) {
+                LOG.error("createCompositeProduct: could not delete the partially written product {}: {}", productId, compensationError.getMessage());
+            }
+            throw cause;
+        }
+
+        aggregateCache.invalidate(productId);
+        LOG.debug("createCompositeProduct: created product {} with {} recommendations and {} reviews", productId,
+                sizeOf(body.getRecommendations()), sizeOf(body.getReviews()));
     }
 
+    /**
+     * The three deletes are independent of each other and run at the same time.
+     */
     @Override
-    public ProductAggregate getProduct(int productId) {
-        Product product = integration.getProduct(productId);
+    public void deleteCompositeProduct(int productId) {
+        if (productId < 1) throw new InvalidInputException("Invalid productId: " + productId);
+
+        CompletableFuture<Void> product = runAsync(() -> integration.deleteProduct(productId), fanOutExecutor);
+        CompletableFuture<Void> recommendations = runAsync(() -> integration.deleteRecommendations(productId), fanOutExecutor);
+        CompletableFuture<Void> reviews = runAsync(() -> integration.deleteReviews(productId), fanOutExecutor);
+
+        try {
+            CompletableFuture.allOf(product, recommendations, reviews).join();
+        } catch (RuntimeException e) {
+            throw unwrap(e);
+        } finally {
+            aggregateCache.invalidate(productId);
+        }
+    }
+
+    private List<ProductAggregate> fetchProducts(List<Integer> productIds, AtomicBoolean degraded) {
+        if (fanOutMode == FanOutMode.SEQUENTIAL) {
+            return createProductAggregates(
+                    integration.getProducts(productIds),
+                    firstRecommendationPages(productIds, degraded),
+                    firstReviewPages(productIds, degraded),
+                    serviceUtil.getServiceAddress());
+        }
+
+        CompletableFuture<List<Product>> products = supplyAsync(() -> integration.getProducts(productIds), fanOutExecutor);
+        CompletableFuture<List<RecommendationPage>> recommendations = supplyAsync(() -> firstRecommendationPages(productIds, degraded), fanOutExecutor);
+        CompletableFuture<List<ReviewPage>> reviews = supplyAsync(() -> firstReviewPages(productIds, degraded), fanOutExecutor);
+
+        try {
+            return createProductAggregates(products.join(), recommendations.join(), reviews.join(), serviceUtil.getServiceAddress());
+        } catch (RuntimeException e) {
+            recommendations.cancel(false);
+            reviews.cancel(false);
+            throw unwrap(e);
+        }
+    }
+
+    private ProductAggregate getProductSequentially(int productId, AtomicBoolean degraded) {
+        Product product = metrics.recordPhase("product", () -> integration.getProduct(productId));
         if (product == null) throw new NotFoundException("No product for productId: " + productId);
 
-        List<Recommendation> recommendations = integration.getRecommendations(productId);
+        RecommendationPage recommendations = metrics.recordPhase("recommendations", () -> firstRecommendationPage(productId, degraded));
+
+        ReviewPage reviews = metrics.recordPhase("reviews", () -> firstReviewPage(productId, degraded));
+
+        return metrics.recordPhase("aggregate", () -> createProductAggregate(product, recommendations, reviews, serviceUtil.getServiceAddress()));
+    }
+
+    /**
+     * Recommendations and reviews only depend on the productId, so they are requested speculatively together with the
+     * product. The composite latency then becomes the one of the slowest call instead of the sum of all three.
+     */
+    private ProductAggregate getProductInParallel(int productId, AtomicBoolean degraded) {
+        CompletableFuture<Product> product = supplyAsync(() -> metrics.recordPhase("product", () -> integration.getProduct(productId)), fanOutExecutor);
+        CompletableFuture<RecommendationPage> recommendations = supplyAsync(() -> metrics.recordPhase("recommendations", () -> firstRecommendationPage(productId, degraded)), fanOutExecutor);
+        CompletableFuture<ReviewPage> reviews = supplyAsync(() -> metrics.recordPhase("reviews", () -> firstReviewPage(productId, degraded)), fanOutExecutor);
+
+        try {
+            Product foundProduct = product.join();
+            if (foundProduct == null) throw new NotFoundException("No product for productId: " + productId);
+
+            RecommendationPage foundRecommendations = recommendations.join();
+            ReviewPage foundReviews = reviews.join();
+            return metrics.recordPhase("aggregate", () -> createProductAggregate(foundProduct, foundRecommendations, foundReviews, serviceUtil.getServiceAddress()));
+        } catch (RuntimeException e) {
+            // the speculative calls are no longer needed, their results are simply dropped when they complete
+            recommendations.cancel(false);
+            reviews.cancel(false);
+            throw unwrap(e);
+        }
+    }
+
+    private RecommendationPage firstRecommendationPage(int productId, AtomicBoolean degraded) {
+        try {
+            return integration.requireRecommendationPage(productId, null, pageSize, View.SUMMARY);
+        } catch (RuntimeException e) {
+            return degrade(degraded, "recommendations", e, new RecommendationPage(productId, new ArrayList<>(), null));
+        }
+    }
+
+    private ReviewPage firstReviewPage(int productId, AtomicBoolean degraded) {
+        try {
+            return integration.requireReviewPage(productId, null, pageSize, View.SUMMARY);
+        } catch (RuntimeException e) {
+            return degrade(degraded, "reviews", e, new ReviewPage(productId, new ArrayList<>(), null));
+        }
+    }
+
+    private List<RecommendationPage> firstRecommendationPages(List<Integer> productIds, AtomicBoolean degraded) {
+        try {
+            return integration.requireFirstRecommendationPages(productIds, pageSize, View.SUMMARY);
+        } catch (RuntimeException e) {
+            return degrade(degraded, "recommendations", e, new ArrayList<>());
+        }
+    }
 
-        List<Review> reviews = integration.getReviews(productId);
+    private List<ReviewPage> firstReviewPages(List<Integer> productIds, AtomicBoolean degraded) {
+        try {
+            return integration.requireFirstReviewPages(productIds, pageSize, View.SUMMARY);
+        } catch (RuntimeException e) {
+            return degrade(degraded, "reviews", e, new ArrayList<>());
+        }
+    }
+
+    /**
+     * Answers with the empty stand-in for what a core service failed to deliver, and marks the aggregates built with it
+     * as degraded so that they are not cached.
+     */
+    static <T> T degrade(AtomicBoolean degraded, String children, Throwable e, T empty) {
+        LOG.warn("Got an exception while requesting {}, return zero {}: {}", children, children, e.getMessage());
+        degraded.set(true);
+        return empty;
+    }
+
+    /**
+     * The cache generations of the products, taken before they are fetched.
+     */
+    static Map<Integer, Long> generations(ProductAggregateCache aggregateCache, List<Integer> productIds) {
+        Map<Integer, Long> generations = new HashMap<>();
+        productIds.forEach(productId -> generations.put(productId, aggregateCache.generation(productId)));
+        return generations;
+    }
+
+    private RuntimeException unwrap(RuntimeException e) {
+        if (e instanceof CompletionException && e.getCause() instanceof RuntimeException) {
+            return (RuntimeException) e.getCause();
+        }
+        return e;
+    }
+
+    /**
+     * Tags the span of the composite request with the number of recommendations and reviews of the aggregate.
+     */
+    static void tagSizes(SpanCustomizer span, ProductAggregate aggregate) {
+        span.tag(RECOMMENDATIONS_SIZE_TAG, String.valueOf(sizeOf(aggregate.getRecommendations())));
+        span.tag(REVIEWS_SIZE_TAG, String.valueOf(sizeOf(aggregate.getReviews())));
+    }
+
+    /**
+     * Strong ETag of the aggregate, a digest of the versions of the product and of the recommendations and reviews in
+     * it, together with their fields and the cursors. Versions start over when a product is deleted and created again,
+     * the fields keep the tag from repeating then. The service addresses only tell which instances answered and are left
+     * out, so every composite instance hands out the same tag for the same content.
+     */
+    static String entityTag(ProductAggregate aggregate) {
+        StringBuilder content = new StringBuilder()
+                .append(aggregate.getProductId()).append(TAG_SEPARATOR)
+                .append(aggregate.getVersion()).append(TAG_SEPARATOR)
+                .append(aggregate.getName()).append(TAG_SEPARATOR)
+                .append(aggregate.getWeight()).append(TAG_SEPARATOR)
+                .append(aggregate.getRecommendationsCursor()).append(TAG_SEPARATOR)
+                .append(aggregate.getReviewsCursor()).append(TAG_SEPARATOR);
+
+        if (aggregate.getRecommendations() != null) {
+            for (RecommendationSummary r : aggregate.getRecommendations()) {
+                content.append(r.getRecommendationId()).append(TAG_SEPARATOR)
+                        .append(r.getVersion()).append(TAG_SEPARATOR)
+                        .append(r.getAuthor()).append(TAG_SEPARATOR)
+                        .append(r.getRate()).append(TAG_SEPARATOR)
+                        .append(r.getContent()).append(TAG_SEPARATOR);
+            }
+        }
+        content.append(TAG_SEPARATOR);
+        if (aggregate.getReviews() != null) {
+            for (ReviewSummary r : aggregate.getReviews()) {
+                content.append(r.getReviewId()).append(TAG_SEPARATOR)
+                        .append(r.getVersion()).append(TAG_SEPARATOR)
+                        .append(r.getAuthor()).append(TAG_SEPARATOR)
+                        .append(r.getSubject()).append(TAG_SEPARATOR)
+                        .append(r.getContent()).append(TAG_SEPARATOR);
+            }
+        }
+
+        return "\"" + aggregate.getProductId() + "-" + DigestUtils.md5DigestAsHex(content.toString().getBytes(StandardCharsets.UTF_8)) + "\"";
+    }
+
+    /**
+     * @return the distinct ids, in the order they were given
+     */
+    static List<Integer> validateProductIds(List<Integer> productIds, int maxBatchSize) {
+        if (productIds == null || productIds.isEmpty()) {
+            throw new InvalidInputException("At least one productId is required");
+        }
+
+        List<Integer> ids = productIds.stream().distinct().collect(Collectors.toList());
+        if (ids.size() > maxBatchSize) {
+            throw new InvalidInputException("At most " + maxBatchSize + " productIds can be requested at once, got: " + ids.size());
+        }
+        for (int productId : ids) {
+            if (productId < 1) throw new InvalidInputException("Invalid productId: " + productId);
+        }
+        return ids;
+    }
+
+    static void validateCompositeProduct(ProductAggregate body) {
+        if (body == null) throw new InvalidInputException("A product is required");
+        if (body.getProductId() < 1) throw new InvalidInputException("Invalid productId: " + body.getProductId());
+    }
+
+    static boolean hasChildren(ProductAggregate body) {
+        return sizeOf(body.getRecommendations()) > 0 || sizeOf(body.getReviews()) > 0;
+    }
+
+    /**
+     * Recommendations or reviews left behind under the productId would be deleted along with the new ones if the
+     * create fails, the create is rejected instead. A first page of size 1 is enough to tell.
+     */
+    static void requireNoChildren(int productId, RecommendationPage recommendations, ReviewPage reviews) {
+        if (!recommendations.getRecommendations().isEmpty()) {
+            throw new InvalidInputException("Product Id: " + productId + " already has recommendations");
+        }
+        if (!reviews.getReviews().isEmpty()) {
+            throw new InvalidInputException("Product Id: " + productId + " already has reviews");
+        }
+    }
+
+    static Product toProduct(ProductAggregate body) {
+        return new Product(body.getProductId(), body.getName(), body.getWeight(), null);
+    }
+
+    /**
+     * One bulk write per batch of recommendations or reviews. Nothing is sent before the returned Monos are subscribed.
+     */
+    static List<Mono<BulkResult>> childWrites(ProductAggregate body, int batchSize,
+                                              Function<Flux<Recommendation>, Mono<BulkResult>> recommendationWriter,
+                                              Function<Flux<Review>, Mono<BulkResult>> reviewWriter) {
+        int productId = body.getProductId();
+        List<Mono<BulkResult>> writes = new ArrayList<>();
+
+        List<Recommendation> recommendations = (body.getRecommendations() == null) ? Collections.emptyList() :
+                body.getRecommendations().stream()
+                        .map(r -> new Recommendation(productId, r.getRecommendationId(), r.getAuthor(), r.getRate(), r.getContent(), null))
+                        .collect(Collectors.toList());
+        for (List<Recommendation> batch : batches(recommendations, batchSize)) {
+            writes.add(Mono.defer(() -> recommendationWriter.apply(Flux.fromIterable(batch))));
+        }
+
+        List<Review> reviews = (body.getReviews() == null) ? Collections.emptyList() :
+                body.getReviews().stream()
+                        .map(r -> new Review(productId, r.getReviewId(), r.getAuthor(), r.getSubject(), r.getContent(), null))
+                        .collect(Collectors.toList());
+        for (List<Review> batch : batches(reviews, batchSize)) {
+            writes.add(Mono.defer(() -> reviewWriter.apply(Flux.fromIterable(batch))));
+        }
+
+        return writes;
+    }
+
+    /**
+     * Runs at most concurrency writes at a time. After the first failure no further write is started, but the ones in
+     * flight are allowed to finish so that a compensating delete does not race them.
+     */
+    static Mono<Void> writeChildren(List<Mono<BulkResult>> writes, int concurrency) {
+        AtomicBoolean failed = new AtomicBoolean();
+
+        return Flux.fromIterable(writes)
+                .flatMapDelayError(write -> Mono.defer(() -> failed.get() ? Mono.<BulkResult>empty() : write)
+                        .doOnNext(ProductCompositeServiceImpl::requireNoFailures)
+                        .doOnError(e -> failed.set(true)), concurrency, 1)
+                .onErrorMap(e -> Exceptions.unwrapMultiple(e).get(0))
+                .then();
+    }
+
+    static void requireNoFailures(BulkResult result) {
+        if (!result.getFailures().isEmpty()) {
+            BulkFailure failure = result.getFailures().get(0);
+            throw new InvalidInputException(failure.getMessage());
+        }
+    }
+
+    static <T> List<List<T>> batches(List<T> items, int batchSize) {
+        List<List<T>> batches = new ArrayList<>();
+        for (int from = 0; from < items.size(); from += batchSize) {
+            batches.add(items.subList(from, Math.min(from + batchSize, items.size())));
+        }
+        return batches;
+    }
+
+    private static int sizeOf(List<?> list) {
+        return (list == null) ? 0 : list.size();
+    }
+
+    static List<ProductAggregate> inRequestedOrder(List<Integer> productIds, Map<Integer, ProductAggregate> aggregates) {
+        return productIds.stream()
+                .map(aggregates::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * The batch calls return the first page of recommendations and reviews of every product, so each aggregate looks
+     * the same as one built by {@link #getProduct(int)}. A product without a page gets an empty one.
+     */
+    static List<ProductAggregate> createProductAggregates(List<Product> products, List<RecommendationPage> recommendationPages, List<ReviewPage> reviewPages, String serviceAddress) {
+        Map<Integer, RecommendationPage> recommendationsByProduct = recommendationPages.stream()
+                .collect(Collectors.toMap(RecommendationPage::getProductId, Function.identity(), (first, second) -> first));
+        Map<Integer, ReviewPage> reviewsByProduct = reviewPages.stream()
+                .collect(Collectors.toMap(ReviewPage::getProductId, Function.identity(), (first, second) -> first));
+
+        return products.stream()
+                .map(product -> createProductAggregate(
+                        product,
+                        recommendationsByProduct.getOrDefault(product.getProductId(), new RecommendationPage(product.getProductId(), new ArrayList<>(), null)),
+                        reviewsByProduct.getOrDefault(product.getProductId(), new ReviewPage(product.getProductId(), new ArrayList<>(), null)),
+                        serviceAddress))
+                .collect(Collectors.toList());
+    }
+
+    static ProductAggregate createProductAggregate(Product product, RecommendationPage recommendations, ReviewPage reviews, String serviceAddress) {
+        return createProductAggregate(
+                product,
+                recommendations.getRecommendations(), recommendations.getNextCursor(),
+                reviews.getReviews(), reviews.getNextCursor(),
+                serviceAddress);
+    }
 
-        return createProductAggregate(product, recommendations, reviews, serviceUtil.getServiceAddress());
+    static ProductAggregate createProductAggregate(Product product, List<Recommendation> recommendations, List<Review> reviews, String serviceAddress) {
+        return createProductAggregate(product, recommendations, null, reviews, null, serviceAddress);
     }
 
-    private ProductAggregate createProductAggregate(Product product, List<Recommendation> recommendations, List<Review> reviews, String serviceAddress) {
+    static ProductAggregate createProductAggregate(Product product,
+                                                   List<Recommendation> recommendations, Integer recommendationsCursor,
+                                                   List<Review> reviews, Integer reviewsCursor,
+                                                   String serviceAddress) {
         int productId = product.getProductId();
         String name = product.getName();
         int weight = product.getWeight();
 
         List<RecommendationSummary> recommendationSummaries = (recommendations == null) ? null :
                 recommendations.stream()
-                        .map(r -> new RecommendationSummary(r.getRecommendationId(), r.getAuthor(), r.getRate()))
+                        .map(r -> new RecommendationSummary(r.getRecommendationId(), r.getAuthor(), r.getRate(), r.getContent(), r.getVersion()))
                         .collect(Collectors.toList());
 
         List<ReviewSummary> reviewSummaries = (reviews == null) ? null :
                 reviews.stream()
-                        .map(r -> new ReviewSummary(r.getReviewId(), r.getAuthor(), r.getSubject()))
+                        .map(r -> new ReviewSummary(r.getReviewId(), r.getAuthor(), r.getSubject(), r.getContent(), r.getVersion()))
                         .collect(Collectors.toList());
 
         String productAddress = product.getServiceAddress();
@@ -56,6 +561,6 @@ public class ProductCompositeServiceImpl implements ProductCompositeService {
         String recommendationAddress = (recommendations != null && !recommendations.isEmpty()) ? recommendations.get(0).getServiceAddress() : "";
         ServiceAddress serviceAddress1 = new ServiceAddress(serviceAddress, productAddress, reviewAddress, recommendationAddress);
 
-        return new ProductAggregate(productId, name, weight, recommendationSummaries, reviewSummaries, serviceAddress1);
+        return new ProductAggregate(productId, name, weight, recommendationSummaries, recommendationsCursor, reviewSummaries, reviewsCursor, serviceAddress1, product.getVersion());
     }
 }
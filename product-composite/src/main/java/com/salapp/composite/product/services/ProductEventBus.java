@@ -0,0 +1,62 @@
+package com.salapp.composite.product.services;
+
+import com.salapp.api.core.product.Product;
+import com.salapp.api.core.recommendation.Recommendation;
+import com.salapp.api.core.review.Review;
+import com.salapp.api.event.Event;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+/**
+ * In-process stand-in for a message broker, one topic per core service. Events published before anyone subscribes
+ * are buffered for the first subscriber, after that every subscriber gets the events published from then on, in the
+ * order they were published. A topic stays open when its subscribers leave.
+ * <p>
+ * Events from the core services arrive through the composite's event endpoint, tests publish them directly.
+ */
+@Component
+public class ProductEventBus {
+
+    /**
+     * Events held per topic until the first subscriber arrives.
+     */
+    private static final int BUFFER_SIZE = 1024;
+
+    private final Sinks.Many<Event<Integer, Product>> products = Sinks.many().multicast().onBackpressureBuffer(BUFFER_SIZE, false);
+    private final Sinks.Many<Event<Integer, Recommendation>> recommendations = Sinks.many().multicast().onBackpressureBuffer(BUFFER_SIZE, false);
+    private final Sinks.Many<Event<Integer, Review>> reviews = Sinks.many().multicast().onBackpressureBuffer(BUFFER_SIZE, false);
+
+    public void publishProductEvent(Event<Integer, Product> event) {
+        publish(products, event);
+    }
+
+    public void publishRecommendationEvent(Event<Integer, Recommendation> event) {
+        publish(recommendations, event);
+    }
+
+    public void publishReviewEvent(Event<Integer, Review> event) {
+        publish(reviews, event);
+    }
+
+    public Flux<Event<Integer, Product>> productEvents() {
+        return products.asFlux();
+    }
+
+    public Flux<Event<Integer, Recommendation>> recommendationEvents() {
+        return recommendations.asFlux();
+    }
+
+    public Flux<Event<Integer, Review>> reviewEvents() {
+        return reviews.asFlux();
+    }
+
+    /**
+     * A sink only accepts one emission at a time, publishers on different threads take turns.
+     */
+    private static <T> void publish(Sinks.Many<T> topic, T event) {
+        synchronized (topic) {
+            topic.emitNext(event, Sinks.EmitFailureHandler.FAIL_FAST);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.salapp.composite.product.services;
+
+import com.salapp.api.core.product.Product;
+import com.salapp.api.core.recommendation.Recommendation;
+import com.salapp.api.core.review.Review;
+import com.salapp.api.event.Event;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import springfox.documentation.annotations.ApiIgnore;
+
+/**
+ * Receives the change events of the core services and hands them to the {@link ProductEventBus}, one endpoint per
+ * topic. Events are accepted as a JSON array or as newline delimited JSON, in the order they were created.
+ * <p>
+ * Only there when the read model is enabled, it is not part of the public API.
+ */
+@ApiIgnore
+@RestController
+@ConditionalOnProperty(name = "app.read-model.enabled", havingValue = "true")
+public class ProductEventController {
+
+    private final ProductEventBus bus;
+
+    @Autowired
+    public ProductEventController(ProductEventBus bus) {
+        this.bus = bus;
+    }
+
+    @PostMapping(value = "/product-composite/events/products", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public Mono<Void> productEvents(@RequestBody Flux<Event<Integer, Product>> events) {
+        return events.doOnNext(bus::publishProductEvent).then();
+    }
+
+    @PostMapping(value = "/product-composite/events/recommendations", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public Mono<Void> recommendationEvents(@RequestBody Flux<Event<Integer, Recommendation>> events) {
+        return events.doOnNext(bus::publishRecommendationEvent).then();
+    }
+
+    @PostMapping(value = "/product-composite/events/reviews", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public Mono<Void> reviewEvents(@RequestBody Flux<Event<Integer, Review>> events) {
+        return events.doOnNext(bus::publishReviewEvent).then();
+    }
+}
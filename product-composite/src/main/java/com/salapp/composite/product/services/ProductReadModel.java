@@ -0,0 +1,555 @@
+package com.salapp.composite.product.services;
+
+import com.salapp.api.composite.product.ProductAggregate;
+import com.salapp.api.composite.product.RecommendationSummary;
+import com.salapp.api.composite.product.ReviewSummary;
+import com.salapp.api.composite.product.ServiceAddress;
+import com.salapp.api.core.View;
+import com.salapp.api.core.product.Product;
+import com.salapp.api.core.recommendation.Recommendation;
+import com.salapp.api.core.review.Review;
+import com.salapp.api.event.Event;
+import com.salapp.util.exceptions.NotFoundException;
+import com.salapp.util.http.ServiceUtil;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.Disposables;
+import reactor.core.publisher.Mono;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+import static com.salapp.composite.product.services.ProductCompositeServiceImpl.createProductAggregate;
+
+/**
+ * Denormalized aggregates kept up to date by the change events of the core services, so that a product lookup is a
+ * single map read instead of three calls. Enabled with {@code app.read-model.enabled}, when disabled nothing is stored
+ * and every lookup misses.
+ * <p>
+ * An entry holds the product and the first page of its recommendations and reviews, as in the aggregate. A lookup that
+ * misses starts a backfill of the product in the background, the lookup itself is answered the usual way. From then
+ * on only events change the entry, or a rebuild through {@link ProductReadModelEndpoint}. Events older than what an
+ * entry holds, by version, are ignored, so redelivered events do no harm.
+ * <p>
+ * A deleted product leaves a tombstone with the time of its delete event, and so does a delete of a product's
+ * recommendations or reviews on their page. An event created before that time, redelivered or out of order, is
+ * ignored, and a backfill or rebuild that read the product before the delete was applied does not bring it back. A
+ * tombstone of a product starts with empty pages, a product created after it only gets the recommendations and reviews
+ * created after the delete. Tombstones are dropped after {@code app.read-model.tombstone-retention}, an event
+ * redelivered later than that can still bring back a deleted product until the next rebuild.
+ * <p>
+ * Backfills and rebuilds read the core services without the fallbacks of the request path, an unavailable service
+ * leaves the entry as it is rather than storing an aggregate without recommendations or reviews.
+ * <p>
+ * Metrics: composite.read-model.staleness, the age of an event when it is applied, composite.read-model.lookups tagged
+ * with result hit or miss, and composite.read-model.products.
+ */
+@Component
+public class ProductReadModel {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ProductReadModel.class);
+
+    static final String STALENESS = "composite.read-model.staleness";
+    static final String LOOKUPS = "composite.read-model.lookups";
+
+    private final ConcurrentMap<Integer, Entry> entries = new ConcurrentHashMap<>();
+    private final Set<Integer> backfilling = ConcurrentHashMap.newKeySet();
+    private final AtomicLong deletes = new AtomicLong();
+    private final Queue<Tombstone> tombstones = new ConcurrentLinkedQueue<>();
+
+    private final ReactiveProductCompositeIntegration integration;
+    private final ProductAggregateCache aggregateCache;
+    private final ServiceUtil serviceUtil;
+    private final boolean enabled;
+    private final int pageSize;
+    private final Duration tombstoneRetention;
+
+    private final Timer staleness;
+    private final Counter hits;
+    private final Counter misses;
+
+    private final Disposable subscription;
+
+    @Autowired
+    public ProductReadModel(
+            ProductEventBus bus,
+            ReactiveProductCompositeIntegration integration,
+            ProductAggregateCache aggregateCache,
+            ServiceUtil serviceUtil,
+            MeterRegistry registry,
+            @Value("${app.read-model.enabled:false}") boolean enabled,
+            @Value("${app.aggregate.page-size:20}") int pageSize,
+            @Value("${app.read-model.tombstone-retention:1h}") Duration tombstoneRetention) {
+        this.integration = integration;
+        this.aggregateCache = aggregateCache;
+        this.serviceUtil = serviceUtil;
+        this.enabled = enabled;
+        this.pageSize = pageSize;
+        this.tombstoneRetention = tombstoneRetention;
+
+        this.staleness = Timer.builder(STALENESS)
+                .description("Time from a change in a core service to its event being applied to the read model")
+                .publishPercentileHistogram()
+                .register(registry);
+        this.hits = Counter.builder(LOOKUPS).tag("result", "hit")
+                .description("Product lookups in the read model")
+                .register(registry);
+        this.misses = Counter.builder(LOOKUPS).tag("result", "miss")
+                .description("Product lookups in the read model")
+                .register(registry);
+        Gauge.builder("composite.read-model.products", entries, ProductReadModel::products)
+                .description("Products held by the read model")
+                .register(registry);
+
+        if (enabled) {
+            LOG.info("Serves products from the read model, with {} recommendations and reviews each", pageSize);
+            this.subscription = Disposables.composite(
+                    bus.productEvents().subscribe(guarded(this::onProductEvent)),
+                    bus.recommendationEvents().subscribe(guarded(this::onRecommendationEvent)),
+                    bus.reviewEvents().subscribe(guarded(this::onReviewEvent)));
+        } else {
+            this.subscription = Disposables.disposed();
+        }
+    }
+
+    @PreDestroy
+    void close() {
+        subscription.dispose();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * A miss starts a backfill of the product, unless one is already running.
+     *
+     * @return a copy of the aggregate, null when the product is not in the read model
+     */
+    public ProductAggregate get(int productId) {
+        if (!enabled) return null;
+
+        Entry entry = entries.get(productId);
+        ProductAggregate aggregate = (entry == null) ? null : entry.toAggregate(serviceUtil.getServiceAddress());
+        if (aggregate != null) {
+            hits.increment();
+        } else {
+            misses.increment();
+            backfill(productId);
+        }
+        return aggregate;
+    }
+
+    private void backfill(int productId) {
+        if (!backfilling.add(productId)) return;
+
+        long read = deletes.get();
+        build(productId)
+                .doOnNext(aggregate -> entries.compute(productId, (id, existing) -> {
+                    // events that arrived meanwhile are newer than what was read, they are kept
+                    if (existing != null && (existing.hasProduct() || existing.deletedSince(read))) return existing;
+
+                    Entry loaded = Entry.of(aggregate, pageSize);
+                    if (existing != null) loaded.mergeChildrenOf(existing, read);
+                    return loaded;
+                }))
+                .doFinally(signal -> backfilling.remove(productId))
+                .subscribe(
+                        aggregate -> LOG.debug("Backfilled productId {} into the read model", productId),
+                        e -> LOG.debug("Could not backfill productId {} into the read model: {}", productId, e.getMessage()));
+    }
+
+    /**
+     * Overwrites the product with a freshly built aggregate, or leaves a tombstone when the product service does not
+     * know it. A recommendation or review event applied while the aggregate is being built may be lost, the next event
+     * or rebuild brings it back in line. A delete applied meanwhile is kept, as are the tombstones of earlier deletes.
+     *
+     * @return whether the product exists
+     */
+    public Mono<Boolean> rebuild(int productId) {
+        if (!enabled) return Mono.just(false);
+
+        long read = deletes.get();
+        Instant readAt = Instant.now();
+        return build(productId)
+                .doOnNext(aggregate -> entries.compute(productId, (id, existing) -> {
+                    if (existing == null) return Entry.of(aggregate, pageSize);
+                    if (existing.deletedSince(read)) return existing;
+
+                    Entry loaded = Entry.of(aggregate, pageSize);
+                    loaded.keepDeletesOf(existing, read);
+                    return loaded;
+                }))
+                .map(aggregate -> true)
+                .defaultIfEmpty(false)
+                .doOnNext(found -> {
+                    if (!found) delete(productId, readAt);
+                    aggregateCache.invalidate(productId);
+                });
+    }
+
+    /**
+     * Empty when there is no such product.
+     */
+    private Mono<ProductAggregate> build(int productId) {
+        return Mono.zip(
+                        integration.getProduct(productId),
+                        integration.requireRecommendationPage(productId, null, pageSize, View.SUMMARY),
+                        integration.requireReviewPage(productId, null, pageSize, View.SUMMARY))
+                .map(parts -> createProductAggregate(parts.getT1(), parts.getT2(), parts.getT3(), serviceUtil.getServiceAddress()))
+                .onErrorResume(NotFoundException.class, e -> Mono.empty());
+    }
+
+    /**
+     * Without the tombstones of deleted products.
+     */
+    public Set<Integer> productIds() {
+        Set<Integer> productIds = new HashSet<>();
+        entries.forEach((productId, entry) -> {
+            if (!entry.isDeleted()) productIds.add(productId);
+        });
+        return productIds;
+    }
+
+    public int size() {
+        return products(entries);
+    }
+
+    private static int products(Map<Integer, Entry> entries) {
+        int products = 0;
+        for (Entry entry : entries.values()) {
+            if (!entry.isDeleted()) products++;
+        }
+        return products;
+    }
+
+    void onProductEvent(Event<Integer, Product> event) {
+        int productId = event.getKey();
+        LOG.debug("Applies a {} product event for productId: {}", event.getEventType(), productId);
+
+        if (event.getEventType() == Event.Type.DELETE) {
+            delete(productId, event.getEventCreatedAt());
+        } else {
+            entries.compute(productId, (id, entry) -> {
+                Entry updated = (entry != null) ? entry : new Entry(pageSize);
+                updated.setProduct(event.getData(), event.getEventCreatedAt());
+                return updated;
+            });
+        }
+        applied(event);
+    }
+
+    /**
+     * Replaces the entry with a tombstone, and drops the tombstones that have outlived the retention.
+     */
+    private void delete(int productId, Instant deletedAt) {
+        long sequence = deletes.incrementAndGet();
+        entries.put(productId, Entry.deleted(pageSize, deletedAt, sequence));
+
+        long now = System.nanoTime();
+        tombstones.add(new Tombstone(productId, sequence, now));
+        for (Tombstone oldest = tombstones.peek(); oldest != null && now - oldest.appliedAt > tombstoneRetention.toNanos(); oldest = tombstones.peek()) {
+            Tombstone expired = oldest;
+            tombstones.remove(expired);
+            entries.computeIfPresent(expired.productId, (id, entry) -> entry.isDeletedBy(expired.sequence) ? null : entry);
+        }
+    }
+
+    void onRecommendationEvent(Event<Integer, Recommendation> event) {
+        int productId = event.getKey();
+        LOG.debug("Applies a {} recommendation event for productId: {}", event.getEventType(), productId);
+
+        if (event.getEventType() == Event.Type.DELETE) {
+            long sequence = deletes.incrementAndGet();
+            entries.compute(productId, (id, entry) -> {
+                Entry updated = (entry != null) ? entry : new Entry(pageSize);
+                updated.recommendations.clear(event.getEventCreatedAt(), sequence);
+                return updated;
+            });
+        } else {
+            Recommendation r = event.getData();
+            RecommendationSummary summary = new RecommendationSummary(r.getRecommendationId(), r.getAuthor(), r.getRate(), null, r.getVersion());
+            entries.compute(productId, (id, entry) -> {
+                Entry updated = (entry != null) ? entry : new Entry(pageSize);
+                updated.recommendations.put(summary, event.getEventCreatedAt());
+                return updated;
+            });
+        }
+        applied(event);
+    }
+
+    void onReviewEvent(Event<Integer, Review> event) {
+        int productId = event.getKey();
+        LOG.debug("Applies a {} review event for productId: {}", event.getEventType(), productId);
+
+        if (event.getEventType() == Event.Type.DELETE) {
+            long sequence = deletes.incrementAndGet();
+            entries.compute(productId, (id, entry) -> {
+                Entry updated = (entry != null) ? entry : new Entry(pageSize);
+                updated.reviews.clear(event.getEventCreatedAt(), sequence);
+                return updated;
+            });
+        } else {
+            Review r = event.getData();
+            ReviewSummary summary = new ReviewSummary(r.getReviewId(), r.getAuthor(), r.getSubject(), null, r.getVersion());
+            entries.compute(productId, (id, entry) -> {
+                Entry updated = (entry != null) ? entry : new Entry(pageSize);
+                updated.reviews.put(summary, event.getEventCreatedAt());
+                return updated;
+            });
+        }
+        applied(event);
+    }
+
+    private void applied(Event<Integer, ?> event) {
+        aggregateCache.invalidate(event.getKey());
+        if (event.getEventCreatedAt() != null) {
+            staleness.record(Duration.between(event.getEventCreatedAt(), Instant.now()));
+        }
+    }
+
+    /**
+     * An event that cannot be applied is logged and skipped, it must not end the subscription to the topic.
+     */
+    private static <T> Consumer<Event<Integer, T>> guarded(Consumer<Event<Integer, T>> apply) {
+        return event -> {
+            try {
+                apply.accept(event);
+            } catch (RuntimeException e) {
+                LOG.warn("Could not apply a {} event for productId {}: {}", event.getEventType(), event.getKey(), e.toString());
+            }
+        };
+    }
+
+    /**
+     * Everything the read model knows about one product. The product is missing while only recommendation or review
+     * events have arrived for it, or after it was deleted, such an entry is not served.
+     */
+    private static class Entry {
+        private Product product;
+        private Instant deletedAt;
+        private long deleteSequence;
+        private final FirstPage<RecommendationSummary> recommendations;
+        private final FirstPage<ReviewSummary> reviews;
+
+        Entry(int pageSize) {
+            this.recommendations = new FirstPage<>(pageSize, RecommendationSummary::getRecommendationId, RecommendationSummary::getVersion);
+            this.reviews = new FirstPage<>(pageSize, ReviewSummary::getReviewId, ReviewSummary::getVersion);
+        }
+
+        static Entry of(ProductAggregate aggregate, int pageSize) {
+            Entry entry = new Entry(pageSize);
+            Product product = new Product(aggregate.getProductId(), aggregate.getName(), aggregate.getWeight(), null);
+            product.setVersion(aggregate.getVersion());
+            entry.product = product;
+            entry.recommendations.load(aggregate.getRecommendations(), aggregate.getRecommendationsCursor() != null);
+            entry.reviews.load(aggregate.getReviews(), aggregate.getReviewsCursor() != null);
+            return entry;
+        }
+
+        static Entry deleted(int pageSize, Instant deletedAt, long sequence) {
+            Entry entry = new Entry(pageSize);
+            entry.deletedAt = deletedAt;
+            entry.deleteSequence = sequence;
+            entry.recommendations.clear(deletedAt, sequence);
+            entry.reviews.clear(deletedAt, sequence);
+            return entry;
+        }
+
+        synchronized boolean hasProduct() {
+            return product != null;
+        }
+
+        synchronized boolean isDeleted() {
+            return deleteSequence > 0;
+        }
+
+        /**
+         * Whether the product was deleted after {@code sequence} was read from the deletes counter.
+         */
+        synchronized boolean deletedSince(long sequence) {
+            return deleteSequence > sequence;
+        }
+
+        synchronized boolean isDeletedBy(long sequence) {
+            return deleteSequence == sequence;
+        }
+
+        /**
+         * A product created before the delete of a tombstone is ignored, one created later replaces the tombstone and
+         * keeps its pages, they only hold what was created after the delete.
+         */
+        synchronized void setProduct(Product product, Instant createdAt) {
+            if (isDeleted()) {
+                if (createdAt != null && deletedAt != null && !createdAt.isAfter(deletedAt)) return;
+                deletedAt = null;
+                deleteSequence = 0;
+                this.product = product;
+            } else if (this.product == null || !isOlder(product.getVersion(), this.product.getVersion())) {
+                this.product = product;
+            }
+        }
+
+        /**
+         * For a page loaded after {@code sequence} was read from the deletes counter: adds what the other entry got from
+         * events meanwhile, or takes its page when it was deleted meanwhile.
+         */
+        void mergeChildrenOf(Entry other, long sequence) {
+            recommendations.takeFrom(other.recommendations, sequence, true);
+            reviews.takeFrom(other.reviews, sequence, true);
+        }
+
+        /**
+         * As {@link #mergeChildrenOf}, but only the deletes are taken from the other entry.
+         */
+        void keepDeletesOf(Entry other, long sequence) {
+            recommendations.takeFrom(other.recommendations, sequence, false);
+            reviews.takeFrom(other.reviews, sequence, false);
+        }
+
+        synchronized ProductAggregate toAggregate(String serviceAddress) {
+            if (product == null) return null;
+
+            return new ProductAggregate(product.getProductId(), product.getName(), product.getWeight(),
+                    recommendations.items(), recommendations.cursor(),
+                    reviews.items(), reviews.cursor(),
+                    new ServiceAddress(serviceAddress, null, null, null),
+                    product.getVersion());
+        }
+    }
+
+    private static class Tombstone {
+        private final int productId;
+        private final long sequence;
+        private final long appliedAt;
+
+        Tombstone(int productId, long sequence, long appliedAt) {
+            this.productId = productId;
+            this.sequence = sequence;
+            this.appliedAt = appliedAt;
+        }
+    }
+
+    /**
+     * The lowest ids of a product's recommendations or reviews, at most a page of them. Recommendations and reviews are
+     * only ever deleted all at once, so the page can be kept up to date without knowing the ones after it: a new id
+     * either falls into the page, pushing its last one out, or lies behind a page that is already full.
+     * <p>
+     * The page remembers the time of the last delete, anything created before it is ignored.
+     */
+    private static class FirstPage<T> {
+        private final int pageSize;
+        private final ToIntFunction<T> idOf;
+        private final Function<T, Integer> versionOf;
+        private final TreeMap<Integer, T> items = new TreeMap<>();
+        private boolean more;
+        private Instant clearedAt;
+        private long clearSequence;
+
+        FirstPage(int pageSize, ToIntFunction<T> idOf, Function<T, Integer> versionOf) {
+            this.pageSize = pageSize;
+            this.idOf = idOf;
+            this.versionOf = versionOf;
+        }
+
+        synchronized void load(List<T> page, boolean more) {
+            items.clear();
+            if (page != null) page.forEach(item -> items.put(idOf.applyAsInt(item), item));
+            this.more = more;
+        }
+
+        synchronized void put(T item, Instant createdAt) {
+            if (createdAt != null && clearedAt != null && !createdAt.isAfter(clearedAt)) return;
+            put(item);
+        }
+
+        private void put(T item) {
+            int id = idOf.applyAsInt(item);
+            T existing = items.get(id);
+            if (existing != null) {
+                if (!isOlder(versionOf.apply(item), versionOf.apply(existing))) items.put(id, item);
+                return;
+            }
+            if (more && !items.isEmpty() && id > items.lastKey()) return;
+
+            items.put(id, item);
+            if (items.size() > pageSize) {
+                items.pollLastEntry();
+                more = true;
+            }
+        }
+
+        synchronized void clear(Instant deletedAt, long sequence) {
+            items.clear();
+            more = false;
+            if (deletedAt != null && (clearedAt == null || deletedAt.isAfter(clearedAt))) clearedAt = deletedAt;
+            clearSequence = sequence;
+        }
+
+        /**
+         * Takes the deletes of the other page, and its items if they are to be merged or it was cleared after
+         * {@code sequence}. Only called for pages of a new entry, which is not visible to other threads yet.
+         */
+        void takeFrom(FirstPage<T> other, long sequence, boolean merge) {
+            List<T> otherItems;
+            boolean otherMore;
+            Instant otherClearedAt;
+            long otherClearSequence;
+            synchronized (other) {
+                otherItems = new ArrayList<>(other.items.values());
+                otherMore = other.more;
+                otherClearedAt = other.clearedAt;
+                otherClearSequence = other.clearSequence;
+            }
+
+            synchronized (this) {
+                if (otherClearSequence > sequence) {
+                    items.clear();
+                    more = otherMore;
+                    merge = true;
+                }
+                if (merge) otherItems.forEach(this::put);
+                clearedAt = otherClearedAt;
+                clearSequence = otherClearSequence;
+            }
+        }
+
+        synchronized List<T> items() {
+            return new ArrayList<>(items.values());
+        }
+
+        synchronized Integer cursor() {
+            return more ? items.lastKey() : null;
+        }
+    }
+
+    /**
+     * Versions are missing from events of services that do not send them, such events are always applied.
+     */
+    static boolean isOlder(Integer version, Integer than) {
+        return version != null && than != null && version < than;
+    }
+}
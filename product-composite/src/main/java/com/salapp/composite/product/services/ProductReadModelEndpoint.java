@@ -0,0 +1,95 @@
+package com.salapp.composite.product.services;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.InvalidEndpointRequestException;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * /actuator/readmodel, the state of the {@link ProductReadModel} and the command to rebuild it.
+ * <p>
+ * A POST rebuilds the given productIds, comma separated as in {"productIds": "1,2"}, from the core services, or every
+ * product the read model holds when no ids are given. That backfills products the read model has not seen yet and
+ * repairs ones that missed an event. Products the product service does not know are removed, products that cannot be
+ * read right now are left as they are.
+ */
+@Component
+@Endpoint(id = "readmodel")
+public class ProductReadModelEndpoint {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ProductReadModelEndpoint.class);
+
+    /**
+     * Products rebuilt at the same time.
+     */
+    private static final int CONCURRENCY = 4;
+
+    private final ProductReadModel readModel;
+
+    @Autowired
+    public ProductReadModelEndpoint(ProductReadModel readModel) {
+        this.readModel = readModel;
+    }
+
+    @ReadOperation
+    public Map<String, Object> readModel() {
+        Map<String, Object> state = new LinkedHashMap<>();
+        state.put("enabled", readModel.isEnabled());
+        state.put("products", readModel.size());
+        return state;
+    }
+
+    @WriteOperation
+    public Mono<Map<String, Object>> rebuild(@Nullable String productIds) {
+        if (!readModel.isEnabled()) return Mono.just(readModel());
+
+        Iterable<Integer> toRebuild = (productIds != null) ? parseProductIds(productIds) : readModel.productIds();
+        AtomicInteger rebuilt = new AtomicInteger();
+        AtomicInteger removed = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+
+        return Flux.fromIterable(toRebuild)
+                .distinct()
+                .flatMap(productId -> readModel.rebuild(productId)
+                        .doOnNext(found -> (found ? rebuilt : removed).incrementAndGet())
+                        .onErrorResume(e -> {
+                            LOG.warn("Could not rebuild productId {} of the read model: {}", productId, e.getMessage());
+                            failed.incrementAndGet();
+                            return Mono.empty();
+                        }), CONCURRENCY)
+                .then(Mono.fromSupplier(() -> {
+                    LOG.info("Rebuilt {} products of the read model, removed {}, failed {}", rebuilt.get(), removed.get(), failed.get());
+                    Map<String, Object> result = readModel();
+                    result.put("rebuilt", rebuilt.get());
+                    result.put("removed", removed.get());
+                    result.put("failed", failed.get());
+                    return result;
+                }));
+    }
+
+    private static List<Integer> parseProductIds(String productIds) {
+        try {
+            return Arrays.stream(productIds.split(","))
+                    .map(String::trim)
+                    .map(Integer::valueOf)
+                    .collect(Collectors.toList());
+        } catch (NumberFormatException e) {
+            throw new InvalidEndpointRequestException("Invalid productIds: " + productIds, "productIds must be comma separated numbers");
+        }
+    }
+
+}
@@ -0,0 +1,118 @@
+package com.salapp.composite.product.services;
+
+import com.salapp.api.composite.product.ProductAggregate;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Lets concurrent lookups of the same product share one aggregation. The first caller for a productId builds the
+ * aggregate, callers arriving while it is in flight wait for that result instead of calling the core services again.
+ * <p>
+ * Only requests that overlap are merged, nothing is kept once the aggregation completes. Every caller, the one that
+ * built the aggregate included, gets its own copy of it. Merged requests are counted by the composite.requests.coalesced
+ * metric.
+ */
+@Component
+public class ProductRequestCoalescer {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ProductRequestCoalescer.class);
+
+    private final ConcurrentMap<Integer, CompletableFuture<ProductAggregate>> inFlight = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<Integer, Mono<ProductAggregate>> inFlightReactive = new ConcurrentHashMap<>();
+
+    private final Counter coalesced;
+
+    @Autowired
+    public ProductRequestCoalescer(MeterRegistry registry) {
+        this.coalesced = Counter.builder("composite.requests.coalesced")
+                .description("Product lookups served by an aggregation already in flight")
+                .register(registry);
+
+        Gauge.builder("composite.requests.in-flight", this, coalescer -> coalescer.inFlight.size() + coalescer.inFlightReactive.size())
+                .description("Products currently being aggregated")
+                .register(registry);
+    }
+
+    public ProductAggregate get(int productId, Supplier<ProductAggregate> loader) {
+        CompletableFuture<ProductAggregate> own = new CompletableFuture<>();
+        CompletableFuture<ProductAggregate> existing = inFlight.putIfAbsent(productId, own);
+
+        if (existing != null) {
+            LOG.debug("Joins the aggregation in flight for productId: {}", productId);
+            coalesced.increment();
+            return copyOf(join(existing));
+        }
+
+        try {
+            ProductAggregate aggregate = loader.get();
+            own.complete(aggregate);
+            return copyOf(aggregate);
+        } catch (RuntimeException e) {
+            own.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(productId, own);
+        }
+    }
+
+    /**
+     * Reactive variant of {@link #get(int, Supplier)}. The loader is shared by the subscribers and subscribed with the
+     * context of the first one, so the aggregation stays in its trace. It is only cancelled once every subscriber has
+     * cancelled.
+     */
+    public Mono<ProductAggregate> get(int productId, Mono<ProductAggregate> loader) {
+        return Mono.defer(() -> {
+            Mono<ProductAggregate> existing = inFlightReactive.get(productId);
+            if (existing == null) {
+                AtomicReference<Mono<ProductAggregate>> own = new AtomicReference<>();
+                own.set(loader.doFinally(signal -> inFlightReactive.remove(productId, own.get())).share());
+                existing = inFlightReactive.putIfAbsent(productId, own.get());
+                if (existing == null) return own.get().map(ProductRequestCoalescer::copyOf);
+            }
+
+            LOG.debug("Joins the aggregation in flight for productId: {}", productId);
+            coalesced.increment();
+            return existing.map(ProductRequestCoalescer::copyOf);
+        });
+    }
+
+    private ProductAggregate join(CompletableFuture<ProductAggregate> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+            throw e;
+        }
+    }
+
+    /**
+     * The summaries and the service address are immutable, copying the lists is enough to keep callers apart.
+     */
+    static ProductAggregate copyOf(ProductAggregate aggregate) {
+        return new ProductAggregate(
+                aggregate.getProductId(),
+                aggregate.getName(),
+                aggregate.getWeight(),
+                aggregate.getRecommendations() == null ? null : new ArrayList<>(aggregate.getRecommendations()),
+                aggregate.getRecommendationsCursor(),
+                aggregate.getReviews() == null ? null : new ArrayList<>(aggregate.getReviews()),
+                aggregate.getReviewsCursor(),
+                aggregate.getServiceAddress(),
+                aggregate.getVersion());
+    }
+}
@@ -0,0 +1,394 @@
+package com.salapp.composite.product.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.salapp.api.core.View;
+import com.salapp.api.core.bulk.BulkResult;
+import com.salapp.api.core.product.Product;
+import com.salapp.api.core.recommendation.Recommendation;
+import com.salapp.api.core.recommendation.RecommendationPage;
+import com.salapp.api.core.review.Review;
+import com.salapp.api.core.review.ReviewPage;
+import com.salapp.util.exceptions.InvalidInputException;
+import com.salapp.util.exceptions.NotFoundException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.salapp.composite.product.services.CoreServiceResilience.PRODUCT_SERVICE;
+import static com.salapp.composite.product.services.CoreServiceResilience.RECOMMENDATION_SERVICE;
+import static com.salapp.composite.product.services.CoreServiceResilience.REVIEW_SERVICE;
+import static com.salapp.composite.product.services.ProductCompositeIntegration.joinIds;
+import static com.salapp.composite.product.services.ProductCompositeIntegration.firstPagesQuery;
+import static com.salapp.composite.product.services.ProductCompositeIntegration.pageQuery;
+import static com.salapp.composite.product.services.ProductCompositeIntegration.readErrorInfo;
+import static com.salapp.composite.product.services.ProductCompositeIntegration.viewQuery;
+import static com.salapp.composite.product.services.ServiceAddresses.body;
+import static com.salapp.composite.product.services.ServiceAddresses.pageBody;
+import static com.salapp.composite.product.services.ServiceAddresses.pagesBody;
+
+/**
+ * WebClient based counterpart of {@link ProductCompositeIntegration}. Nothing here blocks, a request in flight
+ * only holds a connection, not a thread.
+ */
+@Component
+public class ReactiveProductCompositeIntegration {
+
+    private static final String HTTP = "http://";
+    private static final Logger LOG = LoggerFactory.getLogger(ReactiveProductCompositeIntegration.class);
+
+    private final WebClient webClient;
+    private final ObjectMapper mapper;
+    private final ProductAggregateCache aggregateCache;
+    private final CoreServiceResilience resilience;
+    private final CompositeMetrics metrics;
+
+    private final String productServiceUrl;
+    private final String recommendationServiceUrl;
+    private final String reviewServiceUrl;
+
+    private final String productBatchUrl;
+    private final String recommendationBatchUrl;
+    private final String reviewBatchUrl;
+
+    private final String recommendationPageUrl;
+    private final String reviewPageUrl;
+
+    private final String recommendationBulkUrl;
+    private final String reviewBulkUrl;
+
+    /**
+     * Accepted on every read from a core service, JSON or the Smile encoding.
+     */
+    private final MediaType mediaType;
+
+    @Autowired
+    public ReactiveProductCompositeIntegration(
+            WebClient.Builder webClientBuilder,
+            ObjectMapper mapper,
+            ProductAggregateCache aggregateCache,
+            CoreServiceResilience resilience,
+            CompositeMetrics metrics,
+            @Value("${app.product-service.host}") String productServiceUrl,
+            @Value("${app.product-service.port}") int productServicePort,
+
+            @Value("${app.recommendation-service.host}") String recommendationServiceUrl,
+            @Value("${app.recommendation-service.port}") int recommendationServicePort,
+
+            @Value("${app.review-service.host}") String reviewServiceUrl,
+            @Value("${app.review-service.port}") int reviewServicePort,
+
+            @Value("${app.core-services.media-type:application/json}") String mediaType
+    ) {
+        this.webClient = webClientBuilder.build();
+        this.mapper = mapper;
+        this.aggregateCache = aggregateCache;
+        this.resilience = resilience;
+        this.metrics = metrics;
+
+        this.productServiceUrl = HTTP + productServiceUrl + ":" + productServicePort + "/product/";
+        this.recommendationServiceUrl = HTTP + recommendationServiceUrl + ":" + recommendationServicePort + "/recommendation?productId=";
+        this.reviewServiceUrl = HTTP + reviewServiceUrl + ":" + reviewServicePort + "/review?productId=";
+
+        this.productBatchUrl = HTTP + productServiceUrl + ":" + productServicePort + "/product?productIds=";
+        this.recommendationBatchUrl = HTTP + recommendationServiceUrl + ":" + recommendationServicePort + "/recommendation?productIds=";
+        this.reviewBatchUrl = HTTP + reviewServiceUrl + ":" + reviewServicePort + "/review?productIds=";
+
+        this.recommendationPageUrl = HTTP + recommendationServiceUrl + ":" + recommendationServicePort + "/recommendation/page";
+        this.reviewPageUrl = HTTP + reviewServiceUrl + ":" + reviewServicePort + "/review/page";
+
+        this.recommendationBulkUrl = HTTP + recommendationServiceUrl + ":" + recommendationServicePort + "/recommendation/bulk";
+        this.reviewBulkUrl = HTTP + reviewServiceUrl + ":" + reviewServicePort + "/review/bulk";
+
+        this.mediaType = MediaType.valueOf(mediaType);
+    }
+
+    public Mono<Product> createProduct(Product body) {
+        String url = productServiceUrl;
+        LOG.debug("Will post a new product to URL: {}", url);
+
+        return call(PRODUCT_SERVICE, "createProduct", webClient.post().uri(url).bodyValue(body)
+                .retrieve().bodyToMono(Product.class)
+                .onErrorMap(WebClientResponseException.class, this::handleWebClientException));
+    }
+
+    public Mono<Product> getProduct(int productId) {
+        String url = productServiceUrl + productId;
+        LOG.debug("Will call getProduct API on URL: {}", url);
+
+        return call(PRODUCT_SERVICE, "getProduct", webClient.get().uri(url).accept(mediaType)
+                .retrieve().toEntity(Product.class).flatMap(response -> Mono.justOrEmpty(body(response)))
+                .doOnNext(product -> LOG.debug("Found a product with id: {}", product.getProductId()))
+                .onErrorMap(WebClientResponseException.class, this::handleWebClientException));
+    }
+
+    public Flux<Product> getProducts(List<Integer> productIds) {
+        String url = productBatchUrl + joinIds(productIds);
+        LOG.debug("Will call getProducts API on URL: {}", url);
+
+        return call(PRODUCT_SERVICE, "getProducts", webClient.get().uri(url).accept(mediaType)
+                .retrieve().toEntityFlux(Product.class).flatMapMany(ServiceAddresses::fluxBody)
+                .onErrorMap(WebClientResponseException.class, this::handleWebClientException));
+    }
+
+    public Mono<Void> deleteProduct(int productId) {
+        String url = productServiceUrl + productId;
+        LOG.debug("Will call the deleteProduct API on URL: {}", url);
+
+        return call(PRODUCT_SERVICE, "deleteProduct", webClient.delete().uri(url)
+                .retrieve().bodyToMono(Void.class)
+                .doOnSuccess(v -> aggregateCache.invalidate(productId))
+                .onErrorMap(WebClientResponseException.class, this::handleWebClientException));
+    }
+
+    public Mono<Recommendation> createRecommendation(Recommendation body) {
+        String url = recommendationServiceUrl;
+        LOG.debug("Will post a new recommendation to URL: {}", url);
+
+        return call(RECOMMENDATION_SERVICE, "createRecommendation", webClient.post().uri(url).bodyValue(body)
+                .retrieve().bodyToMono(Recommendation.class)
+                .doOnSuccess(recommendation -> aggregateCache.invalidate(body.getProductId()))
+                .onErrorMap(WebClientResponseException.class, this::handleWebClientException));
+    }
+
+    /**
+     * The recommendations are streamed to the service as newline delimited JSON while they are produced.
+     */
+    public Mono<BulkResult> createRecommendations(Flux<Recommendation> body) {
+        String url = recommendationBulkUrl;
+        LOG.debug("Will stream recommendations to URL: {}", url);
+
+        Set<Integer> productIds = ConcurrentHashMap.newKeySet();
+        Flux<Recommendation> recommendations = body.doOnNext(recommendation -> productIds.add(recommendation.getProductId()));
+
+        return call(RECOMMENDATION_SERVICE, "createRecommendations", webClient.post().uri(url)
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(recommendations, Recommendation.class)
+                .retrieve().bodyToMono(BulkResult.class)
+                .doOnSuccess(result -> productIds.forEach(aggregateCache::invalidate))
+                .onErrorMap(WebClientResponseException.class, this::handleWebClientException));
+    }
+
+    public Flux<Recommendation> getRecommendations(int productId, View view) {
+        String url = recommendationServiceUrl + productId + viewQuery(view);
+        LOG.debug("Will call getRecommendations API on URL: {}", url);
+
+        return call(RECOMMENDATION_SERVICE, "getRecommendations", webClient.get().uri(url).accept(mediaType)
+                .retrieve().toEntityFlux(Recommendation.class).flatMapMany(ServiceAddresses::fluxBody))
+                .onErrorResume(ex -> {
+                    LOG.warn("Got an exception while requesting recommendations, return zero recommendations: {}", ex.getMessage());
+                    return Flux.empty();
+                });
+    }
+
+    public Flux<Recommendation> getRecommendationsForProducts(List<Integer> productIds, View view) {
+        String url = recommendationBatchUrl + joinIds(productIds) + viewQuery(view);
+        LOG.debug("Will call getRecommendationsForProducts API on URL: {}", url);
+
+        return call(RECOMMENDATION_SERVICE, "getRecommendationsForProducts", webClient.get().uri(url).accept(mediaType)
+                .retrieve().toEntityFlux(Recommendation.class).flatMapMany(ServiceAddresses::fluxBody))
+                .onErrorResume(ex -> {
+                    LOG.warn("Got an exception while requesting recommendations, return zero recommendations: {}", ex.getMessage());
+                    return Flux.empty();
+                });
+    }
+
+    public Mono<RecommendationPage> getRecommendationPage(int productId, Integer cursor, int size, View view) {
+        return requireRecommendationPage(productId, cursor, size, view)
+                .onErrorResume(ex -> {
+                    LOG.warn("Got an exception while requesting recommendations, return zero recommendations: {}", ex.getMessage());
+                    return Mono.just(new RecommendationPage(productId, new ArrayList<>(), null));
+                });
+    }
+
+    /**
+     * Same as {@link #getRecommendationPage} but a failed call ends in an error instead of an empty page, for callers
+     * that must not take an unavailable service for a product without recommendations.
+     */
+    public Mono<RecommendationPage> requireRecommendationPage(int productId, Integer cursor, int size, View view) {
+        String url = recommendationPageUrl + pageQuery(productId, cursor, size) + viewQuery(view);
+        LOG.debug("Will call getRecommendationPage API on URL: {}", url);
+
+        return call(RECOMMENDATION_SERVICE, "getRecommendationPage", webClient.get().uri(url).accept(mediaType)
+                .retrieve().toEntity(RecommendationPage.class)
+                .flatMap(response -> Mono.justOrEmpty(pageBody(response, RecommendationPage::getRecommendations))))
+                .defaultIfEmpty(new RecommendationPage(productId, new ArrayList<>(), null));
+    }
+
+    public Flux<RecommendationPage> getFirstRecommendationPages(List<Integer> productIds, int size, View view) {
+        return requireFirstRecommendationPages(productIds, size, view)
+                .onErrorResume(ex -> {
+                    LOG.warn("Got an exception while requesting recommendations, return zero recommendations: {}", ex.getMessage());
+                    return Flux.empty();
+                });
+    }
+
+    /**
+     * Same as {@link #getFirstRecommendationPages} but a failed call ends in an error instead of no pages.
+     */
+    public Flux<RecommendationPage> requireFirstRecommendationPages(List<Integer> productIds, int size, View view) {
+        String url = recommendationPageUrl + firstPagesQuery(productIds, size) + viewQuery(view);
+        LOG.debug("Will call getFirstRecommendationPages API on URL: {}", url);
+
+        return call(RECOMMENDATION_SERVICE, "getFirstRecommendationPages", webClient.get().uri(url).accept(mediaType)
+                .retrieve().toEntityList(RecommendationPage.class)
+                .flatMapIterable(response -> pagesBody(response, RecommendationPage::getRecommendations)));
+    }
+
+    public Mono<Void> deleteRecommendations(int productId) {
+        String url = recommendationServiceUrl + productId;
+        LOG.debug("Will call the deleteRecommendation API on URL: {}", url);
+
+        return call(RECOMMENDATION_SERVICE, "deleteRecommendations", webClient.delete().uri(url)
+                .retrieve().bodyToMono(Void.class)
+                .doOnSuccess(v -> aggregateCache.invalidate(productId))
+                .onErrorMap(WebClientResponseException.class, this::handleWebClientException));
+    }
+
+    public Mono<Review> createReview(Review body) {
+        String url = reviewServiceUrl;
+        LOG.debug("Will post a new review to URL: {}", url);
+
+        return call(REVIEW_SERVICE, "createReview", webClient.post().uri(url).bodyValue(body)
+                .retrieve().bodyToMono(Review.class)
+                .doOnSuccess(review -> aggregateCache.invalidate(body.getProductId()))
+                .onErrorMap(WebClientResponseException.class, this::handleWebClientException));
+    }
+
+    /**
+     * The reviews are streamed to the service as newline delimited JSON while they are produced.
+     */
+    public Mono<BulkResult> createReviews(Flux<Review> body) {
+        String url = reviewBulkUrl;
+        LOG.debug("Will stream reviews to URL: {}", url);
+
+        Set<Integer> productIds = ConcurrentHashMap.newKeySet();
+        Flux<Review> reviews = body.doOnNext(review -> productIds.add(review.getProductId()));
+
+        return call(REVIEW_SERVICE, "createReviews", webClient.post().uri(url)
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(reviews, Review.class)
+                .retrieve().bodyToMono(BulkResult.class)
+                .doOnSuccess(result -> productIds.forEach(aggregateCache::invalidate))
+                .onErrorMap(WebClientResponseException.class, this::handleWebClientException));
+    }
+
+    public Flux<Review> getReviews(int productId, View view) {
+        String url = reviewServiceUrl + productId + viewQuery(view);
+        LOG.debug("Will call getReviews API on URL: {}", url);
+
+        return call(REVIEW_SERVICE, "getReviews", webClient.get().uri(url).accept(mediaType)
+                .retrieve().toEntityFlux(Review.class).flatMapMany(ServiceAddresses::fluxBody))
+                .onErrorResume(ex -> {
+                    LOG.warn("Got an exception while requesting reviews, return zero reviews: {}", ex.getMessage());
+                    return Flux.empty();
+                });
+    }
+
+    public Flux<Review> getReviewsForProducts(List<Integer> productIds, View view) {
+        String url = reviewBatchUrl + joinIds(productIds) + viewQuery(view);
+        LOG.debug("Will call getReviewsForProducts API on URL: {}", url);
+
+        return call(REVIEW_SERVICE, "getReviewsForProducts", webClient.get().uri(url).accept(mediaType)
+                .retrieve().toEntityFlux(Review.class).flatMapMany(ServiceAddresses::fluxBody))
+                .onErrorResume(ex -> {
+                    LOG.warn("Got an exception while requesting reviews, return zero reviews: {}", ex.getMessage());
+                    return Flux.empty();
+                });
+    }
+
+    public Mono<ReviewPage> getReviewPage(int productId, Integer cursor, int size, View view) {
+        return requireReviewPage(productId, cursor, size, view)
+                .onErrorResume(ex -> {
+                    LOG.warn("Got an exception while requesting reviews, return zero reviews: {}", ex.getMessage());
+                    return Mono.just(new ReviewPage(productId, new ArrayList<>(), null));
+                });
+    }
+
+    /**
+     * Same as {@link #getReviewPage} but a failed call ends in an error instead of an empty page.
+     */
+    public Mono<ReviewPage> requireReviewPage(int productId, Integer cursor, int size, View view) {
+        String url = reviewPageUrl + pageQuery(productId, cursor, size) + viewQuery(view);
+        LOG.debug("Will call getReviewPage API on URL: {}", url);
+
+        return call(REVIEW_SERVICE, "getReviewPage", webClient.get().uri(url).accept(mediaType)
+                .retrieve().toEntity(ReviewPage.class)
+                .flatMap(response -> Mono.justOrEmpty(pageBody(response, ReviewPage::getReviews))))
+                .defaultIfEmpty(new ReviewPage(productId, new ArrayList<>(), null));
+    }
+
+    public Flux<ReviewPage> getFirstReviewPages(List<Integer> productIds, int size, View view) {
+        return requireFirstReviewPages(productIds, size, view)
+                .onErrorResume(ex -> {
+                    LOG.warn("Got an exception while requesting reviews, return zero reviews: {}", ex.getMessage());
+                    return Flux.empty();
+                });
+    }
+
+    /**
+     * Same as {@link #getFirstReviewPages} but a failed call ends in an error instead of no pages.
+     */
+    public Flux<ReviewPage> requireFirstReviewPages(List<Integer> productIds, int size, View view) {
+        String url = reviewPageUrl + firstPagesQuery(productIds, size) + viewQuery(view);
+        LOG.debug("Will call getFirstReviewPages API on URL: {}", url);
+
+        return call(REVIEW_SERVICE, "getFirstReviewPages", webClient.get().uri(url).accept(mediaType)
+                .retrieve().toEntityList(ReviewPage.class)
+                .flatMapIterable(response -> pagesBody(response, ReviewPage::getReviews)));
+    }
+
+    public Mono<Void> deleteReviews(int productId) {
+        String url = reviewServiceUrl + productId;
+        LOG.debug("Will call the deleteReviews API on URL: {}", url);
+
+        return call(REVIEW_SERVICE, "deleteReviews", webClient.delete().uri(url)
+                .retrieve().bodyToMono(Void.class)
+                .doOnSuccess(v -> aggregateCache.invalidate(productId))
+                .onErrorMap(WebClientResponseException.class, this::handleWebClientException));
+    }
+
+    /**
+     * Guards the call, see {@link CoreServiceResilience}, and times it as composite.integration, see {@link CompositeMetrics}.
+     */
+    private <T> Mono<T> call(String service, String method, Mono<T> call) {
+        return metrics.recordCall(service, method, resilience.call(service, call));
+    }
+
+    private <T> Flux<T> call(String service, String method, Flux<T> call) {
+        return metrics.recordCall(service, method, resilience.call(service, call));
+    }
+
+    private Throwable handleWebClientException(WebClientResponseException exception) {
+
+        switch (exception.getStatusCode()) {
+            case NOT_FOUND:
+                return new NotFoundException(getErrorMessage(exception));
+            case UNPROCESSABLE_ENTITY:
+                return new InvalidInputException(getErrorMessage(exception));
+            default:
+                LOG.warn("Got a unexpected HTTP error: {}, will rethrow it", exception.getStatusCode());
+                LOG.warn("Error body: {}", exception.getResponseBodyAsString());
+                return exception;
+        }
+    }
+
+    private String getErrorMessage(WebClientResponseException ex) {
+        try {
+            return readErrorInfo(mapper, ex.getHeaders(), ex.getResponseBodyAsByteArray()).getMessage();
+        } catch (Exception iex) {
+            return iex.getMessage();
+        }
+    }
+}
@@ -0,0 +1,215 @@
+package com.salapp.composite.product.services;
+
+import brave.SpanCustomizer;
+import com.salapp.api.composite.product.ProductAggregate;
+import com.salapp.api.composite.product.ReactiveProductCompositeService;
+import com.salapp.api.core.View;
+import com.salapp.api.core.recommendation.RecommendationPage;
+import com.salapp.api.core.review.ReviewPage;
+import com.salapp.util.exceptions.InvalidInputException;
+import com.salapp.util.exceptions.NotFoundException;
+import com.salapp.util.http.ServiceUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static com.salapp.composite.product.services.ProductCompositeServiceImpl.PRODUCT_ID_TAG;
+import static com.salapp.composite.product.services.ProductCompositeServiceImpl.childWrites;
+import static com.salapp.composite.product.services.ProductCompositeServiceImpl.createProductAggregate;
+import static com.salapp.composite.product.services.ProductCompositeServiceImpl.createProductAggregates;
+import static com.salapp.composite.product.services.ProductCompositeServiceImpl.degrade;
+import static com.salapp.composite.product.services.ProductCompositeServiceImpl.entityTag;
+import static com.salapp.composite.product.services.ProductCompositeServiceImpl.generations;
+import static com.salapp.composite.product.services.ProductCompositeServiceImpl.hasChildren;
+import static com.salapp.composite.product.services.ProductCompositeServiceImpl.inRequestedOrder;
+import static com.salapp.composite.product.services.ProductCompositeServiceImpl.tagSizes;
+import static com.salapp.composite.product.services.ProductCompositeServiceImpl.toProduct;
+import static com.salapp.composite.product.services.ProductCompositeServiceImpl.requireNoChildren;
+import static com.salapp.composite.product.services.ProductCompositeServiceImpl.validateCompositeProduct;
+import static com.salapp.composite.product.services.ProductCompositeServiceImpl.validateProductIds;
+import static com.salapp.composite.product.services.ProductCompositeServiceImpl.writeChildren;
+
+/**
+ * Serves the composite endpoint instead of {@link ProductCompositeServiceImpl} when {@code app.client} is reactive.
+ */
+@RestController
+@ConditionalOnProperty(name = "app.client", havingValue = "reactive")
+public class ReactiveProductCompositeServiceImpl implements ReactiveProductCompositeService {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ReactiveProductCompositeServiceImpl.class);
+
+    private final ServiceUtil serviceUtil;
+    private final ReactiveProductCompositeIntegration integration;
+    private final ProductAggregateCache aggregateCache;
+    private final ProductReadModel readModel;
+    private final ProductRequestCoalescer coalescer;
+    private final CompositeMetrics metrics;
+    private final SpanCustomizer currentSpan;
+    private final int maxBatchSize;
+    private final int pageSize;
+    private final int writeBatchSize;
+    private final int writeConcurrency;
+
+    @Autowired
+    public ReactiveProductCompositeServiceImpl(
+            ServiceUtil serviceUtil,
+            ReactiveProductCompositeIntegration integration,
+            ProductAggregateCache aggregateCache,
+            ProductReadModel readModel,
+            ProductRequestCoalescer coalescer,
+            CompositeMetrics metrics,
+            SpanCustomizer currentSpan,
+            @Value("${app.batch.max-size:100}") int maxBatchSize,
+            @Value("${app.aggregate.page-size:20}") int pageSize,
+            @Value("${app.composite-write.batch-size:100}") int writeBatchSize,
+            @Value("${app.composite-write.concurrency:4}") int writeConcurrency) {
+        this.serviceUtil = serviceUtil;
+        this.integration = integration;
+        this.aggregateCache = aggregateCache;
+        this.readModel = readModel;
+        this.coalescer = coalescer;
+        this.metrics = metrics;
+        this.currentSpan = currentSpan;
+        this.maxBatchSize = maxBatchSize;
+        this.pageSize = pageSize;
+        this.writeBatchSize = writeBatchSize;
+        this.writeConcurrency = writeConcurrency;
+    }
+
+    /**
+     * Answered with 304 Not Modified by WebFlux when the ETag still matches, see {@link ProductCompositeServiceImpl#getProduct}.
+     */
+    @Override
+    public Mono<ResponseEntity<ProductAggregate>> getProduct(int productId) {
+        currentSpan.tag(PRODUCT_ID_TAG, String.valueOf(productId));
+
+        return Mono.fromSupplier(() -> lookup(productId))
+                .switchIfEmpty(Mono.defer(() -> coalescer.get(productId, fetchProduct(productId))))
+                .doOnNext(aggregate -> tagSizes(currentSpan, aggregate))
+                .map(aggregate -> ResponseEntity.ok().eTag(entityTag(aggregate)).body(aggregate));
+    }
+
+    /**
+     * See {@link ProductCompositeServiceImpl#lookup}.
+     */
+    private ProductAggregate lookup(int productId) {
+        ProductAggregate aggregate = readModel.get(productId);
+        return (aggregate != null) ? aggregate : aggregateCache.get(productId);
+    }
+
+    @Override
+    public Flux<ProductAggregate> getProducts(List<Integer> productIds) {
+        return Flux.defer(() -> {
+            List<Integer> ids = validateProductIds(productIds, maxBatchSize);
+
+            Map<Integer, ProductAggregate> aggregates = new HashMap<>();
+            List<Integer> missing = new ArrayList<>();
+            for (int productId : ids) {
+                ProductAggregate cached = lookup(productId);
+                if (cached != null) {
+                    aggregates.put(productId, cached);
+                } else {
+                    missing.add(productId);
+                }
+            }
+
+            Map<Integer, Long> generations = generations(aggregateCache, missing);
+            AtomicBoolean degraded = new AtomicBoolean();
+            Mono<Map<Integer, ProductAggregate>> all = missing.isEmpty() ? Mono.just(aggregates) : fetchProducts(missing, degraded)
+                    .map(fetched -> {
+                        fetched.forEach(aggregate -> {
+                            if (!degraded.get()) aggregateCache.put(aggregate.getProductId(), aggregate, generations.get(aggregate.getProductId()));
+                            aggregates.put(aggregate.getProductId(), aggregate);
+                        });
+                        return aggregates;
+                    });
+
+            return all.flatMapIterable(found -> inRequestedOrder(ids, found));
+        });
+    }
+
+    /**
+     * The recommendation and review batches are streamed to the bulk endpoints once the product exists, see
+     * {@link ProductCompositeServiceImpl#writeChildren}. As there, a product with children is only created when none
+     * exist for its productId yet.
+     */
+    @Override
+    public Mono<Void> createCompositeProduct(ProductAggregate body) {
+        return Mono.defer(() -> {
+            validateCompositeProduct(body);
+            int productId = body.getProductId();
+
+            Mono<Void> noChildren = !hasChildren(body) ? Mono.empty() : Mono.zip(
+                            integration.requireRecommendationPage(productId, null, 1, View.SUMMARY),
+                            integration.requireReviewPage(productId, null, 1, View.SUMMARY))
+                    .doOnNext(pages -> requireNoChildren(productId, pages.getT1(), pages.getT2()))
+                    .then();
+
+            return noChildren.then(integration.createProduct(toProduct(body)))
+                    .then(writeChildren(childWrites(body, writeBatchSize, integration::createRecommendations, integration::createReviews), writeConcurrency)
+                            .onErrorResume(e -> {
+                                LOG.warn("createCompositeProduct: writing product {} failed, deleting what was written: {}", productId, e.getMessage());
+                                return deleteCompositeProduct(productId)
+                                        .doOnError(compensationError -> LOG.error("createCompositeProduct: could not delete the partially written product {}: {}", productId, compensationError.getMessage()))
+                                        .onErrorResume(compensationError -> Mono.empty())
+                                        .then(Mono.error(e));
+                            }))
+                    .doOnSuccess(v -> aggregateCache.invalidate(productId));
+        });
+    }
+
+    @Override
+    public Mono<Void> deleteCompositeProduct(int productId) {
+        if (productId < 1) return Mono.error(new InvalidInputException("Invalid productId: " + productId));
+
+        return Mono.when(
+                        integration.deleteProduct(productId),
+                        integration.deleteRecommendations(productId),
+                        integration.deleteReviews(productId))
+                .doFinally(signal -> aggregateCache.invalidate(productId));
+    }
+
+    private Mono<List<ProductAggregate>> fetchProducts(List<Integer> productIds, AtomicBoolean degraded) {
+        return Mono.zip(
+                        integration.getProducts(productIds).collectList(),
+                        integration.requireFirstRecommendationPages(productIds, pageSize, View.SUMMARY).collectList()
+                                .onErrorResume(e -> Mono.just(degrade(degraded, "recommendations", e, new ArrayList<>()))),
+                        integration.requireFirstReviewPages(productIds, pageSize, View.SUMMARY).collectList()
+                                .onErrorResume(e -> Mono.just(degrade(degraded, "reviews", e, new ArrayList<>()))))
+                .map(parts -> createProductAggregates(parts.getT1(), parts.getT2(), parts.getT3(), serviceUtil.getServiceAddress()));
+    }
+
+    /**
+     * Like {@link ProductCompositeServiceImpl}, an aggregate with a stand-in for pages that could not be read is not
+     * cached. The cache generation is taken when the fetch is subscribed.
+     */
+    private Mono<ProductAggregate> fetchProduct(int productId) {
+        return Mono.defer(() -> {
+            long generation = aggregateCache.generation(productId);
+            AtomicBoolean degraded = new AtomicBoolean();
+            return Mono.zip(
+                            metrics.recordPhase("product", integration.getProduct(productId)),
+                            metrics.recordPhase("recommendations", integration.requireRecommendationPage(productId, null, pageSize, View.SUMMARY)
+                                    .onErrorResume(e -> Mono.just(degrade(degraded, "recommendations", e, new RecommendationPage(productId, new ArrayList<>(), null))))),
+                            metrics.recordPhase("reviews", integration.requireReviewPage(productId, null, pageSize, View.SUMMARY)
+                                    .onErrorResume(e -> Mono.just(degrade(degraded, "reviews", e, new ReviewPage(productId, new ArrayList<>(), null))))))
+                    .map(parts -> metrics.recordPhase("aggregate", () -> createProductAggregate(parts.getT1(), parts.getT2(), parts.getT3(), serviceUtil.getServiceAddress())))
+                    .switchIfEmpty(Mono.error(() -> new NotFoundException("No product for productId: " + productId)))
+                    .doOnNext(aggregate -> {
+                        if (!degraded.get()) aggregateCache.put(productId, aggregate, generation);
+                    });
+        });
+    }
+}
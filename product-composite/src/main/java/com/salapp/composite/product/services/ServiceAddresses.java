@@ -0,0 +1,74 @@
+package com.salapp.composite.product.services;
+
+import com.salapp.api.core.HasServiceAddress;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import reactor.core.publisher.Flux;
+
+import java.util.List;
+import java.util.function.Function;
+
+import static com.salapp.util.http.ServiceUtil.SERVICE_ADDRESS_HEADER;
+
+/**
+ * A core service started with app.service-address.per-element=false only sends its address once, in the
+ * X-Service-Address header, instead of in every element. The address is put back on the elements that came without
+ * one, so the aggregates are built from them as before.
+ */
+final class ServiceAddresses {
+
+    private ServiceAddresses() {
+    }
+
+    static <T extends HasServiceAddress> T body(ResponseEntity<T> response) {
+        T element = response.getBody();
+        if (element != null) {
+            fill(element, address(response.getHeaders()));
+        }
+        return element;
+    }
+
+    static <T extends HasServiceAddress> List<T> listBody(ResponseEntity<List<T>> response) {
+        List<T> elements = response.getBody();
+        if (elements != null) {
+            String address = address(response.getHeaders());
+            elements.forEach(element -> fill(element, address));
+        }
+        return elements;
+    }
+
+    static <P, T extends HasServiceAddress> P pageBody(ResponseEntity<P> response, Function<P, List<T>> elements) {
+        P page = response.getBody();
+        if (page != null) {
+            String address = address(response.getHeaders());
+            elements.apply(page).forEach(element -> fill(element, address));
+        }
+        return page;
+    }
+
+    static <P, T extends HasServiceAddress> List<P> pagesBody(ResponseEntity<List<P>> response, Function<P, List<T>> elements) {
+        List<P> pages = response.getBody();
+        if (pages != null) {
+            String address = address(response.getHeaders());
+            pages.forEach(page -> elements.apply(page).forEach(element -> fill(element, address)));
+        }
+        return pages;
+    }
+
+    static <T extends HasServiceAddress> Flux<T> fluxBody(ResponseEntity<Flux<T>> response) {
+        String address = address(response.getHeaders());
+        Flux<T> elements = response.getBody();
+        return (elements == null) ? Flux.empty() : elements.map(element -> fill(element, address));
+    }
+
+    private static <T extends HasServiceAddress> T fill(T element, String address) {
+        if (element.getServiceAddress() == null && address != null) {
+            element.setServiceAddress(address);
+        }
+        return element;
+    }
+
+    private static String address(HttpHeaders headers) {
+        return headers.getFirst(SERVICE_ADDRESS_HEADER);
+    }
+}
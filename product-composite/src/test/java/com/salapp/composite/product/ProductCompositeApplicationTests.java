@@ -1,26 +1,52 @@
 package com.salapp.composite.product;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.salapp.api.composite.product.ProductAggregate;
+import com.salapp.api.core.View;
 import com.salapp.api.core.product.Product;
 import com.salapp.api.core.recommendation.Recommendation;
+import com.salapp.api.core.recommendation.RecommendationPage;
 import com.salapp.api.core.review.Review;
+import com.salapp.api.core.review.ReviewPage;
+import com.salapp.composite.product.services.EncodedAggregateCache;
+import com.salapp.composite.product.services.ProductAggregateCache;
 import com.salapp.composite.product.services.ProductCompositeIntegration;
 import com.salapp.util.exceptions.InvalidInputException;
 import com.salapp.util.exceptions.NotFoundException;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
 import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.netty.http.client.HttpClient;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.zip.GZIPInputStream;
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.http.HttpStatus.UNPROCESSABLE_ENTITY;
 import static org.springframework.http.MediaType.APPLICATION_JSON;
+import static org.springframework.http.MediaType.APPLICATION_NDJSON;
 import static reactor.core.publisher.Mono.just;
 
 @AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.ANY)
@@ -30,6 +56,10 @@ class ProductCompositeApplicationTests {
     private static final int PRODUCT_ID_OK = 1;
     private static final int PRODUCT_ID_NOT_FOUND = 2;
     private static final int PRODUCT_ID_INVALID = 3;
+    private static final int PRODUCT_ID_LARGE = 4;
+
+    @LocalServerPort
+    private int port;
 
     @Autowired
     private WebTestClient client;
@@ -37,18 +67,38 @@ class ProductCompositeApplicationTests {
     @MockBean
     private ProductCompositeIntegration compositeIntegration;
 
+    @Autowired
+    private ProductAggregateCache aggregateCache;
+
+    @Autowired
+    private EncodedAggregateCache encodedCache;
+
+    @Autowired
+    private MeterRegistry registry;
+
+    @Autowired
+    private ObjectMapper mapper;
 
     @BeforeEach
     public void setUp() {
+        aggregateCache.invalidate(PRODUCT_ID_OK);
+        aggregateCache.invalidate(PRODUCT_ID_LARGE);
+        encodedCache.invalidateAll();
 
         when(compositeIntegration.getProduct(PRODUCT_ID_OK))
                 .thenReturn(new Product(PRODUCT_ID_OK, "name", 1, "mock-address"));
 
-        when(compositeIntegration.getRecommendations(PRODUCT_ID_OK))
-                .thenReturn(Collections.singletonList(new Recommendation(PRODUCT_ID_OK, 1, "author", 1, "content", "mock-address")));
+        when(compositeIntegration.requireRecommendationPage(eq(PRODUCT_ID_OK), isNull(), anyInt(), eq(View.SUMMARY)))
+                .thenReturn(new RecommendationPage(PRODUCT_ID_OK, Collections.singletonList(new Recommendation(PRODUCT_ID_OK, 1, "author", 1, "content", "mock-address")), null));
+
+        when(compositeIntegration.requireReviewPage(eq(PRODUCT_ID_OK), isNull(), anyInt(), eq(View.SUMMARY)))
+                .thenReturn(new ReviewPage(PRODUCT_ID_OK, Collections.singletonList(new Review(PRODUCT_ID_OK, 1, "author", "subject", "content", "mock-address")), 1));
+
+        when(compositeIntegration.getProducts(Arrays.asList(PRODUCT_ID_NOT_FOUND, PRODUCT_ID_OK)))
+                .thenReturn(Collections.singletonList(new Product(PRODUCT_ID_OK, "name", 1, "mock-address")));
 
-        when(compositeIntegration.getReviews(PRODUCT_ID_OK))
-                .thenReturn(Collections.singletonList(new Review(PRODUCT_ID_OK, 1, "author", "subject", "content", "mock-address")));
+        when(compositeIntegration.requireFirstReviewPages(eq(Arrays.asList(PRODUCT_ID_NOT_FOUND, PRODUCT_ID_OK)), anyInt(), eq(View.SUMMARY)))
+                .thenReturn(Collections.singletonList(new ReviewPage(PRODUCT_ID_OK, Collections.singletonList(new Review(PRODUCT_ID_OK, 1, "author", "subject", "content", "mock-address")), null)));
 
         when(compositeIntegration.getProduct(PRODUCT_ID_NOT_FOUND))
                 .thenThrow(new NotFoundException("NOT FOUND: " + PRODUCT_ID_NOT_FOUND));
@@ -63,7 +113,179 @@ class ProductCompositeApplicationTests {
         getAndVerifyProduct(PRODUCT_ID_OK, HttpStatus.OK)
                 .jsonPath("$.productId").isEqualTo(1)
                 .jsonPath("$.recommendations.length()").isEqualTo(1)
-                .jsonPath("$.reviews.length()").isEqualTo(1);
+                .jsonPath("$.reviews.length()").isEqualTo(1)
+                .jsonPath("$.reviewsCursor").isEqualTo(1);
+    }
+
+    @Test
+    void unchangedProductIsNotModified() {
+        String eTag = client.get()
+                .uri("/product-composite/" + PRODUCT_ID_OK)
+                .accept(APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().exists(HttpHeaders.ETAG)
+                .returnResult(ProductAggregate.class)
+                .getResponseHeaders().getETag();
+
+        client.get()
+                .uri("/product-composite/" + PRODUCT_ID_OK)
+                .accept(APPLICATION_JSON)
+                .ifNoneMatch(eTag)
+                .exchange()
+                .expectStatus().isNotModified()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, eTag)
+                .expectBody().isEmpty();
+
+        // the second request was answered from the cached aggregate
+        verify(compositeIntegration, times(1)).getProduct(PRODUCT_ID_OK);
+    }
+
+    @Test
+    void largeProductIsCompressed() {
+        List<Review> reviews = IntStream.rangeClosed(1, 50)
+                .mapToObj(reviewId -> new Review(PRODUCT_ID_LARGE, reviewId, "author " + reviewId, "subject " + reviewId, "content of review " + reviewId, "mock-address"))
+                .collect(Collectors.toList());
+        when(compositeIntegration.getProduct(PRODUCT_ID_LARGE))
+                .thenReturn(new Product(PRODUCT_ID_LARGE, "name", 1, "mock-address"));
+        when(compositeIntegration.requireRecommendationPage(eq(PRODUCT_ID_LARGE), isNull(), anyInt(), eq(View.SUMMARY)))
+                .thenReturn(new RecommendationPage(PRODUCT_ID_LARGE, Collections.emptyList(), null));
+        when(compositeIntegration.requireReviewPage(eq(PRODUCT_ID_LARGE), isNull(), anyInt(), eq(View.SUMMARY)))
+                .thenReturn(new ReviewPage(PRODUCT_ID_LARGE, reviews, null));
+
+        // the default connector decompresses and drops the Content-Encoding header, this one leaves the body as sent
+        WebTestClient rawClient = WebTestClient.bindToServer(new ReactorClientHttpConnector(HttpClient.create()))
+                .baseUrl("http://localhost:" + port)
+                .build();
+
+        String gzipTag = rawClient.get()
+                .uri("/product-composite/" + PRODUCT_ID_LARGE)
+                .accept(APPLICATION_JSON)
+                .header(HttpHeaders.ACCEPT_ENCODING, "gzip")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.CONTENT_ENCODING, "gzip")
+                .expectHeader().valueEquals(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+                .returnResult(byte[].class)
+                .getResponseHeaders().getETag();
+
+        String identityTag = rawClient.get()
+                .uri("/product-composite/" + PRODUCT_ID_LARGE)
+                .accept(APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().doesNotExist(HttpHeaders.CONTENT_ENCODING)
+                .expectHeader().valueEquals(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+                .returnResult(byte[].class)
+                .getResponseHeaders().getETag();
+
+        assertThat(gzipTag).isEqualTo(identityTag.replaceFirst("\"$", "-gzip\""));
+
+        rawClient.get()
+                .uri("/product-composite/" + PRODUCT_ID_OK)
+                .accept(APPLICATION_JSON)
+                .header(HttpHeaders.ACCEPT_ENCODING, "gzip")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().doesNotExist(HttpHeaders.CONTENT_ENCODING)
+                .expectHeader().valueEquals(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+    }
+
+    @Test
+    void compressedProductIsNotModifiedForEitherTag() {
+        List<Review> reviews = IntStream.rangeClosed(1, 50)
+                .mapToObj(reviewId -> new Review(PRODUCT_ID_LARGE, reviewId, "author " + reviewId, "subject " + reviewId, "content of review " + reviewId, "mock-address"))
+                .collect(Collectors.toList());
+        when(compositeIntegration.getProduct(PRODUCT_ID_LARGE))
+                .thenReturn(new Product(PRODUCT_ID_LARGE, "name", 1, "mock-address"));
+        when(compositeIntegration.requireRecommendationPage(eq(PRODUCT_ID_LARGE), isNull(), anyInt(), eq(View.SUMMARY)))
+                .thenReturn(new RecommendationPage(PRODUCT_ID_LARGE, Collections.emptyList(), null));
+        when(compositeIntegration.requireReviewPage(eq(PRODUCT_ID_LARGE), isNull(), anyInt(), eq(View.SUMMARY)))
+                .thenReturn(new ReviewPage(PRODUCT_ID_LARGE, reviews, null));
+
+        WebTestClient rawClient = WebTestClient.bindToServer(new ReactorClientHttpConnector(HttpClient.create()))
+                .baseUrl("http://localhost:" + port)
+                .build();
+
+        String gzipTag = rawClient.get()
+                .uri("/product-composite/" + PRODUCT_ID_LARGE)
+                .accept(APPLICATION_JSON)
+                .header(HttpHeaders.ACCEPT_ENCODING, "gzip")
+                .exchange()
+                .expectStatus().isOk()
+                .returnResult(byte[].class)
+                .getResponseHeaders().getETag();
+        String identityTag = gzipTag.replaceFirst("-gzip\"$", "\"");
+
+        for (String eTag : Arrays.asList(gzipTag, identityTag)) {
+            rawClient.get()
+                    .uri("/product-composite/" + PRODUCT_ID_LARGE)
+                    .accept(APPLICATION_JSON)
+                    .header(HttpHeaders.ACCEPT_ENCODING, "gzip")
+                    .ifNoneMatch(eTag)
+                    .exchange()
+                    .expectStatus().isNotModified()
+                    .expectHeader().valueEquals(HttpHeaders.ETAG, eTag)
+                    .expectHeader().valueEquals(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        }
+    }
+
+    @Test
+    void unchangedProductIsNotEncodedAgain() {
+        byte[] first = getAndVerifyProduct(PRODUCT_ID_OK, HttpStatus.OK).returnResult().getResponseBody();
+        double hits = encodedHits();
+
+        byte[] second = getAndVerifyProduct(PRODUCT_ID_OK, HttpStatus.OK).returnResult().getResponseBody();
+
+        assertThat(encodedHits()).isEqualTo(hits + 1);
+        assertThat(second).isEqualTo(first);
+
+        // a new version of the aggregate is encoded again
+        aggregateCache.invalidate(PRODUCT_ID_OK);
+        when(compositeIntegration.getProduct(PRODUCT_ID_OK))
+                .thenReturn(new Product(PRODUCT_ID_OK, "new name", 1, "mock-address"));
+
+        getAndVerifyProduct(PRODUCT_ID_OK, HttpStatus.OK)
+                .jsonPath("$.name").isEqualTo("new name");
+        assertThat(encodedHits()).isEqualTo(hits + 1);
+    }
+
+    @Test
+    void cachedCompressedBodyIsTheAggregate() throws IOException {
+        List<Review> reviews = IntStream.rangeClosed(1, 50)
+                .mapToObj(reviewId -> new Review(PRODUCT_ID_LARGE, reviewId, "author " + reviewId, "subject " + reviewId, "content of review " + reviewId, "mock-address"))
+                .collect(Collectors.toList());
+        when(compositeIntegration.getProduct(PRODUCT_ID_LARGE))
+                .thenReturn(new Product(PRODUCT_ID_LARGE, "name", 1, "mock-address"));
+        when(compositeIntegration.requireRecommendationPage(eq(PRODUCT_ID_LARGE), isNull(), anyInt(), eq(View.SUMMARY)))
+                .thenReturn(new RecommendationPage(PRODUCT_ID_LARGE, Collections.emptyList(), null));
+        when(compositeIntegration.requireReviewPage(eq(PRODUCT_ID_LARGE), isNull(), anyInt(), eq(View.SUMMARY)))
+                .thenReturn(new ReviewPage(PRODUCT_ID_LARGE, reviews, null));
+
+        WebTestClient rawClient = WebTestClient.bindToServer(new ReactorClientHttpConnector(HttpClient.create()))
+                .baseUrl("http://localhost:" + port)
+                .build();
+
+        for (int i = 0; i < 2; i++) {
+            byte[] body = rawClient.get()
+                    .uri("/product-composite/" + PRODUCT_ID_LARGE)
+                    .accept(APPLICATION_JSON)
+                    .header(HttpHeaders.ACCEPT_ENCODING, "gzip")
+                    .exchange()
+                    .expectStatus().isOk()
+                    .expectHeader().valueEquals(HttpHeaders.CONTENT_ENCODING, "gzip")
+                    .expectBody().returnResult().getResponseBody();
+
+            try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(body))) {
+                ProductAggregate aggregate = mapper.readValue(in, ProductAggregate.class);
+                assertThat(aggregate.getProductId()).isEqualTo(PRODUCT_ID_LARGE);
+                assertThat(aggregate.getReviews()).hasSize(50);
+            }
+        }
+
+        // the same version without gzip is sent as plain JSON
+        getAndVerifyProduct(PRODUCT_ID_LARGE, HttpStatus.OK)
+                .jsonPath("$.reviews.length()").isEqualTo(50);
     }
 
     @Test
@@ -92,6 +314,57 @@ class ProductCompositeApplicationTests {
                 .jsonPath("$.message").isEqualTo("INVALID: " + PRODUCT_ID_INVALID);
     }
 
+    @Test
+    void getProductsAsNdjson() {
+        List<JsonNode> aggregates = client.get()
+                .uri("/product-composite?ids=" + PRODUCT_ID_NOT_FOUND + "," + PRODUCT_ID_OK)
+                .accept(APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(APPLICATION_NDJSON)
+                .returnResult(JsonNode.class)
+                .getResponseBody()
+                .collectList()
+                .block();
+
+        assertThat(aggregates).hasSize(1);
+        assertThat(aggregates.get(0).get("productId").asInt()).isEqualTo(PRODUCT_ID_OK);
+        assertThat(aggregates.get(0).get("reviews")).hasSize(1);
+        assertThat(aggregates.get(0).get("recommendations")).isEmpty();
+    }
+
+    @Test
+    void getProductsInvalidInput() {
+        client.get()
+                .uri("/product-composite?ids=1,-1")
+                .accept(APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isEqualTo(UNPROCESSABLE_ENTITY);
+    }
+
+    @Test
+    void circuitBreakerStatesAreExported() {
+        client.get()
+                .uri("/actuator/circuitbreakers")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.circuitBreakers[?(@ == 'product-service')]").exists()
+                .jsonPath("$.circuitBreakers[?(@ == 'recommendation-service')]").exists()
+                .jsonPath("$.circuitBreakers[?(@ == 'review-service')]").exists();
+
+        client.get()
+                .uri("/actuator/health")
+                .exchange()
+                .expectBody()
+                .jsonPath("$.components.circuitBreakers.details.product-service.details.state").isEqualTo("CLOSED")
+                .jsonPath("$.components.circuitBreakers.details.recommendation-service.details.state").isEqualTo("CLOSED")
+                .jsonPath("$.components.circuitBreakers.details.review-service.details.state").isEqualTo("CLOSED");
+    }
+
+    private double encodedHits() {
+        return registry.get("cache.gets").tag("cache", "encoded-aggregates").tag("result", "hit").functionCounter().count();
+    }
 
     private WebTestClient.BodyContentSpec getAndVerifyProduct(int productId, HttpStatus expectedStatus) {
         return client.get()
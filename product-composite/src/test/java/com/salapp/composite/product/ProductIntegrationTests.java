@@ -1,12 +1,25 @@
 package com.salapp.composite.product;
 
+import brave.Span;
+import brave.Tracer;
+import brave.handler.MutableSpan;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.salapp.api.core.View;
+import com.salapp.api.core.bulk.BulkFailure;
+import com.salapp.api.core.bulk.BulkResult;
 import com.salapp.api.core.product.Product;
 import com.salapp.api.core.recommendation.Recommendation;
 import com.salapp.api.core.review.Review;
+import com.salapp.api.core.review.ReviewPage;
+import com.salapp.api.composite.product.ProductAggregate;
+import com.salapp.composite.product.services.CompositeMetrics;
+import com.salapp.composite.product.services.CoreServiceResilience;
+import com.salapp.composite.product.services.ProductAggregateCache;
 import com.salapp.composite.product.services.ProductCompositeIntegration;
 import com.salapp.util.exceptions.InvalidInputException;
 import com.salapp.util.exceptions.NotFoundException;
+import com.salapp.util.http.ServiceUtil;
+import com.salapp.util.tracing.InMemorySpanHandler;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Nested;
@@ -14,26 +27,39 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
 import org.springframework.test.web.client.ExpectedCount;
 import org.springframework.test.web.client.MockRestServiceServer;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestTemplate;
+import reactor.core.publisher.Flux;
 
 import java.net.URI;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
+import static com.salapp.api.core.CoreMediaTypes.APPLICATION_SMILE;
+import static com.salapp.api.core.CoreMediaTypes.APPLICATION_SMILE_VALUE;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
 import static org.springframework.http.MediaType.APPLICATION_JSON;
+import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.header;
 import static org.springframework.test.web.client.match.MockRestRequestMatchers.method;
 import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
 import static org.springframework.test.web.client.response.MockRestResponseCreators.withStatus;
 
 @AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
-@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = "spring.sleuth.sampler.probability=1.0")
+@Import(InMemorySpanHandler.class)
 public class ProductIntegrationTests {
 
     private static final int PRODUCT_ID_OK = 1;
@@ -50,16 +76,32 @@ public class ProductIntegrationTests {
     @Autowired
     private ObjectMapper mapper = new ObjectMapper();
 
+    @Autowired
+    private ProductAggregateCache aggregateCache;
+
+    @Autowired
+    private CoreServiceResilience resilience;
+
+    @Autowired
+    private CompositeMetrics metrics;
+
+    @Autowired
+    private Tracer tracer;
+
+    @Autowired
+    private InMemorySpanHandler spans;
+
     private MockRestServiceServer mockServer;
 
     @BeforeEach
     void setUp() {
         mockServer = MockRestServiceServer.createServer(restTemplate);
 
-        new ProductCompositeIntegration(restTemplate, mapper,
+        new ProductCompositeIntegration(restTemplate, mapper, aggregateCache, resilience, metrics,
                 URL, 7001,
                 URL, 7002,
-                URL, 7003
+                URL, 7003,
+                APPLICATION_JSON_VALUE
         );
     }
 
@@ -80,7 +122,7 @@ public class ProductIntegrationTests {
                                     .body(mapper.writeValueAsString(recommendations))
                     );
 
-            List<Recommendation> returnedRecommendations = integration.getRecommendations(PRODUCT_ID_OK);
+            List<Recommendation> returnedRecommendations = integration.getRecommendations(PRODUCT_ID_OK, View.FULL);
             mockServer.verify();
 
             assertThat(returnedRecommendations.get(0).getAuthor()).isEqualTo("author");
@@ -136,6 +178,25 @@ public class ProductIntegrationTests {
             mockServer.verify();
         }
 
+        @Test
+        void createRecommendationInvalidatesCachedAggregate() throws Exception {
+            Recommendation newRecommendation = new Recommendation(PRODUCT_ID_OK, 1, "author", 1, "content", "SA");
+            aggregateCache.put(PRODUCT_ID_OK, new ProductAggregate(PRODUCT_ID_OK, "name", 1, null, null, null), aggregateCache.generation(PRODUCT_ID_OK));
+
+            mockServer.expect(ExpectedCount.once(),
+                            requestTo(new URI(URL + "7002/recommendation?productId=")))
+                    .andExpect(method(HttpMethod.POST))
+                    .andRespond(withStatus(HttpStatus.OK)
+                            .contentType(APPLICATION_JSON)
+                            .body(mapper.writeValueAsString(newRecommendation))
+                    );
+
+            integration.createRecommendation(newRecommendation);
+            mockServer.verify();
+
+            assertThat(aggregateCache.get(PRODUCT_ID_OK)).isNull();
+        }
+
         @Test
         void deleteRecommendationNotFound() throws Exception {
             mockServer.expect(ExpectedCount.once(),
@@ -153,6 +214,100 @@ public class ProductIntegrationTests {
         }
     }
 
+    @Nested
+    class TracingTestSuite {
+
+        @Test
+        void traceContextIsPropagatedToTheCoreServices() throws Exception {
+            Span parent = tracer.nextSpan().name("composite-request").start();
+
+            mockServer.expect(ExpectedCount.once(),
+                            requestTo(new URI(URL + "7001/product/" + PRODUCT_ID_OK)))
+                    .andExpect(method(HttpMethod.GET))
+                    .andExpect(header("X-B3-TraceId", parent.context().traceIdString()))
+                    .andRespond(withStatus(HttpStatus.OK)
+                            .contentType(APPLICATION_JSON)
+                            .body(mapper.writeValueAsString(new Product(PRODUCT_ID_OK, "name", 1, "mock-address"))));
+
+            try (Tracer.SpanInScope scope = tracer.withSpanInScope(parent)) {
+                integration.getProduct(PRODUCT_ID_OK);
+            } finally {
+                parent.finish();
+            }
+            mockServer.verify();
+
+            MutableSpan finished = spans.spans("composite-request").get(0);
+            List<MutableSpan> children = spans.childrenOf(finished);
+            assertThat(children).hasSize(1);
+            assertThat(children.get(0).kind()).isEqualTo(brave.Span.Kind.CLIENT);
+            assertThat(children.get(0).tag("http.path")).isEqualTo("/product/" + PRODUCT_ID_OK);
+        }
+    }
+
+    @Nested
+    class WireFormatTestSuite {
+
+        private final ObjectMapper smileMapper = Jackson2ObjectMapperBuilder.smile().build();
+
+        private ProductCompositeIntegration smileIntegration() {
+            return new ProductCompositeIntegration(restTemplate, mapper, aggregateCache, resilience, metrics,
+                    "localhost", 7001,
+                    "localhost", 7002,
+                    "localhost", 7003,
+                    APPLICATION_SMILE_VALUE);
+        }
+
+        @Test
+        void jsonIsAcceptedByDefault() throws Exception {
+            mockServer.expect(ExpectedCount.once(),
+                            requestTo(new URI(URL + "7001/product/" + PRODUCT_ID_OK)))
+                    .andExpect(method(HttpMethod.GET))
+                    .andExpect(header(HttpHeaders.ACCEPT, APPLICATION_JSON_VALUE))
+                    .andRespond(withStatus(HttpStatus.OK)
+                            .contentType(APPLICATION_JSON)
+                            .body(mapper.writeValueAsString(new Product(PRODUCT_ID_OK, "name", 1, "mock-address"))));
+
+            integration.getProduct(PRODUCT_ID_OK);
+            mockServer.verify();
+        }
+
+        @Test
+        void getReviewsInSmile() throws Exception {
+            List<Review> reviews = Collections.singletonList(new Review(PRODUCT_ID_OK, 1, "author", "subject", "content", "mock-address"));
+
+            mockServer.expect(ExpectedCount.once(),
+                            requestTo(new URI(URL + "7003/review?productId=" + PRODUCT_ID_OK)))
+                    .andExpect(method(HttpMethod.GET))
+                    .andExpect(header(HttpHeaders.ACCEPT, APPLICATION_SMILE_VALUE))
+                    .andRespond(withStatus(HttpStatus.OK)
+                            .contentType(APPLICATION_SMILE)
+                            .body(smileMapper.writeValueAsBytes(reviews)));
+
+            List<Review> returnedReviews = smileIntegration().getReviews(PRODUCT_ID_OK, View.FULL);
+            mockServer.verify();
+
+            assertThat(returnedReviews).hasSize(1);
+            assertThat(returnedReviews.get(0).getAuthor()).isEqualTo("author");
+        }
+
+        @Test
+        void errorInSmileKeepsItsMessage() throws Exception {
+            String path = "/product/" + PRODUCT_ID_NOT_FOUND;
+            mockServer.expect(ExpectedCount.once(),
+                            requestTo(new URI(URL + "7001" + path)))
+                    .andExpect(method(HttpMethod.GET))
+                    .andRespond(withStatus(HttpStatus.NOT_FOUND)
+                            .contentType(APPLICATION_SMILE)
+                            .body(smileMapper.writeValueAsBytes(Map.of("path", path, "message", "No product found for productId: " + PRODUCT_ID_NOT_FOUND))));
+
+            ProductCompositeIntegration smileIntegration = smileIntegration();
+            NotFoundException exception = Assertions.assertThrows(NotFoundException.class, () -> smileIntegration.getProduct(PRODUCT_ID_NOT_FOUND));
+            mockServer.verify();
+
+            assertThat(exception.getMessage()).isEqualTo("No product found for productId: " + PRODUCT_ID_NOT_FOUND);
+        }
+    }
+
     @Nested
     class ProductTestSuite {
         @Test
@@ -222,6 +377,21 @@ public class ProductIntegrationTests {
 
         }
 
+        @Test
+        void deleteProductCallsTheProductUrl() {
+            RestTemplate template = mock(RestTemplate.class);
+            ProductCompositeIntegration deleting = new ProductCompositeIntegration(template, mapper, aggregateCache, resilience, metrics,
+                    "localhost", 7001,
+                    "localhost", 7002,
+                    "localhost", 7003,
+                    APPLICATION_JSON_VALUE
+            );
+
+            deleting.deleteProduct(PRODUCT_ID_OK);
+
+            verify(template).delete("http://localhost:7001/product/" + PRODUCT_ID_OK);
+        }
+
         @Test
         void deleteProductNotFound() throws Exception {
             mockServer.expect(ExpectedCount.once(),
@@ -242,6 +412,29 @@ public class ProductIntegrationTests {
 
     @Nested
     class ReviewTestSuite {
+        @Test
+        void getReviewsTakesTheServiceAddressFromTheHeader() throws Exception {
+            List<Review> reviews = Arrays.asList(
+                    new Review(PRODUCT_ID_OK, 1, "author", "subject", "content", null),
+                    new Review(PRODUCT_ID_OK, 2, "author", "subject", "content", null));
+            HttpHeaders headers = new HttpHeaders();
+            headers.set(ServiceUtil.SERVICE_ADDRESS_HEADER, "review-address");
+
+            mockServer.expect(
+                            ExpectedCount.once(),
+                            requestTo(new URI(URL + "7003/review?productId=" + PRODUCT_ID_OK)))
+                    .andExpect(method(HttpMethod.GET))
+                    .andRespond(withStatus(HttpStatus.OK)
+                            .contentType(APPLICATION_JSON)
+                            .headers(headers)
+                            .body(mapper.writeValueAsString(reviews)));
+
+            List<Review> returnedReviews = integration.getReviews(PRODUCT_ID_OK, View.FULL);
+            mockServer.verify();
+
+            assertThat(returnedReviews).extracting(Review::getServiceAddress).containsExactly("review-address", "review-address");
+        }
+
         @Test
         void getReviews() throws Exception {
             List<Review> reviews = Collections.singletonList(new Review(PRODUCT_ID_OK, 1, "author", "subject", "content", "mock-address"));
@@ -255,11 +448,77 @@ public class ProductIntegrationTests {
                             .body(mapper.writeValueAsString(reviews))
                     );
 
-            List<Review> reviewReturned = integration.getReviews(PRODUCT_ID_OK);
+            List<Review> reviewReturned = integration.getReviews(PRODUCT_ID_OK, View.FULL);
             mockServer.verify();
             assertThat(reviewReturned.size()).isEqualTo(1);
         }
 
+        @Test
+        void getReviewPage() throws Exception {
+            ReviewPage page = new ReviewPage(PRODUCT_ID_OK,
+                    Collections.singletonList(new Review(PRODUCT_ID_OK, 21, "author", "subject", "content", "mock-address")), 21);
+
+            mockServer.expect(
+                            ExpectedCount.once(),
+                            requestTo(new URI(URL + "7003/review/page?productId=" + PRODUCT_ID_OK + "&size=1&cursor=20&view=SUMMARY")))
+                    .andExpect(method(HttpMethod.GET))
+                    .andRespond(withStatus(HttpStatus.OK)
+                            .contentType(APPLICATION_JSON)
+                            .body(mapper.writeValueAsString(page))
+                    );
+
+            ReviewPage pageReturned = integration.getReviewPage(PRODUCT_ID_OK, 20, 1, View.SUMMARY);
+            mockServer.verify();
+            assertThat(pageReturned.getReviews()).hasSize(1);
+            assertThat(pageReturned.getNextCursor()).isEqualTo(21);
+        }
+
+        @Test
+        void getFirstReviewPages() throws Exception {
+            List<ReviewPage> pages = Arrays.asList(
+                    new ReviewPage(PRODUCT_ID_OK, Collections.singletonList(new Review(PRODUCT_ID_OK, 1, "author", "subject", "content", null)), 1),
+                    new ReviewPage(2, Collections.emptyList(), null));
+            HttpHeaders headers = new HttpHeaders();
+            headers.set(ServiceUtil.SERVICE_ADDRESS_HEADER, "review-address");
+
+            mockServer.expect(
+                            ExpectedCount.once(),
+                            requestTo(new URI(URL + "7003/review/page?productIds=" + PRODUCT_ID_OK + ",2&size=1&view=SUMMARY")))
+                    .andExpect(method(HttpMethod.GET))
+                    .andRespond(withStatus(HttpStatus.OK)
+                            .contentType(APPLICATION_JSON)
+                            .headers(headers)
+                            .body(mapper.writeValueAsString(pages))
+                    );
+
+            List<ReviewPage> pagesReturned = integration.getFirstReviewPages(Arrays.asList(PRODUCT_ID_OK, 2), 1, View.SUMMARY);
+            mockServer.verify();
+            assertThat(pagesReturned).extracting(ReviewPage::getProductId).containsExactly(PRODUCT_ID_OK, 2);
+            assertThat(pagesReturned.get(0).getNextCursor()).isEqualTo(1);
+            assertThat(pagesReturned.get(0).getReviews().get(0).getServiceAddress()).isEqualTo("review-address");
+        }
+
+        @Test
+        void createReviews() throws Exception {
+            BulkResult result = new BulkResult(2, 1, Collections.singletonList(
+                    new BulkFailure(1, PRODUCT_ID_OK, 1, "Duplicate key, Product Id: 1, Review Id: 1")));
+
+            mockServer.expect(ExpectedCount.once(),
+                            requestTo(new URI(URL + "7003/review/bulk")))
+                    .andExpect(method(HttpMethod.POST))
+                    .andRespond(withStatus(HttpStatus.OK)
+                            .contentType(APPLICATION_JSON)
+                            .body(mapper.writeValueAsString(result)));
+
+            Review review = new Review(PRODUCT_ID_OK, 1, "Author", "Subject", "Content", "SA");
+            BulkResult resultReturned = integration.createReviews(Flux.just(review, review)).block();
+            mockServer.verify();
+
+            Assertions.assertNotNull(resultReturned);
+            assertThat(resultReturned.getCreated()).isEqualTo(1);
+            assertThat(resultReturned.getFailures()).extracting(BulkFailure::getIndex).containsExactly(1);
+        }
+
         @Test
         void createReview() throws Exception {
 
@@ -398,7 +657,7 @@ public class ProductIntegrationTests {
                                     .body(mapper.writeValueAsString(Collections.singletonList(new Recommendation())))
                     );
 
-            List<Recommendation> recommendations = integration.getRecommendations(PRODUCT_ID_NOT_FOUND);
+            List<Recommendation> recommendations = integration.getRecommendations(PRODUCT_ID_NOT_FOUND, View.FULL);
 
             mockServer.verify();
 
@@ -418,7 +677,7 @@ public class ProductIntegrationTests {
                                     .body(mapper.writeValueAsString(Collections.singletonList(new Recommendation())))
                     );
 
-            List<Review> reviews = integration.getReviews(PRODUCT_ID_NOT_FOUND);
+            List<Review> reviews = integration.getReviews(PRODUCT_ID_NOT_FOUND, View.FULL);
             mockServer.verify();
 
             assertThat(reviews.size()).isZero();
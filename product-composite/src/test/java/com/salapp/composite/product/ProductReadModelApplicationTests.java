@@ -0,0 +1,138 @@
+package com.salapp.composite.product;
+
+import com.salapp.api.core.View;
+import com.salapp.api.core.product.Product;
+import com.salapp.api.core.recommendation.Recommendation;
+import com.salapp.api.core.recommendation.RecommendationPage;
+import com.salapp.api.core.review.Review;
+import com.salapp.api.core.review.ReviewPage;
+import com.salapp.api.event.Event;
+import com.salapp.composite.product.services.ProductCompositeIntegration;
+import com.salapp.composite.product.services.ProductEventBus;
+import com.salapp.composite.product.services.ReactiveProductCompositeIntegration;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Mono;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static com.salapp.api.event.Event.Type.CREATE;
+import static com.salapp.api.event.Event.Type.DELETE;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.http.MediaType.APPLICATION_JSON;
+
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.ANY)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = "app.read-model.enabled=true")
+class ProductReadModelApplicationTests {
+
+    @Autowired
+    private WebTestClient client;
+
+    @Autowired
+    private ProductEventBus bus;
+
+    @MockBean
+    private ProductCompositeIntegration compositeIntegration;
+
+    @MockBean
+    private ReactiveProductCompositeIntegration reactiveIntegration;
+
+    @Test
+    void publishedEventsAreServedWithoutCallingTheCoreServices() {
+        bus.publishProductEvent(new Event<>(CREATE, 1, new Product(1, "name", 1, null)));
+        bus.publishReviewEvent(new Event<>(CREATE, 1, new Review(1, 1, "author", "subject", "content", null)));
+
+        client.get()
+                .uri("/product-composite/1")
+                .accept(APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.name").isEqualTo("name")
+                .jsonPath("$.reviews.length()").isEqualTo(1)
+                .jsonPath("$.reviews[0].content").doesNotExist();
+
+        verify(compositeIntegration, never()).getProduct(1);
+    }
+
+    @Test
+    void eventsArePostedToTheEventEndpoints() {
+        client.post()
+                .uri("/product-composite/events/products")
+                .contentType(APPLICATION_JSON)
+                .bodyValue(Collections.singletonList(new Event<>(CREATE, 2, new Product(2, "posted", 1, null))))
+                .exchange()
+                .expectStatus().isOk();
+        client.post()
+                .uri("/product-composite/events/recommendations")
+                .contentType(APPLICATION_JSON)
+                .bodyValue(Arrays.asList(
+                        new Event<>(CREATE, 2, new Recommendation(2, 1, "author", 1, "content", null)),
+                        new Event<>(CREATE, 2, new Recommendation(2, 2, "author", 1, "content", null))))
+                .exchange()
+                .expectStatus().isOk();
+
+        client.get()
+                .uri("/product-composite/2")
+                .accept(APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.name").isEqualTo("posted")
+                .jsonPath("$.recommendations.length()").isEqualTo(2);
+
+        client.post()
+                .uri("/product-composite/events/products")
+                .contentType(APPLICATION_JSON)
+                .bodyValue(Collections.singletonList(new Event<>(DELETE, 2, null)))
+                .exchange()
+                .expectStatus().isOk();
+
+        client.get()
+                .uri("/actuator/readmodel")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.enabled").isEqualTo(true);
+    }
+
+    @Test
+    void rebuildLoadsFromTheCoreServices() {
+        when(reactiveIntegration.getProduct(3)).thenReturn(Mono.just(new Product(3, "rebuilt", 1, null)));
+        when(reactiveIntegration.requireRecommendationPage(eq(3), isNull(), anyInt(), eq(View.SUMMARY)))
+                .thenReturn(Mono.just(new RecommendationPage(3, Collections.emptyList(), null)));
+        when(reactiveIntegration.requireReviewPage(eq(3), isNull(), anyInt(), eq(View.SUMMARY)))
+                .thenReturn(Mono.just(new ReviewPage(3, Collections.singletonList(new Review(3, 1, "author", "subject", "content", null)), null)));
+
+        client.post()
+                .uri("/actuator/readmodel")
+                .contentType(APPLICATION_JSON)
+                .bodyValue("{\"productIds\": \"3\"}")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.rebuilt").isEqualTo(1)
+                .jsonPath("$.failed").isEqualTo(0);
+
+        client.get()
+                .uri("/product-composite/3")
+                .accept(APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.name").isEqualTo("rebuilt")
+                .jsonPath("$.reviews.length()").isEqualTo(1);
+
+        verify(compositeIntegration, never()).getProduct(3);
+    }
+}
@@ -0,0 +1,43 @@
+package com.salapp.composite.product.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CachedAggregateWriterTests {
+
+    @Test
+    void acceptsGzip() {
+        assertThat(CachedAggregateWriter.acceptsGzip(acceptEncoding("gzip"))).isTrue();
+        assertThat(CachedAggregateWriter.acceptsGzip(acceptEncoding("deflate, GZIP;q=0.5"))).isTrue();
+        assertThat(CachedAggregateWriter.acceptsGzip(acceptEncoding("*"))).isTrue();
+    }
+
+    @Test
+    void doesNotAcceptGzip() {
+        assertThat(CachedAggregateWriter.acceptsGzip(new HttpHeaders())).isFalse();
+        assertThat(CachedAggregateWriter.acceptsGzip(acceptEncoding("identity"))).isFalse();
+        assertThat(CachedAggregateWriter.acceptsGzip(acceptEncoding("br, gzip;q=0"))).isFalse();
+        assertThat(CachedAggregateWriter.acceptsGzip(acceptEncoding("gzip; q=0.0"))).isFalse();
+    }
+
+    @Test
+    void gzipTagIsSuffixedInsideTheQuotes() {
+        assertThat(CachedAggregateWriter.gzipTag("\"1-abc\"")).isEqualTo("\"1-abc-gzip\"");
+        assertThat(CachedAggregateWriter.gzipTag("W/\"1-abc\"")).isEqualTo("W/\"1-abc-gzip\"");
+    }
+
+    @Test
+    void identityTagTakesTheSuffixOff() {
+        assertThat(CachedAggregateWriter.identityTag("\"1-abc-gzip\"")).isEqualTo("\"1-abc\"");
+        assertThat(CachedAggregateWriter.identityTag("\"1-abc\"")).isNull();
+        assertThat(CachedAggregateWriter.identityTag("*")).isNull();
+    }
+
+    private HttpHeaders acceptEncoding(String value) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.ACCEPT_ENCODING, value);
+        return headers;
+    }
+}
@@ -0,0 +1,94 @@
+package com.salapp.composite.product.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.http.client.config.RequestConfig;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.convert.ApplicationConversionService;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.net.URI;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class HttpClientConfigTests {
+
+    private final MeterRegistry registry = new SimpleMeterRegistry();
+
+    private final MockEnvironment env = new MockEnvironment()
+            .withProperty("app.product-service.host", "product")
+            .withProperty("app.product-service.port", "8080")
+            .withProperty("app.product-service.pool.max-connections", "10")
+            .withProperty("app.recommendation-service.host", "recommendation")
+            .withProperty("app.recommendation-service.port", "8080")
+            .withProperty("app.review-service.host", "review")
+            .withProperty("app.review-service.port", "8080")
+            .withProperty("app.review-service.pool.max-connections", "30")
+            .withProperty("app.review-service.read-timeout", "250ms");
+
+    @BeforeEach
+    void setUp() {
+        // converts values such as 250ms to Duration like the environment of a Spring Boot application does
+        env.setConversionService(new ApplicationConversionService());
+    }
+
+    @Test
+    void separatePoolPerCoreService() {
+        HttpClientConfig.RoutingClientHttpRequestFactory factory =
+                (HttpClientConfig.RoutingClientHttpRequestFactory) new HttpClientConfig().coreServicesRequestFactory(env, registry);
+
+        ClientHttpRequestFactory product = factory.factoryFor(URI.create("http://product:8080/product/1"));
+        ClientHttpRequestFactory recommendation = factory.factoryFor(URI.create("http://recommendation:8080/recommendation?productId=1"));
+        ClientHttpRequestFactory review = factory.factoryFor(URI.create("http://review:8080/review?productId=1"));
+        ClientHttpRequestFactory unknown = factory.factoryFor(URI.create("http://elsewhere:8080/"));
+
+        assertThat(product).isNotSameAs(recommendation).isNotSameAs(review).isNotSameAs(unknown);
+        assertThat(recommendation).isNotSameAs(review).isNotSameAs(unknown);
+    }
+
+    @Test
+    void poolMetricsPerCoreService() {
+        new HttpClientConfig().coreServicesRequestFactory(env, registry);
+
+        assertThat(maxConnections("product-service")).isEqualTo(10);
+        assertThat(maxConnections("recommendation-service")).isEqualTo(50);
+        assertThat(maxConnections("review-service")).isEqualTo(30);
+        assertThat(registry.get("httpcomponents.httpclient.pool.total.connections")
+                .tag("httpclient", "review-service").tag("state", "leased").gauge().value()).isZero();
+    }
+
+    @Test
+    void unknownTargetsGetTheLongestTimeouts() {
+        HttpClientConfig.RoutingClientHttpRequestFactory factory =
+                (HttpClientConfig.RoutingClientHttpRequestFactory) new HttpClientConfig().coreServicesRequestFactory(env, registry);
+
+        RequestConfig config = (RequestConfig) ReflectionTestUtils.getField(factory.factoryFor(URI.create("http://elsewhere:8080/")), "requestConfig");
+
+        assertThat(config.getConnectTimeout()).isEqualTo(1_000);
+        assertThat(config.getSocketTimeout()).isEqualTo(5_000);
+    }
+
+    @Test
+    void destroyClosesTheClients() throws Exception {
+        HttpClientConfig.RoutingClientHttpRequestFactory factory =
+                (HttpClientConfig.RoutingClientHttpRequestFactory) new HttpClientConfig().coreServicesRequestFactory(env, registry);
+
+        factory.destroy();
+
+        for (String target : List.of("http://review:8080/review?productId=1", "http://elsewhere:8080/")) {
+            ClientHttpRequest request = factory.createRequest(URI.create(target), HttpMethod.GET);
+            assertThatThrownBy(request::execute).hasMessageContaining("shut down");
+        }
+    }
+
+    private double maxConnections(String service) {
+        return registry.get("httpcomponents.httpclient.pool.total.max").tag("httpclient", service).gauge().value();
+    }
+}
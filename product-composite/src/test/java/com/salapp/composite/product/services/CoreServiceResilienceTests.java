@@ -0,0 +1,211 @@
+package com.salapp.composite.product.services;
+
+import brave.propagation.ThreadLocalCurrentTraceContext;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.salapp.api.core.View;
+import com.salapp.api.core.review.Review;
+import com.salapp.util.exceptions.NotFoundException;
+import com.salapp.util.exceptions.ServiceUnavailableException;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.bulkhead.ThreadPoolBulkheadConfig;
+import io.github.resilience4j.bulkhead.ThreadPoolBulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.timelimiter.TimeLimiterConfig;
+import io.github.resilience4j.timelimiter.TimeLimiterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.salapp.composite.product.services.CoreServiceResilience.PRODUCT_SERVICE;
+import static com.salapp.composite.product.services.CoreServiceResilience.REVIEW_SERVICE;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs the blocking integration against a local stub of the core services whose answers can be delayed.
+ */
+class CoreServiceResilienceTests {
+
+    private static final Duration TIME_LIMIT = Duration.ofMillis(500);
+    private static final int PRODUCT_ID_NOT_FOUND = 13;
+
+    private final AtomicLong reviewDelayMs = new AtomicLong();
+    private final AtomicInteger reviewRequests = new AtomicInteger();
+    private final AtomicInteger productRequests = new AtomicInteger();
+
+    private final ExecutorService stubExecutor = Executors.newCachedThreadPool();
+    private final ScheduledExecutorService timeLimiterScheduler = Executors.newSingleThreadScheduledExecutor();
+
+    private HttpServer stub;
+    private CircuitBreakerRegistry circuitBreakers;
+    private SimpleMeterRegistry registry;
+    private ProductCompositeIntegration integration;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        stub = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        stub.setExecutor(stubExecutor);
+        stub.createContext("/review", exchange -> {
+            reviewRequests.incrementAndGet();
+            sleep(reviewDelayMs.get());
+            respond(exchange, 200, "[{\"productId\":1,\"reviewId\":1,\"author\":\"a\",\"subject\":\"s\",\"content\":\"c\"}]");
+        });
+        stub.createContext("/product/", exchange -> {
+            productRequests.incrementAndGet();
+            respond(exchange, 404, "{\"message\":\"No product found for productId: " + PRODUCT_ID_NOT_FOUND + "\"}");
+        });
+        stub.start();
+        int port = stub.getAddress().getPort();
+
+        circuitBreakers = CircuitBreakerRegistry.of(CircuitBreakerConfig.custom()
+                .slidingWindowSize(4)
+                .minimumNumberOfCalls(4)
+                .failureRateThreshold(50)
+                .waitDurationInOpenState(Duration.ofMinutes(1))
+                // same as application.yaml, 4xx answers do not count against the service
+                .ignoreExceptions(NotFoundException.class, HttpClientErrorException.class)
+                .build());
+
+        CoreServiceResilience resilience = new CoreServiceResilience(
+                circuitBreakers,
+                BulkheadRegistry.ofDefaults(),
+                ThreadPoolBulkheadRegistry.of(ThreadPoolBulkheadConfig.custom().coreThreadPoolSize(4).maxThreadPoolSize(4).build()),
+                TimeLimiterRegistry.of(TimeLimiterConfig.custom().timeoutDuration(TIME_LIMIT).build()),
+                timeLimiterScheduler,
+                ThreadLocalCurrentTraceContext.create());
+
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        requestFactory.setReadTimeout(10_000);
+
+        registry = new SimpleMeterRegistry();
+        integration = new ProductCompositeIntegration(
+                new RestTemplate(requestFactory),
+                new ObjectMapper(),
+                new ProductAggregateCache(new SimpleMeterRegistry(), 100, Duration.ofSeconds(30)),
+                resilience,
+                new CompositeMetrics(registry),
+                "localhost", port,
+                "localhost", port,
+                "localhost", port,
+                MediaType.APPLICATION_JSON_VALUE);
+    }
+
+    @AfterEach
+    void tearDown() {
+        stub.stop(0);
+        stubExecutor.shutdownNow();
+        timeLimiterScheduler.shutdownNow();
+    }
+
+    @Test
+    void fastReviewServiceIsCalled() {
+        List<Review> reviews = integration.getReviews(1, View.FULL);
+
+        assertThat(reviews).hasSize(1);
+        assertThat(circuitBreakers.circuitBreaker(REVIEW_SERVICE).getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void slowReviewServiceFallsBackWithinTimeLimit() {
+        reviewDelayMs.set(2_000);
+
+        long start = System.nanoTime();
+        List<Review> reviews = integration.getReviews(1, View.FULL);
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+        assertThat(reviews).isEmpty();
+        assertThat(elapsedMs).isLessThan(1_500);
+    }
+
+    @Test
+    void openBreakerFailsFastWithoutCallingTheService() {
+        reviewDelayMs.set(2_000);
+        for (int i = 0; i < 4; i++) {
+            assertThat(integration.getReviews(1, View.FULL)).isEmpty();
+        }
+        assertThat(circuitBreakers.circuitBreaker(REVIEW_SERVICE).getState()).isEqualTo(CircuitBreaker.State.OPEN);
+        int requestsBefore = reviewRequests.get();
+
+        long start = System.nanoTime();
+        List<Review> reviews = integration.getReviews(1, View.FULL);
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+        assertThat(reviews).isEmpty();
+        assertThat(elapsedMs).isLessThan(TIME_LIMIT.toMillis());
+        assertThat(reviewRequests.get()).isEqualTo(requestsBefore);
+    }
+
+    @Test
+    void openProductBreakerIsReportedAsUnavailable() {
+        circuitBreakers.circuitBreaker(PRODUCT_SERVICE).transitionToOpenState();
+
+        Assertions.assertThrows(ServiceUnavailableException.class, () -> integration.getProduct(1));
+        assertThat(productRequests.get()).isZero();
+    }
+
+    @Test
+    void notFoundIsNotCountedAsFailure() {
+        for (int i = 0; i < 5; i++) {
+            Assertions.assertThrows(NotFoundException.class, () -> integration.getProduct(PRODUCT_ID_NOT_FOUND));
+        }
+
+        assertThat(productRequests.get()).isEqualTo(5);
+        assertThat(circuitBreakers.circuitBreaker(PRODUCT_SERVICE).getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void callsAreTimedByOutcome() {
+        integration.getReviews(1, View.FULL);
+        Assertions.assertThrows(NotFoundException.class, () -> integration.getProduct(PRODUCT_ID_NOT_FOUND));
+        circuitBreakers.circuitBreaker(PRODUCT_SERVICE).transitionToOpenState();
+        Assertions.assertThrows(ServiceUnavailableException.class, () -> integration.getProduct(1));
+
+        assertThat(integrationTimer(REVIEW_SERVICE, "getReviews", CompositeMetrics.SUCCESS).count()).isEqualTo(1);
+        assertThat(integrationTimer(PRODUCT_SERVICE, "getProduct", CompositeMetrics.CLIENT_ERROR).count()).isEqualTo(1);
+        assertThat(integrationTimer(PRODUCT_SERVICE, "getProduct", CompositeMetrics.UNAVAILABLE).count()).isEqualTo(1);
+        assertThat(integrationTimer(PRODUCT_SERVICE, "getProduct", CompositeMetrics.SUCCESS)).isNull();
+    }
+
+    private Timer integrationTimer(String service, String method, String outcome) {
+        return registry.find(CompositeMetrics.INTEGRATION).tags("service", service, "method", method, "outcome", outcome).timer();
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static void sleep(long ms) {
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.salapp.composite.product.services;
+
+import com.salapp.api.composite.product.ProductAggregate;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ProductAggregateCacheTests {
+
+    private static final int PRODUCT_ID = 1;
+
+    private final ProductAggregateCache cache = new ProductAggregateCache(new SimpleMeterRegistry(), 100, Duration.ofSeconds(30));
+
+    @Test
+    void aggregateBuiltSinceTheLastInvalidateIsCached() {
+        cache.invalidate(PRODUCT_ID);
+        long generation = cache.generation(PRODUCT_ID);
+
+        cache.put(PRODUCT_ID, aggregate("fresh"), generation);
+
+        assertThat(cache.get(PRODUCT_ID).getName()).isEqualTo("fresh");
+    }
+
+    @Test
+    void aggregateBuiltBeforeAnInvalidateIsDropped() {
+        long generation = cache.generation(PRODUCT_ID);
+        cache.invalidate(PRODUCT_ID);
+
+        cache.put(PRODUCT_ID, aggregate("stale"), generation);
+
+        assertThat(cache.get(PRODUCT_ID)).isNull();
+    }
+
+    @Test
+    void staleAggregateDoesNotReplaceANewerOne() {
+        long staleGeneration = cache.generation(PRODUCT_ID);
+        cache.invalidate(PRODUCT_ID);
+        cache.put(PRODUCT_ID, aggregate("fresh"), cache.generation(PRODUCT_ID));
+
+        cache.put(PRODUCT_ID, aggregate("stale"), staleGeneration);
+
+        assertThat(cache.get(PRODUCT_ID).getName()).isEqualTo("fresh");
+    }
+
+    @Test
+    void otherProductsAreNotAffected() {
+        long generation = cache.generation(PRODUCT_ID + 1);
+        cache.invalidate(PRODUCT_ID);
+
+        cache.put(PRODUCT_ID + 1, aggregate("other"), generation);
+
+        assertThat(cache.get(PRODUCT_ID + 1)).isNotNull();
+    }
+
+    private static ProductAggregate aggregate(String name) {
+        return new ProductAggregate(PRODUCT_ID, name, 1, Collections.emptyList(), Collections.emptyList(), null);
+    }
+}
@@ -0,0 +1,367 @@
+package com.salapp.composite.product.services;
+
+import brave.NoopSpanCustomizer;
+import com.salapp.api.composite.product.ProductAggregate;
+import com.salapp.api.composite.product.RecommendationSummary;
+import com.salapp.api.composite.product.ReviewSummary;
+import com.salapp.api.composite.product.ServiceAddress;
+import com.salapp.api.core.View;
+import com.salapp.api.core.bulk.BulkFailure;
+import com.salapp.api.core.bulk.BulkResult;
+import com.salapp.api.core.product.Product;
+import com.salapp.api.core.recommendation.Recommendation;
+import com.salapp.api.core.recommendation.RecommendationPage;
+import com.salapp.api.core.review.Review;
+import com.salapp.api.core.review.ReviewPage;
+import com.salapp.util.exceptions.InvalidInputException;
+import com.salapp.util.exceptions.NotFoundException;
+import com.salapp.util.http.ServiceUtil;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.stubbing.Answer;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static com.salapp.composite.product.services.ProductCompositeServiceImpl.entityTag;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+class ProductCompositeServiceImplTests {
+
+    private static final int PRODUCT_ID_OK = 1;
+    private static final int PRODUCT_ID_NOT_FOUND = 13;
+    private static final long CALL_LATENCY_MS = 300;
+
+    private final ProductCompositeIntegration integration = mock(ProductCompositeIntegration.class);
+    private final ServiceUtil serviceUtil = mock(ServiceUtil.class);
+    private final ProductAggregateCache aggregateCache = new ProductAggregateCache(new SimpleMeterRegistry(), 100, Duration.ofSeconds(30));
+    private final ProductReadModel readModel = mock(ProductReadModel.class);
+    private final ProductRequestCoalescer coalescer = new ProductRequestCoalescer(new SimpleMeterRegistry());
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final CompositeMetrics metrics = new CompositeMetrics(registry);
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        executor = Executors.newFixedThreadPool(3);
+
+        when(serviceUtil.getServiceAddress()).thenReturn("composite-address");
+
+        doAnswer(slowCall(new Product(PRODUCT_ID_OK, "name", 1, "product-address")))
+                .when(integration).getProduct(PRODUCT_ID_OK);
+        doAnswer(slowCall(new RecommendationPage(PRODUCT_ID_OK, Collections.singletonList(new Recommendation(PRODUCT_ID_OK, 1, "author", 1, "content", "rec-address")), null)))
+                .when(integration).requireRecommendationPage(anyInt(), any(), anyInt(), any());
+        doAnswer(slowCall(new ReviewPage(PRODUCT_ID_OK, Collections.singletonList(new Review(PRODUCT_ID_OK, 1, "author", "subject", "content", "rev-address")), 1)))
+                .when(integration).requireReviewPage(anyInt(), any(), anyInt(), any());
+        when(integration.getProduct(PRODUCT_ID_NOT_FOUND))
+                .thenThrow(new NotFoundException("NOT FOUND: " + PRODUCT_ID_NOT_FOUND));
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void parallelCallsOverlap() {
+        ProductCompositeServiceImpl service = new ProductCompositeServiceImpl(serviceUtil, integration, aggregateCache, readModel, coalescer, metrics, NoopSpanCustomizer.INSTANCE, executor, FanOutMode.PARALLEL, 100, 20, 100, 4);
+
+        long start = System.nanoTime();
+        ProductAggregate aggregate = service.getProduct(PRODUCT_ID_OK).getBody();
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+        assertThat(maxInFlight.get()).isEqualTo(3);
+        assertThat(elapsedMs).isLessThan(2 * CALL_LATENCY_MS);
+
+        assertThat(aggregate.getProductId()).isEqualTo(PRODUCT_ID_OK);
+        assertThat(aggregate.getRecommendations()).hasSize(1);
+        assertThat(aggregate.getReviews()).hasSize(1);
+        assertThat(aggregate.getServiceAddress().getRev()).isEqualTo("rev-address");
+        assertThat(aggregate.getRecommendationsCursor()).isNull();
+        assertThat(aggregate.getReviewsCursor()).isEqualTo(1);
+    }
+
+    @Test
+    void sequentialCallsDoNotOverlap() {
+        ProductCompositeServiceImpl service = new ProductCompositeServiceImpl(serviceUtil, integration, aggregateCache, readModel, coalescer, metrics, NoopSpanCustomizer.INSTANCE, executor, FanOutMode.SEQUENTIAL, 100, 20, 100, 4);
+
+        long start = System.nanoTime();
+        ProductAggregate aggregate = service.getProduct(PRODUCT_ID_OK).getBody();
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+        assertThat(maxInFlight.get()).isEqualTo(1);
+        assertThat(elapsedMs).isGreaterThanOrEqualTo(3 * CALL_LATENCY_MS);
+
+        assertThat(aggregate.getRecommendations()).hasSize(1);
+        assertThat(aggregate.getReviews()).hasSize(1);
+    }
+
+    @Test
+    void phasesAreTimed() {
+        ProductCompositeServiceImpl service = new ProductCompositeServiceImpl(serviceUtil, integration, aggregateCache, readModel, coalescer, metrics, NoopSpanCustomizer.INSTANCE, executor, FanOutMode.PARALLEL, 100, 20, 100, 4);
+
+        service.getProduct(PRODUCT_ID_OK);
+
+        for (String phase : Arrays.asList("product", "recommendations", "reviews", "aggregate")) {
+            assertThat(registry.get(CompositeMetrics.PHASE).tag("phase", phase).timer().count()).isEqualTo(1);
+        }
+        assertThat(registry.get(CompositeMetrics.PHASE).tag("phase", "product").timer().totalTime(TimeUnit.MILLISECONDS))
+                .isGreaterThanOrEqualTo(CALL_LATENCY_MS);
+    }
+
+    @Test
+    void parallelProductNotFound() {
+        ProductCompositeServiceImpl service = new ProductCompositeServiceImpl(serviceUtil, integration, aggregateCache, readModel, coalescer, metrics, NoopSpanCustomizer.INSTANCE, executor, FanOutMode.PARALLEL, 100, 20, 100, 4);
+
+        NotFoundException exception = Assertions.assertThrows(NotFoundException.class, () -> service.getProduct(PRODUCT_ID_NOT_FOUND));
+
+        assertThat(exception.getMessage()).isEqualTo("NOT FOUND: " + PRODUCT_ID_NOT_FOUND);
+    }
+
+    @Test
+    void secondCallIsServedFromCache() {
+        ProductCompositeServiceImpl service = new ProductCompositeServiceImpl(serviceUtil, integration, aggregateCache, readModel, coalescer, metrics, NoopSpanCustomizer.INSTANCE, executor, FanOutMode.PARALLEL, 100, 20, 100, 4);
+
+        ProductAggregate first = service.getProduct(PRODUCT_ID_OK).getBody();
+        ProductAggregate second = service.getProduct(PRODUCT_ID_OK).getBody();
+
+        assertThat(second).isNotSameAs(first);
+        assertThat(ProductCompositeServiceImpl.entityTag(second)).isEqualTo(ProductCompositeServiceImpl.entityTag(first));
+        verify(integration, times(1)).getProduct(PRODUCT_ID_OK);
+        verify(integration, times(1)).requireReviewPage(PRODUCT_ID_OK, null, 20, View.SUMMARY);
+
+        aggregateCache.invalidate(PRODUCT_ID_OK);
+        service.getProduct(PRODUCT_ID_OK);
+
+        verify(integration, times(2)).getProduct(PRODUCT_ID_OK);
+    }
+
+    @Test
+    void entityTagFollowsTheVersions() {
+        ProductAggregate aggregate = aggregate(0, 0, new ServiceAddress("composite-1", "product-1", "review-1", "recommendation-1"));
+
+        assertThat(entityTag(aggregate))
+                .startsWith("\"" + PRODUCT_ID_OK + "-")
+                .endsWith("\"")
+                .isEqualTo(entityTag(aggregate(0, 0, new ServiceAddress("composite-2", "product-2", "review-2", "recommendation-2"))))
+                .isNotEqualTo(entityTag(aggregate(1, 0, aggregate.getServiceAddress())))
+                .isNotEqualTo(entityTag(aggregate(0, 1, aggregate.getServiceAddress())));
+    }
+
+    @Test
+    void degradedAggregateIsNotCached() {
+        ProductCompositeServiceImpl service = new ProductCompositeServiceImpl(serviceUtil, integration, aggregateCache, readModel, coalescer, metrics, NoopSpanCustomizer.INSTANCE, executor, FanOutMode.PARALLEL, 100, 20, 100, 4);
+        doThrow(new IllegalStateException("review service is down")).when(integration).requireReviewPage(anyInt(), any(), anyInt(), any());
+
+        ProductAggregate aggregate = service.getProduct(PRODUCT_ID_OK).getBody();
+
+        assertThat(aggregate.getReviews()).isEmpty();
+        assertThat(aggregate.getRecommendations()).hasSize(1);
+        assertThat(aggregateCache.get(PRODUCT_ID_OK)).isNull();
+
+        service.getProduct(PRODUCT_ID_OK);
+        verify(integration, times(2)).getProduct(PRODUCT_ID_OK);
+    }
+
+    @Test
+    void degradedBatchIsNotCached() {
+        ProductCompositeServiceImpl service = new ProductCompositeServiceImpl(serviceUtil, integration, aggregateCache, readModel, coalescer, metrics, NoopSpanCustomizer.INSTANCE, executor, FanOutMode.PARALLEL, 100, 20, 100, 4);
+        when(integration.getProducts(Collections.singletonList(PRODUCT_ID_OK))).thenReturn(Collections.singletonList(new Product(PRODUCT_ID_OK, "name", 1, "product-address")));
+        when(integration.requireFirstRecommendationPages(anyList(), anyInt(), any())).thenThrow(new IllegalStateException("recommendation service is down"));
+
+        List<ProductAggregate> aggregates = service.getProducts(Collections.singletonList(PRODUCT_ID_OK)).collectList().block();
+
+        assertThat(aggregates).hasSize(1);
+        assertThat(aggregates.get(0).getRecommendations()).isEmpty();
+        assertThat(aggregateCache.get(PRODUCT_ID_OK)).isNull();
+    }
+
+    @Test
+    void getProductsBatchesMissingProductsAndKeepsRequestedOrder() {
+        ProductCompositeServiceImpl service = new ProductCompositeServiceImpl(serviceUtil, integration, aggregateCache, readModel, coalescer, metrics, NoopSpanCustomizer.INSTANCE, executor, FanOutMode.PARALLEL, 100, 20, 100, 4);
+        aggregateCache.put(3, new ProductAggregate(3, "cached", 3, Collections.emptyList(), Collections.emptyList(), null), aggregateCache.generation(3));
+
+        when(integration.getProducts(Arrays.asList(2, 1))).thenReturn(Arrays.asList(
+                new Product(1, "name", 1, "product-address"),
+                new Product(2, "name", 2, "product-address")));
+        when(integration.requireFirstReviewPages(Arrays.asList(2, 1), 20, View.SUMMARY)).thenReturn(Collections.singletonList(
+                new ReviewPage(1, Arrays.asList(
+                        new Review(1, 1, "author", "subject", "content", "rev-address"),
+                        new Review(1, 2, "author", "subject", "content", "rev-address")), null)));
+
+        List<ProductAggregate> aggregates = service.getProducts(Arrays.asList(2, 3, 1, 2)).collectList().block();
+
+        assertThat(aggregates).extracting(ProductAggregate::getProductId).containsExactly(2, 3, 1);
+        assertThat(aggregates.get(0).getReviews()).isEmpty();
+        assertThat(aggregates.get(1).getName()).isEqualTo("cached");
+        assertThat(aggregates.get(2).getReviews()).hasSize(2);
+        verify(integration, times(1)).getProducts(anyList());
+        verify(integration, never()).getProduct(anyInt());
+    }
+
+    @Test
+    void batchAggregatesTakeTheFirstPageOfTheirProduct() {
+        List<ReviewPage> reviewPages = Arrays.asList(
+                new ReviewPage(2, Collections.singletonList(new Review(2, 5, "author", "subject", "content", "rev-address")), null),
+                new ReviewPage(1, Arrays.asList(
+                        new Review(1, 1, "author", "subject", "content", "rev-address"),
+                        new Review(1, 2, "author", "subject", "content", "rev-address")), 2));
+
+        List<ProductAggregate> aggregates = ProductCompositeServiceImpl.createProductAggregates(
+                Collections.singletonList(new Product(1, "name", 1, "product-address")),
+                Collections.emptyList(), reviewPages, "composite-address");
+
+        assertThat(aggregates.get(0).getReviews()).extracting(ReviewSummary::getReviewId).containsExactly(1, 2);
+        assertThat(aggregates.get(0).getReviewsCursor()).isEqualTo(2);
+        assertThat(aggregates.get(0).getRecommendations()).isEmpty();
+        assertThat(aggregates.get(0).getRecommendationsCursor()).isNull();
+    }
+
+    @Test
+    void getProductsRejectsTooManyIds() {
+        ProductCompositeServiceImpl service = new ProductCompositeServiceImpl(serviceUtil, integration, aggregateCache, readModel, coalescer, metrics, NoopSpanCustomizer.INSTANCE, executor, FanOutMode.PARALLEL, 2, 20, 100, 4);
+
+        List<Integer> ids = Arrays.asList(1, 2, 3);
+        Assertions.assertThrows(InvalidInputException.class, () -> service.getProducts(ids));
+    }
+
+    @Test
+    void createCompositeProductWritesChildrenInConcurrentBatches() {
+        ProductCompositeServiceImpl service = new ProductCompositeServiceImpl(serviceUtil, integration, aggregateCache, readModel, coalescer, metrics, NoopSpanCustomizer.INSTANCE, executor, FanOutMode.PARALLEL, 100, 20, 100, 2);
+        noChildrenYet();
+        when(integration.createRecommendations(any())).thenAnswer(invocation -> slowBulkWrite(BulkResult::new));
+        when(integration.createReviews(any())).thenAnswer(invocation -> slowBulkWrite(BulkResult::new));
+
+        service.createCompositeProduct(compositeProduct(50, 250));
+
+        verify(integration).createProduct(any());
+        verify(integration, times(1)).createRecommendations(any());
+        verify(integration, times(3)).createReviews(any());
+        verify(integration, never()).deleteProduct(anyInt());
+        assertThat(maxInFlight.get()).isEqualTo(2);
+    }
+
+    @Test
+    void createCompositeProductDeletesWhatWasWrittenOnFailure() {
+        ProductCompositeServiceImpl service = new ProductCompositeServiceImpl(serviceUtil, integration, aggregateCache, readModel, coalescer, metrics, NoopSpanCustomizer.INSTANCE, executor, FanOutMode.PARALLEL, 100, 20, 100, 2);
+        noChildrenYet();
+        when(integration.createRecommendations(any())).thenAnswer(invocation -> slowBulkWrite(BulkResult::new));
+        when(integration.createReviews(any())).thenAnswer(invocation -> slowBulkWrite(() -> new BulkResult(100, 99,
+                Collections.singletonList(new BulkFailure(7, PRODUCT_ID_OK, 7, "Duplicate key, Product Id: 1, Review Id: 7")))));
+
+        ProductAggregate body = compositeProduct(10, 100);
+        InvalidInputException exception = Assertions.assertThrows(InvalidInputException.class, () -> service.createCompositeProduct(body));
+
+        assertThat(exception.getMessage()).isEqualTo("Duplicate key, Product Id: 1, Review Id: 7");
+        verify(integration).deleteProduct(PRODUCT_ID_OK);
+        verify(integration).deleteRecommendations(PRODUCT_ID_OK);
+        verify(integration).deleteReviews(PRODUCT_ID_OK);
+    }
+
+    @Test
+    void createCompositeProductStopsWhenTheProductCannotBeCreated() {
+        ProductCompositeServiceImpl service = new ProductCompositeServiceImpl(serviceUtil, integration, aggregateCache, readModel, coalescer, metrics, NoopSpanCustomizer.INSTANCE, executor, FanOutMode.PARALLEL, 100, 20, 100, 2);
+        noChildrenYet();
+        when(integration.createProduct(any())).thenThrow(new InvalidInputException("Duplicate key, Product Id: 1"));
+
+        ProductAggregate body = compositeProduct(10, 10);
+        Assertions.assertThrows(InvalidInputException.class, () -> service.createCompositeProduct(body));
+
+        verify(integration, never()).createReviews(any());
+        verify(integration, never()).createRecommendations(any());
+        verify(integration, never()).deleteProduct(anyInt());
+    }
+
+    @Test
+    void createCompositeProductRejectsAProductWithChildrenLeftBehind() {
+        ProductCompositeServiceImpl service = new ProductCompositeServiceImpl(serviceUtil, integration, aggregateCache, readModel, coalescer, metrics, NoopSpanCustomizer.INSTANCE, executor, FanOutMode.PARALLEL, 100, 20, 100, 2);
+        doReturn(new RecommendationPage(PRODUCT_ID_OK, Collections.emptyList(), null))
+                .when(integration).requireRecommendationPage(PRODUCT_ID_OK, null, 1, View.SUMMARY);
+
+        ProductAggregate body = compositeProduct(10, 0);
+        InvalidInputException exception = Assertions.assertThrows(InvalidInputException.class, () -> service.createCompositeProduct(body));
+
+        assertThat(exception.getMessage()).isEqualTo("Product Id: " + PRODUCT_ID_OK + " already has reviews");
+        verify(integration, never()).createProduct(any());
+        verify(integration, never()).deleteReviews(anyInt());
+    }
+
+    @Test
+    void deleteCompositeProductDeletesConcurrently() {
+        ProductCompositeServiceImpl service = new ProductCompositeServiceImpl(serviceUtil, integration, aggregateCache, readModel, coalescer, metrics, NoopSpanCustomizer.INSTANCE, executor, FanOutMode.PARALLEL, 100, 20, 100, 2);
+        doAnswer(slowCall(null)).when(integration).deleteProduct(PRODUCT_ID_OK);
+        doAnswer(slowCall(null)).when(integration).deleteRecommendations(PRODUCT_ID_OK);
+        doAnswer(slowCall(null)).when(integration).deleteReviews(PRODUCT_ID_OK);
+
+        service.deleteCompositeProduct(PRODUCT_ID_OK);
+
+        assertThat(maxInFlight.get()).isEqualTo(3);
+    }
+
+    private void noChildrenYet() {
+        doReturn(new RecommendationPage(PRODUCT_ID_OK, Collections.emptyList(), null))
+                .when(integration).requireRecommendationPage(PRODUCT_ID_OK, null, 1, View.SUMMARY);
+        doReturn(new ReviewPage(PRODUCT_ID_OK, Collections.emptyList(), null))
+                .when(integration).requireReviewPage(PRODUCT_ID_OK, null, 1, View.SUMMARY);
+    }
+
+    private ProductAggregate compositeProduct(int recommendations, int reviews) {
+        List<RecommendationSummary> recommendationSummaries = IntStream.rangeClosed(1, recommendations)
+                .mapToObj(id -> new RecommendationSummary(id, "author", 1, "content"))
+                .collect(Collectors.toList());
+        List<ReviewSummary> reviewSummaries = IntStream.rangeClosed(1, reviews)
+                .mapToObj(id -> new ReviewSummary(id, "author", "subject", "content"))
+                .collect(Collectors.toList());
+        return new ProductAggregate(PRODUCT_ID_OK, "name", 1, recommendationSummaries, reviewSummaries, null);
+    }
+
+    private Mono<BulkResult> slowBulkWrite(Supplier<BulkResult> result) {
+        return Mono.fromCallable(() -> {
+                    simulateLatency();
+                    return result.get();
+                })
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    private Answer<Object> slowCall(Object result) {
+        return invocation -> {
+            simulateLatency();
+            return result;
+        };
+    }
+
+    private void simulateLatency() throws InterruptedException {
+        maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+        try {
+            Thread.sleep(CALL_LATENCY_MS);
+        } finally {
+            inFlight.decrementAndGet();
+        }
+    }
+
+    private static ProductAggregate aggregate(int productVersion, int reviewVersion, ServiceAddress serviceAddress) {
+        return new ProductAggregate(PRODUCT_ID_OK, "name", 1,
+                Collections.singletonList(new RecommendationSummary(1, "author", 1, "content", 0)), null,
+                Collections.singletonList(new ReviewSummary(1, "author", "subject", "content", reviewVersion)), null,
+                serviceAddress, productVersion);
+    }
+}
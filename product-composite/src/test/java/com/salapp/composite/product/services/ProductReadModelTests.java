@@ -0,0 +1,366 @@
+package com.salapp.composite.product.services;
+
+import com.salapp.api.composite.product.ProductAggregate;
+import com.salapp.api.composite.product.RecommendationSummary;
+import com.salapp.api.composite.product.ReviewSummary;
+import com.salapp.api.core.View;
+import com.salapp.api.core.product.Product;
+import com.salapp.api.core.recommendation.Recommendation;
+import com.salapp.api.core.recommendation.RecommendationPage;
+import com.salapp.api.core.review.Review;
+import com.salapp.api.core.review.ReviewPage;
+import com.salapp.api.event.Event;
+import com.salapp.util.exceptions.NotFoundException;
+import com.salapp.util.http.ServiceUtil;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import static com.salapp.api.event.Event.Type.CREATE;
+import static com.salapp.api.event.Event.Type.DELETE;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+
+class ProductReadModelTests {
+
+    private static final int PRODUCT_ID = 1;
+    private static final int PAGE_SIZE = 3;
+    private static final Duration RETENTION = Duration.ofHours(1);
+
+    private final ProductEventBus bus = new ProductEventBus();
+    private final ReactiveProductCompositeIntegration integration = mock(ReactiveProductCompositeIntegration.class);
+    private final ProductAggregateCache aggregateCache = new ProductAggregateCache(new SimpleMeterRegistry(), 100, Duration.ofSeconds(30));
+    private final ServiceUtil serviceUtil = mock(ServiceUtil.class);
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private ProductReadModel readModel;
+
+    @BeforeEach
+    void setUp() {
+        when(serviceUtil.getServiceAddress()).thenReturn("composite-address");
+        when(integration.getProduct(anyInt())).thenReturn(Mono.error(new NotFoundException("NOT FOUND")));
+        when(integration.requireRecommendationPage(anyInt(), isNull(), anyInt(), any())).thenReturn(Mono.empty());
+        when(integration.requireReviewPage(anyInt(), isNull(), anyInt(), any())).thenReturn(Mono.empty());
+
+        readModel = new ProductReadModel(bus, integration, aggregateCache, serviceUtil, registry, true, PAGE_SIZE, RETENTION);
+    }
+
+    @AfterEach
+    void tearDown() {
+        readModel.close();
+    }
+
+    @Test
+    void eventsBuildTheAggregate() {
+        bus.publishProductEvent(new Event<>(CREATE, PRODUCT_ID, product(PRODUCT_ID, "name", 0)));
+        bus.publishRecommendationEvent(new Event<>(CREATE, PRODUCT_ID, recommendation(1, 0)));
+        bus.publishReviewEvent(new Event<>(CREATE, PRODUCT_ID, review(1, 0)));
+
+        ProductAggregate aggregate = readModel.get(PRODUCT_ID);
+
+        assertThat(aggregate.getName()).isEqualTo("name");
+        assertThat(aggregate.getVersion()).isEqualTo(0);
+        assertThat(aggregate.getRecommendations()).extracting(RecommendationSummary::getRecommendationId).containsExactly(1);
+        assertThat(aggregate.getRecommendations().get(0).getContent()).isNull();
+        assertThat(aggregate.getReviews()).extracting(ReviewSummary::getReviewId).containsExactly(1);
+        assertThat(aggregate.getServiceAddress().getCmp()).isEqualTo("composite-address");
+        verify(integration, never()).getProduct(anyInt());
+    }
+
+    @Test
+    void keepsTheFirstPageWithACursor() {
+        bus.publishProductEvent(new Event<>(CREATE, PRODUCT_ID, product(PRODUCT_ID, "name", 0)));
+        for (int reviewId : new int[]{5, 2, 4, 1, 3, 6}) {
+            bus.publishReviewEvent(new Event<>(CREATE, PRODUCT_ID, review(reviewId, 0)));
+        }
+        bus.publishRecommendationEvent(new Event<>(CREATE, PRODUCT_ID, recommendation(1, 0)));
+
+        ProductAggregate aggregate = readModel.get(PRODUCT_ID);
+
+        assertThat(aggregate.getReviews()).extracting(ReviewSummary::getReviewId).containsExactly(1, 2, 3);
+        assertThat(aggregate.getReviewsCursor()).isEqualTo(3);
+        assertThat(aggregate.getRecommendationsCursor()).isNull();
+    }
+
+    @Test
+    void olderVersionsAreIgnored() {
+        bus.publishProductEvent(new Event<>(CREATE, PRODUCT_ID, product(PRODUCT_ID, "new", 2)));
+        bus.publishProductEvent(new Event<>(CREATE, PRODUCT_ID, product(PRODUCT_ID, "old", 1)));
+        bus.publishProductEvent(new Event<>(CREATE, PRODUCT_ID, product(PRODUCT_ID, "new", 2)));
+
+        assertThat(readModel.get(PRODUCT_ID).getName()).isEqualTo("new");
+    }
+
+    @Test
+    void childrenWithoutAProductAreNotServed() {
+        bus.publishReviewEvent(new Event<>(CREATE, PRODUCT_ID, review(1, 0)));
+
+        assertThat(readModel.get(PRODUCT_ID)).isNull();
+
+        bus.publishProductEvent(new Event<>(CREATE, PRODUCT_ID, product(PRODUCT_ID, "name", 0)));
+
+        assertThat(readModel.get(PRODUCT_ID).getReviews()).hasSize(1);
+    }
+
+    @Test
+    void deletesRemoveWhatTheyStandFor() {
+        bus.publishProductEvent(new Event<>(CREATE, PRODUCT_ID, product(PRODUCT_ID, "name", 0)));
+        bus.publishRecommendationEvent(new Event<>(CREATE, PRODUCT_ID, recommendation(1, 0)));
+        bus.publishReviewEvent(new Event<>(CREATE, PRODUCT_ID, review(1, 0)));
+
+        bus.publishReviewEvent(new Event<>(DELETE, PRODUCT_ID, null));
+        ProductAggregate aggregate = readModel.get(PRODUCT_ID);
+        assertThat(aggregate.getReviews()).isEmpty();
+        assertThat(aggregate.getRecommendations()).hasSize(1);
+
+        bus.publishProductEvent(new Event<>(DELETE, PRODUCT_ID, null));
+        assertThat(readModel.get(PRODUCT_ID)).isNull();
+        assertThat(readModel.size()).isZero();
+    }
+
+    @Test
+    void aDeleteIsNotUndoneByAnOlderCreate() {
+        Instant created = Instant.now().minusSeconds(10);
+        bus.publishProductEvent(new Event<>(CREATE, PRODUCT_ID, product(PRODUCT_ID, "name", 0), created));
+        bus.publishProductEvent(new Event<>(DELETE, PRODUCT_ID, null, created.plusSeconds(1)));
+
+        bus.publishProductEvent(new Event<>(CREATE, PRODUCT_ID, product(PRODUCT_ID, "name", 0), created));
+        assertThat(readModel.get(PRODUCT_ID)).isNull();
+        assertThat(readModel.productIds()).isEmpty();
+
+        bus.publishProductEvent(new Event<>(CREATE, PRODUCT_ID, product(PRODUCT_ID, "again", 0), created.plusSeconds(2)));
+        assertThat(readModel.get(PRODUCT_ID).getName()).isEqualTo("again");
+    }
+
+    @Test
+    void aChildDeleteIsNotUndoneByAnOlderCreate() {
+        Instant created = Instant.now().minusSeconds(10);
+        bus.publishProductEvent(new Event<>(CREATE, PRODUCT_ID, product(PRODUCT_ID, "name", 0), created));
+        bus.publishReviewEvent(new Event<>(CREATE, PRODUCT_ID, review(1, 0), created));
+        bus.publishRecommendationEvent(new Event<>(CREATE, PRODUCT_ID, recommendation(1, 0), created));
+        bus.publishReviewEvent(new Event<>(DELETE, PRODUCT_ID, null, created.plusSeconds(1)));
+        bus.publishRecommendationEvent(new Event<>(DELETE, PRODUCT_ID, null, created.plusSeconds(1)));
+
+        bus.publishReviewEvent(new Event<>(CREATE, PRODUCT_ID, review(1, 0), created));
+        bus.publishRecommendationEvent(new Event<>(CREATE, PRODUCT_ID, recommendation(1, 0), created));
+        ProductAggregate aggregate = readModel.get(PRODUCT_ID);
+        assertThat(aggregate.getReviews()).isEmpty();
+        assertThat(aggregate.getRecommendations()).isEmpty();
+
+        bus.publishReviewEvent(new Event<>(CREATE, PRODUCT_ID, review(2, 0), created.plusSeconds(2)));
+        assertThat(readModel.get(PRODUCT_ID).getReviews()).extracting(ReviewSummary::getReviewId).containsExactly(2);
+    }
+
+    @Test
+    void aRecreatedProductDoesNotShowTheChildrenOfTheDeletedOne() {
+        Instant created = Instant.now().minusSeconds(10);
+        bus.publishProductEvent(new Event<>(CREATE, PRODUCT_ID, product(PRODUCT_ID, "name", 0), created));
+        bus.publishReviewEvent(new Event<>(CREATE, PRODUCT_ID, review(1, 0), created));
+        bus.publishProductEvent(new Event<>(DELETE, PRODUCT_ID, null, created.plusSeconds(1)));
+
+        bus.publishReviewEvent(new Event<>(CREATE, PRODUCT_ID, review(1, 0), created));
+        bus.publishReviewEvent(new Event<>(CREATE, PRODUCT_ID, review(2, 0), created.plusSeconds(2)));
+        bus.publishProductEvent(new Event<>(CREATE, PRODUCT_ID, product(PRODUCT_ID, "again", 0), created.plusSeconds(2)));
+
+        ProductAggregate aggregate = readModel.get(PRODUCT_ID);
+        assertThat(aggregate.getName()).isEqualTo("again");
+        assertThat(aggregate.getReviews()).extracting(ReviewSummary::getReviewId).containsExactly(2);
+    }
+
+    @Test
+    void tombstonesAreDroppedAfterTheRetention() {
+        readModel.close();
+        readModel = new ProductReadModel(bus, integration, aggregateCache, serviceUtil, registry, true, PAGE_SIZE, Duration.ZERO);
+        Instant created = Instant.now().minusSeconds(10);
+        bus.publishProductEvent(new Event<>(DELETE, PRODUCT_ID, null, created.plusSeconds(1)));
+
+        bus.publishProductEvent(new Event<>(DELETE, PRODUCT_ID + 1, null));
+        bus.publishProductEvent(new Event<>(CREATE, PRODUCT_ID, product(PRODUCT_ID, "name", 0), created));
+
+        assertThat(readModel.get(PRODUCT_ID).getName()).isEqualTo("name");
+    }
+
+    @Test
+    void appliedEventsInvalidateTheCache() {
+        aggregateCache.put(PRODUCT_ID, new ProductAggregate(PRODUCT_ID, "cached", 1, null, null, null), aggregateCache.generation(PRODUCT_ID));
+
+        bus.publishProductEvent(new Event<>(CREATE, PRODUCT_ID, product(PRODUCT_ID, "name", 0)));
+
+        assertThat(aggregateCache.get(PRODUCT_ID)).isNull();
+    }
+
+    @Test
+    void aBrokenEventDoesNotEndTheSubscription() {
+        bus.publishRecommendationEvent(new Event<>(CREATE, PRODUCT_ID, null));
+        bus.publishProductEvent(new Event<>(CREATE, PRODUCT_ID, product(PRODUCT_ID, "name", 0)));
+        bus.publishRecommendationEvent(new Event<>(CREATE, PRODUCT_ID, recommendation(1, 0)));
+
+        assertThat(readModel.get(PRODUCT_ID).getRecommendations()).hasSize(1);
+    }
+
+    @Test
+    void aMissIsBackfilledOnce() {
+        stubCoreServices();
+
+        assertThat(readModel.get(PRODUCT_ID)).isNull();
+        ProductAggregate aggregate = readModel.get(PRODUCT_ID);
+
+        assertThat(aggregate.getName()).isEqualTo("name");
+        assertThat(aggregate.getRecommendations()).hasSize(1);
+        assertThat(aggregate.getReviews()).hasSize(1);
+        verify(integration, times(1)).getProduct(PRODUCT_ID);
+        verify(integration, times(1)).requireReviewPage(PRODUCT_ID, null, PAGE_SIZE, View.SUMMARY);
+    }
+
+    @Test
+    void aFailingServiceIsNotBackfilled() {
+        stubCoreServices();
+        when(integration.requireReviewPage(anyInt(), isNull(), anyInt(), any())).thenReturn(Mono.error(new RuntimeException("unavailable")));
+
+        assertThat(readModel.get(PRODUCT_ID)).isNull();
+
+        assertThat(readModel.size()).isZero();
+    }
+
+    @Test
+    void aBackfillKeepsNewerEvents() {
+        bus.publishReviewEvent(new Event<>(CREATE, PRODUCT_ID, review(7, 0)));
+        stubCoreServices();
+
+        assertThat(readModel.get(PRODUCT_ID)).isNull();
+
+        assertThat(readModel.get(PRODUCT_ID).getReviews()).extracting(ReviewSummary::getReviewId).containsExactly(1, 7);
+    }
+
+    @Test
+    void aBackfillDoesNotBringBackAProductDeletedMeanwhile() {
+        stubCoreServices();
+        when(integration.getProduct(PRODUCT_ID)).thenReturn(Mono.fromCallable(() -> {
+            bus.publishProductEvent(new Event<>(DELETE, PRODUCT_ID, null));
+            return product(PRODUCT_ID, "name", 0);
+        }));
+
+        assertThat(readModel.get(PRODUCT_ID)).isNull();
+
+        assertThat(readModel.size()).isZero();
+        bus.publishProductEvent(new Event<>(CREATE, PRODUCT_ID, product(PRODUCT_ID, "name", 0), Instant.now().minusSeconds(10)));
+        assertThat(readModel.productIds()).isEmpty();
+    }
+
+    @Test
+    void aBackfillDoesNotBringBackReviewsDeletedMeanwhile() {
+        stubCoreServices();
+        when(integration.requireReviewPage(eq(PRODUCT_ID), isNull(), anyInt(), eq(View.SUMMARY))).thenReturn(Mono.fromCallable(() -> {
+            bus.publishReviewEvent(new Event<>(DELETE, PRODUCT_ID, null));
+            return new ReviewPage(PRODUCT_ID, Collections.singletonList(review(1, 0)), null);
+        }));
+
+        assertThat(readModel.get(PRODUCT_ID)).isNull();
+
+        ProductAggregate aggregate = readModel.get(PRODUCT_ID);
+        assertThat(aggregate.getReviews()).isEmpty();
+        assertThat(aggregate.getRecommendations()).hasSize(1);
+    }
+
+    @Test
+    void aBackfillAfterADeleteIsKept() {
+        bus.publishProductEvent(new Event<>(DELETE, PRODUCT_ID, null));
+        stubCoreServices();
+
+        assertThat(readModel.get(PRODUCT_ID)).isNull();
+
+        assertThat(readModel.get(PRODUCT_ID).getName()).isEqualTo("name");
+    }
+
+    @Test
+    void aRebuildDoesNotBringBackAProductDeletedMeanwhile() {
+        stubCoreServices();
+        when(integration.getProduct(PRODUCT_ID)).thenReturn(Mono.fromCallable(() -> {
+            bus.publishProductEvent(new Event<>(DELETE, PRODUCT_ID, null));
+            return product(PRODUCT_ID, "name", 0);
+        }));
+
+        StepVerifier.create(readModel.rebuild(PRODUCT_ID)).expectNext(true).verifyComplete();
+
+        assertThat(readModel.size()).isZero();
+    }
+
+    @Test
+    void rebuildReplacesOrRemoves() {
+        bus.publishProductEvent(new Event<>(CREATE, PRODUCT_ID, product(PRODUCT_ID, "stale", 0)));
+        bus.publishReviewEvent(new Event<>(CREATE, PRODUCT_ID, review(9, 0)));
+        stubCoreServices();
+
+        StepVerifier.create(readModel.rebuild(PRODUCT_ID)).expectNext(true).verifyComplete();
+        ProductAggregate aggregate = readModel.get(PRODUCT_ID);
+        assertThat(aggregate.getName()).isEqualTo("name");
+        assertThat(aggregate.getReviews()).extracting(ReviewSummary::getReviewId).containsExactly(1);
+
+        when(integration.getProduct(PRODUCT_ID)).thenReturn(Mono.error(new NotFoundException("NOT FOUND")));
+        StepVerifier.create(readModel.rebuild(PRODUCT_ID)).expectNext(false).verifyComplete();
+        assertThat(readModel.size()).isZero();
+    }
+
+    @Test
+    void recordsStalenessAndLookups() {
+        bus.publishProductEvent(new Event<>(CREATE, PRODUCT_ID, product(PRODUCT_ID, "name", 0), Instant.now().minusSeconds(2)));
+
+        readModel.get(PRODUCT_ID);
+        readModel.get(PRODUCT_ID + 1);
+
+        assertThat(registry.get(ProductReadModel.STALENESS).timer().count()).isEqualTo(1);
+        assertThat(registry.get(ProductReadModel.STALENESS).timer().max(TimeUnit.SECONDS)).isGreaterThanOrEqualTo(2);
+        assertThat(registry.get(ProductReadModel.LOOKUPS).tag("result", "hit").counter().count()).isEqualTo(1);
+        assertThat(registry.get(ProductReadModel.LOOKUPS).tag("result", "miss").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void disabledReadModelHoldsNothing() {
+        readModel.close();
+        readModel = new ProductReadModel(bus, integration, aggregateCache, serviceUtil, registry, false, PAGE_SIZE, RETENTION);
+
+        bus.publishProductEvent(new Event<>(CREATE, PRODUCT_ID, product(PRODUCT_ID, "name", 0)));
+
+        assertThat(readModel.get(PRODUCT_ID)).isNull();
+        assertThat(readModel.size()).isZero();
+        verify(integration, never()).getProduct(anyInt());
+    }
+
+    private void stubCoreServices() {
+        when(integration.getProduct(PRODUCT_ID)).thenReturn(Mono.just(product(PRODUCT_ID, "name", 0)));
+        when(integration.requireRecommendationPage(eq(PRODUCT_ID), isNull(), anyInt(), eq(View.SUMMARY)))
+                .thenReturn(Mono.just(new RecommendationPage(PRODUCT_ID, Collections.singletonList(recommendation(1, 0)), null)));
+        when(integration.requireReviewPage(eq(PRODUCT_ID), isNull(), anyInt(), eq(View.SUMMARY)))
+                .thenReturn(Mono.just(new ReviewPage(PRODUCT_ID, Collections.singletonList(review(1, 0)), null)));
+    }
+
+    private static Product product(int productId, String name, int version) {
+        Product product = new Product(productId, name, 1, "product-address");
+        product.setVersion(version);
+        return product;
+    }
+
+    private static Recommendation recommendation(int recommendationId, int version) {
+        Recommendation recommendation = new Recommendation(PRODUCT_ID, recommendationId, "author", 1, "content", "rec-address");
+        recommendation.setVersion(version);
+        return recommendation;
+    }
+
+    private static Review review(int reviewId, int version) {
+        Review review = new Review(PRODUCT_ID, reviewId, "author", "subject", "content", "rev-address");
+        review.setVersion(version);
+        return review;
+    }
+}
@@ -0,0 +1,200 @@
+package com.salapp.composite.product.services;
+
+import com.salapp.api.composite.product.ProductAggregate;
+import com.salapp.api.composite.product.RecommendationSummary;
+import com.salapp.api.composite.product.ReviewSummary;
+import com.salapp.util.exceptions.NotFoundException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+import reactor.util.context.Context;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ProductRequestCoalescerTests {
+
+    private static final int PRODUCT_ID = 1;
+    private static final int CALLERS = 10;
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final ProductRequestCoalescer coalescer = new ProductRequestCoalescer(registry);
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(CALLERS);
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void concurrentCallersShareOneLoad() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+
+        List<Future<ProductAggregate>> results = new ArrayList<>();
+        for (int i = 0; i < CALLERS; i++) {
+            results.add(executor.submit(() -> coalescer.get(PRODUCT_ID, () -> {
+                loads.incrementAndGet();
+                await(release);
+                return aggregate();
+            })));
+        }
+
+        // let every caller reach the coalescer before the load completes
+        waitForCoalesced(CALLERS - 1);
+        release.countDown();
+
+        List<ProductAggregate> aggregates = new ArrayList<>();
+        for (Future<ProductAggregate> result : results) {
+            aggregates.add(result.get(5, TimeUnit.SECONDS));
+        }
+
+        assertThat(loads.get()).isEqualTo(1);
+        assertThat(aggregates).allSatisfy(aggregate -> assertThat(aggregate.getReviews()).hasSize(1));
+        Set<List<ReviewSummary>> reviewLists = Collections.newSetFromMap(new IdentityHashMap<>());
+        aggregates.forEach(aggregate -> reviewLists.add(aggregate.getReviews()));
+        assertThat(reviewLists).hasSize(CALLERS);
+        assertThat(registry.get("composite.requests.in-flight").gauge().value()).isZero();
+    }
+
+    @Test
+    void failureIsSharedAndNotKept() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+
+        Future<ProductAggregate> leader = executor.submit(() -> coalescer.get(PRODUCT_ID, () -> {
+            await(release);
+            throw new NotFoundException("No product for productId: " + PRODUCT_ID);
+        }));
+        waitForInFlight();
+        Future<ProductAggregate> follower = executor.submit(() -> coalescer.get(PRODUCT_ID, this::aggregate));
+        waitForCoalesced(1);
+        release.countDown();
+
+        Exception leaderError = Assertions.assertThrows(Exception.class, () -> leader.get(5, TimeUnit.SECONDS));
+        Exception followerError = Assertions.assertThrows(Exception.class, () -> follower.get(5, TimeUnit.SECONDS));
+        assertThat(leaderError).hasCauseInstanceOf(NotFoundException.class);
+        assertThat(followerError).hasCauseInstanceOf(NotFoundException.class);
+
+        assertThat(coalescer.get(PRODUCT_ID, this::aggregate).getProductId()).isEqualTo(PRODUCT_ID);
+    }
+
+    @Test
+    void reactiveSubscribersShareOneLoad() {
+        Mono<ProductAggregate> load = Mono.fromCallable(() -> {
+            loads.incrementAndGet();
+            return aggregate();
+        }).delayElement(Duration.ofMillis(200));
+
+        Mono<List<ProductAggregate>> both = Mono.zip(coalescer.get(PRODUCT_ID, load), coalescer.get(PRODUCT_ID, load))
+                .map(parts -> List.of(parts.getT1(), parts.getT2()));
+
+        StepVerifier.create(both)
+                .assertNext(aggregates -> assertThat(aggregates.get(0)).isNotSameAs(aggregates.get(1)))
+                .verifyComplete();
+
+        assertThat(loads.get()).isEqualTo(1);
+        assertThat(registry.get("composite.requests.coalesced").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void leaderGetsACopyToo() {
+        ProductAggregate loaded = aggregate();
+
+        ProductAggregate returned = coalescer.get(PRODUCT_ID, () -> loaded);
+
+        assertThat(returned).isNotSameAs(loaded);
+        assertThat(returned.getReviews()).isEqualTo(loaded.getReviews()).isNotSameAs(loaded.getReviews());
+        StepVerifier.create(coalescer.get(PRODUCT_ID, Mono.just(loaded)))
+                .assertNext(aggregate -> assertThat(aggregate).isNotSameAs(loaded))
+                .verifyComplete();
+    }
+
+    @Test
+    void reactiveLoadRunsInTheCallersContext() {
+        Mono<ProductAggregate> load = Mono.deferContextual(context -> {
+            assertThat(context.getOrEmpty("trace")).contains("caller");
+            return Mono.just(aggregate());
+        });
+
+        StepVerifier.create(coalescer.get(PRODUCT_ID, load).contextWrite(Context.of("trace", "caller")))
+                .expectNextCount(1)
+                .verifyComplete();
+    }
+
+    @Test
+    void reactiveLoadSurvivesOneSubscriberCancelling() {
+        Mono<ProductAggregate> load = Mono.fromCallable(() -> {
+            loads.incrementAndGet();
+            return aggregate();
+        }).delayElement(Duration.ofMillis(200));
+
+        Disposable leader = coalescer.get(PRODUCT_ID, load).subscribe();
+
+        StepVerifier.create(coalescer.get(PRODUCT_ID, load))
+                .then(leader::dispose)
+                .expectNextCount(1)
+                .verifyComplete();
+        assertThat(loads.get()).isEqualTo(1);
+        assertThat(registry.get("composite.requests.in-flight").gauge().value()).isZero();
+    }
+
+    @Test
+    void copyKeepsVersionAndCursors() {
+        ProductAggregate aggregate = new ProductAggregate(PRODUCT_ID, "name", 1,
+                Collections.singletonList(new RecommendationSummary(1, "author", 1)), 1,
+                Collections.singletonList(new ReviewSummary(1, "author", "subject")), 2,
+                null, 3);
+
+        ProductAggregate copy = ProductRequestCoalescer.copyOf(aggregate);
+
+        assertThat(copy.getVersion()).isEqualTo(3);
+        assertThat(copy.getRecommendationsCursor()).isEqualTo(1);
+        assertThat(copy.getReviewsCursor()).isEqualTo(2);
+        assertThat(copy.getRecommendations()).isEqualTo(aggregate.getRecommendations()).isNotSameAs(aggregate.getRecommendations());
+        assertThat(ProductCompositeServiceImpl.entityTag(copy)).isEqualTo(ProductCompositeServiceImpl.entityTag(aggregate));
+    }
+
+    private ProductAggregate aggregate() {
+        return new ProductAggregate(PRODUCT_ID, "name", 1, Collections.emptyList(),
+                new ArrayList<>(Collections.singletonList(new ReviewSummary(1, "author", "subject"))), null);
+    }
+
+    private void waitForCoalesced(int expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (registry.get("composite.requests.coalesced").counter().count() < expected && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+    }
+
+    private void waitForInFlight() throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (registry.get("composite.requests.in-flight").gauge().value() < 1 && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package com.salapp.composite.product.services;
+
+import brave.NoopSpanCustomizer;
+import brave.propagation.ThreadLocalCurrentTraceContext;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.salapp.api.composite.product.ProductAggregate;
+import com.salapp.api.composite.product.RecommendationSummary;
+import com.salapp.api.composite.product.ReviewSummary;
+import com.salapp.api.core.bulk.BulkFailure;
+import com.salapp.api.core.bulk.BulkResult;
+import com.salapp.api.core.product.Product;
+import com.salapp.api.core.recommendation.Recommendation;
+import com.salapp.api.core.recommendation.RecommendationPage;
+import com.salapp.api.core.review.Review;
+import com.salapp.api.core.review.ReviewPage;
+import com.salapp.util.exceptions.InvalidInputException;
+import com.salapp.util.exceptions.NotFoundException;
+import com.salapp.util.http.ServiceUtil;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.bulkhead.ThreadPoolBulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.timelimiter.TimeLimiterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
+
+class ReactiveProductCompositeServiceImplTests {
+
+    private static final int PRODUCT_ID_OK = 1;
+    private static final int PRODUCT_ID_NO_CHILDREN = 2;
+    private static final int PRODUCT_ID_NOT_FOUND = 13;
+    private static final Duration CALL_LATENCY = Duration.ofMillis(300);
+
+    private final ObjectMapper mapper = Jackson2ObjectMapperBuilder.json().build();
+
+    private final ProductAggregateCache aggregateCache = new ProductAggregateCache(new SimpleMeterRegistry(), 100, Duration.ofSeconds(30));
+
+    private final ScheduledExecutorService timeLimiterScheduler = Executors.newSingleThreadScheduledExecutor();
+
+    private final List<String> requests = new CopyOnWriteArrayList<>();
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final CompositeMetrics metrics = new CompositeMetrics(registry);
+
+    private ReactiveProductCompositeServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        ServiceUtil serviceUtil = new ServiceUtil("7000");
+        ReactiveProductCompositeIntegration integration = new ReactiveProductCompositeIntegration(
+                WebClient.builder().exchangeFunction(request -> {
+                    requests.add(request.method() + " " + request.url().getPath());
+                    return stubResponse(request).delayElement(CALL_LATENCY);
+                }),
+                mapper,
+                aggregateCache,
+                new CoreServiceResilience(CircuitBreakerRegistry.ofDefaults(), BulkheadRegistry.ofDefaults(),
+                        ThreadPoolBulkheadRegistry.ofDefaults(), TimeLimiterRegistry.ofDefaults(), timeLimiterScheduler,
+                        ThreadLocalCurrentTraceContext.create()),
+                metrics,
+                "localhost", 7001,
+                "localhost", 7002,
+                "localhost", 7003,
+                MediaType.APPLICATION_JSON_VALUE);
+
+        ProductReadModel readModel = new ProductReadModel(new ProductEventBus(), integration, aggregateCache, serviceUtil, new SimpleMeterRegistry(), false, 20, Duration.ofHours(1));
+        service = new ReactiveProductCompositeServiceImpl(serviceUtil, integration, aggregateCache, readModel, new ProductRequestCoalescer(new SimpleMeterRegistry()), metrics, NoopSpanCustomizer.INSTANCE, 100, 20, 100, 4);
+    }
+
+    @AfterEach
+    void tearDown() {
+        timeLimiterScheduler.shutdownNow();
+    }
+
+    @Test
+    void getProductZipsConcurrentCalls() {
+        // warm up class loading and the codecs, so only the calls themselves are measured
+        service.getProduct(PRODUCT_ID_OK).block();
+        aggregateCache.invalidate(PRODUCT_ID_OK);
+
+        long start = System.nanoTime();
+
+        StepVerifier.create(service.getProduct(PRODUCT_ID_OK).map(ResponseEntity::getBody))
+                .assertNext(aggregate -> {
+                    assertThat(aggregate.getProductId()).isEqualTo(PRODUCT_ID_OK);
+                    assertThat(aggregate.getRecommendations()).hasSize(1);
+                    assertThat(aggregate.getReviews()).hasSize(1);
+                    assertThat(aggregate.getServiceAddress().getRec()).isEqualTo("rec-address");
+                    assertThat(aggregate.getReviewsCursor()).isEqualTo(1);
+                })
+                .verifyComplete();
+
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+        assertThat(elapsedMs).isLessThan(2 * CALL_LATENCY.toMillis());
+    }
+
+    @Test
+    void getProductNotFound() {
+        StepVerifier.create(service.getProduct(PRODUCT_ID_NOT_FOUND))
+                .expectErrorSatisfies(e -> assertThat(e)
+                        .isInstanceOf(NotFoundException.class)
+                        .hasMessage("NOT FOUND: " + PRODUCT_ID_NOT_FOUND))
+                .verify();
+    }
+
+    @Test
+    void createCompositeProductDeletesWhatWasWrittenOnFailure() {
+        ProductAggregate body = new ProductAggregate(PRODUCT_ID_NO_CHILDREN, "name", 1,
+                Collections.singletonList(new RecommendationSummary(1, "author", 1, "content")),
+                Collections.singletonList(new ReviewSummary(1, "author", "subject", "content")),
+                null);
+
+        StepVerifier.create(service.createCompositeProduct(body))
+                .expectErrorSatisfies(e -> assertThat(e)
+                        .isInstanceOf(InvalidInputException.class)
+                        .hasMessage("Duplicate key, Product Id: 1, Review Id: 1"))
+                .verify();
+
+        // the check for children left behind under the productId runs first
+        assertThat(requests.subList(0, 2)).containsExactlyInAnyOrder("GET /recommendation/page", "GET /review/page");
+        assertThat(requests.get(2)).isEqualTo("POST /product/");
+        assertThat(requests).contains("POST /recommendation/bulk", "POST /review/bulk",
+                "DELETE /product/" + PRODUCT_ID_NO_CHILDREN, "DELETE /recommendation", "DELETE /review");
+    }
+
+    @Test
+    void createCompositeProductRejectsAProductWithChildrenLeftBehind() {
+        ProductAggregate body = new ProductAggregate(PRODUCT_ID_OK, "name", 1,
+                Collections.singletonList(new RecommendationSummary(1, "author", 1, "content")),
+                Collections.emptyList(),
+                null);
+
+        StepVerifier.create(service.createCompositeProduct(body))
+                .expectErrorSatisfies(e -> assertThat(e)
+                        .isInstanceOf(InvalidInputException.class)
+                        .hasMessage("Product Id: " + PRODUCT_ID_OK + " already has recommendations"))
+                .verify();
+
+        assertThat(requests).noneMatch(request -> request.startsWith("POST") || request.startsWith("DELETE"));
+    }
+
+    private Mono<ClientResponse> stubResponse(ClientRequest request) {
+        String path = request.url().getPath();
+        String query = request.url().getQuery();
+
+        if (path.equals("/product/" + PRODUCT_ID_NOT_FOUND)) {
+            return Mono.just(toResponse(HttpStatus.NOT_FOUND).apply("{\"message\":\"NOT FOUND: " + PRODUCT_ID_NOT_FOUND + "\"}"));
+        }
+        if (path.equals("/recommendation/bulk")) {
+            return json(HttpStatus.OK, new BulkResult(1, 1, Collections.emptyList()));
+        }
+        if (path.equals("/review/bulk")) {
+            return json(HttpStatus.OK, new BulkResult(1, 0, Collections.singletonList(
+                    new BulkFailure(0, PRODUCT_ID_OK, 1, "Duplicate key, Product Id: 1, Review Id: 1"))));
+        }
+        if (path.startsWith("/product/")) {
+            return json(HttpStatus.OK, new Product(PRODUCT_ID_OK, "name", 1, "product-address"));
+        }
+        if (path.endsWith("/page") && query.startsWith("productId=" + PRODUCT_ID_NO_CHILDREN + "&")) {
+            return json(HttpStatus.OK, path.startsWith("/review")
+                    ? new ReviewPage(PRODUCT_ID_NO_CHILDREN, Collections.emptyList(), null)
+                    : new RecommendationPage(PRODUCT_ID_NO_CHILDREN, Collections.emptyList(), null));
+        }
+        if (path.equals("/recommendation/page") && query.startsWith("productId=" + PRODUCT_ID_OK + "&")) {
+            return json(HttpStatus.OK, new RecommendationPage(PRODUCT_ID_OK,
+                    Collections.singletonList(new Recommendation(PRODUCT_ID_OK, 1, "author", 1, "content", "rec-address")), null));
+        }
+        if (path.equals("/review/page") && query.startsWith("productId=" + PRODUCT_ID_OK + "&")) {
+            return json(HttpStatus.OK, new ReviewPage(PRODUCT_ID_OK,
+                    Collections.singletonList(new Review(PRODUCT_ID_OK, 1, "author", "subject", "content", "rev-address")), 1));
+        }
+        return json(HttpStatus.OK, Collections.emptyList());
+    }
+
+    private Mono<ClientResponse> json(HttpStatus status, Object body) {
+        return Mono.fromCallable(() -> mapper.writeValueAsString(body))
+                .map(toResponse(status));
+    }
+
+    private Function<String, ClientResponse> toResponse(HttpStatus status) {
+        return body -> ClientResponse.create(status)
+                .header(HttpHeaders.CONTENT_TYPE, APPLICATION_JSON_VALUE)
+                .body(body)
+                .build();
+    }
+}
@@ -5,10 +5,21 @@ import com.salapp.product.model.ProductEntity;
 import org.springframework.data.repository.PagingAndSortingRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface ProductRepository extends PagingAndSortingRepository<ProductEntity, String> {
 
     Optional<ProductEntity> findByProductId(int productId);
+
+    List<ProductEntity> findByProductIdIn(Collection<Integer> productIds);
+
+    /**
+     * Removes the product with a single delete, the document is not read first.
+     *
+     * @return the number of deleted products, 0 or 1
+     */
+    long deleteByProductId(int productId);
 }
@@ -0,0 +1,24 @@
+package com.salapp.product.repositories;
+
+import com.salapp.product.model.ProductEntity;
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+
+@Repository
+public interface ReactiveProductRepository extends ReactiveCrudRepository<ProductEntity, String> {
+
+    Mono<ProductEntity> findByProductId(int productId);
+
+    Flux<ProductEntity> findByProductIdIn(Collection<Integer> productIds);
+
+    /**
+     * Removes the product with a single delete, the document is not read first.
+     *
+     * @return the number of deleted products, 0 or 1
+     */
+    Mono<Long> deleteByProductId(int productId);
+}
@@ -0,0 +1,49 @@
+package com.salapp.product.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.salapp.api.core.product.Product;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * In-process stand-in for a {@link SharedProductCache}, used when {@code app.product-cache.shared} is local. Products
+ * are copied in and out as a remote cache would serialize them.
+ */
+@Component
+@ConditionalOnProperty(name = "app.product-cache.shared", havingValue = "local")
+public class LocalSharedProductCache implements SharedProductCache {
+
+    private final Cache<Integer, Product> cache;
+
+    @Autowired
+    public LocalSharedProductCache(@Value("${app.product-cache.shared-ttl:10m}") Duration ttl) {
+        this.cache = Caffeine.newBuilder()
+                .expireAfterWrite(ttl)
+                .build();
+    }
+
+    @Override
+    public Product get(int productId) {
+        Product product = cache.getIfPresent(productId);
+        return (product == null) ? null : ProductCache.copy(product);
+    }
+
+    @Override
+    public void put(int productId, Product product) {
+        cache.put(productId, ProductCache.copy(product));
+    }
+
+    @Override
+    public void evict(int productId) {
+        cache.invalidate(productId);
+    }
+
+    public void clear() {
+        cache.invalidateAll();
+    }
+}
@@ -0,0 +1,209 @@
+package com.salapp.product.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.salapp.api.core.product.Product;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.IntFunction;
+
+/**
+ * Cache of single products in front of the repository. The first level is in the instance and bounded by count and
+ * age, productIds that are not found are kept as well, for a shorter time, so that repeated lookups of unknown ids do
+ * not reach MongoDB. Behind it an optional {@link SharedProductCache} is consulted before the repository.
+ * <p>
+ * Writes for a product drop it from both levels. Other instances keep their own copy until it expires, so the ttl is
+ * the longest a product is served stale. A product read without a load, see {@link #put}, is only stored if it was not
+ * invalidated since the read started. The invalidations are counted per stripe of productIds, as in the composite's
+ * aggregate cache.
+ * <p>
+ * Hits, misses and evictions of the first level are exported as cache.* metrics tagged with cache=products.
+ */
+@Component
+public class ProductCache {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ProductCache.class);
+
+    static final String NAME = "products";
+
+    private static final Optional<Product> MISSING = Optional.empty();
+
+    private static final int GENERATION_STRIPES = 256;
+
+    private final Cache<Integer, Optional<Product>> cache;
+
+    private final AtomicLongArray generations = new AtomicLongArray(GENERATION_STRIPES);
+
+    private final SharedProductCache shared;
+
+    /**
+     * The MongoDB test slice has no MeterRegistry, the cache is not monitored there.
+     */
+    @Autowired
+    public ProductCache(
+            ObjectProvider<MeterRegistry> registry,
+            ObjectProvider<SharedProductCache> shared,
+            @Value("${app.product-cache.max-size:10000}") long maxSize,
+            @Value("${app.product-cache.ttl:30s}") Duration ttl,
+            @Value("${app.product-cache.negative-ttl:5s}") Duration negativeTtl) {
+
+        this(registry.getIfAvailable(), shared.getIfAvailable(), maxSize, ttl, negativeTtl);
+    }
+
+    /**
+     * @param registry null to not monitor the cache
+     * @param shared   null for no second level
+     */
+    public ProductCache(MeterRegistry registry, SharedProductCache shared, long maxSize, Duration ttl, Duration negativeTtl) {
+        this.shared = shared;
+        LOG.info("Caches up to {} products for {}, unknown productIds for {}, shared cache: {}", maxSize, ttl, negativeTtl,
+                (shared == null) ? "none" : shared.getClass().getSimpleName());
+
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new Expiry<Integer, Optional<Product>>() {
+                    @Override
+                    public long expireAfterCreate(Integer productId, Optional<Product> product, long currentTime) {
+                        return (product.isPresent() ? ttl : negativeTtl).toNanos();
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(Integer productId, Optional<Product> product, long currentTime, long currentDuration) {
+                        return expireAfterCreate(productId, product, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(Integer productId, Optional<Product> product, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+
+        if (registry != null) CaffeineCacheMetrics.monitor(registry, cache, NAME);
+    }
+
+    /**
+     * Returns the cached product or loads it, concurrent lookups of the same productId load it once.
+     *
+     * @param loader reads the product from the repository, empty if there is none
+     * @return a copy of the product that the caller may change, empty if there is no product with the productId
+     */
+    public Optional<Product> get(int productId, IntFunction<Optional<Product>> loader) {
+        return cache.get(productId, id -> {
+            Optional<Product> product = getShared(id);
+            if (product.isPresent()) return product;
+
+            product = loader.apply(id);
+            product.ifPresent(p -> putShared(id, p));
+            return product.map(ProductCache::copy);
+        }).map(ProductCache::copy);
+    }
+
+    /**
+     * For callers that cannot block on a load, see {@link #put}.
+     *
+     * @return null if the productId is not cached, otherwise as {@link #get}
+     */
+    public Optional<Product> getIfPresent(int productId) {
+        Optional<Product> product = cache.getIfPresent(productId);
+        if (product == null) {
+            long generation = generation(productId);
+            product = getShared(productId);
+            if (!product.isPresent()) return null;
+            putLocal(productId, product, generation);
+        }
+        return product.map(ProductCache::copy);
+    }
+
+    /**
+     * To be taken before the product is read from the repository and handed back to {@link #put}.
+     */
+    public long generation(int productId) {
+        return generations.get(stripe(productId));
+    }
+
+    /**
+     * Stores the product unless it was invalidated since the generation was taken.
+     *
+     * @param product the product loaded from the repository, null if there is none
+     */
+    public void put(int productId, Product product, long generation) {
+        Optional<Product> value = (product == null) ? MISSING : Optional.of(copy(product));
+        // the shared level is written under the same lock, an invalidate waits for it and evicts it afterwards
+        cache.asMap().compute(productId, (id, existing) -> {
+            if (generations.get(stripe(id)) != generation) {
+                LOG.debug("Does not cache productId: {}, it was invalidated while being read", id);
+                return existing;
+            }
+            if (product != null) putShared(id, product);
+            return value;
+        });
+    }
+
+    public void invalidate(int productId) {
+        LOG.debug("Drops the cached product for productId: {}", productId);
+        generations.incrementAndGet(stripe(productId));
+        cache.invalidate(productId);
+        if (shared == null) return;
+        try {
+            shared.evict(productId);
+        } catch (RuntimeException e) {
+            LOG.warn("Could not drop productId {} from the shared cache: {}", productId, e.getMessage());
+        }
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    private void putLocal(int productId, Optional<Product> product, long generation) {
+        cache.asMap().compute(productId, (id, existing) -> (generations.get(stripe(id)) == generation) ? product : existing);
+    }
+
+    private static int stripe(int productId) {
+        return Math.floorMod(productId, GENERATION_STRIPES);
+    }
+
+    /**
+     * A failing shared cache is treated as a miss, the repository still answers.
+     */
+    private Optional<Product> getShared(int productId) {
+        if (shared == null) return MISSING;
+        try {
+            return Optional.ofNullable(shared.get(productId));
+        } catch (RuntimeException e) {
+            LOG.warn("Could not read productId {} from the shared cache: {}", productId, e.getMessage());
+            return MISSING;
+        }
+    }
+
+    private void putShared(int productId, Product product) {
+        if (shared == null) return;
+        try {
+            shared.put(productId, product);
+        } catch (RuntimeException e) {
+            LOG.warn("Could not write productId {} to the shared cache: {}", productId, e.getMessage());
+        }
+    }
+
+    /**
+     * The cached products are never handed out, the service address is set on every response.
+     */
+    static Product copy(Product product) {
+        Product copy = new Product(product.getProductId(), product.getName(), product.getWeight(), null);
+        copy.setVersion(product.getVersion());
+        return copy;
+    }
+}
@@ -5,6 +5,8 @@ import com.salapp.product.model.ProductEntity;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
 
+import java.util.List;
+
 @Mapper(componentModel = "spring")
 public interface ProductMapper {
 
@@ -14,4 +16,6 @@ public interface ProductMapper {
     @Mapping(target = "id", ignore = true)
     @Mapping(target = "version", ignore = true)
     ProductEntity apiToEntity(Product api);
+
+    List<Product> entityListToApiList(List<ProductEntity> entities);
 }
@@ -0,0 +1,97 @@
+package com.salapp.product.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.salapp.api.core.product.Product;
+import com.salapp.api.event.Event;
+import com.salapp.product.model.OutboxMessageEntity;
+import com.salapp.util.outbox.OutboxMessage;
+import com.salapp.util.outbox.OutboxStore;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.ReactiveMongoOperations;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+/**
+ * The outbox collection of the product service, relayed to the products topic by the outbox relay. Nothing is appended
+ * unless {@code app.outbox.enabled} is set.
+ * <p>
+ * MongoDB only writes several documents in one transaction on a replica set, which the product database is not. The
+ * event is appended right after the product is written instead: a product is never published before it is stored,
+ * but a crash in between loses its event. A rebuild of the read model of the composite repairs that.
+ */
+@Component
+public class ProductOutbox implements OutboxStore {
+
+    static final String TOPIC = "products";
+
+    private final MongoOperations mongoTemplate;
+
+    private final ReactiveMongoOperations reactiveMongoTemplate;
+
+    private final ObjectMapper mapper;
+
+    private final boolean enabled;
+
+    /**
+     * The MongoDB test slice has no ObjectMapper, a default one is used there.
+     */
+    @Autowired
+    public ProductOutbox(MongoOperations mongoTemplate, ReactiveMongoOperations reactiveMongoTemplate, ObjectProvider<ObjectMapper> mapper,
+                         @Value("${app.outbox.enabled:false}") boolean enabled) {
+        this.mongoTemplate = mongoTemplate;
+        this.reactiveMongoTemplate = reactiveMongoTemplate;
+        this.mapper = mapper.getIfAvailable(() -> Jackson2ObjectMapperBuilder.json().build());
+        this.enabled = enabled;
+    }
+
+    public void append(Event<Integer, Product> event) {
+        if (!enabled) return;
+
+        mongoTemplate.insert(toEntity(event));
+    }
+
+    /**
+     * Same as {@link #append} on the reactive streams driver.
+     */
+    public Mono<Void> appendReactive(Event<Integer, Product> event) {
+        if (!enabled) return Mono.empty();
+
+        return Mono.fromCallable(() -> toEntity(event))
+                .flatMap(reactiveMongoTemplate::insert)
+                .then();
+    }
+
+    @Override
+    public List<OutboxMessage> findOldest(int limit) {
+        Query oldest = new Query().with(Sort.by("createdAt", "id")).limit(limit);
+        return mongoTemplate.find(oldest, OutboxMessageEntity.class).stream()
+                .map(entity -> new OutboxMessage(entity.getId(), entity.getTopic(), entity.getProductId(), entity.getPayload(), entity.getCreatedAt()))
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public void delete(List<OutboxMessage> messages) {
+        List<String> ids = messages.stream().map(OutboxMessage::getId).collect(Collectors.toList());
+        mongoTemplate.remove(Query.query(where("id").in(ids)), OutboxMessageEntity.class);
+    }
+
+    private OutboxMessageEntity toEntity(Event<Integer, Product> event) {
+        try {
+            return new OutboxMessageEntity(TOPIC, event.getKey(), mapper.writeValueAsString(event), event.getEventCreatedAt());
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize a " + event.getEventType() + " event for productId " + event.getKey(), e);
+        }
+    }
+}
@@ -2,6 +2,7 @@ package com.salapp.product.services;
 
 import com.salapp.api.core.product.Product;
 import com.salapp.api.core.product.ProductService;
+import com.salapp.api.event.Event;
 import com.salapp.product.model.ProductEntity;
 import com.salapp.product.repositories.ProductRepository;
 import com.salapp.util.exceptions.InvalidInputException;
@@ -10,10 +11,17 @@ import com.salapp.util.http.ServiceUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.dao.DuplicateKeyException;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.List;
+
+import static com.salapp.api.event.Event.Type.CREATE;
+import static com.salapp.api.event.Event.Type.DELETE;
+
 @RestController
+@ConditionalOnProperty(name = "app.persistence.mode", havingValue = "blocking", matchIfMissing = true)
 public class ProductServiceImpl implements ProductService {
 
     private static final Logger LOG = LoggerFactory.getLogger(ProductServiceImpl.class);
@@ -24,11 +32,18 @@ public class ProductServiceImpl implements ProductService {
 
     private final ProductMapper mapper;
 
+    private final ProductOutbox outbox;
+
+    private final ProductCache cache;
+
     @Autowired
-    public ProductServiceImpl(ProductRepository repository, ProductMapper mapper, ServiceUtil serviceUtil) {
+    public ProductServiceImpl(ProductRepository repository, ProductMapper mapper, ServiceUtil serviceUtil, ProductOutbox outbox,
+                              ProductCache cache) {
         this.repository = repository;
         this.mapper = mapper;
         this.serviceUtil = serviceUtil;
+        this.outbox = outbox;
+        this.cache = cache;
     }
 
     @Override
@@ -36,9 +51,12 @@ public class ProductServiceImpl implements ProductService {
         try {
             ProductEntity entity = mapper.apiToEntity(body);
             ProductEntity newEntity = repository.save(entity);
+            cache.invalidate(body.getProductId());
 
             LOG.debug("createProduct: entity created for productId: {}", body.getProductId());
-            return mapper.entityToApi(newEntity);
+            Product created = mapper.entityToApi(newEntity);
+            outbox.append(new Event<>(CREATE, created.getProductId(), created));
+            return created;
         } catch (DuplicateKeyException dke) {
             throw new InvalidInputException("Duplicate key, Product Id: " + body.getProductId());
         }
@@ -50,20 +68,35 @@ public class ProductServiceImpl implements ProductService {
 
         if (productId < 1) throw new InvalidInputException("Invalid productId: " + productId);
 
-        ProductEntity entity = repository.findByProductId(productId)
+        Product response = cache.get(productId, id -> repository.findByProductId(id).map(mapper::entityToApi))
                 .orElseThrow(() -> new NotFoundException("No product found for productId: " + productId));
-
-        Product response = mapper.entityToApi(entity);
-        response.setServiceAddress(serviceUtil.getServiceAddress());
+        response.setServiceAddress(serviceUtil.getElementServiceAddress());
 
         LOG.debug("getProduct: found productId: {}", response.getProductId());
 
         return response;
     }
 
+    @Override
+    public List<Product> getProducts(List<Integer> productIds) {
+        productIds.forEach(productId -> {
+            if (productId < 1) throw new InvalidInputException("Invalid productId: " + productId);
+        });
+
+        List<Product> list = mapper.entityListToApiList(repository.findByProductIdIn(productIds));
+        list.forEach(e -> e.setServiceAddress(serviceUtil.getElementServiceAddress()));
+
+        LOG.debug("getProducts: found {} of {} products", list.size(), productIds.size());
+
+        return list;
+    }
+
     @Override
     public void deleteProduct(int productId) {
         LOG.debug("deleteProduct: tries to delete an entity with productId: {}", productId);
-        repository.findByProductId(productId).ifPresent(repository::delete);
+        long deleted = repository.deleteByProductId(productId);
+        cache.invalidate(productId);
+        LOG.debug("deleteProduct: deleted {} products", deleted);
+        if (deleted > 0) outbox.append(new Event<>(DELETE, productId, null));
     }
 }
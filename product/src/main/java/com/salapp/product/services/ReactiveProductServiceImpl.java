@@ -0,0 +1,113 @@
+package com.salapp.product.services;
+
+import com.salapp.api.core.product.Product;
+import com.salapp.api.core.product.ReactiveProductService;
+import com.salapp.api.event.Event;
+import com.salapp.product.model.ProductEntity;
+import com.salapp.product.repositories.ReactiveProductRepository;
+import com.salapp.util.exceptions.InvalidInputException;
+import com.salapp.util.exceptions.NotFoundException;
+import com.salapp.util.http.ServiceUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Optional;
+
+import static com.salapp.api.event.Event.Type.CREATE;
+import static com.salapp.api.event.Event.Type.DELETE;
+
+/**
+ * Serves the product endpoints instead of {@link ProductServiceImpl} when {@code app.persistence.mode} is reactive.
+ */
+@RestController
+@ConditionalOnProperty(name = "app.persistence.mode", havingValue = "reactive")
+public class ReactiveProductServiceImpl implements ReactiveProductService {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ReactiveProductServiceImpl.class);
+
+    private final ServiceUtil serviceUtil;
+
+    private final ReactiveProductRepository repository;
+
+    private final ProductMapper mapper;
+
+    private final ProductOutbox outbox;
+
+    private final ProductCache cache;
+
+    @Autowired
+    public ReactiveProductServiceImpl(ReactiveProductRepository repository, ProductMapper mapper, ServiceUtil serviceUtil, ProductOutbox outbox,
+                                      ProductCache cache) {
+        this.repository = repository;
+        this.mapper = mapper;
+        this.serviceUtil = serviceUtil;
+        this.outbox = outbox;
+        this.cache = cache;
+    }
+
+    @Override
+    public Mono<Product> createProduct(Product body) {
+        ProductEntity entity = mapper.apiToEntity(body);
+
+        return repository.save(entity)
+                .doOnNext(e -> LOG.debug("createProduct: entity created for productId: {}", body.getProductId()))
+                .doOnNext(e -> cache.invalidate(body.getProductId()))
+                .onErrorMap(DuplicateKeyException.class, e -> new InvalidInputException("Duplicate key, Product Id: " + body.getProductId()))
+                .map(mapper::entityToApi)
+                .flatMap(created -> outbox.appendReactive(new Event<>(CREATE, created.getProductId(), created)).thenReturn(created));
+    }
+
+    @Override
+    public Mono<Product> getProduct(int productId) {
+        LOG.debug("/product return the found product for productId={}", productId);
+
+        if (productId < 1) return Mono.error(new InvalidInputException("Invalid productId: " + productId));
+
+        long generation = cache.generation(productId);
+        Optional<Product> cached = cache.getIfPresent(productId);
+        Mono<Product> product = (cached != null)
+                ? Mono.justOrEmpty(cached)
+                : repository.findByProductId(productId)
+                        .map(mapper::entityToApi)
+                        .doOnNext(found -> cache.put(productId, found, generation))
+                        .switchIfEmpty(Mono.fromRunnable(() -> cache.put(productId, null, generation)));
+
+        return product
+                .switchIfEmpty(Mono.error(() -> new NotFoundException("No product found for productId: " + productId)))
+                .map(response -> {
+                    response.setServiceAddress(serviceUtil.getElementServiceAddress());
+                    LOG.debug("getProduct: found productId: {}", response.getProductId());
+                    return response;
+                });
+    }
+
+    @Override
+    public Flux<Product> getProducts(List<Integer> productIds) {
+        if (productIds.stream().anyMatch(productId -> productId < 1)) {
+            return Flux.error(new InvalidInputException("Invalid productIds: " + productIds));
+        }
+
+        String serviceAddress = serviceUtil.getElementServiceAddress();
+
+        return repository.findByProductIdIn(productIds)
+                .map(mapper::entityToApi)
+                .doOnNext(e -> e.setServiceAddress(serviceAddress));
+    }
+
+    @Override
+    public Mono<Void> deleteProduct(int productId) {
+        LOG.debug("deleteProduct: tries to delete an entity with productId: {}", productId);
+        return repository.deleteByProductId(productId)
+                .doOnNext(deleted -> LOG.debug("deleteProduct: deleted {} products", deleted))
+                .doOnNext(deleted -> cache.invalidate(productId))
+                .flatMap(deleted -> (deleted > 0) ? outbox.appendReactive(new Event<>(DELETE, productId, null)) : Mono.empty())
+                .then();
+    }
+}
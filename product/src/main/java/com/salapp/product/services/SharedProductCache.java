@@ -0,0 +1,19 @@
+package com.salapp.product.services;
+
+import com.salapp.api.core.product.Product;
+
+/**
+ * Second level of the {@link ProductCache}, shared by the instances of the product service, e.g. a Redis or Memcached
+ * client. Only found products are shared, unknown productIds are cached per instance.
+ */
+public interface SharedProductCache {
+
+    /**
+     * @return the product, null if it is not in the cache
+     */
+    Product get(int productId);
+
+    void put(int productId, Product product);
+
+    void evict(int productId);
+}
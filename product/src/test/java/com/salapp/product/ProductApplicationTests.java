@@ -2,6 +2,7 @@ package com.salapp.product;
 
 import com.salapp.api.core.product.Product;
 import com.salapp.product.repositories.ProductRepository;
+import com.salapp.product.services.ProductCache;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -24,9 +25,13 @@ class ProductApplicationTests {
     @Autowired
     private ProductRepository repository;
 
+    @Autowired
+    private ProductCache cache;
+
     @BeforeEach
     void setUp() {
         repository.deleteAll();
+        cache.invalidateAll();
     }
 
     @Test
@@ -0,0 +1,115 @@
+package com.salapp.product;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.salapp.api.core.product.Product;
+import com.salapp.api.event.Event;
+import com.salapp.product.model.OutboxMessageEntity;
+import com.salapp.product.repositories.ProductRepository;
+import com.salapp.util.outbox.InMemoryEventPublisher;
+import com.salapp.util.outbox.OutboxMessage;
+import com.salapp.util.outbox.OutboxRelay;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static com.salapp.api.event.Event.Type.CREATE;
+import static com.salapp.api.event.Event.Type.DELETE;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.http.HttpStatus.OK;
+import static org.springframework.http.HttpStatus.UNPROCESSABLE_ENTITY;
+import static org.springframework.http.MediaType.APPLICATION_JSON;
+import static reactor.core.publisher.Mono.just;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.data.mongodb.port: 0",
+        "app.outbox.enabled=true",
+        "app.outbox.binding=in-memory",
+        // the tests relay themselves
+        "app.outbox.poll-interval=1h"
+})
+class ProductOutboxTests {
+
+    private static final String TOPIC = "products";
+
+    @Autowired
+    private WebTestClient client;
+
+    @Autowired
+    private ProductRepository repository;
+
+    @Autowired
+    private MongoOperations mongoTemplate;
+
+    @Autowired
+    private OutboxRelay relay;
+
+    @Autowired
+    private InMemoryEventPublisher publisher;
+
+    @Autowired
+    private ObjectMapper mapper;
+
+    @BeforeEach
+    void setUp() {
+        repository.deleteAll();
+        mongoTemplate.dropCollection(OutboxMessageEntity.class);
+        publisher.clear();
+    }
+
+    @Test
+    void createdAndDeletedProductsArePublished() {
+        postAndVerifyProduct(1, OK);
+        postAndVerifyProduct(1, UNPROCESSABLE_ENTITY);
+        deleteProduct(1);
+        // nothing to delete
+        deleteProduct(1);
+
+        assertThat(relay.relayPending()).isEqualTo(2);
+        assertThat(mongoTemplate.count(new Query(), OutboxMessageEntity.class)).isZero();
+
+        List<Event<Integer, Product>> events = published();
+        assertThat(events).extracting(Event::getEventType).containsExactly(CREATE, DELETE);
+        assertThat(events).extracting(Event::getKey).containsOnly(1);
+        assertThat(events.get(0).getData().getName()).isEqualTo("name 1");
+        assertThat(events.get(0).getData().getVersion()).isZero();
+        assertThat(events.get(1).getData()).isNull();
+    }
+
+    private List<Event<Integer, Product>> published() {
+        return publisher.messages(TOPIC).stream()
+                .map(OutboxMessage::getPayload)
+                .map(payload -> {
+                    try {
+                        return mapper.readValue(payload, new TypeReference<Event<Integer, Product>>() {});
+                    } catch (Exception e) {
+                        throw new AssertionError(e);
+                    }
+                })
+                .collect(Collectors.toList());
+    }
+
+    private void postAndVerifyProduct(int productId, HttpStatus expectedStatus) {
+        client.post()
+                .uri("/product")
+                .body(just(new Product(productId, "name " + productId, productId, "SA")), Product.class)
+                .accept(APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isEqualTo(expectedStatus);
+    }
+
+    private void deleteProduct(int productId) {
+        client.delete()
+                .uri("/product/" + productId)
+                .exchange()
+                .expectStatus().isOk();
+    }
+}
@@ -13,6 +13,7 @@ import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 
+import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
@@ -80,6 +81,14 @@ class ProductRepositoryTests {
         Assertions.assertFalse(repository.existsById(savedEntity.getId()));
     }
 
+    @Test
+    void deleteByProductId() {
+        Assertions.assertEquals(1, repository.deleteByProductId(savedEntity.getProductId()));
+        Assertions.assertFalse(repository.existsById(savedEntity.getId()));
+
+        Assertions.assertEquals(0, repository.deleteByProductId(savedEntity.getProductId()));
+    }
+
     @Test
     void getByProductId() {
         Optional<ProductEntity> entity = repository.findByProductId(savedEntity.getProductId());
@@ -88,6 +97,16 @@ class ProductRepositoryTests {
         Assertions.assertEquals(savedEntity, entity.get());
     }
 
+    @Test
+    void getByProductIds() {
+        repository.save(new ProductEntity(2, "n", 2));
+        repository.save(new ProductEntity(3, "n", 3));
+
+        List<ProductEntity> entityList = repository.findByProductIdIn(Arrays.asList(1, 3, 4));
+
+        assertThat(entityList).extracting(ProductEntity::getProductId).containsExactlyInAnyOrder(1, 3);
+    }
+
     @Test
     void duplicateError() {
         ProductEntity entity = new ProductEntity(savedEntity.getProductId(), "n", 1);
@@ -23,11 +23,14 @@ class MapperTests {
         Assertions.assertEquals(api.getName(), entity.getName());
         Assertions.assertEquals(api.getWeight(), entity.getWeight());
 
+        entity.setVersion(3);
+
         Product api2 = mapper.entityToApi(entity);
 
         Assertions.assertEquals(api.getProductId(), api2.getProductId());
         Assertions.assertEquals(api.getName(), api2.getName());
         Assertions.assertEquals(api.getWeight(), api2.getWeight());
         Assertions.assertNull(api2.getServiceAddress());
+        Assertions.assertEquals(3, api2.getVersion());
     }
 }
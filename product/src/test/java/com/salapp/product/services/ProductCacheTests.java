@@ -0,0 +1,179 @@
+package com.salapp.product.services;
+
+import com.salapp.api.core.product.Product;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ProductCacheTests {
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    private LocalSharedProductCache shared;
+
+    private ProductCache cache;
+
+    @BeforeEach
+    void setUp() {
+        shared = new LocalSharedProductCache(Duration.ofMinutes(10));
+        cache = newCache(shared);
+    }
+
+    @Test
+    void loadsAProductOnce() {
+        assertThat(cache.get(1, this::load)).map(Product::getName).contains("name 1");
+        assertThat(cache.get(1, this::load)).map(Product::getName).contains("name 1");
+
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    void handsOutCopies() {
+        cache.get(1, this::load).ifPresent(product -> product.setServiceAddress("changed"));
+
+        Product cached = cache.get(1, this::load).orElseThrow(AssertionError::new);
+        assertThat(cached.getServiceAddress()).isNull();
+        assertThat(cached.getVersion()).isZero();
+    }
+
+    @Test
+    void cachesUnknownProductIds() {
+        assertThat(cache.get(13, id -> loadMissing())).isEmpty();
+        assertThat(cache.get(13, this::load)).isEmpty();
+
+        assertThat(loads).hasValue(1);
+        assertThat(shared.get(13)).isNull();
+    }
+
+    @Test
+    void unknownProductIdsExpireFirst() throws InterruptedException {
+        cache = new ProductCache((MeterRegistry) null, null, 100, Duration.ofMinutes(1), Duration.ofMillis(50));
+
+        cache.get(13, id -> loadMissing());
+        cache.get(1, this::load);
+        Thread.sleep(100);
+
+        assertThat(cache.get(13, this::load)).isPresent();
+        assertThat(cache.get(1, this::load)).isPresent();
+        assertThat(loads).hasValue(3);
+    }
+
+    @Test
+    void invalidateDropsBothLevels() {
+        cache.get(1, this::load);
+        cache.invalidate(1);
+
+        assertThat(shared.get(1)).isNull();
+        cache.get(1, this::load);
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    void invalidateDropsAnUnknownProductId() {
+        cache.get(1, id -> loadMissing());
+        cache.invalidate(1);
+
+        assertThat(cache.get(1, this::load)).isPresent();
+    }
+
+    @Test
+    void anotherInstanceReadsTheSharedLevel() {
+        cache.get(1, this::load);
+
+        ProductCache other = newCache(shared);
+        assertThat(other.get(1, this::load)).map(Product::getName).contains("name 1");
+        assertThat(other.getIfPresent(2)).isNull();
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    void aFailingSharedLevelIsAMiss() {
+        cache = newCache(new SharedProductCache() {
+            @Override
+            public Product get(int productId) {
+                throw new IllegalStateException("down");
+            }
+
+            @Override
+            public void put(int productId, Product product) {
+                throw new IllegalStateException("down");
+            }
+
+            @Override
+            public void evict(int productId) {
+                throw new IllegalStateException("down");
+            }
+        });
+
+        assertThat(cache.get(1, this::load)).isPresent();
+        cache.invalidate(1);
+        assertThat(cache.get(1, this::load)).isPresent();
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    void putAndGetIfPresent() {
+        assertThat(cache.getIfPresent(1)).isNull();
+
+        cache.put(1, new Product(1, "name 1", 1, "sa"), cache.generation(1));
+        cache.put(2, null, cache.generation(2));
+
+        assertThat(cache.getIfPresent(1)).map(Product::getServiceAddress).isEmpty();
+        assertThat(cache.getIfPresent(1)).map(Product::getName).contains("name 1");
+        assertThat(cache.getIfPresent(2)).isEmpty();
+    }
+
+    @Test
+    void aReadThatRacedADeleteIsNotCached() {
+        long generation = cache.generation(1);
+        Product read = load(1).orElseThrow(AssertionError::new);
+        cache.invalidate(1);
+        cache.put(1, read, generation);
+
+        assertThat(cache.getIfPresent(1)).isNull();
+        assertThat(shared.get(1)).isNull();
+    }
+
+    @Test
+    void aMissThatRacedACreateIsNotCached() {
+        long generation = cache.generation(1);
+        cache.invalidate(1);
+        cache.put(1, null, generation);
+
+        assertThat(cache.getIfPresent(1)).isNull();
+        assertThat(cache.get(1, this::load)).isPresent();
+    }
+
+    @Test
+    void loaderErrorsAreNotCached() {
+        assertThatThrownBy(() -> cache.get(1, id -> {
+            throw new IllegalStateException("db down");
+        })).isInstanceOf(IllegalStateException.class);
+
+        assertThat(cache.get(1, this::load)).isPresent();
+    }
+
+    private ProductCache newCache(SharedProductCache shared) {
+        return new ProductCache(new SimpleMeterRegistry(), shared, 100, Duration.ofMinutes(1), Duration.ofMinutes(1));
+    }
+
+    private Optional<Product> load(int productId) {
+        loads.incrementAndGet();
+        Product product = new Product(productId, "name " + productId, productId, null);
+        product.setVersion(0);
+        return Optional.of(product);
+    }
+
+    private Optional<Product> loadMissing() {
+        loads.incrementAndGet();
+        return Optional.empty();
+    }
+}
@@ -0,0 +1,35 @@
+package com.salapp.recommendation.model;
+
+import lombok.*;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+/**
+ * An event waiting in the outbox collection to be relayed, see {@link com.salapp.recommendation.services.RecommendationOutbox}.
+ */
+@Getter
+@Setter
+@Document(collection = "outbox")
+@NoArgsConstructor
+public class OutboxMessageEntity {
+
+    @Id
+    private String id;
+
+    private String topic;
+
+    private int productId;
+
+    private String payload;
+
+    private Instant createdAt;
+
+    public OutboxMessageEntity(String topic, int productId, String payload, Instant createdAt) {
+        this.topic = topic;
+        this.productId = productId;
+        this.payload = payload;
+        this.createdAt = createdAt;
+    }
+}
@@ -0,0 +1,14 @@
+package com.salapp.recommendation.repositories;
+
+import com.salapp.recommendation.model.RecommendationEntity;
+import reactor.core.publisher.Flux;
+
+import java.util.Collection;
+
+/**
+ * Reactive variant of {@link RecommendationFirstPages}.
+ */
+public interface ReactiveRecommendationFirstPages {
+
+    Flux<RecommendationEntity> findFirstOfEachProduct(Collection<Integer> productIds, int limit, boolean withContent);
+}
@@ -0,0 +1,24 @@
+package com.salapp.recommendation.repositories;
+
+import com.salapp.recommendation.model.RecommendationEntity;
+import org.springframework.data.mongodb.core.ReactiveMongoOperations;
+import reactor.core.publisher.Flux;
+
+import java.util.Collection;
+
+import static com.salapp.recommendation.repositories.RecommendationFirstPagesImpl.COLLECTION;
+import static com.salapp.recommendation.repositories.RecommendationFirstPagesImpl.firstOfEachProduct;
+
+class ReactiveRecommendationFirstPagesImpl implements ReactiveRecommendationFirstPages {
+
+    private final ReactiveMongoOperations mongoTemplate;
+
+    ReactiveRecommendationFirstPagesImpl(ReactiveMongoOperations mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public Flux<RecommendationEntity> findFirstOfEachProduct(Collection<Integer> productIds, int limit, boolean withContent) {
+        return mongoTemplate.aggregate(firstOfEachProduct(productIds, limit, withContent), COLLECTION, RecommendationEntity.class);
+    }
+}
@@ -0,0 +1,37 @@
+package com.salapp.recommendation.repositories;
+
+import com.salapp.recommendation.model.RecommendationEntity;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+
+public interface ReactiveRecommendationRepository extends ReactiveCrudRepository<RecommendationEntity, String>, ReactiveRecommendationFirstPages {
+
+    Flux<RecommendationEntity> findByProductId(int productId);
+
+    Flux<RecommendationEntity> findByProductIdIn(Collection<Integer> productIds);
+
+    Flux<RecommendationEntity> findByProductIdOrderByRecommendationIdAsc(int productId);
+
+    Flux<RecommendationEntity> findByProductIdOrderByRecommendationIdAsc(int productId, Pageable pageable);
+
+    Flux<RecommendationEntity> findByProductIdAndRecommendationIdGreaterThanOrderByRecommendationIdAsc(int productId, int recommendationId, Pageable pageable);
+
+    Flux<RecommendationHeader> findHeadersByProductId(int productId);
+
+    Flux<RecommendationHeader> findHeadersByProductIdIn(Collection<Integer> productIds);
+
+    Flux<RecommendationHeader> findHeadersByProductIdOrderByRecommendationIdAsc(int productId, Pageable pageable);
+
+    Flux<RecommendationHeader> findHeadersByProductIdAndRecommendationIdGreaterThanOrderByRecommendationIdAsc(int productId, int recommendationId, Pageable pageable);
+
+    /**
+     * Removes all recommendations of a product with a single deleteMany, the documents are not read first.
+     *
+     * @return the number of deleted recommendations
+     */
+    Mono<Long> deleteByProductId(int productId);
+}
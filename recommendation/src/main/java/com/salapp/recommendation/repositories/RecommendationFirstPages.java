@@ -0,0 +1,20 @@
+package com.salapp.recommendation.repositories;
+
+import com.salapp.recommendation.model.RecommendationEntity;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Repository fragment reading the first recommendations of several products at once, implemented with an aggregation
+ * as a derived query cannot limit per product.
+ */
+public interface RecommendationFirstPages {
+
+    /**
+     * @param limit       the most recommendations returned for each product
+     * @param withContent false leaves out the content, it is then neither sent by the server nor mapped
+     * @return the first recommendations of each product by recommendationId, in that order within a product
+     */
+    List<RecommendationEntity> findFirstOfEachProduct(Collection<Integer> productIds, int limit, boolean withContent);
+}
@@ -0,0 +1,53 @@
+package com.salapp.recommendation.repositories;
+
+import com.salapp.recommendation.model.RecommendationEntity;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.group;
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.match;
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.newAggregation;
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.project;
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.replaceRoot;
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.sort;
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.unwind;
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+class RecommendationFirstPagesImpl implements RecommendationFirstPages {
+
+    static final String COLLECTION = "recommendations";
+
+    private final MongoOperations mongoTemplate;
+
+    RecommendationFirstPagesImpl(MongoOperations mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public List<RecommendationEntity> findFirstOfEachProduct(Collection<Integer> productIds, int limit, boolean withContent) {
+        return mongoTemplate.aggregate(firstOfEachProduct(productIds, limit, withContent), COLLECTION, RecommendationEntity.class)
+                .getMappedResults();
+    }
+
+    /**
+     * The documents are sorted through the prod-rec-id index and grouped per product in that order, each group is then
+     * cut to the limit before anything is sent back. The content is dropped before grouping when it is not wanted.
+     */
+    static Aggregation firstOfEachProduct(Collection<Integer> productIds, int limit, boolean withContent) {
+        List<AggregationOperation> stages = new ArrayList<>();
+        stages.add(match(where("productId").in(productIds)));
+        stages.add(sort(Sort.by("productId", "recommendationId")));
+        if (!withContent) stages.add(project().andExclude("content"));
+        stages.add(group("productId").push(Aggregation.ROOT).as("recommendations"));
+        stages.add(project().and("recommendations").slice(limit).as("recommendations"));
+        stages.add(unwind("recommendations"));
+        stages.add(replaceRoot("recommendations"));
+        return newAggregation(stages);
+    }
+}
@@ -0,0 +1,17 @@
+package com.salapp.recommendation.repositories;
+
+import lombok.Value;
+
+/**
+ * DTO projection on everything of a recommendation but its content. The queries returning it only ask MongoDB for
+ * these fields, so the content is neither sent by the server nor mapped.
+ */
+@Value
+public class RecommendationHeader {
+
+    int productId;
+    int recommendationId;
+    String author;
+    int rating;
+    Integer version;
+}
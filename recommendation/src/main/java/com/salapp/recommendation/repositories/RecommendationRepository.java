@@ -1,11 +1,41 @@
 package com.salapp.recommendation.repositories;
 
 import com.salapp.recommendation.model.RecommendationEntity;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.repository.CrudRepository;
 
+import java.util.Collection;
 import java.util.List;
 
-public interface RecommendationRepository extends CrudRepository<RecommendationEntity, String> {
+public interface RecommendationRepository extends CrudRepository<RecommendationEntity, String>, RecommendationFirstPages {
 
     List<RecommendationEntity> findByProductId(int productId);
+
+    List<RecommendationEntity> findByProductIdIn(Collection<Integer> productIds);
+
+    /**
+     * First page of the recommendations of a product, the page size is taken from the pageable.
+     */
+    List<RecommendationEntity> findByProductIdOrderByRecommendationIdAsc(int productId, Pageable pageable);
+
+    /**
+     * Keyset page, starts right after the given recommendationId so the query seeks through the prod-rec-id index
+     * instead of skipping the documents of the earlier pages.
+     */
+    List<RecommendationEntity> findByProductIdAndRecommendationIdGreaterThanOrderByRecommendationIdAsc(int productId, int recommendationId, Pageable pageable);
+
+    List<RecommendationHeader> findHeadersByProductId(int productId);
+
+    List<RecommendationHeader> findHeadersByProductIdIn(Collection<Integer> productIds);
+
+    List<RecommendationHeader> findHeadersByProductIdOrderByRecommendationIdAsc(int productId, Pageable pageable);
+
+    List<RecommendationHeader> findHeadersByProductIdAndRecommendationIdGreaterThanOrderByRecommendationIdAsc(int productId, int recommendationId, Pageable pageable);
+
+    /**
+     * Removes all recommendations of a product with a single deleteMany, the documents are not read first.
+     *
+     * @return the number of deleted recommendations
+     */
+    long deleteByProductId(int productId);
 }
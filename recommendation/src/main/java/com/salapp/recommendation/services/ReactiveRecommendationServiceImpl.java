@@ -0,0 +1,223 @@
+package com.salapp.recommendation.services;
+
+import com.salapp.api.core.View;
+import com.salapp.api.core.bulk.BulkResult;
+import com.salapp.api.core.recommendation.ReactiveRecommendationService;
+import com.salapp.api.core.recommendation.Recommendation;
+import com.salapp.api.core.recommendation.RecommendationPage;
+import com.salapp.api.event.Event;
+import com.salapp.recommendation.model.RecommendationEntity;
+import com.salapp.recommendation.repositories.ReactiveRecommendationRepository;
+import com.salapp.util.exceptions.InvalidInputException;
+import com.salapp.util.http.ServiceUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static com.salapp.api.event.Event.Type.CREATE;
+import static com.salapp.api.event.Event.Type.DELETE;
+
+import static com.salapp.recommendation.services.RecommendationServiceImpl.cachedFirstPages;
+import static com.salapp.recommendation.services.RecommendationServiceImpl.inRequestedOrder;
+import static com.salapp.recommendation.services.RecommendationServiceImpl.notIn;
+import static com.salapp.recommendation.services.RecommendationServiceImpl.toPage;
+import static com.salapp.recommendation.services.RecommendationServiceImpl.toPages;
+import static com.salapp.recommendation.services.RecommendationServiceImpl.validatePageRequest;
+
+/**
+ * Serves the recommendation endpoints instead of {@link RecommendationServiceImpl} when {@code app.persistence.mode}
+ * is reactive. Recommendations are mapped one by one as the driver emits them, no list is built on the way.
+ */
+@RestController
+@ConditionalOnProperty(name = "app.persistence.mode", havingValue = "reactive")
+public class ReactiveRecommendationServiceImpl implements ReactiveRecommendationService {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ReactiveRecommendationServiceImpl.class);
+
+    private final ReactiveRecommendationRepository repository;
+
+    private final RecommendationMapper mapper;
+
+    private final ServiceUtil serviceUtil;
+
+    private final RecommendationBulkWriter bulkWriter;
+
+    private final RecommendationOutbox outbox;
+
+    private final RecommendationListCache listCache;
+
+    private final int maxPageSize;
+
+    private final int bulkBatchSize;
+
+    @Autowired
+    public ReactiveRecommendationServiceImpl(ReactiveRecommendationRepository repository, RecommendationMapper mapper, ServiceUtil serviceUtil,
+                                             RecommendationBulkWriter bulkWriter, RecommendationOutbox outbox, RecommendationListCache listCache,
+                                             @Value("${app.page.max-size:100}") int maxPageSize,
+                                             @Value("${app.bulk.batch-size:1000}") int bulkBatchSize) {
+        this.repository = repository;
+        this.mapper = mapper;
+        this.serviceUtil = serviceUtil;
+        this.bulkWriter = bulkWriter;
+        this.outbox = outbox;
+        this.listCache = listCache;
+        this.maxPageSize = maxPageSize;
+        this.bulkBatchSize = bulkBatchSize;
+    }
+
+    @Override
+    public Mono<Recommendation> createRecommendation(Recommendation body) {
+        RecommendationEntity entity = mapper.apiToEntity(body);
+
+        return repository.save(entity)
+                .doOnNext(e -> LOG.debug("createRecommendation: created a recommendation entity: {}/{}", body.getProductId(), body.getRecommendationId()))
+                .doOnNext(e -> listCache.invalidate(body.getProductId()))
+                .onErrorMap(DuplicateKeyException.class, e -> new InvalidInputException("Duplicate key, Product Id: " + body.getProductId() + ", Recommendation Id: " + body.getRecommendationId()))
+                .map(mapper::entityToApi)
+                .flatMap(created -> outbox.appendReactive(Collections.singletonList(new Event<>(CREATE, created.getProductId(), created))).thenReturn(created));
+    }
+
+    /**
+     * Each chunk of the batch size is one insertMany, the next chunk is only read from the request once the previous one
+     * is written.
+     */
+    @Override
+    public Mono<BulkResult> createRecommendations(Flux<Recommendation> body) {
+        return body.buffer(bulkBatchSize)
+                .index()
+                .concatMap(batch -> bulkWriter.writeReactive(batch.getT2(), (int) (batch.getT1() * bulkBatchSize)))
+                .reduce(BulkResult::combine)
+                .defaultIfEmpty(new BulkResult());
+    }
+
+    @Override
+    public Flux<Recommendation> getRecommendations(int productId, View view) {
+        if (productId < 1) return Flux.error(new InvalidInputException("Invalid productId: " + productId));
+
+        long generation = listCache.generation(productId);
+        List<Recommendation> cached = listCache.getIfPresent(productId, view);
+        if (cached != null) return Flux.fromIterable(cached);
+
+        String serviceAddress = serviceUtil.getElementServiceAddress();
+
+        Flux<Recommendation> recommendations = (view == View.SUMMARY)
+                ? repository.findHeadersByProductId(productId).map(mapper::headerToApi)
+                : repository.findByProductId(productId).map(mapper::entityToApi);
+        return recommendations
+                .doOnNext(e -> e.setServiceAddress(serviceAddress))
+                .collectList()
+                .doOnNext(list -> listCache.put(productId, view, list, generation))
+                .flatMapMany(Flux::fromIterable);
+    }
+
+    @Override
+    public Flux<Recommendation> getRecommendationsForProducts(List<Integer> productIds, View view) {
+        if (productIds.stream().anyMatch(productId -> productId < 1)) {
+            return Flux.error(new InvalidInputException("Invalid productIds: " + productIds));
+        }
+
+        String serviceAddress = serviceUtil.getElementServiceAddress();
+
+        Flux<Recommendation> recommendations = (view == View.SUMMARY)
+                ? repository.findHeadersByProductIdIn(productIds).map(mapper::headerToApi)
+                : repository.findByProductIdIn(productIds).map(mapper::entityToApi);
+        return recommendations
+                .doOnNext(e -> e.setServiceAddress(serviceAddress));
+    }
+
+    @Override
+    public Mono<RecommendationPage> getRecommendationPage(int productId, Integer cursor, int size, View view) {
+        try {
+            validatePageRequest(productId, size, maxPageSize);
+        } catch (InvalidInputException e) {
+            return Mono.error(e);
+        }
+
+        long generation = listCache.generation(productId);
+        if (cursor == null) {
+            List<Recommendation> cached = listCache.getFirstPageIfPresent(productId, view, size);
+            if (cached != null) return Mono.just(toPage(productId, cached, size));
+        }
+
+        String serviceAddress = serviceUtil.getElementServiceAddress();
+        PageRequest pageable = PageRequest.of(0, size + 1);
+        Flux<Recommendation> recommendations;
+        if (view == View.SUMMARY) {
+            recommendations = ((cursor == null)
+                    ? repository.findHeadersByProductIdOrderByRecommendationIdAsc(productId, pageable)
+                    : repository.findHeadersByProductIdAndRecommendationIdGreaterThanOrderByRecommendationIdAsc(productId, cursor, pageable))
+                    .map(mapper::headerToApi);
+        } else {
+            recommendations = ((cursor == null)
+                    ? repository.findByProductIdOrderByRecommendationIdAsc(productId, pageable)
+                    : repository.findByProductIdAndRecommendationIdGreaterThanOrderByRecommendationIdAsc(productId, cursor, pageable))
+                    .map(mapper::entityToApi);
+        }
+
+        return recommendations
+                .doOnNext(e -> e.setServiceAddress(serviceAddress))
+                .collectList()
+                .doOnNext(list -> {
+                    if (cursor == null) listCache.putFirstPage(productId, view, size, list, generation);
+                })
+                .map(list -> toPage(productId, list, size));
+    }
+
+    @Override
+    public Flux<RecommendationPage> getFirstRecommendationPages(List<Integer> productIds, int size, View view) {
+        try {
+            productIds.forEach(productId -> validatePageRequest(productId, size, maxPageSize));
+        } catch (InvalidInputException e) {
+            return Flux.error(e);
+        }
+
+        // see RecommendationServiceImpl, only the pages that are not cached are read and they are not cached
+        Map<Integer, RecommendationPage> pages = cachedFirstPages(listCache, productIds, size, view);
+        List<Integer> missing = notIn(productIds, pages);
+        if (missing.isEmpty()) return Flux.fromIterable(inRequestedOrder(productIds, pages, new ArrayList<>()));
+
+        String serviceAddress = serviceUtil.getElementServiceAddress();
+
+        return repository.findFirstOfEachProduct(missing, size + 1, view != View.SUMMARY)
+                .map(mapper::entityToApi)
+                .doOnNext(e -> e.setServiceAddress(serviceAddress))
+                .collectList()
+                .flatMapIterable(list -> inRequestedOrder(productIds, pages, toPages(missing, list, size)));
+    }
+
+    /**
+     * The driver cursor already fetches the documents in batches as they are requested, no paging is needed on top.
+     */
+    @Override
+    public Flux<Recommendation> streamRecommendations(int productId) {
+        if (productId < 1) return Flux.error(new InvalidInputException("Invalid productId: " + productId));
+
+        String serviceAddress = serviceUtil.getElementServiceAddress();
+
+        return repository.findByProductIdOrderByRecommendationIdAsc(productId)
+                .map(mapper::entityToApi)
+                .doOnNext(e -> e.setServiceAddress(serviceAddress));
+    }
+
+    @Override
+    public Mono<Void> deleteRecommendations(int productId) {
+        LOG.debug("deleteRecommendations: tries to delete recommendations for the product with productId: {}", productId);
+        return repository.deleteByProductId(productId)
+                .doOnNext(deleted -> LOG.debug("deleteRecommendations: deleted {} recommendations", deleted))
+                .doOnNext(deleted -> listCache.invalidate(productId))
+                .flatMap(deleted -> (deleted > 0) ? outbox.appendReactive(Collections.singletonList(new Event<>(DELETE, productId, null))) : Mono.empty())
+                .then();
+    }
+}
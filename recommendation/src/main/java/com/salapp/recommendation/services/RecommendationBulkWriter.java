@@ -0,0 +1,176 @@
+package com.salapp.recommendation.services;
+
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.client.model.InsertManyOptions;
+import com.salapp.api.core.bulk.BulkFailure;
+import com.salapp.api.core.bulk.BulkResult;
+import com.salapp.api.core.recommendation.Recommendation;
+import com.salapp.api.event.Event;
+import com.salapp.recommendation.model.RecommendationEntity;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations.BulkMode;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.ReactiveMongoOperations;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static com.salapp.api.event.Event.Type.CREATE;
+
+/**
+ * Writes one chunk of a bulk request with a single unordered insertMany. The server inserts every document it can and
+ * reports the others by their position, a duplicate key does not stop the rest of the chunk. A create event is appended
+ * to the outbox for each recommendation the server inserted.
+ */
+@Component
+public class RecommendationBulkWriter {
+
+    private static final Logger LOG = LoggerFactory.getLogger(RecommendationBulkWriter.class);
+
+    private static final int DUPLICATE_KEY = 11000;
+
+    private final MongoOperations mongoTemplate;
+
+    private final ReactiveMongoOperations reactiveMongoTemplate;
+
+    private final RecommendationMapper mapper;
+
+    private final RecommendationOutbox outbox;
+
+    private final RecommendationListCache listCache;
+
+    @Autowired
+    public RecommendationBulkWriter(MongoOperations mongoTemplate, ReactiveMongoOperations reactiveMongoTemplate, RecommendationMapper mapper,
+                                    RecommendationOutbox outbox, RecommendationListCache listCache) {
+        this.mongoTemplate = mongoTemplate;
+        this.reactiveMongoTemplate = reactiveMongoTemplate;
+        this.mapper = mapper;
+        this.outbox = outbox;
+        this.listCache = listCache;
+    }
+
+    /**
+     * @param batch      the recommendations to write
+     * @param firstIndex position of the first recommendation of the batch in the whole request, used in the failures
+     */
+    public BulkResult write(List<Recommendation> batch, int firstIndex) {
+        Chunk chunk = new Chunk(batch, firstIndex);
+        if (chunk.valid.isEmpty()) return chunk.result(0);
+
+        int created;
+        try {
+            created = mongoTemplate.bulkOps(BulkMode.UNORDERED, RecommendationEntity.class)
+                    .insert(chunk.entities)
+                    .execute()
+                    .getInsertedCount();
+        } catch (BulkOperationException e) {
+            chunk.addErrors(e.getErrors());
+            created = e.getResult().getInsertedCount();
+        }
+        chunk.invalidateLists();
+        outbox.append(chunk.createdEvents());
+        return chunk.result(created);
+    }
+
+    /**
+     * Same as {@link #write} on the reactive streams driver.
+     */
+    public Mono<BulkResult> writeReactive(List<Recommendation> batch, int firstIndex) {
+        Chunk chunk = new Chunk(batch, firstIndex);
+        if (chunk.valid.isEmpty()) return Mono.just(chunk.result(0));
+
+        List<Document> documents = chunk.entities.stream()
+                .map(entity -> {
+                    Document document = new Document();
+                    reactiveMongoTemplate.getConverter().write(entity, document);
+                    return document;
+                })
+                .collect(Collectors.toList());
+
+        return reactiveMongoTemplate.getCollection(reactiveMongoTemplate.getCollectionName(RecommendationEntity.class))
+                .flatMap(collection -> Mono.from(collection.insertMany(documents, new InsertManyOptions().ordered(false))))
+                .map(result -> result.getInsertedIds().size())
+                .onErrorResume(MongoBulkWriteException.class, e -> {
+                    chunk.addErrors(e.getWriteErrors());
+                    return Mono.just(e.getWriteResult().getInsertedCount());
+                })
+                .doOnNext(created -> chunk.invalidateLists())
+                .flatMap(created -> outbox.appendReactive(chunk.createdEvents()).thenReturn(chunk.result(created)));
+    }
+
+    /**
+     * Keeps track of where each recommendation that is sent to the server came from in the request.
+     */
+    private class Chunk {
+        private final int received;
+        private final List<Recommendation> valid = new ArrayList<>();
+        private final List<Integer> indexes = new ArrayList<>();
+        private final List<BulkFailure> failures = new ArrayList<>();
+        private final List<RecommendationEntity> entities;
+        private final Set<Integer> failed = new HashSet<>();
+
+        Chunk(List<Recommendation> batch, int firstIndex) {
+            this.received = batch.size();
+            for (int i = 0; i < batch.size(); i++) {
+                Recommendation recommendation = batch.get(i);
+                if (recommendation.getProductId() < 1) {
+                    failures.add(failure(firstIndex + i, recommendation, "Invalid productId: " + recommendation.getProductId()));
+                } else {
+                    valid.add(recommendation);
+                    indexes.add(firstIndex + i);
+                }
+            }
+            this.entities = mapper.apiListToEntityList(valid);
+            // the inserts bypass the repository, start the optimistic locking version as a save would
+            entities.forEach(entity -> entity.setVersion(0));
+        }
+
+        void addErrors(List<BulkWriteError> errors) {
+            for (BulkWriteError error : errors) {
+                failed.add(error.getIndex());
+                Recommendation recommendation = valid.get(error.getIndex());
+                String message = (error.getCode() == DUPLICATE_KEY)
+                        ? "Duplicate key, Product Id: " + recommendation.getProductId() + ", Recommendation Id: " + recommendation.getRecommendationId()
+                        : error.getMessage();
+                failures.add(failure(indexes.get(error.getIndex()), recommendation, message));
+            }
+        }
+
+        void invalidateLists() {
+            valid.stream().map(Recommendation::getProductId).distinct().forEach(listCache::invalidate);
+        }
+
+        /**
+         * @return a create event for each recommendation that is not reported as failed by the server
+         */
+        List<Event<Integer, Recommendation>> createdEvents() {
+            List<Event<Integer, Recommendation>> events = new ArrayList<>();
+            for (int i = 0; i < entities.size(); i++) {
+                if (failed.contains(i)) continue;
+                Recommendation created = mapper.entityToApi(entities.get(i));
+                events.add(new Event<>(CREATE, created.getProductId(), created));
+            }
+            return events;
+        }
+
+        BulkResult result(int created) {
+            LOG.debug("write: created {} of {} recommendations, {} failed", created, received, failures.size());
+            failures.sort((a, b) -> Integer.compare(a.getIndex(), b.getIndex()));
+            return new BulkResult(received, created, failures);
+        }
+    }
+
+    private static BulkFailure failure(int index, Recommendation recommendation, String message) {
+        return new BulkFailure(index, recommendation.getProductId(), recommendation.getRecommendationId(), message);
+    }
+}
@@ -0,0 +1,219 @@
+package com.salapp.recommendation.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.salapp.api.core.View;
+import com.salapp.api.core.recommendation.Recommendation;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Supplier;
+
+/**
+ * Cache aside for the recommendations of a product, one list per productId and view, and the first page of them per
+ * productId, view and page size. The lists are cached as they are read, mapped and with the service address set, and
+ * are never changed afterwards. A first page is cached with the one recommendation after it that tells whether there is a
+ * next page.
+ * <p>
+ * The cache is bounded by the approximate size of the lists in memory rather than by their number, as the lists of
+ * popular products are orders of magnitude longer. The services drop the lists of a product after each write in this
+ * instance, writes in other instances are seen after the ttl. A list the reactive service read is only stored if the
+ * product was not invalidated since the read started, see {@link #generation}. The invalidations are counted per stripe
+ * of productIds, as in the product cache.
+ * <p>
+ * Hits, misses and evictions are exported as cache.* metrics tagged with cache=recommendation-lists.
+ */
+@Component
+public class RecommendationListCache {
+
+    private static final Logger LOG = LoggerFactory.getLogger(RecommendationListCache.class);
+
+    private static final int ALL = 0;
+
+    private static final int GENERATION_STRIPES = 256;
+
+    static final String NAME = "recommendation-lists";
+
+    private final Cache<Key, List<Recommendation>> cache;
+    private final Set<Integer> pageSizes = ConcurrentHashMap.newKeySet();
+    private final AtomicLongArray generations = new AtomicLongArray(GENERATION_STRIPES);
+
+    /**
+     * The MongoDB test slice has no MeterRegistry, the cache is not monitored there.
+     */
+    @Autowired
+    public RecommendationListCache(
+            ObjectProvider<MeterRegistry> registry,
+            @Value("${app.list-cache.max-size:64MB}") DataSize maxSize,
+            @Value("${app.list-cache.ttl:1m}") Duration ttl) {
+
+        this(registry.getIfAvailable(), maxSize, ttl);
+    }
+
+    /**
+     * @param registry null to not monitor the cache
+     */
+    public RecommendationListCache(MeterRegistry registry, DataSize maxSize, Duration ttl) {
+        LOG.info("Caches up to {} of recommendation lists for {}", maxSize, ttl);
+
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxSize.toBytes())
+                .weigher((Key key, List<Recommendation> recommendations) -> weigh(recommendations))
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+
+        if (registry != null) CaffeineCacheMetrics.monitor(registry, cache, NAME);
+    }
+
+    /**
+     * Returns the cached list or loads it, concurrent lookups of the same list load it once. A write that drops the
+     * list while it is loaded waits for the load, the loaded list is then dropped as well.
+     *
+     * @param loader reads and maps the recommendations
+     * @return an unmodifiable list
+     */
+    public List<Recommendation> get(int productId, View view, Supplier<List<Recommendation>> loader) {
+        return cache.get(new Key(productId, view, ALL), key -> Collections.unmodifiableList(new ArrayList<>(loader.get())));
+    }
+
+    /**
+     * For callers that should not block on a load, see {@link #put}.
+     *
+     * @return the cached list, null if it is not cached
+     */
+    public List<Recommendation> getIfPresent(int productId, View view) {
+        return cache.getIfPresent(new Key(productId, view, ALL));
+    }
+
+    /**
+     * To be taken before the reactive service reads a list from the repository and handed back to {@link #put}.
+     */
+    public long generation(int productId) {
+        return generations.get(stripe(productId));
+    }
+
+    /**
+     * Caches a list the reactive service has read from the repository, unless the product was invalidated since the
+     * generation was taken.
+     */
+    public void put(int productId, View view, List<Recommendation> recommendations, long generation) {
+        put(new Key(productId, view, ALL), recommendations, generation);
+    }
+
+    /**
+     * Like {@link #get}, for the first page of the recommendations.
+     *
+     * @param loader reads and maps the first {@code size} recommendations and the one after them
+     */
+    public List<Recommendation> getFirstPage(int productId, View view, int size, Supplier<List<Recommendation>> loader) {
+        pageSizes.add(size);
+        return cache.get(new Key(productId, view, size), key -> Collections.unmodifiableList(new ArrayList<>(loader.get())));
+    }
+
+    /**
+     * @return the cached first page and the recommendation after it, null if it is not cached
+     */
+    public List<Recommendation> getFirstPageIfPresent(int productId, View view, int size) {
+        return cache.getIfPresent(new Key(productId, view, size));
+    }
+
+    /**
+     * Caches a first page the reactive service has read from the repository, see {@link #put}.
+     */
+    public void putFirstPage(int productId, View view, int size, List<Recommendation> recommendations, long generation) {
+        pageSizes.add(size);
+        put(new Key(productId, view, size), recommendations, generation);
+    }
+
+    private void put(Key key, List<Recommendation> recommendations, long generation) {
+        List<Recommendation> list = Collections.unmodifiableList(new ArrayList<>(recommendations));
+        cache.asMap().compute(key, (k, existing) -> {
+            if (generations.get(stripe(k.productId)) == generation) return list;
+            LOG.debug("Does not cache the recommendations for productId: {}, they were invalidated while being read", k.productId);
+            return existing;
+        });
+    }
+
+    /**
+     * Drops the lists and the first pages of every size asked for so far.
+     */
+    public void invalidate(int productId) {
+        LOG.debug("Drops the cached recommendations for productId: {}", productId);
+        generations.incrementAndGet(stripe(productId));
+        for (View view : View.values()) {
+            cache.invalidate(new Key(productId, view, ALL));
+            for (int size : pageSizes) {
+                cache.invalidate(new Key(productId, view, size));
+            }
+        }
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    private static int stripe(int productId) {
+        return Math.floorMod(productId, GENERATION_STRIPES);
+    }
+
+    /**
+     * Approximate heap size of the list on a 64-bit JVM with compressed references, strings counted as two bytes per
+     * character. Good enough to compare lists, not to account for every byte.
+     */
+    static int weigh(List<Recommendation> recommendations) {
+        long bytes = 40L + 4L * recommendations.size();
+        for (Recommendation recommendation : recommendations) {
+            bytes += 40 + weigh(recommendation.getAuthor()) + weigh(recommendation.getContent())
+                    + weigh(recommendation.getServiceAddress());
+        }
+        return (int) Math.min(bytes, Integer.MAX_VALUE);
+    }
+
+    private static int weigh(String value) {
+        return (value == null) ? 0 : 40 + 2 * value.length();
+    }
+
+    /**
+     * The size of a first page, or {@link #ALL} for the whole list.
+     */
+    private static final class Key {
+        private final int productId;
+        private final View view;
+        private final int size;
+
+        Key(int productId, View view, int size) {
+            this.productId = productId;
+            this.view = view;
+            this.size = size;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key other = (Key) o;
+            return productId == other.productId && view == other.view && size == other.size;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(productId, view, size);
+        }
+    }
+}
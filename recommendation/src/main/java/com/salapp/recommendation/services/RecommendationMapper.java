@@ -2,6 +2,7 @@ package com.salapp.recommendation.services;
 
 import com.salapp.api.core.recommendation.Recommendation;
 import com.salapp.recommendation.model.RecommendationEntity;
+import com.salapp.recommendation.repositories.RecommendationHeader;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
 
@@ -23,5 +24,12 @@ public interface RecommendationMapper {
 
     List<Recommendation> entityListToApiList(List<RecommendationEntity> entity);
 
+    @Mapping(target = "rate", source = "header.rating")
+    @Mapping(target = "content", ignore = true)
+    @Mapping(target = "serviceAddress", ignore = true)
+    Recommendation headerToApi(RecommendationHeader header);
+
+    List<Recommendation> headerListToApiList(List<RecommendationHeader> headers);
+
     List<RecommendationEntity> apiListToEntityList(List<Recommendation> api);
 }
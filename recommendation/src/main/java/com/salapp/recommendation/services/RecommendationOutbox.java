@@ -0,0 +1,103 @@
+package com.salapp.recommendation.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.salapp.api.core.recommendation.Recommendation;
+import com.salapp.api.event.Event;
+import com.salapp.recommendation.model.OutboxMessageEntity;
+import com.salapp.util.outbox.OutboxMessage;
+import com.salapp.util.outbox.OutboxStore;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.ReactiveMongoOperations;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+/**
+ * The outbox collection of the recommendation service, relayed to the recommendations topic by the outbox relay.
+ * Nothing is appended unless {@code app.outbox.enabled} is set.
+ * <p>
+ * As in the product service the events are appended right after the recommendations are written, the database is not
+ * a replica set and cannot write both in one transaction.
+ */
+@Component
+public class RecommendationOutbox implements OutboxStore {
+
+    static final String TOPIC = "recommendations";
+
+    private final MongoOperations mongoTemplate;
+
+    private final ReactiveMongoOperations reactiveMongoTemplate;
+
+    private final ObjectMapper mapper;
+
+    private final boolean enabled;
+
+    /**
+     * The MongoDB test slice has no ObjectMapper, a default one is used there.
+     */
+    @Autowired
+    public RecommendationOutbox(MongoOperations mongoTemplate, ReactiveMongoOperations reactiveMongoTemplate, ObjectProvider<ObjectMapper> mapper,
+                                @Value("${app.outbox.enabled:false}") boolean enabled) {
+        this.mongoTemplate = mongoTemplate;
+        this.reactiveMongoTemplate = reactiveMongoTemplate;
+        this.mapper = mapper.getIfAvailable(() -> Jackson2ObjectMapperBuilder.json().build());
+        this.enabled = enabled;
+    }
+
+    /**
+     * Appends the events with one insertMany.
+     */
+    public void append(List<Event<Integer, Recommendation>> events) {
+        if (!enabled || events.isEmpty()) return;
+
+        mongoTemplate.insertAll(toEntities(events));
+    }
+
+    /**
+     * Same as {@link #append} on the reactive streams driver.
+     */
+    public Mono<Void> appendReactive(List<Event<Integer, Recommendation>> events) {
+        if (!enabled || events.isEmpty()) return Mono.empty();
+
+        return Mono.fromCallable(() -> toEntities(events))
+                .flatMapMany(reactiveMongoTemplate::insertAll)
+                .then();
+    }
+
+    @Override
+    public List<OutboxMessage> findOldest(int limit) {
+        Query oldest = new Query().with(Sort.by("createdAt", "id")).limit(limit);
+        return mongoTemplate.find(oldest, OutboxMessageEntity.class).stream()
+                .map(entity -> new OutboxMessage(entity.getId(), entity.getTopic(), entity.getProductId(), entity.getPayload(), entity.getCreatedAt()))
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public void delete(List<OutboxMessage> messages) {
+        List<String> ids = messages.stream().map(OutboxMessage::getId).collect(Collectors.toList());
+        mongoTemplate.remove(Query.query(where("id").in(ids)), OutboxMessageEntity.class);
+    }
+
+    private List<OutboxMessageEntity> toEntities(List<Event<Integer, Recommendation>> events) {
+        return events.stream().map(this::toEntity).collect(Collectors.toList());
+    }
+
+    private OutboxMessageEntity toEntity(Event<Integer, Recommendation> event) {
+        try {
+            return new OutboxMessageEntity(TOPIC, event.getKey(), mapper.writeValueAsString(event), event.getEventCreatedAt());
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize a " + event.getEventType() + " event for productId " + event.getKey(), e);
+        }
+    }
+}
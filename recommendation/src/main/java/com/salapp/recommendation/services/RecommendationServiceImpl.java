@@ -1,7 +1,11 @@
 package com.salapp.recommendation.services;
 
+import com.salapp.api.core.View;
+import com.salapp.api.core.bulk.BulkResult;
 import com.salapp.api.core.recommendation.Recommendation;
+import com.salapp.api.core.recommendation.RecommendationPage;
 import com.salapp.api.core.recommendation.RecommendationService;
+import com.salapp.api.event.Event;
 import com.salapp.recommendation.model.RecommendationEntity;
 import com.salapp.recommendation.repositories.RecommendationRepository;
 import com.salapp.util.exceptions.InvalidInputException;
@@ -9,12 +13,28 @@ import com.salapp.util.http.ServiceUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.stream.Collectors;
+
+import static com.salapp.api.event.Event.Type.CREATE;
+import static com.salapp.api.event.Event.Type.DELETE;
 
 @RestController
+@ConditionalOnProperty(name = "app.persistence.mode", havingValue = "blocking", matchIfMissing = true)
 public class RecommendationServiceImpl implements RecommendationService {
 
     private static final Logger LOG = LoggerFactory.getLogger(RecommendationServiceImpl.class);
@@ -25,12 +45,30 @@ public class RecommendationServiceImpl implements RecommendationService {
 
     private final ServiceUtil serviceUtil;
 
+    private final RecommendationBulkWriter bulkWriter;
+
+    private final RecommendationOutbox outbox;
+
+    private final RecommendationListCache listCache;
+
+    private final int maxPageSize;
+
+    private final int bulkBatchSize;
+
 
     @Autowired
-    public RecommendationServiceImpl(RecommendationRepository repository, RecommendationMapper mapper, ServiceUtil serviceUtil) {
+    public RecommendationServiceImpl(RecommendationRepository repository, RecommendationMapper mapper, ServiceUtil serviceUtil,
+                                     RecommendationBulkWriter bulkWriter, RecommendationOutbox outbox, RecommendationListCache listCache,
+                                     @Value("${app.page.max-size:100}") int maxPageSize,
+                                     @Value("${app.bulk.batch-size:1000}") int bulkBatchSize) {
         this.repository = repository;
         this.mapper = mapper;
         this.serviceUtil = serviceUtil;
+        this.bulkWriter = bulkWriter;
+        this.outbox = outbox;
+        this.listCache = listCache;
+        this.maxPageSize = maxPageSize;
+        this.bulkBatchSize = bulkBatchSize;
     }
 
     @Override
@@ -38,30 +76,193 @@ public class RecommendationServiceImpl implements RecommendationService {
         try {
             RecommendationEntity entity = mapper.apiToEntity(body);
             RecommendationEntity newEntity = repository.save(entity);
+            listCache.invalidate(body.getProductId());
 
             LOG.debug("createRecommendation: created a recommendation entity: {}/{}", body.getProductId(), body.getRecommendationId());
-            return mapper.entityToApi(newEntity);
+            Recommendation created = mapper.entityToApi(newEntity);
+            outbox.append(Collections.singletonList(new Event<>(CREATE, created.getProductId(), created)));
+            return created;
         } catch (DuplicateKeyException e) {
             throw new InvalidInputException("Duplicate key, Product Id: " + body.getProductId() + ", Recommendation Id: " + body.getRecommendationId());
         }
     }
 
+    /**
+     * The body is written in chunks of the batch size as it is read, a large request is never held in memory as a whole.
+     * The driver blocks, the chunks are written on the bounded elastic scheduler, not on the thread that delivers the body.
+     */
+    @Override
+    public Mono<BulkResult> createRecommendations(Flux<Recommendation> body) {
+        return body.buffer(bulkBatchSize)
+                .index()
+                .concatMap(batch -> offload(() -> bulkWriter.write(batch.getT2(), (int) (batch.getT1() * bulkBatchSize))))
+                .reduce(BulkResult::combine)
+                .defaultIfEmpty(new BulkResult());
+    }
+
     @Override
-    public List<Recommendation> getRecommendations(int productId) {
+    public List<Recommendation> getRecommendations(int productId, View view) {
         if (productId < 1) throw new InvalidInputException("Invalid productId: " + productId);
 
-        List<RecommendationEntity> entityList = repository.findByProductId(productId);
-        List<Recommendation> list = mapper.entityListToApiList(entityList);
-        list.forEach(e -> e.setServiceAddress(serviceUtil.getServiceAddress()));
+        List<Recommendation> list = listCache.get(productId, view, () -> {
+            List<Recommendation> loaded = (view == View.SUMMARY)
+                    ? mapper.headerListToApiList(repository.findHeadersByProductId(productId))
+                    : mapper.entityListToApiList(repository.findByProductId(productId));
+            loaded.forEach(e -> e.setServiceAddress(serviceUtil.getElementServiceAddress()));
+            return loaded;
+        });
 
         LOG.debug("getRecommendations: response sizes: {}", list.size());
 
         return list;
     }
 
+    @Override
+    public List<Recommendation> getRecommendationsForProducts(List<Integer> productIds, View view) {
+        productIds.forEach(productId -> {
+            if (productId < 1) throw new InvalidInputException("Invalid productId: " + productId);
+        });
+
+        List<Recommendation> list = (view == View.SUMMARY)
+                ? mapper.headerListToApiList(repository.findHeadersByProductIdIn(productIds))
+                : mapper.entityListToApiList(repository.findByProductIdIn(productIds));
+        list.forEach(e -> e.setServiceAddress(serviceUtil.getElementServiceAddress()));
+
+        LOG.debug("getRecommendationsForProducts: response size for {} products: {}", productIds.size(), list.size());
+
+        return list;
+    }
+
+    /**
+     * The first page is served from the list cache.
+     */
+    @Override
+    public RecommendationPage getRecommendationPage(int productId, Integer cursor, int size, View view) {
+        validatePageRequest(productId, size, maxPageSize);
+
+        List<Recommendation> list = (cursor == null)
+                ? listCache.getFirstPage(productId, view, size, () -> loadPage(productId, null, size, view))
+                : loadPage(productId, cursor, size, view);
+
+        LOG.debug("getRecommendationPage: response size for productId {} after {}: {}", productId, cursor, list.size());
+
+        return toPage(productId, list, size);
+    }
+
+    private List<Recommendation> loadPage(int productId, Integer cursor, int size, View view) {
+        // one recommendation more than the page size tells whether there is a next page without a count query
+        PageRequest pageable = PageRequest.of(0, size + 1);
+        List<Recommendation> list;
+        if (view == View.SUMMARY) {
+            list = mapper.headerListToApiList((cursor == null)
+                    ? repository.findHeadersByProductIdOrderByRecommendationIdAsc(productId, pageable)
+                    : repository.findHeadersByProductIdAndRecommendationIdGreaterThanOrderByRecommendationIdAsc(productId, cursor, pageable));
+        } else {
+            list = mapper.entityListToApiList((cursor == null)
+                    ? repository.findByProductIdOrderByRecommendationIdAsc(productId, pageable)
+                    : repository.findByProductIdAndRecommendationIdGreaterThanOrderByRecommendationIdAsc(productId, cursor, pageable));
+        }
+        list.forEach(e -> e.setServiceAddress(serviceUtil.getElementServiceAddress()));
+        return list;
+    }
+
+    private static <T> Mono<T> offload(Callable<T> mongoCall) {
+        return Mono.fromCallable(mongoCall).subscribeOn(Schedulers.boundedElastic());
+    }
+
+    /**
+     * Reads one recommendation more than the page size of each product, like {@link #getRecommendationPage} does.
+     * First pages in the list cache are served from there, the others are read in one query and not cached: unlike a
+     * single load, the batch cannot be kept from racing a write.
+     */
+    @Override
+    public List<RecommendationPage> getFirstRecommendationPages(List<Integer> productIds, int size, View view) {
+        productIds.forEach(productId -> validatePageRequest(productId, size, maxPageSize));
+
+        Map<Integer, RecommendationPage> pages = cachedFirstPages(listCache, productIds, size, view);
+        List<Integer> missing = notIn(productIds, pages);
+        List<Recommendation> list = missing.isEmpty() ? new ArrayList<>()
+                : mapper.entityListToApiList(repository.findFirstOfEachProduct(missing, size + 1, view != View.SUMMARY));
+        list.forEach(e -> e.setServiceAddress(serviceUtil.getElementServiceAddress()));
+
+        LOG.debug("getFirstRecommendationPages: {} of {} products from the cache", pages.size(), productIds.size());
+
+        return inRequestedOrder(productIds, pages, toPages(missing, list, size));
+    }
+
+    /**
+     * Walks through the recommendations one page of the maximum size at a time, only one page is held in memory. The
+     * pages are read on the bounded elastic scheduler.
+     */
+    @Override
+    public Flux<Recommendation> streamRecommendations(int productId) {
+        if (productId < 1) return Flux.error(new InvalidInputException("Invalid productId: " + productId));
+
+        return offload(() -> toPage(productId, loadPage(productId, null, maxPageSize, View.FULL), maxPageSize))
+                .expand(page -> page.getNextCursor() == null ? Mono.empty()
+                        : offload(() -> toPage(productId, loadPage(productId, page.getNextCursor(), maxPageSize, View.FULL), maxPageSize)))
+                .flatMapIterable(RecommendationPage::getRecommendations, 1);
+    }
+
     @Override
     public void deleteRecommendations(int productId) {
         LOG.debug("deleteRecommendations: tries to delete recommendations for the product with productId: {}", productId);
-        repository.deleteAll(repository.findByProductId(productId));
+        long deleted = repository.deleteByProductId(productId);
+        listCache.invalidate(productId);
+        LOG.debug("deleteRecommendations: deleted {} recommendations", deleted);
+        if (deleted > 0) outbox.append(Collections.singletonList(new Event<>(DELETE, productId, null)));
+    }
+
+    static void validatePageRequest(int productId, int size, int maxPageSize) {
+        if (productId < 1) throw new InvalidInputException("Invalid productId: " + productId);
+        if (size < 1 || size > maxPageSize) {
+            throw new InvalidInputException("Page size must be between 1 and " + maxPageSize + ", got: " + size);
+        }
+    }
+
+    /**
+     * One page per requested product in the order of the productIds, the recommendations of a product must already be
+     * ordered by recommendationId.
+     */
+    static List<RecommendationPage> toPages(List<Integer> productIds, List<Recommendation> recommendations, int size) {
+        Map<Integer, List<Recommendation>> recommendationsByProduct = recommendations.stream()
+                .collect(Collectors.groupingBy(Recommendation::getProductId));
+        return productIds.stream()
+                .distinct()
+                .map(productId -> toPage(productId, recommendationsByProduct.getOrDefault(productId, new ArrayList<>()), size))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * @return the first pages found in the list cache, by productId
+     */
+    static Map<Integer, RecommendationPage> cachedFirstPages(RecommendationListCache listCache, List<Integer> productIds, int size, View view) {
+        Map<Integer, RecommendationPage> pages = new HashMap<>();
+        for (int productId : productIds) {
+            List<Recommendation> cached = listCache.getFirstPageIfPresent(productId, view, size);
+            if (cached != null) pages.put(productId, toPage(productId, cached, size));
+        }
+        return pages;
+    }
+
+    static List<Integer> notIn(List<Integer> productIds, Map<Integer, RecommendationPage> pages) {
+        return productIds.stream().distinct().filter(productId -> !pages.containsKey(productId)).collect(Collectors.toList());
+    }
+
+    /**
+     * One page per requested product in the order of the productIds, the cached pages merged with the loaded ones.
+     */
+    static List<RecommendationPage> inRequestedOrder(List<Integer> productIds, Map<Integer, RecommendationPage> cached, List<RecommendationPage> loaded) {
+        Map<Integer, RecommendationPage> pages = new HashMap<>(cached);
+        loaded.forEach(page -> pages.put(page.getProductId(), page));
+        return productIds.stream().distinct().map(pages::get).collect(Collectors.toList());
+    }
+
+    static RecommendationPage toPage(int productId, List<Recommendation> recommendations, int size) {
+        if (recommendations.size() <= size) {
+            return new RecommendationPage(productId, recommendations, null);
+        }
+        List<Recommendation> page = new ArrayList<>(recommendations.subList(0, size));
+        return new RecommendationPage(productId, page, page.get(size - 1).getRecommendationId());
     }
 }
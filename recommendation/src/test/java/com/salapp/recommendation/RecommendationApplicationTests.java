@@ -2,6 +2,7 @@ package com.salapp.recommendation;
 
 import com.salapp.api.core.recommendation.Recommendation;
 import com.salapp.recommendation.repositories.RecommendationRepository;
+import com.salapp.recommendation.services.RecommendationListCache;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -10,9 +11,16 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.HttpStatus;
 import org.springframework.test.web.reactive.server.WebTestClient;
 
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.springframework.http.HttpStatus.BAD_REQUEST;
 import static org.springframework.http.HttpStatus.UNPROCESSABLE_ENTITY;
 import static org.springframework.http.MediaType.APPLICATION_JSON;
+import static org.springframework.http.MediaType.APPLICATION_NDJSON;
 import static reactor.core.publisher.Mono.just;
 
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {"spring.data.mongodb.port: 0"})
@@ -24,9 +32,36 @@ class RecommendationApplicationTests {
     @Autowired
     private RecommendationRepository repository;
 
+    @Autowired
+    private RecommendationListCache listCache;
+
     @BeforeEach
     void setUpDB() {
         repository.deleteAll();
+        listCache.invalidateAll();
+    }
+
+    @Test
+    void cachedRecommendationsAreDroppedOnWrites() {
+        int productId = 1;
+
+        postAndVerifyRecommendation(productId, 1, HttpStatus.OK);
+        getAndVerifyRecommendationsByProductId(productId, HttpStatus.OK).jsonPath("$.length()").isEqualTo(1);
+        getAndVerifyRecommendationsByProductId(productId, HttpStatus.OK).jsonPath("$.length()").isEqualTo(1);
+
+        postAndVerifyRecommendation(productId, 2, HttpStatus.OK);
+        getAndVerifyRecommendationsByProductId(productId, HttpStatus.OK).jsonPath("$.length()").isEqualTo(2);
+
+        client.post()
+                .uri("/recommendation/bulk")
+                .contentType(APPLICATION_JSON)
+                .bodyValue(Arrays.asList(recommendation(productId, 3), recommendation(productId, 4)))
+                .exchange()
+                .expectStatus().isOk();
+        getAndVerifyRecommendationsByProductId(productId, HttpStatus.OK).jsonPath("$.length()").isEqualTo(4);
+
+        deleteVerifyRecommendationsByProductId(productId, HttpStatus.OK);
+        getAndVerifyRecommendationsByProductId(productId, HttpStatus.OK).jsonPath("$.length()").isEqualTo(0);
     }
 
     @Test
@@ -45,6 +80,75 @@ class RecommendationApplicationTests {
                 .jsonPath("$[2].recommendationId").isEqualTo(3);
     }
 
+    @Test
+    void getRecommendationPagesByProductId() {
+        int productId = 1;
+
+        for (int recommendationId = 1; recommendationId <= 5; recommendationId++) {
+            postAndVerifyRecommendation(productId, recommendationId, HttpStatus.OK);
+        }
+
+        getAndVerifyRecommendationPage("?productId=" + productId + "&size=2", HttpStatus.OK)
+                .jsonPath("$.recommendations.length()").isEqualTo(2)
+                .jsonPath("$.recommendations[0].recommendationId").isEqualTo(1)
+                .jsonPath("$.recommendations[1].recommendationId").isEqualTo(2)
+                .jsonPath("$.nextCursor").isEqualTo(2);
+
+        getAndVerifyRecommendationPage("?productId=" + productId + "&size=2&cursor=4", HttpStatus.OK)
+                .jsonPath("$.recommendations.length()").isEqualTo(1)
+                .jsonPath("$.recommendations[0].recommendationId").isEqualTo(5)
+                .jsonPath("$.nextCursor").doesNotExist();
+    }
+
+    @Test
+    void summaryViewLeavesOutTheContent() {
+        int productId = 1;
+
+        postAndVerifyRecommendation(productId, 1, HttpStatus.OK);
+        postAndVerifyRecommendation(productId, 2, HttpStatus.OK);
+
+        getAndVerifyRecommendationsByProductId("?productId=" + productId + "&view=SUMMARY", HttpStatus.OK)
+                .jsonPath("$.length()").isEqualTo(2)
+                .jsonPath("$[0].author").isNotEmpty()
+                .jsonPath("$[0].rate").isEqualTo(1)
+                .jsonPath("$[0].version").isEqualTo(0)
+                .jsonPath("$[0].content").doesNotExist();
+
+        getAndVerifyRecommendationPage("?productId=" + productId + "&size=1&view=SUMMARY", HttpStatus.OK)
+                .jsonPath("$.recommendations.length()").isEqualTo(1)
+                .jsonPath("$.recommendations[0].content").doesNotExist()
+                .jsonPath("$.nextCursor").isEqualTo(1);
+    }
+
+    @Test
+    void getRecommendationPageInvalidSize() {
+        getAndVerifyRecommendationPage("?productId=1&size=101", UNPROCESSABLE_ENTITY)
+                .jsonPath("$.path").isEqualTo("/recommendation/page")
+                .jsonPath("$.message").isEqualTo("Page size must be between 1 and 100, got: 101");
+    }
+
+    @Test
+    void streamRecommendationsByProductId() {
+        int productId = 1;
+
+        for (int recommendationId = 1; recommendationId <= 3; recommendationId++) {
+            postAndVerifyRecommendation(productId, recommendationId, HttpStatus.OK);
+        }
+
+        List<Recommendation> recommendations = client.get()
+                .uri("/recommendation/stream?productId=" + productId)
+                .accept(APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentType(APPLICATION_NDJSON)
+                .returnResult(Recommendation.class)
+                .getResponseBody()
+                .collectList()
+                .block();
+
+        assertThat(recommendations).extracting(Recommendation::getRecommendationId).containsExactly(1, 2, 3);
+    }
+
     @Test
     void duplicateError() {
         int productId = 1;
@@ -63,6 +167,54 @@ class RecommendationApplicationTests {
         Assertions.assertEquals(1, repository.count());
     }
 
+    @Test
+    void createRecommendationsInBulk() {
+        int productId = 1;
+
+        postAndVerifyRecommendation(productId, 2, HttpStatus.OK);
+
+        List<Recommendation> recommendations = Arrays.asList(recommendation(productId, 1), recommendation(productId, 2),
+                recommendation(productId, 3), recommendation(productId, 1));
+
+        client.post()
+                .uri("/recommendation/bulk")
+                .contentType(APPLICATION_JSON)
+                .bodyValue(recommendations)
+                .accept(APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.received").isEqualTo(4)
+                .jsonPath("$.created").isEqualTo(2)
+                .jsonPath("$.failures.length()").isEqualTo(2)
+                .jsonPath("$.failures[0].index").isEqualTo(1)
+                .jsonPath("$.failures[0].message").isEqualTo("Duplicate key, Product Id: 1, Recommendation Id: 2")
+                .jsonPath("$.failures[1].index").isEqualTo(3);
+
+        Assertions.assertEquals(3, repository.findByProductId(productId).size());
+    }
+
+    @Test
+    void createRecommendationsInBulkFromNdjson() {
+        String body = IntStream.rangeClosed(1, 3)
+                .mapToObj(recommendationId -> "{\"productId\":1,\"recommendationId\":" + recommendationId + ",\"author\":\"a\",\"rate\":1,\"content\":\"c\"}")
+                .collect(Collectors.joining("\n"));
+
+        client.post()
+                .uri("/recommendation/bulk")
+                .contentType(APPLICATION_NDJSON)
+                .bodyValue(body)
+                .accept(APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.received").isEqualTo(3)
+                .jsonPath("$.created").isEqualTo(3)
+                .jsonPath("$.failures.length()").isEqualTo(0);
+
+        Assertions.assertEquals(3, repository.findByProductId(1).size());
+    }
+
     @Test
     void deleteRecommendations() {
         int productId = 1;
@@ -122,8 +274,22 @@ class RecommendationApplicationTests {
                 .expectBody();
     }
 
+    private WebTestClient.BodyContentSpec getAndVerifyRecommendationPage(String query, HttpStatus expectedStatus) {
+        return client.get()
+                .uri("/recommendation/page" + query)
+                .accept(APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isEqualTo(expectedStatus)
+                .expectHeader().contentType(APPLICATION_JSON)
+                .expectBody();
+    }
+
+    private Recommendation recommendation(int productId, int recommendationId) {
+        return new Recommendation(productId, recommendationId, "Author " + recommendationId, recommendationId, "Contet " + recommendationId, "SA");
+    }
+
     private WebTestClient.BodyContentSpec postAndVerifyRecommendation(int productId, int recommendationId, HttpStatus expectedStatus) {
-        Recommendation recommendation = new Recommendation(productId, recommendationId, "Author " + recommendationId, recommendationId, "Contet " + recommendationId, "SA");
+        Recommendation recommendation = recommendation(productId, recommendationId);
         return client.post()
                 .uri("/recommendation")
                 .body(just(recommendation), Recommendation.class)
@@ -0,0 +1,136 @@
+package com.salapp.recommendation;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.salapp.api.core.recommendation.Recommendation;
+import com.salapp.api.event.Event;
+import com.salapp.recommendation.model.OutboxMessageEntity;
+import com.salapp.recommendation.repositories.RecommendationRepository;
+import com.salapp.util.outbox.InMemoryEventPublisher;
+import com.salapp.util.outbox.OutboxMessage;
+import com.salapp.util.outbox.OutboxRelay;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static com.salapp.api.event.Event.Type.CREATE;
+import static com.salapp.api.event.Event.Type.DELETE;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.http.HttpStatus.OK;
+import static org.springframework.http.HttpStatus.UNPROCESSABLE_ENTITY;
+import static org.springframework.http.MediaType.APPLICATION_JSON;
+import static reactor.core.publisher.Mono.just;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.data.mongodb.port: 0",
+        "app.outbox.enabled=true",
+        "app.outbox.binding=in-memory",
+        // the tests relay themselves
+        "app.outbox.poll-interval=1h"
+})
+class RecommendationOutboxTests {
+
+    private static final String TOPIC = "recommendations";
+
+    @Autowired
+    private WebTestClient client;
+
+    @Autowired
+    private RecommendationRepository repository;
+
+    @Autowired
+    private MongoOperations mongoTemplate;
+
+    @Autowired
+    private OutboxRelay relay;
+
+    @Autowired
+    private InMemoryEventPublisher publisher;
+
+    @Autowired
+    private ObjectMapper mapper;
+
+    @BeforeEach
+    void setUp() {
+        repository.deleteAll();
+        mongoTemplate.dropCollection(OutboxMessageEntity.class);
+        publisher.clear();
+    }
+
+    @Test
+    void createdAndDeletedRecommendationsArePublished() {
+        postAndVerifyRecommendation(1, 1, OK);
+        postAndVerifyRecommendation(1, 1, UNPROCESSABLE_ENTITY);
+        deleteRecommendations(1);
+        // nothing to delete
+        deleteRecommendations(1);
+
+        assertThat(relay.relayPending()).isEqualTo(2);
+        assertThat(mongoTemplate.count(new Query(), OutboxMessageEntity.class)).isZero();
+
+        List<Event<Integer, Recommendation>> events = published();
+        assertThat(events).extracting(Event::getEventType).containsExactly(CREATE, DELETE);
+        assertThat(events).extracting(Event::getKey).containsOnly(1);
+        assertThat(events.get(0).getData().getRecommendationId()).isEqualTo(1);
+        assertThat(events.get(1).getData()).isNull();
+    }
+
+    @Test
+    void onlyCreatedRecommendationsOfABulkRequestArePublished() {
+        postAndVerifyRecommendation(1, 2, OK);
+
+        client.post()
+                .uri("/recommendation/bulk")
+                .contentType(APPLICATION_JSON)
+                .bodyValue(Arrays.asList(recommendation(1, 1), recommendation(1, 2), recommendation(1, 3), recommendation(1, 1)))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.created").isEqualTo(2);
+
+        assertThat(relay.relayPending()).isEqualTo(3);
+        assertThat(published()).extracting(event -> event.getData().getRecommendationId()).containsExactlyInAnyOrder(2, 1, 3);
+    }
+
+    private List<Event<Integer, Recommendation>> published() {
+        return publisher.messages(TOPIC).stream()
+                .map(OutboxMessage::getPayload)
+                .map(payload -> {
+                    try {
+                        return mapper.readValue(payload, new TypeReference<Event<Integer, Recommendation>>() {});
+                    } catch (Exception e) {
+                        throw new AssertionError(e);
+                    }
+                })
+                .collect(Collectors.toList());
+    }
+
+    private Recommendation recommendation(int productId, int recommendationId) {
+        return new Recommendation(productId, recommendationId, "Author " + recommendationId, recommendationId, "Content " + recommendationId, "SA");
+    }
+
+    private void postAndVerifyRecommendation(int productId, int recommendationId, HttpStatus expectedStatus) {
+        client.post()
+                .uri("/recommendation")
+                .body(just(recommendation(productId, recommendationId)), Recommendation.class)
+                .accept(APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isEqualTo(expectedStatus);
+    }
+
+    private void deleteRecommendations(int productId) {
+        client.delete()
+                .uri("/recommendation?productId=" + productId)
+                .exchange()
+                .expectStatus().isOk();
+    }
+}
@@ -8,7 +8,9 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
 import org.springframework.dao.DuplicateKeyException;
 import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
 
+import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
 
@@ -60,6 +62,16 @@ class PersistenceTests {
         Assertions.assertFalse(repository.existsById(savedEntity.getId()));
     }
 
+    @Test
+    void deleteByProductId() {
+        repository.save(new RecommendationEntity(1, 3, "a", 3, "c"));
+        repository.save(new RecommendationEntity(2, 1, "a", 3, "c"));
+
+        Assertions.assertEquals(2, repository.deleteByProductId(1));
+        assertThat(repository.findByProductId(1)).isEmpty();
+        assertThat(repository.findByProductId(2)).hasSize(1);
+    }
+
     @Test
     void getByProductId() {
         List<RecommendationEntity> entityList = repository.findByProductId(savedEntity.getProductId());
@@ -68,6 +80,49 @@ class PersistenceTests {
         assertEqualsRecommendation(savedEntity, entityList.get(0));
     }
 
+    @Test
+    void getByProductIds() {
+        repository.save(new RecommendationEntity(1, 3, "a", 3, "c"));
+        repository.save(new RecommendationEntity(2, 1, "a", 3, "c"));
+        repository.save(new RecommendationEntity(3, 1, "a", 3, "c"));
+
+        List<RecommendationEntity> entityList = repository.findByProductIdIn(Arrays.asList(1, 3, 4));
+
+        assertThat(entityList).extracting(RecommendationEntity::getProductId).containsExactlyInAnyOrder(1, 1, 3);
+    }
+
+    @Test
+    void getPagesByProductId() {
+        for (int recommendationId = 3; recommendationId <= 6; recommendationId++) {
+            repository.save(new RecommendationEntity(1, recommendationId, "a", 3, "c"));
+        }
+        repository.save(new RecommendationEntity(2, 1, "a", 3, "c"));
+
+        List<RecommendationEntity> firstPage = repository.findByProductIdOrderByRecommendationIdAsc(1, PageRequest.of(0, 2));
+        List<RecommendationEntity> secondPage = repository.findByProductIdAndRecommendationIdGreaterThanOrderByRecommendationIdAsc(1, 3, PageRequest.of(0, 2));
+        List<RecommendationEntity> lastPage = repository.findByProductIdAndRecommendationIdGreaterThanOrderByRecommendationIdAsc(1, 5, PageRequest.of(0, 2));
+
+        assertThat(firstPage).extracting(RecommendationEntity::getRecommendationId).containsExactly(2, 3);
+        assertThat(secondPage).extracting(RecommendationEntity::getRecommendationId).containsExactly(4, 5);
+        assertThat(lastPage).extracting(RecommendationEntity::getRecommendationId).containsExactly(6);
+    }
+
+    @Test
+    void getFirstOfEachProduct() {
+        for (int recommendationId = 3; recommendationId <= 6; recommendationId++) {
+            repository.save(new RecommendationEntity(1, recommendationId, "a", 3, "c"));
+        }
+        repository.save(new RecommendationEntity(2, 1, "a", 3, "c"));
+        repository.save(new RecommendationEntity(3, 1, "a", 3, "c"));
+
+        List<RecommendationEntity> first = repository.findFirstOfEachProduct(Arrays.asList(1, 2, 4), 2, false);
+
+        assertThat(first).filteredOn(entity -> entity.getProductId() == 1).extracting(RecommendationEntity::getRecommendationId).containsExactly(2, 3);
+        assertThat(first).filteredOn(entity -> entity.getProductId() == 2).extracting(RecommendationEntity::getRecommendationId).containsExactly(1);
+        assertThat(first).hasSize(3).allSatisfy(entity -> assertThat(entity.getContent()).isNull());
+        assertThat(repository.findFirstOfEachProduct(Arrays.asList(2), 2, true)).extracting(RecommendationEntity::getContent).containsExactly("c");
+    }
+
     @Test
     void duplicateError() {
         RecommendationEntity entity = new RecommendationEntity(1, 2, "a", 3, "c");
@@ -0,0 +1,38 @@
+package com.salapp.recommendation.repositories;
+
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RecommendationFirstPagesTests {
+
+    @Test
+    void pipelineCutsEveryProductToTheLimit() {
+        List<Document> stages = RecommendationFirstPagesImpl.firstOfEachProduct(Arrays.asList(1, 2), 21, true)
+                .toPipeline(Aggregation.DEFAULT_CONTEXT);
+
+        assertThat(stageNames(stages)).containsExactly("$match", "$sort", "$group", "$project", "$unwind", "$replaceRoot");
+        assertThat(stages.get(1).toJson()).isEqualTo("{\"$sort\": {\"productId\": 1, \"recommendationId\": 1}}");
+        assertThat(stages.get(2).toJson()).isEqualTo("{\"$group\": {\"_id\": \"$productId\", \"recommendations\": {\"$push\": \"$$ROOT\"}}}");
+        assertThat(stages.get(3).toJson()).contains("\"$slice\": [\"$recommendations\", 21]");
+    }
+
+    @Test
+    void summaryDropsTheContentBeforeGrouping() {
+        List<Document> stages = RecommendationFirstPagesImpl.firstOfEachProduct(Arrays.asList(1, 2), 21, false)
+                .toPipeline(Aggregation.DEFAULT_CONTEXT);
+
+        assertThat(stageNames(stages)).containsExactly("$match", "$sort", "$project", "$group", "$project", "$unwind", "$replaceRoot");
+        assertThat(stages.get(2).toJson()).isEqualTo("{\"$project\": {\"content\": 0}}");
+    }
+
+    private static List<String> stageNames(List<Document> stages) {
+        return stages.stream().map(stage -> stage.keySet().iterator().next()).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,105 @@
+package com.salapp.recommendation.repositories;
+
+import com.salapp.recommendation.model.RecommendationEntity;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import reactor.core.publisher.Flux;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Compares how many findByProductId lookups per second the sync and the reactive driver sustain for the same number of
+ * concurrent requests. The blocking repository needs one thread per concurrent lookup, the reactive one none.
+ */
+@DataMongoTest
+class ThroughputTests {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ThroughputTests.class);
+
+    private static final int PRODUCTS = 20;
+    private static final int RECOMMENDATIONS_PER_PRODUCT = 50;
+    private static final int LOOKUPS = 2000;
+    private static final int CONCURRENCY = 16;
+
+    @Autowired
+    private RecommendationRepository repository;
+
+    @Autowired
+    private ReactiveRecommendationRepository reactiveRepository;
+
+    @BeforeEach
+    void setUpDb() {
+        repository.deleteAll();
+
+        List<RecommendationEntity> entities = IntStream.rangeClosed(1, PRODUCTS).boxed()
+                .flatMap(productId -> IntStream.rangeClosed(1, RECOMMENDATIONS_PER_PRODUCT)
+                        .mapToObj(recommendationId -> new RecommendationEntity(productId, recommendationId, "a", 1, "c")))
+                .collect(Collectors.toList());
+        repository.saveAll(entities);
+    }
+
+    @Test
+    void compareBlockingAndReactiveThroughput() throws Exception {
+        // warm up both drivers, the first lookups pay for connection setup and class loading
+        runBlocking(PRODUCTS);
+        runReactive(PRODUCTS);
+
+        long blockingNanos = runBlocking(LOOKUPS);
+        long reactiveNanos = runReactive(LOOKUPS);
+
+        LOG.info("findByProductId x {} with concurrency {}: blocking {} ops/s, reactive {} ops/s",
+                LOOKUPS, CONCURRENCY, opsPerSecond(blockingNanos), opsPerSecond(reactiveNanos));
+    }
+
+    private long runBlocking(int lookups) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(CONCURRENCY);
+        try {
+            long start = System.nanoTime();
+
+            List<Future<List<RecommendationEntity>>> results = new ArrayList<>();
+            for (int i = 0; i < lookups; i++) {
+                int productId = 1 + i % PRODUCTS;
+                results.add(executor.submit(() -> repository.findByProductId(productId)));
+            }
+            for (Future<List<RecommendationEntity>> result : results) {
+                Assertions.assertEquals(RECOMMENDATIONS_PER_PRODUCT, result.get().size());
+            }
+
+            return System.nanoTime() - start;
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private long runReactive(int lookups) {
+        long start = System.nanoTime();
+
+        List<Long> counts = Flux.range(0, lookups)
+                .flatMap(i -> reactiveRepository.findByProductId(1 + i % PRODUCTS).count(), CONCURRENCY)
+                .collectList()
+                .block();
+
+        long elapsed = System.nanoTime() - start;
+
+        Assertions.assertNotNull(counts);
+        Assertions.assertEquals(lookups, counts.size());
+        counts.forEach(count -> Assertions.assertEquals(RECOMMENDATIONS_PER_PRODUCT, count));
+
+        return elapsed;
+    }
+
+    private long opsPerSecond(long nanos) {
+        return LOOKUPS * 1_000_000_000L / Math.max(nanos, 1);
+    }
+}
@@ -2,6 +2,7 @@ package com.salapp.recommendation.services;
 
 import com.salapp.api.core.recommendation.Recommendation;
 import com.salapp.recommendation.model.RecommendationEntity;
+import com.salapp.recommendation.repositories.RecommendationHeader;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.mapstruct.factory.Mappers;
@@ -28,6 +29,8 @@ class MapperTests {
         Assertions.assertEquals(api.getRate(), entity.getRating());
         Assertions.assertEquals(api.getContent(), entity.getContent());
 
+        entity.setVersion(3);
+
         Recommendation api2 = mapper.entityToApi(entity);
 
         Assertions.assertEquals(api.getProductId(), api2.getProductId());
@@ -35,6 +38,7 @@ class MapperTests {
         Assertions.assertEquals(api.getAuthor(), api2.getAuthor());
         Assertions.assertEquals(api.getContent(), api2.getContent());
         Assertions.assertNull(api2.getServiceAddress());
+        Assertions.assertEquals(3, api2.getVersion());
 
     }
 
@@ -70,6 +74,18 @@ class MapperTests {
 
     }
 
+    @Test
+    void headerMapperTests() {
+        RecommendationHeader header = new RecommendationHeader(1, 2, "a", 4, 3);
+
+        Recommendation api = mapper.headerToApi(header);
+
+        Assertions.assertEquals(header.getProductId(), api.getProductId());
+        Assertions.assertEquals(header.getRecommendationId(), api.getRecommendationId());
+        Assertions.assertEquals(header.getAuthor(), api.getAuthor());
+        Assertions.assertEquals(header.getRating(), api.getRate());
+        Assertions.assertEquals(3, api.getVersion());
+        Assertions.assertNull(api.getContent());
+        Assertions.assertNull(api.getServiceAddress());
+    }
 }
-
-
@@ -0,0 +1,142 @@
+package com.salapp.recommendation.services;
+
+import com.salapp.api.core.View;
+import com.salapp.api.core.recommendation.Recommendation;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RecommendationListCacheTests {
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    private final RecommendationListCache cache = new RecommendationListCache(new SimpleMeterRegistry(), DataSize.ofKilobytes(64), Duration.ofMinutes(1));
+
+    @Test
+    void loadsAListOncePerView() {
+        cache.get(1, View.FULL, () -> load(1, 3));
+        cache.get(1, View.FULL, () -> load(1, 3));
+        cache.get(1, View.SUMMARY, () -> load(1, 3));
+
+        assertThat(loads).hasValue(2);
+        assertThat(cache.getIfPresent(1, View.FULL)).hasSize(3);
+        assertThat(cache.getIfPresent(2, View.FULL)).isNull();
+    }
+
+    @Test
+    void cachedListsCannotBeChanged() {
+        List<Recommendation> loaded = load(1, 3);
+        List<Recommendation> cached = cache.get(1, View.FULL, () -> loaded);
+        loaded.clear();
+
+        assertThat(cached).hasSize(3);
+        assertThatThrownBy(() -> cached.add(recommendation(1, 4))).isInstanceOf(UnsupportedOperationException.class);
+    }
+
+    @Test
+    void invalidateDropsEveryViewOfTheProduct() {
+        cache.get(1, View.FULL, () -> load(1, 3));
+        cache.get(1, View.SUMMARY, () -> load(1, 3));
+        cache.get(2, View.FULL, () -> load(2, 3));
+
+        cache.invalidate(1);
+
+        assertThat(cache.getIfPresent(1, View.FULL)).isNull();
+        assertThat(cache.getIfPresent(1, View.SUMMARY)).isNull();
+        assertThat(cache.getIfPresent(2, View.FULL)).isNotNull();
+    }
+
+    @Test
+    void firstPagesAreCachedPerSizeApartFromTheList() {
+        cache.get(1, View.FULL, () -> load(1, 5));
+        cache.getFirstPage(1, View.FULL, 2, () -> load(1, 3));
+        cache.getFirstPage(1, View.FULL, 2, () -> load(1, 3));
+        cache.getFirstPage(1, View.FULL, 3, () -> load(1, 4));
+
+        assertThat(loads).hasValue(3);
+        assertThat(cache.getIfPresent(1, View.FULL)).hasSize(5);
+        assertThat(cache.getFirstPageIfPresent(1, View.FULL, 2)).hasSize(3);
+        assertThat(cache.getFirstPageIfPresent(1, View.SUMMARY, 2)).isNull();
+    }
+
+    @Test
+    void invalidateDropsTheFirstPagesOfEverySize() {
+        cache.getFirstPage(1, View.FULL, 2, () -> load(1, 3));
+        cache.getFirstPage(1, View.SUMMARY, 5, () -> load(1, 3));
+        cache.getFirstPage(2, View.FULL, 2, () -> load(2, 3));
+
+        cache.invalidate(1);
+
+        assertThat(cache.getFirstPageIfPresent(1, View.FULL, 2)).isNull();
+        assertThat(cache.getFirstPageIfPresent(1, View.SUMMARY, 5)).isNull();
+        assertThat(cache.getFirstPageIfPresent(2, View.FULL, 2)).isNotNull();
+    }
+
+    @Test
+    void putFirstPageIsInvalidatedLikeALoadedOne() {
+        cache.putFirstPage(1, View.SUMMARY, 2, load(1, 3), cache.generation(1));
+
+        assertThat(cache.getFirstPageIfPresent(1, View.SUMMARY, 2)).hasSize(3);
+
+        cache.invalidate(1);
+
+        assertThat(cache.getFirstPageIfPresent(1, View.SUMMARY, 2)).isNull();
+    }
+
+    @Test
+    void aReadThatRacedAWriteIsNotCached() {
+        long generation = cache.generation(1);
+        List<Recommendation> list = load(1, 3);
+        List<Recommendation> page = load(1, 3);
+        cache.invalidate(1);
+
+        cache.put(1, View.FULL, list, generation);
+        cache.putFirstPage(1, View.FULL, 2, page, generation);
+
+        assertThat(cache.getIfPresent(1, View.FULL)).isNull();
+        assertThat(cache.getFirstPageIfPresent(1, View.FULL, 2)).isNull();
+
+        cache.put(1, View.FULL, list, cache.generation(1));
+        assertThat(cache.getIfPresent(1, View.FULL)).hasSize(3);
+    }
+
+    @Test
+    void weighGrowsWithTheContent() {
+        List<Recommendation> small = load(1, 10);
+        List<Recommendation> large = load(1, 1000);
+
+        assertThat(RecommendationListCache.weigh(new ArrayList<>())).isPositive();
+        assertThat(RecommendationListCache.weigh(large)).isGreaterThan(50 * RecommendationListCache.weigh(small));
+    }
+
+    @Test
+    void isBoundedByTheSizeOfTheLists() {
+        // about 200 bytes per recommendation, 64KB hold a few hundred
+        for (int productId = 1; productId <= 100; productId++) {
+            int id = productId;
+            cache.get(id, View.FULL, () -> load(id, 50));
+        }
+
+        long cached = IntStream.rangeClosed(1, 100).filter(productId -> cache.getIfPresent(productId, View.FULL) != null).count();
+        assertThat(cached).isLessThan(20);
+    }
+
+    private List<Recommendation> load(int productId, int count) {
+        loads.incrementAndGet();
+        return IntStream.rangeClosed(1, count).mapToObj(recommendationId -> recommendation(productId, recommendationId)).collect(Collectors.toList());
+    }
+
+    private Recommendation recommendation(int productId, int recommendationId) {
+        return new Recommendation(productId, recommendationId, "Author " + recommendationId, recommendationId, "Content " + recommendationId, "SA");
+    }
+}
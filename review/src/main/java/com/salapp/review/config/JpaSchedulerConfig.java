@@ -0,0 +1,70 @@
+package com.salapp.review.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JPA calls block, so they run on their own fixed size pool instead of the Netty event loop. The pool has a bounded
+ * queue: once it is full new work is rejected right away rather than waiting for a thread.
+ * <p>
+ * Exposed through actuator as executor.* metrics tagged with name=jpa, plus executor.rejected.
+ */
+@Configuration
+public class JpaSchedulerConfig {
+
+    private static final Logger LOG = LoggerFactory.getLogger(JpaSchedulerConfig.class);
+
+    private static final String NAME = "jpa";
+
+    /**
+     * The JPA test slice has no meter registry, the metrics then go to a local one.
+     */
+    @Bean(destroyMethod = "dispose")
+    public Scheduler jpaScheduler(
+            ObjectProvider<MeterRegistry> registry,
+            @Value("${app.jpa-scheduler.threads:10}") int threads,
+            @Value("${app.jpa-scheduler.queue-capacity:100}") int queueCapacity) {
+
+        return createScheduler(registry.getIfAvailable(SimpleMeterRegistry::new), threads, queueCapacity);
+    }
+
+    public static Scheduler createScheduler(MeterRegistry registry, int threads, int queueCapacity) {
+        LOG.info("Creates a {} scheduler with {} threads and a queue of {} tasks", NAME, threads, queueCapacity);
+
+        Counter rejected = Counter.builder("executor.rejected")
+                .description("Tasks rejected because all threads were busy and the queue was full")
+                .tag("name", NAME)
+                .register(registry);
+
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                threads, threads,
+                60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                new CustomizableThreadFactory(NAME + "-"),
+                (task, pool) -> {
+                    rejected.increment();
+                    throw new RejectedExecutionException("All " + threads + " " + NAME + " threads are busy and " + queueCapacity + " tasks are queued");
+                });
+
+        new ExecutorServiceMetrics(executor, NAME, Tags.empty()).bindTo(registry);
+
+        return Schedulers.fromExecutorService(executor, NAME);
+    }
+}
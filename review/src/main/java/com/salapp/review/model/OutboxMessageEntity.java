@@ -0,0 +1,35 @@
+package com.salapp.review.model;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import javax.persistence.*;
+import java.time.Instant;
+
+/**
+ * An event waiting in the outbox table to be relayed, see {@link com.salapp.review.services.ReviewOutbox}.
+ */
+@Setter
+@Getter
+@NoArgsConstructor
+@Entity
+@Table(name = "outbox")
+public class OutboxMessageEntity {
+    @Id
+    @GeneratedValue
+    private long id;
+
+    private String topic;
+    private int productId;
+    @Lob
+    private String payload;
+    private Instant createdAt;
+
+    public OutboxMessageEntity(String topic, int productId, String payload, Instant createdAt) {
+        this.topic = topic;
+        this.productId = productId;
+        this.payload = payload;
+        this.createdAt = createdAt;
+    }
+}
@@ -0,0 +1,29 @@
+package com.salapp.review.repositories;
+
+import com.salapp.review.model.OutboxMessageEntity;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface OutboxRepository extends CrudRepository<OutboxMessageEntity, Long> {
+
+    /**
+     * The oldest messages, the page size is taken from the pageable.
+     */
+    @Transactional(readOnly = true)
+    List<OutboxMessageEntity> findByOrderByIdAsc(Pageable pageable);
+
+    /**
+     * Deletes relayed messages with a single statement.
+     */
+    @Transactional
+    @Modifying
+    @Query("delete from OutboxMessageEntity m where m.id in :ids")
+    int deleteByIdIn(@Param("ids") Collection<Long> ids);
+}
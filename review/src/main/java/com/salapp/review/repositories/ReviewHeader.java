@@ -0,0 +1,17 @@
+package com.salapp.review.repositories;
+
+import lombok.Value;
+
+/**
+ * DTO projection on everything of a review but its content. The query selects only these columns, so the content is
+ * neither read from the database nor mapped.
+ */
+@Value
+public class ReviewHeader {
+
+    int productId;
+    int reviewId;
+    String author;
+    String subject;
+    int version;
+}
@@ -0,0 +1,11 @@
+package com.salapp.review.repositories;
+
+/**
+ * Projection on the natural key of a review, enough to find out which reviews of a bulk request already exist.
+ */
+public interface ReviewKey {
+
+    int getProductId();
+
+    int getReviewId();
+}
@@ -1,13 +1,81 @@
 package com.salapp.review.repositories;
 
 import com.salapp.review.model.ReviewEntity;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface ReviewRepository extends CrudRepository<ReviewEntity, Integer> {
 
     @Transactional(readOnly = true)
     List<ReviewEntity> findByProductId(int productId);
+
+    @Transactional(readOnly = true)
+    List<ReviewEntity> findByProductIdIn(Collection<Integer> productIds);
+
+    /**
+     * First page of the reviews of a product, the page size is taken from the pageable.
+     */
+    @Transactional(readOnly = true)
+    List<ReviewEntity> findByProductIdOrderByReviewIdAsc(int productId, Pageable pageable);
+
+    /**
+     * Keyset page, starts right after the given reviewId so the database seeks through the (productId, reviewId) index
+     * instead of skipping the rows of the earlier pages.
+     */
+    @Transactional(readOnly = true)
+    List<ReviewEntity> findByProductIdAndReviewIdGreaterThanOrderByReviewIdAsc(int productId, int reviewId, Pageable pageable);
+
+    @Transactional(readOnly = true)
+    List<ReviewHeader> findHeadersByProductId(int productId);
+
+    @Transactional(readOnly = true)
+    List<ReviewHeader> findHeadersByProductIdIn(Collection<Integer> productIds);
+
+    @Transactional(readOnly = true)
+    List<ReviewHeader> findHeadersByProductIdOrderByReviewIdAsc(int productId, Pageable pageable);
+
+    @Transactional(readOnly = true)
+    List<ReviewHeader> findHeadersByProductIdAndReviewIdGreaterThanOrderByReviewIdAsc(int productId, int reviewId, Pageable pageable);
+
+    /**
+     * Ids of the first reviews of each of the given products by reviewId, at most limit of them per product. Only the
+     * ids are ranked, the reviews themselves are then read for those ids alone.
+     */
+    @Transactional(readOnly = true)
+    @Query(value = "select ranked.id from ("
+            + "select r.id, row_number() over (partition by r.product_id order by r.review_id) as position"
+            + " from reviews r where r.product_id in (:productIds)"
+            + ") ranked where ranked.position <= :limit", nativeQuery = true)
+    List<Integer> findFirstIdsByProductIdIn(@Param("productIds") Collection<Integer> productIds, @Param("limit") int limit);
+
+    @Transactional(readOnly = true)
+    List<ReviewEntity> findByIdInOrderByProductIdAscReviewIdAsc(Collection<Integer> ids);
+
+    @Transactional(readOnly = true)
+    List<ReviewHeader> findHeadersByIdInOrderByProductIdAscReviewIdAsc(Collection<Integer> ids);
+
+    /**
+     * Keys of the existing reviews among the given products and reviewIds. Matches every combination of the two
+     * collections, the caller picks out the pairs it asked for.
+     */
+    @Transactional(readOnly = true)
+    List<ReviewKey> findByProductIdInAndReviewIdIn(Collection<Integer> productIds, Collection<Integer> reviewIds);
+
+    /**
+     * Deletes all reviews of a product with a single statement. A derived deleteBy would load every review first and
+     * remove them one at a time with a version check each.
+     *
+     * @return the number of deleted reviews
+     */
+    @Transactional
+    @Modifying
+    @Query("delete from ReviewEntity r where r.productId = :productId")
+    int deleteByProductId(@Param("productId") int productId);
 }
@@ -0,0 +1,238 @@
+package com.salapp.review.services;
+
+import com.salapp.api.core.View;
+import com.salapp.api.core.bulk.BulkResult;
+import com.salapp.api.core.review.ReactiveReviewService;
+import com.salapp.api.core.review.Review;
+import com.salapp.api.core.review.ReviewPage;
+import com.salapp.review.repositories.ReviewRepository;
+import com.salapp.util.exceptions.InvalidInputException;
+import com.salapp.util.exceptions.ServiceUnavailableException;
+import com.salapp.util.http.ServiceUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.RejectedExecutionException;
+
+import static com.salapp.review.services.ReviewServiceImpl.cachedFirstPages;
+import static com.salapp.review.services.ReviewServiceImpl.findFirstPages;
+import static com.salapp.review.services.ReviewServiceImpl.findPage;
+import static com.salapp.review.services.ReviewServiceImpl.inRequestedOrder;
+import static com.salapp.review.services.ReviewServiceImpl.notIn;
+import static com.salapp.review.services.ReviewServiceImpl.toPage;
+import static com.salapp.review.services.ReviewServiceImpl.validatePageRequest;
+
+/**
+ * Serves the review endpoints instead of {@link ReviewServiceImpl} when {@code app.persistence.mode} is reactive.
+ * The repository is still blocking JPA, every call to it is moved to the bounded jpa scheduler.
+ */
+@RestController
+@ConditionalOnProperty(name = "app.persistence.mode", havingValue = "reactive")
+public class ReactiveReviewServiceImpl implements ReactiveReviewService {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ReactiveReviewServiceImpl.class);
+
+    private final ServiceUtil serviceUtil;
+
+    private final ReviewRepository repository;
+
+    private final ReviewMapper mapper;
+
+    private final Scheduler jpaScheduler;
+
+    private final ReviewWriter writer;
+
+    private final ReviewBulkWriter bulkWriter;
+
+    private final ReviewListCache listCache;
+
+    private final int maxPageSize;
+
+    private final int bulkBatchSize;
+
+    @Autowired
+    public ReactiveReviewServiceImpl(ReviewRepository repository, ReviewMapper mapper, ServiceUtil serviceUtil,
+                                     @Qualifier("jpaScheduler") Scheduler jpaScheduler, ReviewWriter writer, ReviewBulkWriter bulkWriter,
+                                     ReviewListCache listCache,
+                                     @Value("${app.page.max-size:100}") int maxPageSize,
+                                     @Value("${app.bulk.batch-size:500}") int bulkBatchSize) {
+        this.repository = repository;
+        this.mapper = mapper;
+        this.serviceUtil = serviceUtil;
+        this.jpaScheduler = jpaScheduler;
+        this.writer = writer;
+        this.bulkWriter = bulkWriter;
+        this.listCache = listCache;
+        this.maxPageSize = maxPageSize;
+        this.bulkBatchSize = bulkBatchSize;
+    }
+
+    @Override
+    public Mono<Review> createReview(Review body) {
+        return offload(() -> {
+            try {
+                Review created = writer.create(body);
+
+                LOG.debug("createReview: created a review entity: {}/{}", body.getProductId(), body.getReviewId());
+
+                return created;
+            } catch (DataIntegrityViolationException e) {
+                throw new InvalidInputException("Duplicate key, Product Id: " + body.getProductId() + ", Review Id: " + body.getReviewId());
+            }
+        });
+    }
+
+    /**
+     * Every chunk of the batch size is one task on the jpa scheduler, the next chunk is only read from the request once
+     * the previous one is written.
+     */
+    @Override
+    public Mono<BulkResult> createReviews(Flux<Review> body) {
+        return body.buffer(bulkBatchSize)
+                .index()
+                .concatMap(batch -> offload(() -> bulkWriter.write(batch.getT2(), (int) (batch.getT1() * bulkBatchSize))))
+                .reduce(BulkResult::combine)
+                .defaultIfEmpty(new BulkResult());
+    }
+
+    @Override
+    public Flux<Review> getReviews(int productId, View view) {
+        if (productId < 1) return Flux.error(new InvalidInputException("Invalid productId: " + productId));
+
+        // a cached list is served on the calling thread, only a miss takes a slot of the jpa scheduler
+        List<Review> cached = listCache.getIfPresent(productId, view);
+        if (cached != null) return Flux.fromIterable(cached);
+
+        return offload(() -> {
+            List<Review> list = listCache.get(productId, view, () -> {
+                List<Review> loaded = (view == View.SUMMARY)
+                        ? mapper.headerListToApiList(repository.findHeadersByProductId(productId))
+                        : mapper.entityListToApiList(repository.findByProductId(productId));
+                loaded.forEach(e -> e.setServiceAddress(serviceUtil.getElementServiceAddress()));
+                return loaded;
+            });
+
+            LOG.debug("getReviews: response size: {}", list.size());
+
+            return list;
+        }).flatMapMany(Flux::fromIterable);
+    }
+
+    @Override
+    public Flux<Review> getReviewsForProducts(List<Integer> productIds, View view) {
+        if (productIds.stream().anyMatch(productId -> productId < 1)) {
+            return Flux.error(new InvalidInputException("Invalid productIds: " + productIds));
+        }
+
+        return offload(() -> {
+            List<Review> list = (view == View.SUMMARY)
+                    ? mapper.headerListToApiList(repository.findHeadersByProductIdIn(productIds))
+                    : mapper.entityListToApiList(repository.findByProductIdIn(productIds));
+            list.forEach(e -> e.setServiceAddress(serviceUtil.getElementServiceAddress()));
+
+            LOG.debug("getReviewsForProducts: response size for {} products: {}", productIds.size(), list.size());
+
+            return list;
+        }).flatMapMany(Flux::fromIterable);
+    }
+
+    @Override
+    public Mono<ReviewPage> getReviewPage(int productId, Integer cursor, int size, View view) {
+        try {
+            validatePageRequest(productId, size, maxPageSize);
+        } catch (InvalidInputException e) {
+            return Mono.error(e);
+        }
+
+        if (cursor == null) {
+            List<Review> cached = listCache.getFirstPageIfPresent(productId, view, size);
+            if (cached != null) return Mono.just(toPage(productId, cached, size));
+        }
+
+        return offload(() -> {
+            List<Review> list = (cursor == null)
+                    ? listCache.getFirstPage(productId, view, size, () -> loadPage(productId, null, size, view))
+                    : loadPage(productId, cursor, size, view);
+
+            LOG.debug("getReviewPage: response size for productId {} after {}: {}", productId, cursor, list.size());
+
+            return toPage(productId, list, size);
+        });
+    }
+
+    @Override
+    public Flux<ReviewPage> getFirstReviewPages(List<Integer> productIds, int size, View view) {
+        try {
+            productIds.forEach(productId -> validatePageRequest(productId, size, maxPageSize));
+        } catch (InvalidInputException e) {
+            return Flux.error(e);
+        }
+
+        // see ReviewServiceImpl, the jpa scheduler is only used when some of the pages are not cached
+        Map<Integer, ReviewPage> pages = cachedFirstPages(listCache, productIds, size, view);
+        List<Integer> missing = notIn(productIds, pages);
+        if (missing.isEmpty()) return Flux.fromIterable(inRequestedOrder(productIds, pages, new ArrayList<>()));
+
+        return offload(() -> {
+            List<ReviewPage> loaded = findFirstPages(repository, mapper, missing, size, view);
+            loaded.forEach(page -> page.getReviews().forEach(e -> e.setServiceAddress(serviceUtil.getElementServiceAddress())));
+
+            LOG.debug("getFirstReviewPages: {} of {} products from the cache", pages.size(), productIds.size());
+
+            return inRequestedOrder(productIds, pages, loaded);
+        }).flatMapMany(Flux::fromIterable);
+    }
+
+    /**
+     * Every page is a separate task on the jpa scheduler, the next one is only read once the previous page has been
+     * requested downstream.
+     */
+    @Override
+    public Flux<Review> streamReviews(int productId) {
+        if (productId < 1) return Flux.error(new InvalidInputException("Invalid productId: " + productId));
+
+        return readPage(productId, null)
+                .expand(page -> page.getNextCursor() == null ? Mono.empty() : readPage(productId, page.getNextCursor()))
+                .flatMapIterable(ReviewPage::getReviews, 1);
+    }
+
+    /**
+     * A page of the stream, read past the list cache.
+     */
+    private Mono<ReviewPage> readPage(int productId, Integer cursor) {
+        return offload(() -> toPage(productId, loadPage(productId, cursor, maxPageSize, View.FULL), maxPageSize));
+    }
+
+    private List<Review> loadPage(int productId, Integer cursor, int size, View view) {
+        List<Review> list = findPage(repository, mapper, productId, cursor, size, view);
+        list.forEach(e -> e.setServiceAddress(serviceUtil.getElementServiceAddress()));
+        return list;
+    }
+
+    @Override
+    public Mono<Void> deleteReviews(int productId) {
+        return offload(() -> {
+            LOG.debug("deleteReviews: tries to delete reviews for the product with productId: {}", productId);
+            return writer.deleteByProductId(productId);
+        }).doOnNext(deleted -> LOG.debug("deleteReviews: deleted {} reviews", deleted)).then();
+    }
+
+    private <T> Mono<T> offload(Callable<T> jpaCall) {
+        return Mono.fromCallable(jpaCall)
+                .subscribeOn(jpaScheduler)
+                .onErrorMap(RejectedExecutionException.class, e -> new ServiceUnavailableException("Review service is overloaded, try again later"));
+    }
+}
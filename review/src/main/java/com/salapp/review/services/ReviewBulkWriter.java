@@ -0,0 +1,120 @@
+package com.salapp.review.services;
+
+import com.salapp.api.core.bulk.BulkFailure;
+import com.salapp.api.core.bulk.BulkResult;
+import com.salapp.api.core.review.Review;
+import com.salapp.review.repositories.ReviewKey;
+import com.salapp.review.repositories.ReviewRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Writes one chunk of a bulk request. Duplicates are sorted out up front with a single key query, the remaining reviews
+ * are saved in one transaction so Hibernate can send the inserts, and those of their outbox events, as JDBC batches,
+ * see hibernate.jdbc.batch_size.
+ */
+@Component
+public class ReviewBulkWriter {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ReviewBulkWriter.class);
+
+    private final ReviewRepository repository;
+
+    private final ReviewWriter writer;
+
+    @Autowired
+    public ReviewBulkWriter(ReviewRepository repository, ReviewWriter writer) {
+        this.repository = repository;
+        this.writer = writer;
+    }
+
+    /**
+     * @param batch      the reviews to write
+     * @param firstIndex position of the first review of the batch in the whole request, used in the failures
+     */
+    public BulkResult write(List<Review> batch, int firstIndex) {
+        List<BulkFailure> failures = new ArrayList<>();
+        List<Review> fresh = new ArrayList<>(batch.size());
+        List<Integer> freshIndexes = new ArrayList<>(batch.size());
+
+        Set<Long> existing = findExistingKeys(batch);
+        Set<Long> seen = new HashSet<>();
+        for (int i = 0; i < batch.size(); i++) {
+            Review review = batch.get(i);
+            long key = key(review.getProductId(), review.getReviewId());
+            if (review.getProductId() < 1) {
+                failures.add(failure(firstIndex + i, review, "Invalid productId: " + review.getProductId()));
+            } else if (existing.contains(key) || !seen.add(key)) {
+                failures.add(failure(firstIndex + i, review, duplicateMessage(review)));
+            } else {
+                fresh.add(review);
+                freshIndexes.add(firstIndex + i);
+            }
+        }
+
+        int created = fresh.isEmpty() ? 0 : save(fresh, freshIndexes, failures);
+
+        LOG.debug("write: created {} of {} reviews, {} failed", created, batch.size(), failures.size());
+
+        return new BulkResult(batch.size(), created, failures);
+    }
+
+    /**
+     * Saves the reviews together, when another request inserted one of them after the key query the whole transaction
+     * is rolled back and the reviews are saved one at a time to find out which.
+     */
+    private int save(List<Review> reviews, List<Integer> indexes, List<BulkFailure> failures) {
+        try {
+            return writer.createAll(reviews);
+        } catch (DataIntegrityViolationException e) {
+            LOG.debug("save: concurrent insert of one of {} reviews, saving them one by one", reviews.size());
+        }
+
+        int created = 0;
+        for (int i = 0; i < reviews.size(); i++) {
+            Review review = reviews.get(i);
+            try {
+                writer.create(review);
+                created++;
+            } catch (DataIntegrityViolationException e) {
+                failures.add(failure(indexes.get(i), review, duplicateMessage(review)));
+            }
+        }
+        return created;
+    }
+
+    private Set<Long> findExistingKeys(List<Review> batch) {
+        Set<Integer> productIds = new HashSet<>();
+        Set<Integer> reviewIds = new HashSet<>();
+        batch.forEach(review -> {
+            productIds.add(review.getProductId());
+            reviewIds.add(review.getReviewId());
+        });
+
+        Set<Long> keys = new HashSet<>();
+        for (ReviewKey existing : repository.findByProductIdInAndReviewIdIn(productIds, reviewIds)) {
+            keys.add(key(existing.getProductId(), existing.getReviewId()));
+        }
+        return keys;
+    }
+
+    private static long key(int productId, int reviewId) {
+        return ((long) productId << 32) | (reviewId & 0xffffffffL);
+    }
+
+    private static BulkFailure failure(int index, Review review, String message) {
+        return new BulkFailure(index, review.getProductId(), review.getReviewId(), message);
+    }
+
+    private static String duplicateMessage(Review review) {
+        return "Duplicate key, Product Id: " + review.getProductId() + ", Review Id: " + review.getReviewId();
+    }
+}
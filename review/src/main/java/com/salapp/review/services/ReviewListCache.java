@@ -0,0 +1,176 @@
+package com.salapp.review.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.salapp.api.core.View;
+import com.salapp.api.core.review.Review;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Cache aside for the reviews of a product, one list per productId and view, and the first page of them per
+ * productId, view and page size. The lists are cached as they are read, mapped and with the service address set, and
+ * are never changed afterwards. A first page is cached with the one review after it that tells whether there is a
+ * next page.
+ * <p>
+ * A list of a popular product can be thousands of times larger than a typical one, so the cache is bounded by the
+ * approximate size of the lists in memory rather than by their number. Writes in this instance drop the lists of the
+ * product once they are committed, see {@link ReviewWriter}; writes in other instances are seen after the ttl.
+ * <p>
+ * Hits, misses and evictions are exported as cache.* metrics tagged with cache=review-lists.
+ */
+@Component
+public class ReviewListCache {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ReviewListCache.class);
+
+    private static final int ALL = 0;
+
+    static final String NAME = "review-lists";
+
+    private final Cache<Key, List<Review>> cache;
+    private final Set<Integer> pageSizes = ConcurrentHashMap.newKeySet();
+
+    /**
+     * The JPA test slice has no MeterRegistry, the cache is not monitored there.
+     */
+    @Autowired
+    public ReviewListCache(
+            ObjectProvider<MeterRegistry> registry,
+            @Value("${app.list-cache.max-size:64MB}") DataSize maxSize,
+            @Value("${app.list-cache.ttl:1m}") Duration ttl) {
+
+        this(registry.getIfAvailable(), maxSize, ttl);
+    }
+
+    /**
+     * @param registry null to not monitor the cache
+     */
+    public ReviewListCache(MeterRegistry registry, DataSize maxSize, Duration ttl) {
+        LOG.info("Caches up to {} of review lists for {}", maxSize, ttl);
+
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxSize.toBytes())
+                .weigher((Key key, List<Review> reviews) -> weigh(reviews))
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+
+        if (registry != null) CaffeineCacheMetrics.monitor(registry, cache, NAME);
+    }
+
+    /**
+     * Returns the cached list or loads it, concurrent lookups of the same list load it once. A write that drops the
+     * list while it is loaded waits for the load, the loaded list is then dropped as well.
+     *
+     * @param loader reads and maps the reviews
+     * @return an unmodifiable list
+     */
+    public List<Review> get(int productId, View view, Supplier<List<Review>> loader) {
+        return cache.get(new Key(productId, view, ALL), key -> Collections.unmodifiableList(new ArrayList<>(loader.get())));
+    }
+
+    /**
+     * For callers that should not block on a load, the reactive service only offloads the misses.
+     *
+     * @return the cached list, null if it is not cached
+     */
+    public List<Review> getIfPresent(int productId, View view) {
+        return cache.getIfPresent(new Key(productId, view, ALL));
+    }
+
+    /**
+     * Like {@link #get}, for the first page of the reviews.
+     *
+     * @param loader reads and maps the first {@code size} reviews and the one after them
+     */
+    public List<Review> getFirstPage(int productId, View view, int size, Supplier<List<Review>> loader) {
+        pageSizes.add(size);
+        return cache.get(new Key(productId, view, size), key -> Collections.unmodifiableList(new ArrayList<>(loader.get())));
+    }
+
+    /**
+     * @return the cached first page and the review after it, null if it is not cached
+     */
+    public List<Review> getFirstPageIfPresent(int productId, View view, int size) {
+        return cache.getIfPresent(new Key(productId, view, size));
+    }
+
+    /**
+     * Drops the lists and the first pages of every size asked for so far.
+     */
+    public void invalidate(int productId) {
+        LOG.debug("Drops the cached reviews for productId: {}", productId);
+        for (View view : View.values()) {
+            cache.invalidate(new Key(productId, view, ALL));
+            for (int size : pageSizes) {
+                cache.invalidate(new Key(productId, view, size));
+            }
+        }
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    /**
+     * Approximate heap size of the list on a 64-bit JVM with compressed references, strings counted as two bytes per
+     * character. Good enough to compare lists, not to account for every byte.
+     */
+    static int weigh(List<Review> reviews) {
+        long bytes = 40L + 4L * reviews.size();
+        for (Review review : reviews) {
+            bytes += 40 + weigh(review.getAuthor()) + weigh(review.getSubject()) + weigh(review.getContent())
+                    + weigh(review.getServiceAddress());
+        }
+        return (int) Math.min(bytes, Integer.MAX_VALUE);
+    }
+
+    private static int weigh(String value) {
+        return (value == null) ? 0 : 40 + 2 * value.length();
+    }
+
+    /**
+     * The size of a first page, or {@link #ALL} for the whole list.
+     */
+    private static final class Key {
+        private final int productId;
+        private final View view;
+        private final int size;
+
+        Key(int productId, View view, int size) {
+            this.productId = productId;
+            this.view = view;
+            this.size = size;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key other = (Key) o;
+            return productId == other.productId && view == other.view && size == other.size;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(productId, view, size);
+        }
+    }
+}
@@ -2,6 +2,7 @@ package com.salapp.review.services;
 
 import com.salapp.api.core.review.Review;
 import com.salapp.review.model.ReviewEntity;
+import com.salapp.review.repositories.ReviewHeader;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
 
@@ -21,5 +22,11 @@ public interface ReviewMapper {
 
     List<Review> entityListToApiList(List<ReviewEntity> entity);
 
+    @Mapping(target = "content", ignore = true)
+    @Mapping(target = "serviceAddress", ignore = true)
+    Review headerToApi(ReviewHeader header);
+
+    List<Review> headerListToApiList(List<ReviewHeader> headers);
+
     List<ReviewEntity> apiListToEntityList(List<Review> api);
 }
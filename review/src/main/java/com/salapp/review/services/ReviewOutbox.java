@@ -0,0 +1,81 @@
+package com.salapp.review.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.salapp.api.core.review.Review;
+import com.salapp.api.event.Event;
+import com.salapp.review.model.OutboxMessageEntity;
+import com.salapp.review.repositories.OutboxRepository;
+import com.salapp.util.outbox.OutboxMessage;
+import com.salapp.util.outbox.OutboxStore;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * The outbox table of the review service. Events are appended in the transaction of the change they describe, see
+ * {@link ReviewWriter}, and relayed to the reviews topic by the outbox relay. Nothing is appended unless
+ * {@code app.outbox.enabled} is set.
+ */
+@Component
+public class ReviewOutbox implements OutboxStore {
+
+    static final String TOPIC = "reviews";
+
+    private final OutboxRepository repository;
+
+    private final ObjectMapper mapper;
+
+    private final boolean enabled;
+
+    /**
+     * The JPA test slice has no ObjectMapper, a default one is used there.
+     */
+    @Autowired
+    public ReviewOutbox(OutboxRepository repository, ObjectProvider<ObjectMapper> mapper, @Value("${app.outbox.enabled:false}") boolean enabled) {
+        this(repository, mapper.getIfAvailable(() -> Jackson2ObjectMapperBuilder.json().build()), enabled);
+    }
+
+    public ReviewOutbox(OutboxRepository repository, ObjectMapper mapper, boolean enabled) {
+        this.repository = repository;
+        this.mapper = mapper;
+        this.enabled = enabled;
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void append(List<Event<Integer, Review>> events) {
+        if (!enabled || events.isEmpty()) return;
+
+        repository.saveAll(events.stream()
+                .map(event -> new OutboxMessageEntity(TOPIC, event.getKey(), toJson(event), event.getEventCreatedAt()))
+                .collect(Collectors.toList()));
+    }
+
+    @Override
+    public List<OutboxMessage> findOldest(int limit) {
+        return repository.findByOrderByIdAsc(PageRequest.of(0, limit)).stream()
+                .map(entity -> new OutboxMessage(String.valueOf(entity.getId()), entity.getTopic(), entity.getProductId(), entity.getPayload(), entity.getCreatedAt()))
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public void delete(List<OutboxMessage> messages) {
+        repository.deleteByIdIn(messages.stream().map(message -> Long.valueOf(message.getId())).collect(Collectors.toList()));
+    }
+
+    private String toJson(Event<Integer, Review> event) {
+        try {
+            return mapper.writeValueAsString(event);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize a " + event.getEventType() + " event for productId " + event.getKey(), e);
+        }
+    }
+}
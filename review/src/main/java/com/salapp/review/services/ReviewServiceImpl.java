@@ -1,20 +1,38 @@
 package com.salapp.review.services;
 
+import com.salapp.api.core.View;
+import com.salapp.api.core.bulk.BulkResult;
 import com.salapp.api.core.review.Review;
+import com.salapp.api.core.review.ReviewPage;
 import com.salapp.api.core.review.ReviewService;
-import com.salapp.review.model.ReviewEntity;
+import com.salapp.review.repositories.ReviewHeader;
 import com.salapp.review.repositories.ReviewRepository;
 import com.salapp.util.exceptions.InvalidInputException;
+import com.salapp.util.exceptions.ServiceUnavailableException;
 import com.salapp.util.http.ServiceUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.stream.Collectors;
 
 @RestController
+@ConditionalOnProperty(name = "app.persistence.mode", havingValue = "blocking", matchIfMissing = true)
 public class ReviewServiceImpl implements ReviewService {
 
     private static final Logger LOG = LoggerFactory.getLogger(ReviewServiceImpl.class);
@@ -25,44 +43,239 @@ public class ReviewServiceImpl implements ReviewService {
 
     private final ReviewMapper mapper;
 
+    private final ReviewWriter writer;
+
+    private final ReviewBulkWriter bulkWriter;
+
+    private final ReviewListCache listCache;
+
+    private final Scheduler jpaScheduler;
+
+    private final int maxPageSize;
+
+    private final int bulkBatchSize;
+
     @Autowired
-    public ReviewServiceImpl(ReviewRepository repository, ReviewMapper mapper, ServiceUtil serviceUtil) {
+    public ReviewServiceImpl(ReviewRepository repository, ReviewMapper mapper, ServiceUtil serviceUtil, ReviewWriter writer, ReviewBulkWriter bulkWriter,
+                             ReviewListCache listCache, @Qualifier("jpaScheduler") Scheduler jpaScheduler,
+                             @Value("${app.page.max-size:100}") int maxPageSize,
+                             @Value("${app.bulk.batch-size:500}") int bulkBatchSize) {
         this.repository = repository;
         this.mapper = mapper;
         this.serviceUtil = serviceUtil;
+        this.writer = writer;
+        this.bulkWriter = bulkWriter;
+        this.listCache = listCache;
+        this.jpaScheduler = jpaScheduler;
+        this.maxPageSize = maxPageSize;
+        this.bulkBatchSize = bulkBatchSize;
     }
 
     @Override
     public Review createReview(Review body) {
         try {
-            ReviewEntity entity = mapper.apiToEntity(body);
-            ReviewEntity newEntity = repository.save(entity);
+            Review created = writer.create(body);
 
             LOG.debug("createReview: created a review entity: {}/{}", body.getProductId(), body.getReviewId());
 
-            return mapper.entityToApi(newEntity);
+            return created;
         } catch (DataIntegrityViolationException e) {
             throw new InvalidInputException("Duplicate key, Product Id: " + body.getProductId() + ", Review Id: " + body.getReviewId());
         }
 
     }
 
+    /**
+     * The body is written in chunks of the batch size as it is read, a large request is never held in memory as a whole.
+     * The chunks are written on the JPA scheduler, not on the thread that delivers the body.
+     */
+    @Override
+    public Mono<BulkResult> createReviews(Flux<Review> body) {
+        return body.buffer(bulkBatchSize)
+                .index()
+                .concatMap(batch -> offload(() -> bulkWriter.write(batch.getT2(), (int) (batch.getT1() * bulkBatchSize))))
+                .reduce(BulkResult::combine)
+                .defaultIfEmpty(new BulkResult());
+    }
+
     @Override
-    public List<Review> getReviews(int productId) {
+    public List<Review> getReviews(int productId, View view) {
         if (productId < 1) throw new InvalidInputException("Invalid productId: " + productId);
 
-        List<ReviewEntity> entityList = repository.findByProductId(productId);
-        List<Review> list = mapper.entityListToApiList(entityList);
-        list.forEach(e -> e.setServiceAddress(serviceUtil.getServiceAddress()));
+        List<Review> list = listCache.get(productId, view, () -> loadReviews(productId, view));
 
         LOG.debug("getReviews: response size: {}", list.size());
 
         return list;
     }
 
+    @Override
+    public List<Review> getReviewsForProducts(List<Integer> productIds, View view) {
+        productIds.forEach(productId -> {
+            if (productId < 1) throw new InvalidInputException("Invalid productId: " + productId);
+        });
+
+        List<Review> list = (view == View.SUMMARY)
+                ? mapper.headerListToApiList(repository.findHeadersByProductIdIn(productIds))
+                : mapper.entityListToApiList(repository.findByProductIdIn(productIds));
+        list.forEach(e -> e.setServiceAddress(serviceUtil.getElementServiceAddress()));
+
+        LOG.debug("getReviewsForProducts: response size for {} products: {}", productIds.size(), list.size());
+
+        return list;
+    }
+
+    /**
+     * The first page is served from the list cache.
+     */
+    @Override
+    public ReviewPage getReviewPage(int productId, Integer cursor, int size, View view) {
+        validatePageRequest(productId, size, maxPageSize);
+
+        List<Review> list = (cursor == null)
+                ? listCache.getFirstPage(productId, view, size, () -> loadPage(productId, null, size, view))
+                : loadPage(productId, cursor, size, view);
+
+        LOG.debug("getReviewPage: response size for productId {} after {}: {}", productId, cursor, list.size());
+
+        return toPage(productId, list, size);
+    }
+
+    /**
+     * First pages in the list cache are served from there, the others are read in one query and not cached: unlike a
+     * single load, the batch cannot be kept from racing a write.
+     */
+    @Override
+    public List<ReviewPage> getFirstReviewPages(List<Integer> productIds, int size, View view) {
+        productIds.forEach(productId -> validatePageRequest(productId, size, maxPageSize));
+
+        Map<Integer, ReviewPage> pages = cachedFirstPages(listCache, productIds, size, view);
+        List<ReviewPage> loaded = findFirstPages(repository, mapper, notIn(productIds, pages), size, view);
+        loaded.forEach(page -> page.getReviews().forEach(e -> e.setServiceAddress(serviceUtil.getElementServiceAddress())));
+
+        LOG.debug("getFirstReviewPages: {} of {} products from the cache", pages.size(), productIds.size());
+
+        return inRequestedOrder(productIds, pages, loaded);
+    }
+
+    /**
+     * Walks through the reviews one page of the maximum size at a time, only one page is held in memory. The pages are
+     * read on the JPA scheduler.
+     */
+    @Override
+    public Flux<Review> streamReviews(int productId) {
+        if (productId < 1) return Flux.error(new InvalidInputException("Invalid productId: " + productId));
+
+        return offload(() -> toPage(productId, loadPage(productId, null, maxPageSize, View.FULL), maxPageSize))
+                .expand(page -> page.getNextCursor() == null ? Mono.empty()
+                        : offload(() -> toPage(productId, loadPage(productId, page.getNextCursor(), maxPageSize, View.FULL), maxPageSize)))
+                .flatMapIterable(ReviewPage::getReviews, 1);
+    }
+
     @Override
     public void deleteReviews(int productId) {
         LOG.debug("deleteReviews: tries to delete reviews for the product with productId: {}", productId);
-        repository.deleteAll(repository.findByProductId(productId));
+        int deleted = writer.deleteByProductId(productId);
+        LOG.debug("deleteReviews: deleted {} reviews", deleted);
+    }
+
+    private List<Review> loadReviews(int productId, View view) {
+        List<Review> list = (view == View.SUMMARY)
+                ? mapper.headerListToApiList(repository.findHeadersByProductId(productId))
+                : mapper.entityListToApiList(repository.findByProductId(productId));
+        list.forEach(e -> e.setServiceAddress(serviceUtil.getElementServiceAddress()));
+        return list;
+    }
+
+    private List<Review> loadPage(int productId, Integer cursor, int size, View view) {
+        List<Review> list = findPage(repository, mapper, productId, cursor, size, view);
+        list.forEach(e -> e.setServiceAddress(serviceUtil.getElementServiceAddress()));
+        return list;
+    }
+
+    private <T> Mono<T> offload(Callable<T> jpaCall) {
+        return Mono.fromCallable(jpaCall)
+                .subscribeOn(jpaScheduler)
+                .onErrorMap(RejectedExecutionException.class, e -> new ServiceUnavailableException("Review service is overloaded, try again later"));
+    }
+
+    static void validatePageRequest(int productId, int size, int maxPageSize) {
+        if (productId < 1) throw new InvalidInputException("Invalid productId: " + productId);
+        if (size < 1 || size > maxPageSize) {
+            throw new InvalidInputException("Page size must be between 1 and " + maxPageSize + ", got: " + size);
+        }
+    }
+
+    /**
+     * Reads one review more than the page size, that tells whether there is a next page without a count query. The
+     * summary view reads the {@link ReviewHeader} projection instead of the entities.
+     */
+    static List<Review> findPage(ReviewRepository repository, ReviewMapper mapper, int productId, Integer cursor, int size, View view) {
+        PageRequest pageable = PageRequest.of(0, size + 1);
+        if (view == View.SUMMARY) {
+            return mapper.headerListToApiList((cursor == null)
+                    ? repository.findHeadersByProductIdOrderByReviewIdAsc(productId, pageable)
+                    : repository.findHeadersByProductIdAndReviewIdGreaterThanOrderByReviewIdAsc(productId, cursor, pageable));
+        }
+        return mapper.entityListToApiList((cursor == null)
+                ? repository.findByProductIdOrderByReviewIdAsc(productId, pageable)
+                : repository.findByProductIdAndReviewIdGreaterThanOrderByReviewIdAsc(productId, cursor, pageable));
+    }
+
+    /**
+     * Ranks the reviews of all products in one query and reads one review more than the page size of each, as
+     * {@link #findPage} does for a single product.
+     */
+    static List<ReviewPage> findFirstPages(ReviewRepository repository, ReviewMapper mapper, List<Integer> productIds, int size, View view) {
+        if (productIds.isEmpty()) return new ArrayList<>();
+
+        List<Integer> ids = repository.findFirstIdsByProductIdIn(productIds, size + 1);
+        List<Review> reviews;
+        if (ids.isEmpty()) {
+            reviews = new ArrayList<>();
+        } else if (view == View.SUMMARY) {
+            reviews = mapper.headerListToApiList(repository.findHeadersByIdInOrderByProductIdAscReviewIdAsc(ids));
+        } else {
+            reviews = mapper.entityListToApiList(repository.findByIdInOrderByProductIdAscReviewIdAsc(ids));
+        }
+
+        Map<Integer, List<Review>> reviewsByProduct = reviews.stream().collect(Collectors.groupingBy(Review::getProductId));
+        return productIds.stream()
+                .distinct()
+                .map(productId -> toPage(productId, reviewsByProduct.getOrDefault(productId, new ArrayList<>()), size))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * @return the first pages found in the list cache, by productId
+     */
+    static Map<Integer, ReviewPage> cachedFirstPages(ReviewListCache listCache, List<Integer> productIds, int size, View view) {
+        Map<Integer, ReviewPage> pages = new HashMap<>();
+        for (int productId : productIds) {
+            List<Review> cached = listCache.getFirstPageIfPresent(productId, view, size);
+            if (cached != null) pages.put(productId, toPage(productId, cached, size));
+        }
+        return pages;
+    }
+
+    static List<Integer> notIn(List<Integer> productIds, Map<Integer, ReviewPage> pages) {
+        return productIds.stream().distinct().filter(productId -> !pages.containsKey(productId)).collect(Collectors.toList());
+    }
+
+    /**
+     * One page per requested product in the order of the productIds, the cached pages merged with the loaded ones.
+     */
+    static List<ReviewPage> inRequestedOrder(List<Integer> productIds, Map<Integer, ReviewPage> cached, List<ReviewPage> loaded) {
+        Map<Integer, ReviewPage> pages = new HashMap<>(cached);
+        loaded.forEach(page -> pages.put(page.getProductId(), page));
+        return productIds.stream().distinct().map(pages::get).collect(Collectors.toList());
+    }
+
+    static ReviewPage toPage(int productId, List<Review> reviews, int size) {
+        if (reviews.size() <= size) {
+            return new ReviewPage(productId, reviews, null);
+        }
+        List<Review> page = new ArrayList<>(reviews.subList(0, size));
+        return new ReviewPage(productId, page, page.get(size - 1).getReviewId());
     }
 }
@@ -0,0 +1,101 @@
+package com.salapp.review.services;
+
+import com.salapp.api.core.review.Review;
+import com.salapp.api.event.Event;
+import com.salapp.review.model.ReviewEntity;
+import com.salapp.review.repositories.ReviewRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static com.salapp.api.event.Event.Type.CREATE;
+import static com.salapp.api.event.Event.Type.DELETE;
+
+/**
+ * Writes reviews and appends their events to the {@link ReviewOutbox} in the same transaction, an event is stored
+ * exactly when its change is. A duplicate key surfaces as a DataIntegrityViolationException when the transaction
+ * commits, as it did when the repository was called directly.
+ * <p>
+ * The cached review lists of the written products are dropped once the transaction has committed, a list loaded before
+ * that would otherwise be cached again without the change.
+ */
+@Component
+public class ReviewWriter {
+
+    private final ReviewRepository repository;
+
+    private final ReviewMapper mapper;
+
+    private final ReviewOutbox outbox;
+
+    private final ReviewListCache listCache;
+
+    @Autowired
+    public ReviewWriter(ReviewRepository repository, ReviewMapper mapper, ReviewOutbox outbox, ReviewListCache listCache) {
+        this.repository = repository;
+        this.mapper = mapper;
+        this.outbox = outbox;
+        this.listCache = listCache;
+    }
+
+    @Transactional
+    public Review create(Review body) {
+        Review created = mapper.entityToApi(repository.save(mapper.apiToEntity(body)));
+        outbox.append(Collections.singletonList(new Event<>(CREATE, created.getProductId(), created)));
+        invalidateAfterCommit(Collections.singleton(created.getProductId()));
+        return created;
+    }
+
+    /**
+     * Saves the reviews together, a duplicate among them rolls back all of them.
+     *
+     * @return the number of created reviews
+     */
+    @Transactional
+    public int createAll(List<Review> reviews) {
+        List<ReviewEntity> saved = new ArrayList<>(reviews.size());
+        repository.saveAll(mapper.apiListToEntityList(reviews)).forEach(saved::add);
+
+        outbox.append(mapper.entityListToApiList(saved).stream()
+                .map(created -> new Event<Integer, Review>(CREATE, created.getProductId(), created))
+                .collect(Collectors.toList()));
+        invalidateAfterCommit(saved.stream().map(ReviewEntity::getProductId).collect(Collectors.toSet()));
+        return saved.size();
+    }
+
+    /**
+     * Only a delete that removed reviews is published.
+     *
+     * @return the number of deleted reviews
+     */
+    @Transactional
+    public int deleteByProductId(int productId) {
+        int deleted = repository.deleteByProductId(productId);
+        if (deleted > 0) {
+            outbox.append(Collections.singletonList(new Event<>(DELETE, productId, null)));
+            invalidateAfterCommit(Collections.singleton(productId));
+        }
+        return deleted;
+    }
+
+    private void invalidateAfterCommit(Collection<Integer> productIds) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            productIds.forEach(listCache::invalidate);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                productIds.forEach(listCache::invalidate);
+            }
+        });
+    }
+}
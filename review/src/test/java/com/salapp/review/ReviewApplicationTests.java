@@ -1,23 +1,43 @@
 package com.salapp.review;
 
+import brave.handler.MutableSpan;
+import com.fasterxml.jackson.core.type.TypeReference;
 import com.salapp.api.core.review.Review;
+import com.salapp.review.model.ReviewEntity;
 import com.salapp.review.repositories.ReviewRepository;
+import com.salapp.review.services.ReviewListCache;
+import com.salapp.util.http.ServiceUtil;
+import com.salapp.util.tracing.InMemorySpanHandler;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.metrics.AutoConfigureMetrics;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
 import org.springframework.test.web.reactive.server.WebTestClient;
 
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static com.salapp.api.core.CoreMediaTypes.APPLICATION_SMILE;
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.springframework.http.HttpStatus.*;
 import static reactor.core.publisher.Mono.just;
 
 import static org.springframework.http.MediaType.APPLICATION_JSON;
+import static org.springframework.http.MediaType.APPLICATION_NDJSON;
 
+@AutoConfigureMetrics
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
-        "spring.datasource.url=jdbc:h2:mem:review-db"
+        "spring.datasource.url=jdbc:h2:mem:review-db",
+        "spring.sleuth.sampler.probability=1.0"
 })
+@Import(InMemorySpanHandler.class)
 class ReviewApplicationTests {
 
     @Autowired
@@ -26,9 +46,16 @@ class ReviewApplicationTests {
     @Autowired
     private ReviewRepository repository;
 
+    @Autowired
+    private ReviewListCache listCache;
+
+    @Autowired
+    private InMemorySpanHandler spans;
+
     @BeforeEach
     void setupDB() {
         repository.deleteAll();
+        listCache.invalidateAll();
     }
 
     @Test
@@ -49,6 +76,98 @@ class ReviewApplicationTests {
                 .jsonPath("$[2].reviewId").isEqualTo(3);
     }
 
+    @Test
+    void getReviewPagesByProductId() {
+        int productId = 1;
+
+        for (int reviewId = 1; reviewId <= 5; reviewId++) {
+            postAndVerifyReview(productId, reviewId, OK);
+        }
+
+        getAndVerifyReviewPage("?productId=" + productId + "&size=2", OK)
+                .jsonPath("$.reviews.length()").isEqualTo(2)
+                .jsonPath("$.reviews[0].reviewId").isEqualTo(1)
+                .jsonPath("$.reviews[1].reviewId").isEqualTo(2)
+                .jsonPath("$.nextCursor").isEqualTo(2);
+
+        getAndVerifyReviewPage("?productId=" + productId + "&size=2&cursor=4", OK)
+                .jsonPath("$.reviews.length()").isEqualTo(1)
+                .jsonPath("$.reviews[0].reviewId").isEqualTo(5)
+                .jsonPath("$.nextCursor").doesNotExist();
+    }
+
+    @Test
+    void getFirstReviewPagesOfProducts() {
+        for (int reviewId = 1; reviewId <= 3; reviewId++) {
+            postAndVerifyReview(1, reviewId, OK);
+        }
+        postAndVerifyReview(2, 1, OK);
+
+        getAndVerifyReviewPage("?productIds=3,1,2&size=2&view=SUMMARY", OK)
+                .jsonPath("$.length()").isEqualTo(3)
+                .jsonPath("$[0].productId").isEqualTo(3)
+                .jsonPath("$[0].reviews.length()").isEqualTo(0)
+                .jsonPath("$[1].productId").isEqualTo(1)
+                .jsonPath("$[1].reviews.length()").isEqualTo(2)
+                .jsonPath("$[1].reviews[1].reviewId").isEqualTo(2)
+                .jsonPath("$[1].reviews[0].content").doesNotExist()
+                .jsonPath("$[1].nextCursor").isEqualTo(2)
+                .jsonPath("$[2].reviews.length()").isEqualTo(1)
+                .jsonPath("$[2].nextCursor").doesNotExist();
+    }
+
+    @Test
+    void summaryViewLeavesOutTheContent() {
+        int productId = 1;
+
+        postAndVerifyReview(productId, 1, OK);
+        postAndVerifyReview(productId, 2, OK);
+
+        getAndVerifyReviewsByProductId("?productId=" + productId + "&view=SUMMARY", OK)
+                .jsonPath("$.length()").isEqualTo(2)
+                .jsonPath("$[0].author").isNotEmpty()
+                .jsonPath("$[0].version").isEqualTo(0)
+                .jsonPath("$[0].content").doesNotExist();
+
+        getAndVerifyReviewPage("?productId=" + productId + "&size=1&view=SUMMARY", OK)
+                .jsonPath("$.reviews.length()").isEqualTo(1)
+                .jsonPath("$.reviews[0].subject").isNotEmpty()
+                .jsonPath("$.reviews[0].content").doesNotExist()
+                .jsonPath("$.nextCursor").isEqualTo(1);
+
+        getAndVerifyReviewsByProductId("?productId=" + productId, OK)
+                .jsonPath("$[0].content").isNotEmpty();
+    }
+
+    @Test
+    void getReviewPageInvalidSize() {
+        getAndVerifyReviewPage("?productId=1&size=0", UNPROCESSABLE_ENTITY)
+                .jsonPath("$.path").isEqualTo("/review/page")
+                .jsonPath("$.message").isEqualTo("Page size must be between 1 and 100, got: 0");
+    }
+
+    @Test
+    void streamReviewsByProductId() {
+        int productId = 1;
+
+        for (int reviewId = 1; reviewId <= 3; reviewId++) {
+            postAndVerifyReview(productId, reviewId, OK);
+        }
+
+        List<Review> reviews = client.get()
+                .uri("/review/stream?productId=" + productId)
+                .accept(APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentType(APPLICATION_NDJSON)
+                .returnResult(Review.class)
+                .getResponseBody()
+                .collectList()
+                .block();
+
+        assertThat(reviews).extracting(Review::getReviewId).containsExactly(1, 2, 3);
+    }
+
     @Test
     void duplicateError() {
         int productId = 1;
@@ -69,6 +188,54 @@ class ReviewApplicationTests {
         Assertions.assertEquals(1, repository.count());
     }
 
+    @Test
+    void createReviewsInBulk() {
+        int productId = 1;
+
+        postAndVerifyReview(productId, 2, OK);
+
+        List<Review> reviews = Arrays.asList(review(productId, 1), review(productId, 2), review(productId, 3), review(productId, 1));
+
+        client.post()
+                .uri("/review/bulk")
+                .contentType(APPLICATION_JSON)
+                .bodyValue(reviews)
+                .accept(APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.received").isEqualTo(4)
+                .jsonPath("$.created").isEqualTo(2)
+                .jsonPath("$.failures.length()").isEqualTo(2)
+                .jsonPath("$.failures[0].index").isEqualTo(1)
+                .jsonPath("$.failures[0].message").isEqualTo("Duplicate key, Product Id: 1, Review Id: 2")
+                .jsonPath("$.failures[1].index").isEqualTo(3)
+                .jsonPath("$.failures[1].id").isEqualTo(1);
+
+        assertThat(repository.findByProductId(productId)).extracting(ReviewEntity::getReviewId).containsExactlyInAnyOrder(1, 2, 3);
+    }
+
+    @Test
+    void createReviewsInBulkFromNdjson() {
+        String body = IntStream.rangeClosed(1, 3)
+                .mapToObj(reviewId -> "{\"productId\":1,\"reviewId\":" + reviewId + ",\"author\":\"a\",\"subject\":\"s\",\"content\":\"c\"}")
+                .collect(Collectors.joining("\n"));
+
+        client.post()
+                .uri("/review/bulk")
+                .contentType(APPLICATION_NDJSON)
+                .bodyValue(body)
+                .accept(APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.received").isEqualTo(3)
+                .jsonPath("$.created").isEqualTo(3)
+                .jsonPath("$.failures.length()").isEqualTo(0);
+
+        Assertions.assertEquals(3, repository.findByProductId(1).size());
+    }
+
     @Test
     void deleteReviews() {
         int productId = 1;
@@ -83,6 +250,126 @@ class ReviewApplicationTests {
         deleteAndVerifyReviewByProductId(productId, OK);
     }
 
+    @Test
+    void cachedReviewsAreDroppedOnWrites() {
+        int productId = 1;
+
+        postAndVerifyReview(productId, 1, OK);
+        getAndVerifyReviewsByProductId(productId, OK).jsonPath("$.length()").isEqualTo(1);
+        getAndVerifyReviewsByProductId(productId, OK).jsonPath("$.length()").isEqualTo(1);
+
+        postAndVerifyReview(productId, 2, OK);
+        getAndVerifyReviewsByProductId(productId, OK).jsonPath("$.length()").isEqualTo(2);
+
+        client.post()
+                .uri("/review/bulk")
+                .contentType(APPLICATION_JSON)
+                .bodyValue(Arrays.asList(review(productId, 3), review(productId, 4)))
+                .exchange()
+                .expectStatus().isOk();
+        getAndVerifyReviewsByProductId(productId, OK).jsonPath("$.length()").isEqualTo(4);
+
+        deleteAndVerifyReviewByProductId(productId, OK);
+        getAndVerifyReviewsByProductId(productId, OK).jsonPath("$.length()").isEqualTo(0);
+    }
+
+    @Test
+    void cachedFirstPagesAreDroppedOnWrites() {
+        postAndVerifyReview(1, 1, OK);
+        getAndVerifyReviewPage("?productId=1&size=2", OK).jsonPath("$.reviews.length()").isEqualTo(1);
+        getAndVerifyReviewPage("?productId=1&size=2", OK).jsonPath("$.reviews.length()").isEqualTo(1);
+
+        postAndVerifyReview(1, 2, OK);
+        postAndVerifyReview(1, 3, OK);
+        postAndVerifyReview(2, 1, OK);
+        getAndVerifyReviewPage("?productId=1&size=2", OK)
+                .jsonPath("$.reviews.length()").isEqualTo(2)
+                .jsonPath("$.nextCursor").isEqualTo(2);
+
+        // product 1 is served from the cached first page, product 2 is read
+        getAndVerifyReviewPage("?productIds=2,1&size=2", OK)
+                .jsonPath("$[0].productId").isEqualTo(2)
+                .jsonPath("$[0].reviews.length()").isEqualTo(1)
+                .jsonPath("$[1].productId").isEqualTo(1)
+                .jsonPath("$[1].reviews.length()").isEqualTo(2)
+                .jsonPath("$[1].nextCursor").isEqualTo(2);
+
+        deleteAndVerifyReviewByProductId(1, OK);
+        getAndVerifyReviewPage("?productIds=1,2&size=2", OK)
+                .jsonPath("$[0].reviews.length()").isEqualTo(0)
+                .jsonPath("$[1].reviews.length()").isEqualTo(1);
+    }
+
+    @Test
+    void repositoryCallsArePublishedAsHistograms() {
+        postAndVerifyReview(1, 1, OK);
+        getAndVerifyReviewsByProductId(1, OK);
+
+        String scrape = client.get()
+                .uri("/actuator/prometheus")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(String.class)
+                .returnResult()
+                .getResponseBody();
+
+        assertThat(scrape)
+                .contains("spring_data_repository_invocations_seconds_bucket{")
+                .contains("method=\"findByProductId\"")
+                .contains("http_server_requests_seconds_bucket{");
+    }
+
+    @Test
+    void repositoryCallIsTracedInTheRequestSpan() {
+        postAndVerifyReview(1, 1, OK);
+        postAndVerifyReview(1, 2, OK);
+        spans.clear();
+
+        getAndVerifyReviewsByProductId(1, OK);
+
+        MutableSpan server = spans.spans().stream()
+                .filter(span -> span.kind() == brave.Span.Kind.SERVER)
+                .findFirst()
+                .orElseThrow(() -> new AssertionError("no server span"));
+        List<MutableSpan> children = spans.childrenOf(server);
+        assertThat(children).extracting(MutableSpan::name).containsExactly("ReviewRepository.findByProductId");
+        assertThat(children.get(0).tag("productId")).isEqualTo("1");
+        assertThat(children.get(0).tag("result.size")).isEqualTo("2");
+    }
+
+    @Test
+    void serviceAddressIsSentInTheHeader() {
+        postAndVerifyReview(1, 1, OK);
+
+        client.get()
+                .uri("/review?productId=1")
+                .accept(APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().value(ServiceUtil.SERVICE_ADDRESS_HEADER, address -> assertThat(address).isNotEmpty())
+                .expectBody()
+                .jsonPath("$[0].serviceAddress").isNotEmpty();
+    }
+
+    @Test
+    void reviewsAreSentInSmileWhenAccepted() throws Exception {
+        postAndVerifyReview(1, 1, OK);
+        postAndVerifyReview(1, 2, OK);
+
+        byte[] body = client.get()
+                .uri("/review?productId=1")
+                .accept(APPLICATION_SMILE)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentType(APPLICATION_SMILE)
+                .expectBody(byte[].class)
+                .returnResult().getResponseBody();
+
+        List<Review> reviews = Jackson2ObjectMapperBuilder.smile().build().readValue(body, new TypeReference<List<Review>>() {
+        });
+        assertThat(reviews).extracting(Review::getReviewId).containsExactly(1, 2);
+    }
+
     @Test
     void getReviewsMissingParameter() {
         getAndVerifyReviewsByProductId("", BAD_REQUEST)
@@ -126,8 +413,22 @@ class ReviewApplicationTests {
                 .expectBody();
     }
 
+    private WebTestClient.BodyContentSpec getAndVerifyReviewPage(String query, HttpStatus expectedStatus) {
+        return client.get()
+                .uri("/review/page" + query)
+                .accept(APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isEqualTo(expectedStatus)
+                .expectHeader().contentType(APPLICATION_JSON)
+                .expectBody();
+    }
+
+    private Review review(int productId, int reviewId) {
+        return new Review(productId, reviewId, "Author " + reviewId, "Subject " + reviewId, "Content " + reviewId, "SA");
+    }
+
     private WebTestClient.BodyContentSpec postAndVerifyReview(int productId, int reviewId, HttpStatus expectedStatus) {
-        Review review = new Review(productId, reviewId, "Author " + reviewId, "Subject " + reviewId, "Content " + reviewId, "SA");
+        Review review = review(productId, reviewId);
 
         return client.post()
                 .uri("/review")
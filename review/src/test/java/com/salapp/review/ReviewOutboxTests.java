@@ -0,0 +1,180 @@
+package com.salapp.review;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.salapp.api.core.review.Review;
+import com.salapp.api.event.Event;
+import com.salapp.review.repositories.OutboxRepository;
+import com.salapp.review.repositories.ReviewRepository;
+import com.salapp.util.outbox.InMemoryEventPublisher;
+import com.salapp.util.outbox.OutboxMessage;
+import com.salapp.util.outbox.OutboxRelay;
+import com.salapp.util.outbox.OutboxStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static com.salapp.api.event.Event.Type.CREATE;
+import static com.salapp.api.event.Event.Type.DELETE;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.http.HttpStatus.OK;
+import static org.springframework.http.HttpStatus.UNPROCESSABLE_ENTITY;
+import static org.springframework.http.MediaType.APPLICATION_JSON;
+import static reactor.core.publisher.Mono.just;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:mem:review-outbox-db",
+        "app.outbox.enabled=true",
+        "app.outbox.binding=in-memory",
+        // the tests relay themselves
+        "app.outbox.poll-interval=1h"
+})
+class ReviewOutboxTests {
+
+    private static final String TOPIC = "reviews";
+
+    @Autowired
+    private WebTestClient client;
+
+    @Autowired
+    private ReviewRepository repository;
+
+    @Autowired
+    private OutboxRepository outboxRepository;
+
+    @Autowired
+    private OutboxStore outbox;
+
+    @Autowired
+    private OutboxRelay relay;
+
+    @Autowired
+    private InMemoryEventPublisher publisher;
+
+    @Autowired
+    private ObjectMapper mapper;
+
+    @BeforeEach
+    void setupDB() {
+        repository.deleteAll();
+        outboxRepository.deleteAll();
+        publisher.clear();
+    }
+
+    @Test
+    void createdAndDeletedReviewsArePublished() {
+        postAndVerifyReview(1, 1, OK);
+        postAndVerifyReview(1, 2, OK);
+        deleteReviews(1);
+
+        assertThat(outboxRepository.count()).isEqualTo(3);
+        assertThat(relay.relayPending()).isEqualTo(3);
+        assertThat(outboxRepository.count()).isZero();
+
+        List<Event<Integer, Review>> events = published();
+        assertThat(events).extracting(Event::getEventType).containsExactly(CREATE, CREATE, DELETE);
+        assertThat(events).extracting(Event::getKey).containsOnly(1);
+        assertThat(events.get(1).getData().getReviewId()).isEqualTo(2);
+        assertThat(events.get(1).getData().getContent()).isEqualTo("Content 2");
+        assertThat(events.get(1).getData().getVersion()).isZero();
+        assertThat(events.get(2).getData()).isNull();
+        assertThat(events.get(0).getEventCreatedAt()).isNotNull();
+    }
+
+    @Test
+    void failedWritesAreNotPublished() {
+        postAndVerifyReview(1, 1, OK);
+        postAndVerifyReview(1, 1, UNPROCESSABLE_ENTITY);
+        // nothing to delete
+        deleteReviews(2);
+
+        assertThat(outboxRepository.count()).isEqualTo(1);
+    }
+
+    @Test
+    void onlyCreatedReviewsOfABulkRequestArePublished() {
+        postAndVerifyReview(1, 2, OK);
+
+        client.post()
+                .uri("/review/bulk")
+                .contentType(APPLICATION_JSON)
+                .bodyValue(Arrays.asList(review(1, 1), review(1, 2), review(1, 3), review(1, 1)))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.created").isEqualTo(2);
+
+        relay.relayPending();
+
+        assertThat(published()).extracting(event -> event.getData().getReviewId()).containsExactlyInAnyOrder(2, 1, 3);
+    }
+
+    @Test
+    void undeliveredEventsStayInTheOutbox() {
+        postAndVerifyReview(1, 1, OK);
+
+        OutboxRelay failing = new OutboxRelay(outbox, (topic, messages) -> {
+            throw new IllegalStateException("broker down");
+        }, new SimpleMeterRegistry(), 100, Duration.ofHours(1));
+
+        assertThat(failing.relayPending()).isZero();
+        assertThat(outboxRepository.count()).isEqualTo(1);
+
+        assertThat(relay.relayPending()).isEqualTo(1);
+        assertThat(published()).hasSize(1);
+    }
+
+    @Test
+    void relaysInBatches() {
+        for (int reviewId = 1; reviewId <= 5; reviewId++) {
+            postAndVerifyReview(1, reviewId, OK);
+        }
+
+        OutboxRelay smallBatches = new OutboxRelay(outbox, publisher, new SimpleMeterRegistry(), 2, Duration.ofHours(1));
+
+        assertThat(smallBatches.relayPending()).isEqualTo(5);
+        assertThat(published()).extracting(event -> event.getData().getReviewId()).containsExactly(1, 2, 3, 4, 5);
+    }
+
+    private List<Event<Integer, Review>> published() {
+        return publisher.messages(TOPIC).stream()
+                .map(OutboxMessage::getPayload)
+                .map(payload -> {
+                    try {
+                        return mapper.readValue(payload, new TypeReference<Event<Integer, Review>>() {});
+                    } catch (Exception e) {
+                        throw new AssertionError(e);
+                    }
+                })
+                .collect(Collectors.toList());
+    }
+
+    private Review review(int productId, int reviewId) {
+        return new Review(productId, reviewId, "Author " + reviewId, "Subject " + reviewId, "Content " + reviewId, "SA");
+    }
+
+    private void postAndVerifyReview(int productId, int reviewId, HttpStatus expectedStatus) {
+        client.post()
+                .uri("/review")
+                .body(just(review(productId, reviewId)), Review.class)
+                .accept(APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isEqualTo(expectedStatus);
+    }
+
+    private void deleteReviews(int productId) {
+        client.delete()
+                .uri("/review?productId=" + productId)
+                .exchange()
+                .expectStatus().isOk();
+    }
+}
@@ -3,22 +3,32 @@ package com.salapp.review.repositories;
 import com.salapp.review.model.ReviewEntity;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import javax.persistence.EntityManagerFactory;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
 
 
-@DataJpaTest
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
 @AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
 @Transactional(propagation = Propagation.NOT_SUPPORTED)
 class PersistenceTests {
@@ -26,6 +36,9 @@ class PersistenceTests {
     @Autowired
     private ReviewRepository repository;
 
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
     private ReviewEntity savedEntity;
 
     @BeforeEach
@@ -71,6 +84,26 @@ class PersistenceTests {
         Assertions.assertFalse(repository.existsById(savedEntity.getId()));
     }
 
+    @ParameterizedTest
+    @ValueSource(ints = {1, 10, 100})
+    void deleteByProductIdIsOneStatement(int reviews) {
+        int productId = 10;
+        List<ReviewEntity> entities = IntStream.rangeClosed(1, reviews)
+                .mapToObj(reviewId -> new ReviewEntity(productId, reviewId, "a", "s", "c"))
+                .collect(Collectors.toList());
+        repository.saveAll(entities);
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        Assertions.assertEquals(reviews, repository.deleteByProductId(productId));
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(statistics.getEntityLoadCount()).isZero();
+        assertThat(repository.findByProductId(productId)).isEmpty();
+        assertThat(repository.findByProductId(savedEntity.getProductId())).hasSize(1);
+    }
+
     @Test
     void getByProductId() {
         List<ReviewEntity> entityList = repository.findByProductId(savedEntity.getProductId());
@@ -79,6 +112,62 @@ class PersistenceTests {
         assertEqualsReview(savedEntity, entityList.get(0));
     }
 
+    @Test
+    void getByProductIds() {
+        repository.save(new ReviewEntity(1, 3, "a", "s", "c"));
+        repository.save(new ReviewEntity(2, 1, "a", "s", "c"));
+        repository.save(new ReviewEntity(3, 1, "a", "s", "c"));
+
+        List<ReviewEntity> entityList = repository.findByProductIdIn(Arrays.asList(1, 3, 4));
+
+        assertThat(entityList).extracting(ReviewEntity::getProductId).containsExactlyInAnyOrder(1, 1, 3);
+    }
+
+    @Test
+    void getPagesByProductId() {
+        for (int reviewId = 3; reviewId <= 6; reviewId++) {
+            repository.save(new ReviewEntity(1, reviewId, "a", "s", "c"));
+        }
+        repository.save(new ReviewEntity(2, 1, "a", "s", "c"));
+
+        List<ReviewEntity> firstPage = repository.findByProductIdOrderByReviewIdAsc(1, PageRequest.of(0, 2));
+        List<ReviewEntity> secondPage = repository.findByProductIdAndReviewIdGreaterThanOrderByReviewIdAsc(1, 3, PageRequest.of(0, 2));
+        List<ReviewEntity> lastPage = repository.findByProductIdAndReviewIdGreaterThanOrderByReviewIdAsc(1, 5, PageRequest.of(0, 2));
+
+        assertThat(firstPage).extracting(ReviewEntity::getReviewId).containsExactly(2, 3);
+        assertThat(secondPage).extracting(ReviewEntity::getReviewId).containsExactly(4, 5);
+        assertThat(lastPage).extracting(ReviewEntity::getReviewId).containsExactly(6);
+    }
+
+    @Test
+    void getFirstIdsByProductIds() {
+        for (int reviewId = 3; reviewId <= 6; reviewId++) {
+            repository.save(new ReviewEntity(1, reviewId, "a", "s", "c"));
+        }
+        repository.save(new ReviewEntity(2, 1, "a", "s", "c"));
+        repository.save(new ReviewEntity(3, 1, "a", "s", "c"));
+
+        List<Integer> ids = repository.findFirstIdsByProductIdIn(Arrays.asList(1, 2, 4), 2);
+
+        assertThat(repository.findByIdInOrderByProductIdAscReviewIdAsc(ids))
+                .extracting(ReviewEntity::getProductId, ReviewEntity::getReviewId)
+                .containsExactly(tuple(1, 2), tuple(1, 3), tuple(2, 1));
+        assertThat(repository.findHeadersByIdInOrderByProductIdAscReviewIdAsc(ids)).extracting(ReviewHeader::getReviewId).containsExactly(2, 3, 1);
+    }
+
+    @Test
+    void getHeadersByProductId() {
+        repository.save(new ReviewEntity(1, 3, "a", "s", "c"));
+        repository.save(new ReviewEntity(2, 1, "a", "s", "c"));
+
+        List<ReviewHeader> headers = repository.findHeadersByProductId(1);
+        List<ReviewHeader> page = repository.findHeadersByProductIdAndReviewIdGreaterThanOrderByReviewIdAsc(1, 2, PageRequest.of(0, 2));
+
+        assertThat(headers).containsExactlyInAnyOrder(new ReviewHeader(1, 2, "a", "s", 0), new ReviewHeader(1, 3, "a", "s", 0));
+        assertThat(page).extracting(ReviewHeader::getReviewId).containsExactly(3);
+        assertThat(repository.findHeadersByProductIdIn(Arrays.asList(1, 2))).hasSize(3);
+    }
+
     @Test
     void duplicateError() {
         ReviewEntity entity = new ReviewEntity(1, 2, "a", "s", "c");
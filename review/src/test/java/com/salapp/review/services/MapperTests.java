@@ -28,6 +28,8 @@ class MapperTests {
         Assertions.assertEquals(api.getSubject(), entity.getSubject());
         Assertions.assertEquals(api.getContent(), entity.getContent());
 
+        entity.setVersion(3);
+
         Review api2 = mapper.entityToApi(entity);
 
         Assertions.assertEquals(api.getProductId(), api2.getProductId());
@@ -36,6 +38,7 @@ class MapperTests {
         Assertions.assertEquals(api.getSubject(), api2.getSubject());
         Assertions.assertEquals(api.getContent(), api2.getContent());
         Assertions.assertNull(api2.getServiceAddress());
+        Assertions.assertEquals(3, api2.getVersion());
     }
 
     @Test
@@ -0,0 +1,85 @@
+package com.salapp.review.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.salapp.api.core.View;
+import com.salapp.api.core.review.Review;
+import com.salapp.review.config.JpaSchedulerConfig;
+import com.salapp.review.model.ReviewEntity;
+import com.salapp.review.repositories.OutboxRepository;
+import com.salapp.review.repositories.ReviewRepository;
+import com.salapp.util.exceptions.ServiceUnavailableException;
+import com.salapp.util.http.ServiceUtil;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mapstruct.factory.Mappers;
+import org.springframework.util.unit.DataSize;
+import reactor.core.scheduler.Scheduler;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+class ReactiveReviewServiceImplTests {
+
+    private static final int PRODUCT_ID = 1;
+
+    private final ReviewRepository repository = mock(ReviewRepository.class);
+    private final MeterRegistry registry = new SimpleMeterRegistry();
+    private final CountDownLatch slowDatabase = new CountDownLatch(1);
+
+    private Scheduler jpaScheduler;
+    private ReactiveReviewServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        jpaScheduler = JpaSchedulerConfig.createScheduler(registry, 1, 1);
+        ReviewMapper mapper = Mappers.getMapper(ReviewMapper.class);
+        ReviewListCache listCache = new ReviewListCache(registry, DataSize.ofMegabytes(1), Duration.ofMinutes(1));
+        ReviewWriter writer = new ReviewWriter(repository, mapper, new ReviewOutbox(mock(OutboxRepository.class), new ObjectMapper(), false), listCache);
+        service = new ReactiveReviewServiceImpl(repository, mapper, new ServiceUtil("7003"), jpaScheduler,
+                writer, new ReviewBulkWriter(repository, writer), listCache, 100, 500);
+
+        when(repository.findByProductId(PRODUCT_ID)).thenAnswer(invocation -> {
+            slowDatabase.await(5, TimeUnit.SECONDS);
+            return Collections.singletonList(new ReviewEntity(PRODUCT_ID, 1, "a", "s", "c"));
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        slowDatabase.countDown();
+        jpaScheduler.dispose();
+    }
+
+    @Test
+    void getReviewsRunsOnJpaScheduler() {
+        slowDatabase.countDown();
+
+        List<Review> reviews = service.getReviews(PRODUCT_ID, View.FULL).collectList().block();
+
+        Assertions.assertNotNull(reviews);
+        assertThat(reviews).hasSize(1);
+        verify(repository).findByProductId(PRODUCT_ID);
+    }
+
+    @Test
+    void getReviewsRejectedWhenQueueIsFull() {
+        // the only thread and the only queue slot are taken
+        service.getReviews(PRODUCT_ID, View.FULL).subscribe();
+        service.getReviews(PRODUCT_ID, View.FULL).subscribe();
+
+        Assertions.assertThrows(ServiceUnavailableException.class, () -> service.getReviews(PRODUCT_ID, View.FULL).blockLast());
+
+        assertThat(registry.get("executor.rejected").tag("name", "jpa").counter().count()).isEqualTo(1);
+        assertThat(registry.get("executor.queued").tag("name", "jpa").gauge().value()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,114 @@
+package com.salapp.review.services;
+
+import com.salapp.api.core.View;
+import com.salapp.api.core.review.Review;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ReviewListCacheTests {
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    private final ReviewListCache cache = new ReviewListCache(new SimpleMeterRegistry(), DataSize.ofKilobytes(64), Duration.ofMinutes(1));
+
+    @Test
+    void loadsAListOncePerView() {
+        cache.get(1, View.FULL, () -> load(1, 3));
+        cache.get(1, View.FULL, () -> load(1, 3));
+        cache.get(1, View.SUMMARY, () -> load(1, 3));
+
+        assertThat(loads).hasValue(2);
+        assertThat(cache.getIfPresent(1, View.FULL)).hasSize(3);
+        assertThat(cache.getIfPresent(2, View.FULL)).isNull();
+    }
+
+    @Test
+    void cachedListsCannotBeChanged() {
+        List<Review> loaded = load(1, 3);
+        List<Review> cached = cache.get(1, View.FULL, () -> loaded);
+        loaded.clear();
+
+        assertThat(cached).hasSize(3);
+        assertThatThrownBy(() -> cached.add(review(1, 4))).isInstanceOf(UnsupportedOperationException.class);
+    }
+
+    @Test
+    void invalidateDropsEveryViewOfTheProduct() {
+        cache.get(1, View.FULL, () -> load(1, 3));
+        cache.get(1, View.SUMMARY, () -> load(1, 3));
+        cache.get(2, View.FULL, () -> load(2, 3));
+
+        cache.invalidate(1);
+
+        assertThat(cache.getIfPresent(1, View.FULL)).isNull();
+        assertThat(cache.getIfPresent(1, View.SUMMARY)).isNull();
+        assertThat(cache.getIfPresent(2, View.FULL)).isNotNull();
+    }
+
+    @Test
+    void firstPagesAreCachedPerSizeApartFromTheList() {
+        cache.get(1, View.FULL, () -> load(1, 5));
+        cache.getFirstPage(1, View.FULL, 2, () -> load(1, 3));
+        cache.getFirstPage(1, View.FULL, 2, () -> load(1, 3));
+        cache.getFirstPage(1, View.FULL, 3, () -> load(1, 4));
+
+        assertThat(loads).hasValue(3);
+        assertThat(cache.getIfPresent(1, View.FULL)).hasSize(5);
+        assertThat(cache.getFirstPageIfPresent(1, View.FULL, 2)).hasSize(3);
+        assertThat(cache.getFirstPageIfPresent(1, View.SUMMARY, 2)).isNull();
+    }
+
+    @Test
+    void invalidateDropsTheFirstPagesOfEverySize() {
+        cache.getFirstPage(1, View.FULL, 2, () -> load(1, 3));
+        cache.getFirstPage(1, View.SUMMARY, 5, () -> load(1, 3));
+        cache.getFirstPage(2, View.FULL, 2, () -> load(2, 3));
+
+        cache.invalidate(1);
+
+        assertThat(cache.getFirstPageIfPresent(1, View.FULL, 2)).isNull();
+        assertThat(cache.getFirstPageIfPresent(1, View.SUMMARY, 5)).isNull();
+        assertThat(cache.getFirstPageIfPresent(2, View.FULL, 2)).isNotNull();
+    }
+
+    @Test
+    void weighGrowsWithTheContent() {
+        List<Review> small = load(1, 10);
+        List<Review> large = load(1, 1000);
+
+        assertThat(ReviewListCache.weigh(new ArrayList<>())).isPositive();
+        assertThat(ReviewListCache.weigh(large)).isGreaterThan(50 * ReviewListCache.weigh(small));
+    }
+
+    @Test
+    void isBoundedByTheSizeOfTheLists() {
+        // about 200 bytes per review, 64KB hold a few hundred
+        for (int productId = 1; productId <= 100; productId++) {
+            int id = productId;
+            cache.get(id, View.FULL, () -> load(id, 50));
+        }
+
+        long cached = IntStream.rangeClosed(1, 100).filter(productId -> cache.getIfPresent(productId, View.FULL) != null).count();
+        assertThat(cached).isLessThan(20);
+    }
+
+    private List<Review> load(int productId, int count) {
+        loads.incrementAndGet();
+        return IntStream.rangeClosed(1, count).mapToObj(reviewId -> review(productId, reviewId)).collect(Collectors.toList());
+    }
+
+    private Review review(int productId, int reviewId) {
+        return new Review(productId, reviewId, "Author " + reviewId, "Subject " + reviewId, "Content " + reviewId, "SA");
+    }
+}
@@ -2,6 +2,7 @@ package com.salapp.util.http;
 
 import com.salapp.util.exceptions.InvalidInputException;
 import com.salapp.util.exceptions.NotFoundException;
+import com.salapp.util.exceptions.ServiceUnavailableException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpStatus;
@@ -31,6 +32,13 @@ public class GlobalControllerExceptionHandler {
         return createHttpErrorInfo(UNPROCESSABLE_ENTITY, request, e);
     }
 
+    @ResponseStatus(SERVICE_UNAVAILABLE)
+    @ExceptionHandler(ServiceUnavailableException.class)
+    public @ResponseBody
+    HttpErrorInfo handleServiceUnavailableException(ServerHttpRequest request, Exception e) {
+        return createHttpErrorInfo(SERVICE_UNAVAILABLE, request, e);
+    }
+
     private HttpErrorInfo createHttpErrorInfo(HttpStatus httpStatus, ServerHttpRequest request, Exception e) {
         final String path = request.getPath().pathWithinApplication().value();
         final String message = e.getMessage();
@@ -0,0 +1,30 @@
+package com.salapp.util.http;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+import static com.salapp.util.http.ServiceUtil.SERVICE_ADDRESS_HEADER;
+
+/**
+ * Sends the address of the service once per response, see {@link ServiceUtil}.
+ */
+@Component
+public class ServiceAddressHeaderFilter implements WebFilter {
+
+    private final ServiceUtil serviceUtil;
+
+    @Autowired
+    public ServiceAddressHeaderFilter(ServiceUtil serviceUtil) {
+        this.serviceUtil = serviceUtil;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        exchange.getResponse().getHeaders().set(SERVICE_ADDRESS_HEADER, serviceUtil.getServiceAddress());
+        return chain.filter(exchange);
+    }
+}
@@ -9,41 +9,54 @@ import org.springframework.stereotype.Component;
 import java.net.InetAddress;
 import java.net.UnknownHostException;
 
+/**
+ * The address of this service instance, host name/IP address:port. It is resolved once, when the service starts, a
+ * slow DNS lookup then delays the startup instead of the first requests.
+ * <p>
+ * Every response carries the address in the {@value #SERVICE_ADDRESS_HEADER} header, see
+ * {@link ServiceAddressHeaderFilter}. With {@code app.service-address.per-element=false} the core services leave it
+ * out of the returned products, recommendations and reviews, which all carry the same string otherwise.
+ */
 @Component
 public class ServiceUtil {
     private static final Logger LOG = LoggerFactory.getLogger(ServiceUtil.class);
 
-    private final String port;
+    public static final String SERVICE_ADDRESS_HEADER = "X-Service-Address";
 
-    private String serviceAddress = null;
+    private final String serviceAddress;
+
+    private final boolean perElement;
+
+    public ServiceUtil(String port) {
+        this(port, true);
+    }
 
     @Autowired
-    public ServiceUtil(@Value("${server.port}") String port) {
-        this.port = port;
+    public ServiceUtil(
+            @Value("${server.port}") String port,
+            @Value("${app.service-address.per-element:true}") boolean perElement) {
+        this.serviceAddress = findMyAddress() + ":" + port;
+        this.perElement = perElement;
+        LOG.debug("Service address: {}, sent in every element: {}", serviceAddress, perElement);
     }
 
     public String getServiceAddress() {
-        if (serviceAddress == null) {
-            serviceAddress = findMyHostName() + "/" + findMyIpAddress() + ":" + port;
-            LOG.debug(serviceAddress);
-        }
-
         return serviceAddress;
     }
 
-    private String findMyIpAddress() {
-        try {
-            return InetAddress.getLocalHost().getHostAddress();
-        } catch (UnknownHostException e) {
-            return "unknown IP address";
-        }
+    /**
+     * @return the address to set on every returned element, null when it is only sent in the response header
+     */
+    public String getElementServiceAddress() {
+        return perElement ? serviceAddress : null;
     }
 
-    private String findMyHostName() {
+    private static String findMyAddress() {
         try {
-            return InetAddress.getLocalHost().getHostName();
+            InetAddress localHost = InetAddress.getLocalHost();
+            return localHost.getHostName() + "/" + localHost.getHostAddress();
         } catch (UnknownHostException e) {
-            return "unknown host name";
+            return "unknown host name/unknown IP address";
         }
     }
 }
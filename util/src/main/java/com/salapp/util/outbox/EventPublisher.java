@@ -0,0 +1,15 @@
+package com.salapp.util.outbox;
+
+import java.util.List;
+
+/**
+ * Delivers relayed events to their consumers. Chosen with {@code app.outbox.binding}, see {@link OutboxConfig}.
+ */
+public interface EventPublisher {
+
+    /**
+     * Delivers the messages of one topic in the given order. When this throws, none of them count as delivered and they
+     * are offered again.
+     */
+    void publish(String topic, List<OutboxMessage> messages);
+}
@@ -0,0 +1,46 @@
+package com.salapp.util.outbox;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Posts the messages of a topic as one JSON array to {@code <url>/<topic>}, e.g. the event endpoints of the product
+ * composite. Runs on the relay thread, so it waits for the answer.
+ */
+public class HttpEventPublisher implements EventPublisher {
+
+    private static final Logger LOG = LoggerFactory.getLogger(HttpEventPublisher.class);
+
+    private final WebClient webClient;
+    private final String url;
+    private final Duration timeout;
+
+    public HttpEventPublisher(WebClient webClient, String url, Duration timeout) {
+        this.webClient = webClient;
+        this.url = url;
+        this.timeout = timeout;
+
+        LOG.info("Publishes events to {}", url);
+    }
+
+    @Override
+    public void publish(String topic, List<OutboxMessage> messages) {
+        String body = messages.stream()
+                .map(OutboxMessage::getPayload)
+                .collect(Collectors.joining(",", "[", "]"));
+
+        webClient.post()
+                .uri(url + "/" + topic)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(body)
+                .retrieve()
+                .toBodilessEntity()
+                .block(timeout);
+    }
+}
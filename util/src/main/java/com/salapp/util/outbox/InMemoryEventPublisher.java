@@ -0,0 +1,36 @@
+package com.salapp.util.outbox;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps the published messages in memory per topic instead of delivering them, for tests.
+ */
+public class InMemoryEventPublisher implements EventPublisher {
+
+    private final Map<String, List<OutboxMessage>> topics = new ConcurrentHashMap<>();
+
+    @Override
+    public void publish(String topic, List<OutboxMessage> messages) {
+        List<OutboxMessage> published = topics.computeIfAbsent(topic, t -> new ArrayList<>());
+        synchronized (published) {
+            published.addAll(messages);
+        }
+    }
+
+    /**
+     * @return the messages published to the topic so far, in the order they were published
+     */
+    public List<OutboxMessage> messages(String topic) {
+        List<OutboxMessage> published = topics.getOrDefault(topic, new ArrayList<>());
+        synchronized (published) {
+            return new ArrayList<>(published);
+        }
+    }
+
+    public void clear() {
+        topics.clear();
+    }
+}
@@ -0,0 +1,49 @@
+package com.salapp.util.outbox;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.time.Duration;
+
+/**
+ * Relays the outbox of a core service when {@code app.outbox.enabled} is set. The service provides the
+ * {@link OutboxStore}, {@code app.outbox.binding} picks the {@link EventPublisher}: http posts the events to
+ * {@code app.outbox.http.url}, in-memory keeps them in an {@link InMemoryEventPublisher} for tests.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.outbox.enabled", havingValue = "true")
+public class OutboxConfig {
+
+    @Bean
+    @ConditionalOnProperty(name = "app.outbox.binding", havingValue = "http", matchIfMissing = true)
+    public EventPublisher httpEventPublisher(
+            WebClient.Builder webClientBuilder,
+            @Value("${app.outbox.http.url}") String url,
+            @Value("${app.outbox.http.timeout:5s}") Duration timeout) {
+
+        return new HttpEventPublisher(webClientBuilder.build(), url, timeout);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "app.outbox.binding", havingValue = "in-memory")
+    public InMemoryEventPublisher inMemoryEventPublisher() {
+        return new InMemoryEventPublisher();
+    }
+
+    @Bean(initMethod = "start", destroyMethod = "stop")
+    public OutboxRelay outboxRelay(
+            OutboxStore store,
+            EventPublisher publisher,
+            ObjectProvider<MeterRegistry> registry,
+            @Value("${app.outbox.batch-size:100}") int batchSize,
+            @Value("${app.outbox.poll-interval:1s}") Duration pollInterval) {
+
+        return new OutboxRelay(store, publisher, registry.getIfAvailable(SimpleMeterRegistry::new), batchSize, pollInterval);
+    }
+}
@@ -0,0 +1,48 @@
+package com.salapp.util.outbox;
+
+import java.time.Instant;
+
+/**
+ * An event written to the outbox of a core service, already serialized. The relay hands the payload on as it is.
+ */
+public class OutboxMessage {
+
+    private final String id;
+    private final String topic;
+    private final int key;
+    private final String payload;
+    private final Instant createdAt;
+
+    /**
+     * @param id      identifies the message in its store, used to delete it once relayed
+     * @param key     the productId the event is about
+     * @param payload the event as JSON
+     */
+    public OutboxMessage(String id, String topic, int key, String payload, Instant createdAt) {
+        this.id = id;
+        this.topic = topic;
+        this.key = key;
+        this.payload = payload;
+        this.createdAt = createdAt;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getTopic() {
+        return topic;
+    }
+
+    public int getKey() {
+        return key;
+    }
+
+    public String getPayload() {
+        return payload;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+}
@@ -0,0 +1,102 @@
+package com.salapp.util.outbox;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Moves the events of an {@link OutboxStore} to an {@link EventPublisher}. Every poll drains the outbox in batches, a
+ * batch is published one topic at a time and deleted from the store once published.
+ * <p>
+ * Delivery is at least once: a batch that was published but could not be deleted is published again on the next poll.
+ * A failed batch stays in the store and ends the poll, the next poll starts over with it, so the relay publishes in the
+ * order the store returns. That is not the order of the changes: a transaction that commits late can add a message
+ * older than ones already relayed, and a store without transactions may lose one. Consumers therefore rely on the
+ * version and creation time in the events of a product, not on their order, to skip repeats and late arrivals.
+ * <p>
+ * Metrics: outbox.relayed and outbox.relay.failures.
+ */
+public class OutboxRelay {
+
+    private static final Logger LOG = LoggerFactory.getLogger(OutboxRelay.class);
+
+    private final OutboxStore store;
+    private final EventPublisher publisher;
+    private final int batchSize;
+    private final Duration pollInterval;
+
+    private final Counter relayed;
+    private final Counter failures;
+
+    private ScheduledExecutorService executor;
+
+    public OutboxRelay(OutboxStore store, EventPublisher publisher, MeterRegistry registry, int batchSize, Duration pollInterval) {
+        this.store = store;
+        this.publisher = publisher;
+        this.batchSize = batchSize;
+        this.pollInterval = pollInterval;
+
+        this.relayed = Counter.builder("outbox.relayed")
+                .description("Events relayed from the outbox")
+                .register(registry);
+        this.failures = Counter.builder("outbox.relay.failures")
+                .description("Polls of the outbox that ended in an error")
+                .register(registry);
+    }
+
+    public synchronized void start() {
+        LOG.info("Relays the outbox every {} in batches of {}", pollInterval, batchSize);
+
+        executor = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("outbox-relay-"));
+        executor.scheduleWithFixedDelay(this::relayPending, pollInterval.toMillis(), pollInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized void stop() {
+        if (executor != null) executor.shutdownNow();
+    }
+
+    /**
+     * Relays batches until the outbox is empty or a batch fails. Called by the relay thread on every poll, tests call
+     * it directly.
+     *
+     * @return the number of events relayed
+     */
+    public synchronized int relayPending() {
+        int count = 0;
+        try {
+            List<OutboxMessage> batch;
+            do {
+                batch = store.findOldest(batchSize);
+                count += relay(batch);
+            } while (batch.size() == batchSize);
+        } catch (RuntimeException e) {
+            failures.increment();
+            LOG.warn("Could not relay the outbox, {} events relayed before the error: {}", count, e.getMessage());
+        }
+        return count;
+    }
+
+    private int relay(List<OutboxMessage> batch) {
+        Map<String, List<OutboxMessage>> topics = new LinkedHashMap<>();
+        batch.forEach(message -> topics.computeIfAbsent(message.getTopic(), topic -> new ArrayList<>()).add(message));
+
+        topics.forEach((topic, messages) -> {
+            publisher.publish(topic, messages);
+            store.delete(messages);
+            relayed.increment(messages.size());
+            LOG.debug("Relayed {} events to {}", messages.size(), topic);
+        });
+        return batch.size();
+    }
+}
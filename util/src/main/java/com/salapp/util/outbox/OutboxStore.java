@@ -0,0 +1,20 @@
+package com.salapp.util.outbox;
+
+import java.util.List;
+
+/**
+ * The outbox of a core service, a table or collection its events are written to in the same transaction as the change
+ * they describe, where the database allows it. Read and cleaned up by the {@link OutboxRelay}.
+ */
+public interface OutboxStore {
+
+    /**
+     * @return at most limit messages that have not been relayed yet, oldest first among those committed so far
+     */
+    List<OutboxMessage> findOldest(int limit);
+
+    /**
+     * Removes messages once they have been relayed.
+     */
+    void delete(List<OutboxMessage> messages);
+}
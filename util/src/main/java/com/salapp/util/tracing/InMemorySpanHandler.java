@@ -0,0 +1,50 @@
+package com.salapp.util.tracing;
+
+import brave.handler.MutableSpan;
+import brave.handler.SpanHandler;
+import brave.propagation.TraceContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps the finished spans in memory instead of reporting them to a collector. Registered as a bean, e.g. with
+ * {@code @Import(InMemorySpanHandler.class)} in a test, it receives every sampled span, set
+ * spring.sleuth.sampler.probability to 1.0 to sample them all.
+ */
+public class InMemorySpanHandler extends SpanHandler {
+
+    private final List<MutableSpan> spans = new CopyOnWriteArrayList<>();
+
+    @Override
+    public boolean end(TraceContext context, MutableSpan span, Cause cause) {
+        if (cause != Cause.ABANDONED) {
+            spans.add(span);
+        }
+        return true;
+    }
+
+    public List<MutableSpan> spans() {
+        return new ArrayList<>(spans);
+    }
+
+    /**
+     * @return the finished spans with this name, in the order they finished
+     */
+    public List<MutableSpan> spans(String name) {
+        return spans.stream().filter(span -> name.equals(span.name())).collect(Collectors.toList());
+    }
+
+    public List<MutableSpan> childrenOf(MutableSpan parent) {
+        return spans.stream()
+                .filter(span -> parent.traceId().equals(span.traceId()) && Objects.equals(parent.id(), span.parentId()))
+                .collect(Collectors.toList());
+    }
+
+    public void clear() {
+        spans.clear();
+    }
+}
@@ -0,0 +1,133 @@
+package com.salapp.util.tracing;
+
+import brave.Span;
+import brave.Tracer;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.domain.Slice;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Parameter;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * One span per repository call, named after the repository and the method, e.g. ReviewRepository.findByProductId.
+ * <p>
+ * The span is tagged with the productId, or the productIds of a batch call, taken from the method parameter of that
+ * name, and with result.size: the number of entities found or, for a delete, the number of entities deleted. Reactive
+ * repository methods get their span when the returned Mono or Flux is subscribed to, not when it is assembled.
+ */
+class RepositorySpanInterceptor implements MethodInterceptor {
+
+    static final String PRODUCT_ID = "productId";
+    static final String PRODUCT_IDS = "productIds";
+    static final String RESULT_SIZE = "result.size";
+
+    private final ObjectProvider<Tracer> tracerProvider;
+    private final String repositoryName;
+    private final Map<Method, Integer> productIdParameters = new ConcurrentHashMap<>();
+
+    private volatile Tracer tracer;
+
+    RepositorySpanInterceptor(ObjectProvider<Tracer> tracerProvider, Class<?> repositoryInterface) {
+        this.tracerProvider = tracerProvider;
+        this.repositoryName = repositoryInterface.getSimpleName();
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        Tracer tracer = tracer();
+        Method method = invocation.getMethod();
+        if (tracer == null || method.getDeclaringClass() == Object.class) {
+            return invocation.proceed();
+        }
+
+        Class<?> returnType = method.getReturnType();
+        if (Mono.class.isAssignableFrom(returnType)) {
+            Mono<?> result = (Mono<?>) invocation.proceed();
+            return Mono.defer(() -> {
+                Span span = startSpan(tracer, invocation);
+                return result
+                        .doOnSuccess(found -> span.tag(RESULT_SIZE, String.valueOf(sizeOf(found))))
+                        .doOnError(span::error)
+                        .doFinally(signal -> span.finish());
+            });
+        }
+        if (Flux.class.isAssignableFrom(returnType)) {
+            Flux<?> result = (Flux<?>) invocation.proceed();
+            return Flux.defer(() -> {
+                Span span = startSpan(tracer, invocation);
+                AtomicLong count = new AtomicLong();
+                return result
+                        .doOnNext(found -> count.incrementAndGet())
+                        .doOnComplete(() -> span.tag(RESULT_SIZE, String.valueOf(count.get())))
+                        .doOnError(span::error)
+                        .doFinally(signal -> span.finish());
+            });
+        }
+
+        Span span = startSpan(tracer, invocation);
+        try (Tracer.SpanInScope scope = tracer.withSpanInScope(span)) {
+            Object result = invocation.proceed();
+            span.tag(RESULT_SIZE, String.valueOf(sizeOf(result)));
+            return result;
+        } catch (Throwable e) {
+            span.error(e);
+            throw e;
+        } finally {
+            span.finish();
+        }
+    }
+
+    private Span startSpan(Tracer tracer, MethodInvocation invocation) {
+        Span span = tracer.nextSpan().name(repositoryName + "." + invocation.getMethod().getName());
+        int index = productIdParameter(invocation.getMethod());
+        if (index >= 0) {
+            Object productId = invocation.getArguments()[index];
+            span.tag(productId instanceof Collection ? PRODUCT_IDS : PRODUCT_ID, String.valueOf(productId));
+        }
+        return span.start();
+    }
+
+    /**
+     * @return the position of the productId or productIds parameter, -1 when the method has none
+     */
+    private int productIdParameter(Method method) {
+        return productIdParameters.computeIfAbsent(method, m -> {
+            Parameter[] parameters = m.getParameters();
+            for (int i = 0; i < parameters.length; i++) {
+                String name = parameters[i].getName();
+                if (PRODUCT_ID.equals(name) || PRODUCT_IDS.equals(name)) return i;
+            }
+            return -1;
+        });
+    }
+
+    private Tracer tracer() {
+        if (tracer == null) {
+            tracer = tracerProvider.getIfAvailable();
+        }
+        return tracer;
+    }
+
+    static long sizeOf(Object result) {
+        if (result == null) return 0;
+        if (result instanceof Collection) return ((Collection<?>) result).size();
+        if (result instanceof Slice) return ((Slice<?>) result).getNumberOfElements();
+        if (result instanceof Optional) return ((Optional<?>) result).isPresent() ? 1 : 0;
+        if (result instanceof Number) return ((Number) result).longValue();
+        if (result instanceof Iterable) {
+            long size = 0;
+            for (Object ignored : (Iterable<?>) result) size++;
+            return size;
+        }
+        return 1;
+    }
+}
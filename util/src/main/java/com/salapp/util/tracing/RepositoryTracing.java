@@ -0,0 +1,34 @@
+package com.salapp.util.tracing;
+
+import brave.Tracer;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+import org.springframework.stereotype.Component;
+
+/**
+ * Opens a span around every call to a Spring Data repository, see {@link RepositorySpanInterceptor}. The JPA and
+ * MongoDB repositories, blocking and reactive, are all created by a {@link RepositoryFactoryBeanSupport}, the
+ * interceptor is added to each proxy it creates.
+ */
+@Component
+public class RepositoryTracing implements BeanPostProcessor {
+
+    private final ObjectProvider<Tracer> tracer;
+
+    @Autowired
+    public RepositoryTracing(ObjectProvider<Tracer> tracer) {
+        this.tracer = tracer;
+    }
+
+    @Override
+    public Object postProcessBeforeInitialization(Object bean, String beanName) {
+        if (bean instanceof RepositoryFactoryBeanSupport) {
+            ((RepositoryFactoryBeanSupport<?, ?, ?>) bean).addRepositoryFactoryCustomizer(factory ->
+                    factory.addRepositoryProxyPostProcessor((proxyFactory, repository) ->
+                            proxyFactory.addAdvice(new RepositorySpanInterceptor(tracer, repository.getRepositoryInterface()))));
+        }
+        return bean;
+    }
+}